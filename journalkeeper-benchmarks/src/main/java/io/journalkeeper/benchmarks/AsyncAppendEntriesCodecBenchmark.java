@@ -0,0 +1,115 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.rpc.codec.AsyncAppendEntriesRequestCodec;
+import io.journalkeeper.rpc.codec.RpcTypes;
+import io.journalkeeper.rpc.header.JournalKeeperHeader;
+import io.journalkeeper.rpc.payload.GenericPayload;
+import io.journalkeeper.rpc.remoting.transport.command.Direction;
+import io.journalkeeper.rpc.server.AsyncAppendEntriesRequest;
+import io.journalkeeper.utils.test.ByteUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 复制请求 {@link AsyncAppendEntriesRequest} 的编解码性能。
+ * 编码写入池化的直接内存，解码直接引用接收缓冲区，和网络层的实际路径一致。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AsyncAppendEntriesCodecBenchmark {
+
+    @Param({"128", "1024", "4096"})
+    private int entrySize;
+
+    @Param({"1", "64", "1024"})
+    private int batchSize;
+
+    private final AsyncAppendEntriesRequestCodec codec = new AsyncAppendEntriesRequestCodec();
+    private JournalKeeperHeader header;
+    private GenericPayload<AsyncAppendEntriesRequest> payload;
+    private ByteBuf encodeBuffer;
+    private ByteBuf decodeBuffer;
+
+    @Setup
+    public void setup() throws Exception {
+        URI leader = URI.create("jk://localhost:50088");
+        header = new JournalKeeperHeader(JournalKeeperHeader.DEFAULT_VERSION, Direction.REQUEST,
+                RpcTypes.ASYNC_APPEND_ENTRIES_REQUEST, URI.create("jk://localhost:50089"));
+
+        JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+        byte[] payloadBytes = ByteUtils.createFixedSizeBytes(entrySize);
+        List<byte[]> entries = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            JournalEntry entry = journalEntryParser.createJournalEntry(payloadBytes);
+            entry.setTerm(1);
+            entries.add(entry.getSerializedBytes());
+        }
+        payload = new GenericPayload<>(
+                new AsyncAppendEntriesRequest(1, leader, 666L, 1, entries, 666L, 666L + batchSize));
+
+        encodeBuffer = PooledByteBufAllocator.DEFAULT.directBuffer();
+        decodeBuffer = PooledByteBufAllocator.DEFAULT.directBuffer();
+        codec.encode(payload, decodeBuffer, header);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encodeBuffer.release();
+        decodeBuffer.release();
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        encodeBuffer.clear();
+        codec.encode(payload, encodeBuffer, header);
+        return encodeBuffer.writerIndex();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void decode(Blackhole blackhole) throws Exception {
+        decodeBuffer.readerIndex(0);
+        AsyncAppendEntriesRequest request =
+                ((GenericPayload<AsyncAppendEntriesRequest>) codec.decode(header, decodeBuffer)).getPayload();
+        blackhole.consume(request.getEntryBuffers());
+        request.release();
+    }
+}
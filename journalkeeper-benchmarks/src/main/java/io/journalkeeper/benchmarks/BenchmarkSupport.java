@@ -0,0 +1,74 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.utils.test.TestPathUtils;
+import io.journalkeeper.utils.threads.AsyncLoopThread;
+import io.journalkeeper.utils.threads.ThreadBuilder;
+import io.journalkeeper.utils.threads.Worker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 基准测试的公共方法
+ */
+final class BenchmarkSupport {
+    private static final Logger logger = LoggerFactory.getLogger(BenchmarkSupport.class);
+    private static final String BASE_DIR = "journalkeeper-benchmarks";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 在临时目录下创建一个空的工作目录，目录已存在时先删除
+     * @param name 目录名
+     * @return 工作目录
+     * @throws IOException 创建目录失败时抛出
+     */
+    static Path prepareDir(String name) throws IOException {
+        return TestPathUtils.prepareBaseDir(BASE_DIR + File.separator + name);
+    }
+
+    /**
+     * 删除工作目录
+     * @param path 工作目录
+     */
+    static void destroyDir(Path path) {
+        if (null != path) {
+            TestPathUtils.destroyBaseDir(path.toFile());
+        }
+    }
+
+    /**
+     * 创建并启动一个后台刷盘线程，避免写入时因脏数据过多被挂起
+     * @param name 线程名
+     * @param flush 刷盘方法
+     * @return 刷盘线程
+     */
+    static AsyncLoopThread startFlushThread(String name, Worker flush) {
+        AsyncLoopThread thread = ThreadBuilder.builder()
+                .name(name)
+                .doWork(flush)
+                .sleepTime(0L, 1L)
+                .onException(e -> logger.warn("{} exception: ", name, e))
+                .daemon(true)
+                .build();
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.core.api.ResponseConfig;
+import io.journalkeeper.core.api.UpdateRequest;
+import io.journalkeeper.journalstore.JournalStoreClient;
+import io.journalkeeper.journalstore.JournalStoreServer;
+import io.journalkeeper.utils.net.NetworkingUtils;
+import io.journalkeeper.utils.test.ByteUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端的写入性能：在同一个进程内启动3个节点的集群，
+ * 通过LEADER的 {@link io.journalkeeper.core.client.LocalClientRpc} 写入，
+ * 节点之间的复制仍然经过网络。
+ * 可以用 JMH 的 -t 参数增加并发写入的线程数。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClusterBenchmark {
+    private static final int NODES = 3;
+    // 每次请求写入的日志条数
+    private static final int BATCH_SIZE = 16;
+
+    @Param({"128", "1024", "4096"})
+    private int entrySize;
+
+    @Param({"1", "8"})
+    private int partitions;
+
+    @Param({"RECEIVE", "PERSISTENCE", "REPLICATION", "ALL"})
+    private ResponseConfig responseConfig;
+
+    private Path path;
+    private List<JournalStoreServer> servers;
+    private JournalStoreClient client;
+    private List<UpdateRequest> requests;
+
+    @Setup
+    public void setup() throws Exception {
+        path = BenchmarkSupport.prepareDir("cluster");
+        Set<Integer> partitionSet = new HashSet<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            partitionSet.add(i);
+        }
+
+        List<URI> uris = new ArrayList<>(NODES);
+        for (int i = 0; i < NODES; i++) {
+            uris.add(URI.create("jk://localhost:" + NetworkingUtils.findRandomOpenPortOnAllLocalInterfaces()));
+        }
+        servers = new ArrayList<>(NODES);
+        for (int i = 0; i < NODES; i++) {
+            Properties properties = new Properties();
+            properties.setProperty("working_dir", path.resolve("server" + i).toString());
+            properties.setProperty("snapshot_step", "0");
+            properties.setProperty("disable_logo", "true");
+            properties.setProperty("enable_events", "false");
+            JournalStoreServer server = new JournalStoreServer(properties);
+            servers.add(server);
+            server.init(uris.get(i), uris, partitionSet);
+            server.recover();
+            server.start();
+        }
+
+        // LocalClientRpc 只访问本地的节点，需要使用LEADER节点的客户端
+        JournalStoreClient anyClient = servers.get(0).createLocalClient();
+        anyClient.waitForClusterReady();
+        URI leader = null;
+        while (null == leader) {
+            leader = servers.get(0).getLocalAdminClient().getClusterConfiguration().get().getLeader();
+            if (null == leader) {
+                Thread.sleep(100L);
+            }
+        }
+        for (JournalStoreServer server : servers) {
+            if (leader.equals(server.serverUri())) {
+                client = server.createLocalClient();
+            }
+        }
+        if (null == client) {
+            throw new IllegalStateException("Leader " + leader + " not found in " + uris + "!");
+        }
+        client.waitForClusterReady();
+
+        byte[] entry = ByteUtils.createFixedSizeBytes(entrySize);
+        requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            requests.add(new UpdateRequest(entry, i % partitions, 1));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (null != servers) {
+            servers.forEach(JournalStoreServer::stop);
+        }
+        BenchmarkSupport.destroyDir(path);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Long> append() throws Exception {
+        return client.append(requests, false, responseConfig).get();
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.core.journal.Journal;
+import io.journalkeeper.core.journal.JournalSnapshot;
+import io.journalkeeper.persistence.BufferPool;
+import io.journalkeeper.persistence.PersistenceFactory;
+import io.journalkeeper.utils.spi.ServiceSupport;
+import io.journalkeeper.utils.test.ByteUtils;
+import io.journalkeeper.utils.threads.AsyncLoopThread;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Journal} 的写入、批量读取和提交性能。
+ * append 对应LEADER写入客户端请求，appendBatchRaw 对应FOLLOWER写入复制的日志，
+ * readRaw 对应LEADER读取待复制的日志，commit 对应提交时构建分区索引。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+    // 每批写入、读取和提交的日志条数
+    private static final int BATCH_SIZE = 1024;
+    // 读测试预先写入的日志条数
+    private static final int READ_ENTRIES = 64 * 1024;
+
+    @Param({"128", "1024", "4096"})
+    private int entrySize;
+
+    @Param({"1", "8"})
+    private int partitions;
+
+    private final JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+    private Path path;
+    private Journal journal;
+    private AsyncLoopThread flushThread;
+    private List<JournalEntry> entries;
+    private List<byte[]> rawEntries;
+    private long readIndex;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        path = BenchmarkSupport.prepareDir("journal");
+        journal = createJournal(path, partitions);
+        flushThread = BenchmarkSupport.startFlushThread("FlushJournalThread", journal::flush);
+
+        byte[] payload = ByteUtils.createFixedSizeBytes(entrySize);
+        entries = new ArrayList<>(BATCH_SIZE);
+        rawEntries = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            JournalEntry entry = journalEntryParser.createJournalEntry(payload);
+            entry.setTerm(1);
+            entry.setPartition(i % partitions);
+            entries.add(entry);
+            rawEntries.add(entry.getSerializedBytes());
+        }
+
+        while (journal.maxIndex() < READ_ENTRIES) {
+            journal.appendBatchRaw(rawEntries);
+        }
+        journal.commit(journal.maxIndex());
+        readIndex = journal.minIndex();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        flushThread.stop();
+        journal.close();
+        BenchmarkSupport.destroyDir(path);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long append() {
+        long maxIndex = 0L;
+        for (JournalEntry entry : entries) {
+            maxIndex = journal.append(entry);
+        }
+        return maxIndex;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long appendBatchRaw() {
+        return journal.appendBatchRaw(rawEntries);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<byte[]> readRaw() {
+        if (readIndex + BATCH_SIZE > journal.commitIndex()) {
+            readIndex = journal.minIndex();
+        }
+        List<byte[]> result = journal.readRaw(readIndex, BATCH_SIZE);
+        readIndex += result.size();
+        return result;
+    }
+
+    /**
+     * 每次写入一批日志再提交，统计的是写入加提交的吞吐量，
+     * 和 {@link #appendBatchRaw()} 的差值即为提交的开销。
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long appendAndCommit() throws IOException {
+        journal.appendBatchRaw(rawEntries);
+        journal.commit(journal.maxIndex());
+        return journal.commitIndex();
+    }
+
+    static Journal createJournal(Path path, int partitions) throws IOException {
+        PersistenceFactory persistenceFactory = ServiceSupport.load(PersistenceFactory.class);
+        BufferPool bufferPool = ServiceSupport.load(BufferPool.class);
+        Journal journal = new Journal(persistenceFactory, bufferPool, new DefaultJournalEntryParser());
+        Map<Integer, Long> partitionMinIndices = new HashMap<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            partitionMinIndices.put(i, 0L);
+        }
+        journal.recover(path, 0L, new EmptyJournalSnapshot(partitionMinIndices), new Properties());
+        return journal;
+    }
+
+    private static class EmptyJournalSnapshot implements JournalSnapshot {
+        private final Map<Integer, Long> partitionMinIndices;
+
+        EmptyJournalSnapshot(Map<Integer, Long> partitionMinIndices) {
+            this.partitionMinIndices = partitionMinIndices;
+        }
+
+        @Override
+        public long minIndex() {
+            return 0L;
+        }
+
+        @Override
+        public long minOffset() {
+            return 0L;
+        }
+
+        @Override
+        public Map<Integer, Long> partitionMinIndices() {
+            return partitionMinIndices;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.core.entry.JournalEntryParseSupport;
+import io.journalkeeper.utils.test.ByteUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志序列化、解析和校验的性能，基于 {@link JournalEntryParseSupport} 定义的日志格式。
+ * 带 Buffer 后缀的方法直接在 ByteBuffer 上解析，对应从接收缓冲区写入日志的路径。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JournalEntryParseBenchmark {
+
+    @Param({"128", "1024", "4096"})
+    private int entrySize;
+
+    private final JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+    private byte[] payload;
+    private byte[] rawEntry;
+    private byte[] headerBytes;
+    private ByteBuffer rawEntryBuffer;
+    private JournalEntry journalEntry;
+
+    @Setup
+    public void setup() {
+        payload = ByteUtils.createFixedSizeBytes(entrySize);
+        JournalEntry entry = journalEntryParser.createJournalEntry(payload);
+        entry.setTerm(1);
+        entry.setPartition(0);
+        rawEntry = entry.getSerializedBytes();
+        headerBytes = new byte[journalEntryParser.headerLength()];
+        System.arraycopy(rawEntry, 0, headerBytes, 0, headerBytes.length);
+        rawEntryBuffer = ByteBuffer.allocateDirect(rawEntry.length);
+        rawEntryBuffer.put(rawEntry).flip();
+        journalEntry = journalEntryParser.parse(rawEntry);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return journalEntryParser.createJournalEntry(payload).getSerializedBytes();
+    }
+
+    @Benchmark
+    public JournalEntry parse() {
+        return journalEntryParser.parse(rawEntry);
+    }
+
+    @Benchmark
+    public int parseHeader() {
+        return journalEntryParser.parseHeader(headerBytes).getTerm();
+    }
+
+    @Benchmark
+    public int parseHeaderBuffer() {
+        return journalEntryParser.parseHeader(rawEntryBuffer).getTerm();
+    }
+
+    @Benchmark
+    public long readTimestamp() {
+        return JournalEntryParseSupport.getLong(rawEntryBuffer, JournalEntryParseSupport.TIMESTAMP);
+    }
+
+    @Benchmark
+    public boolean verifyChecksum() {
+        return journalEntryParser.verifyChecksum(journalEntry);
+    }
+
+    @Benchmark
+    public boolean verifyChecksumBuffer() {
+        return journalEntryParser.verifyChecksum(rawEntryBuffer);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.utils.buffer.LockFreeRingBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LockFreeRingBuffer} 的性能，和LEADER回调队列的使用方式一致：
+ * 逐条放入，逐条取出或者一次取出全部。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LockFreeRingBufferBenchmark {
+    private static final int BATCH_SIZE = 256;
+
+    @Param({"1024", "65536"})
+    private int capacity;
+
+    private LockFreeRingBuffer<Long> buffer;
+    private final Long value = 666L;
+
+    @Setup
+    public void setup() {
+        buffer = new LockFreeRingBuffer<>(Long.class, capacity);
+    }
+
+    @Benchmark
+    public Long putRemove() {
+        buffer.put(value);
+        return buffer.remove();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Long[] putRemoveAll() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            buffer.put(value);
+        }
+        return buffer.removeAll();
+    }
+
+}
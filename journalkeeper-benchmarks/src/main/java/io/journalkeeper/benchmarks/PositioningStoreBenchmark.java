@@ -0,0 +1,112 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.persistence.local.journal.PositioningStore;
+import io.journalkeeper.utils.test.ByteUtils;
+import io.journalkeeper.utils.threads.AsyncLoopThread;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PositioningStore} 的写入和读取性能。
+ * 每轮迭代重新创建存储，避免磁盘占用随测试时间无限增长。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PositioningStoreBenchmark {
+    // 读测试预先写入的数据量
+    private static final long READ_BYTES = 64L * 1024 * 1024;
+
+    @Param({"128", "1024", "4096"})
+    private int entrySize;
+
+    private Path path;
+    private PositioningStore store;
+    private AsyncLoopThread flushThread;
+    private byte[] entry;
+    private ByteBuffer entryBuffer;
+    private long readStart;
+    private long readEnd;
+    private long readPosition;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        path = BenchmarkSupport.prepareDir("positioning-store");
+        store = new PositioningStore();
+        Properties properties = new Properties();
+        properties.setProperty("max_dirty_size", String.valueOf(128L * 1024 * 1024));
+        store.recover(path, 0L, properties);
+        flushThread = BenchmarkSupport.startFlushThread("FlushThread", store::flush);
+
+        entry = ByteUtils.createFixedSizeBytes(entrySize);
+        entryBuffer = ByteBuffer.allocateDirect(entrySize);
+        entryBuffer.put(entry).flip();
+
+        readStart = store.max();
+        while (store.max() - readStart < READ_BYTES) {
+            store.append(entry);
+        }
+        readEnd = store.max();
+        readPosition = readStart;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        flushThread.stop();
+        store.close();
+        BenchmarkSupport.destroyDir(path);
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        return store.append(entry);
+    }
+
+    @Benchmark
+    public long appendBuffer() throws IOException {
+        return store.append(entryBuffer.duplicate());
+    }
+
+    @Benchmark
+    public byte[] read() throws IOException {
+        if (readPosition + entrySize > readEnd) {
+            readPosition = readStart;
+        }
+        byte[] bytes = store.read(readPosition, entrySize);
+        readPosition += entrySize;
+        return bytes;
+    }
+}
@@ -21,11 +21,15 @@ import io.journalkeeper.coordinating.state.domain.StateTypes;
 import io.journalkeeper.coordinating.state.domain.WriteRequest;
 import io.journalkeeper.coordinating.state.domain.WriteResponse;
 import io.journalkeeper.core.serialize.WrappedRaftClient;
+import io.journalkeeper.utils.event.EventFilter;
+import io.journalkeeper.utils.event.EventType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
@@ -110,7 +114,9 @@ public class CoordinatingClient {
     }
 
     public void watch(byte[] key, CoordinatingEventListener listener) {
-        client.watch(new EventWatcherAdapter(key, listener));
+        // 在服务端按key过滤，只推送这个key的变更事件
+        client.watch(new EventWatcherAdapter(key, listener),
+                new EventFilter(Collections.singleton(EventType.ON_STATE_CHANGE), null, new String(key, StandardCharsets.UTF_8)));
     }
 
     public void unwatch(byte[] key, CoordinatingEventListener listener) {
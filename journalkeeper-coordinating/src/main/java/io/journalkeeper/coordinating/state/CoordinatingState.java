@@ -26,7 +26,9 @@ import io.journalkeeper.core.serialize.WrappedStateResult;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -64,6 +66,17 @@ public class CoordinatingState implements WrappedState<WriteRequest, WriteRespon
         return new WrappedStateResult<>(response, events);
     }
 
+    @Override
+    public List<WrappedStateResult<WriteResponse>> executeBatchAndNotify(List<WriteRequest> requests) {
+        List<WrappedStateResult<WriteResponse>> results = new ArrayList<>(requests.size());
+        kvStore.batch(() -> {
+            for (WriteRequest request : requests) {
+                results.add(executeAndNotify(request));
+            }
+        });
+        return results;
+    }
+
     @Override
     public WriteResponse execute(WriteRequest request) {
         return handler.handle(request);
@@ -74,6 +87,11 @@ public class CoordinatingState implements WrappedState<WriteRequest, WriteRespon
         return handler.handle(request);
     }
 
+    @Override
+    public boolean checkpoint(Path destPath) {
+        return kvStore.checkpoint(destPath);
+    }
+
     @Override
     public void close() {
         kvStore.close();
@@ -13,6 +13,7 @@
  */
 package io.journalkeeper.coordinating.state.store;
 
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -35,6 +36,24 @@ public interface KVStore {
 
     boolean compareAndSet(byte[] key, byte[] expect, byte[] update);
 
+    /**
+     * 批量写入，writes中执行的写操作合并为一次写入，
+     * writes中的读写操作可以读到之前的写入
+     * @param writes 写操作
+     */
+    default void batch(Runnable writes) {
+        writes.run();
+    }
+
+    /**
+     * 创建检查点，用于生成快照
+     * @param destPath 检查点的目录，调用时这个目录还不存在
+     * @return 成功创建检查点返回true，不支持返回false
+     */
+    default boolean checkpoint(Path destPath) {
+        return false;
+    }
+
     void close();
 
     void flush();
@@ -16,10 +16,14 @@ package io.journalkeeper.coordinating.state.store.rocksdb;
 import io.journalkeeper.coordinating.exception.CoordinatingException;
 import io.journalkeeper.coordinating.state.exception.CoordinatingStateException;
 import io.journalkeeper.coordinating.state.store.KVStore;
+import org.rocksdb.Checkpoint;
 import org.rocksdb.FlushOptions;
 import org.rocksdb.Options;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatchWithIndex;
+import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +50,8 @@ public class RocksDBKVStore implements KVStore {
     private Path path;
     private Properties properties;
     private RocksDB rocksDB;
+    // 批量写入时不为空，只在状态机的写线程中访问
+    private WriteBatchWithIndex writeBatch;
 
     public RocksDBKVStore(Path path, Properties properties) {
         this.path = path;
@@ -69,7 +75,11 @@ public class RocksDBKVStore implements KVStore {
     @Override
     public boolean set(byte[] key, byte[] value) {
         try {
-            rocksDB.put(key, value);
+            if (writeBatch != null) {
+                writeBatch.put(key, value);
+            } else {
+                rocksDB.put(key, value);
+            }
             return true;
         } catch (RocksDBException e) {
             throw new CoordinatingStateException(e);
@@ -102,6 +112,13 @@ public class RocksDBKVStore implements KVStore {
     @Override
     public boolean remove(byte[] key) {
         try {
+            if (writeBatch != null) {
+                if (getFromBatchAndDB(key) == null) {
+                    return false;
+                }
+                writeBatch.delete(key);
+                return true;
+            }
             if (!rocksDB.keyMayExist(key, STRING_BUILDER_CACHE)) {
                 return false;
             }
@@ -115,11 +132,50 @@ public class RocksDBKVStore implements KVStore {
     @Override
     public boolean compareAndSet(byte[] key, byte[] expect, byte[] update) {
         try {
-            byte[] current = rocksDB.get(key);
+            byte[] current = writeBatch != null ? getFromBatchAndDB(key) : rocksDB.get(key);
             if (current != null && !Objects.deepEquals(current, expect)) {
                 return false;
             }
-            rocksDB.put(key, update);
+            if (writeBatch != null) {
+                writeBatch.put(key, update);
+            } else {
+                rocksDB.put(key, update);
+            }
+            return true;
+        } catch (RocksDBException e) {
+            throw new CoordinatingStateException(e);
+        }
+    }
+
+    @Override
+    public void batch(Runnable writes) {
+        try (WriteBatchWithIndex batch = new WriteBatchWithIndex(true);
+             WriteOptions writeOptions = new WriteOptions()) {
+            writeBatch = batch;
+            try {
+                writes.run();
+            } finally {
+                writeBatch = null;
+            }
+            rocksDB.write(writeOptions, batch);
+        } catch (RocksDBException e) {
+            throw new CoordinatingStateException(e);
+        }
+    }
+
+    protected byte[] getFromBatchAndDB(byte[] key) throws RocksDBException {
+        try (ReadOptions readOptions = new ReadOptions()) {
+            return writeBatch.getFromBatchAndDB(rocksDB, readOptions, key);
+        }
+    }
+
+    /**
+     * 使用RocksDB的Checkpoint创建检查点，SST文件通过硬链接共享，不需要复制
+     */
+    @Override
+    public boolean checkpoint(Path destPath) {
+        try (Checkpoint checkpoint = Checkpoint.create(rocksDB)) {
+            checkpoint.createCheckpoint(destPath.toString());
             return true;
         } catch (RocksDBException e) {
             throw new CoordinatingStateException(e);
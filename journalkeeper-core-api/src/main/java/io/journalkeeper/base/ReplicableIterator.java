@@ -54,4 +54,19 @@ public interface ReplicableIterator {
     byte[] nextTrunk() throws IOException;
 
     boolean hasMoreTrunks();
+
+    /**
+     * 跳过指定偏移量之前的所有Trunk，用于从断点继续复制。
+     * @param offset 目标偏移量，必须是某个Trunk的起始位置
+     * @throws IOException 发生IO异常时抛出
+     */
+    default void skipTo(long offset) throws IOException {
+        while (offset() < offset && hasMoreTrunks()) {
+            nextTrunk();
+        }
+        if (offset() != offset) {
+            throw new IllegalArgumentException(
+                    String.format("Offset %d is not the start of a trunk, current offset: %d!", offset, offset()));
+        }
+    }
 }
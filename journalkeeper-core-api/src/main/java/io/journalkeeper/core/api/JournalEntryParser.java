@@ -13,6 +13,8 @@
  */
 package io.journalkeeper.core.api;
 
+import java.nio.ByteBuffer;
+
 /**
  * @author LiYue
  * Date: 2019/10/12
@@ -20,12 +22,62 @@ package io.journalkeeper.core.api;
 public interface JournalEntryParser {
     int headerLength();
 
+    /**
+     * 兼容多个日志格式版本时，各版本中最短的Header长度。
+     * 扫描日志时，剩余数据不少于这个长度才可能是一条完整的日志。
+     * @return Header的最小长度
+     */
+    default int minHeaderLength() {
+        return headerLength();
+    }
+
     JournalEntry parse(byte[] bytes);
 
+    /**
+     * 序列化后的日志是否以4字节的日志总长度开头（长度包含Header）。
+     * 如果是，读取日志时可以一次读出整条日志，不需要先读取并解析Header。
+     * @return 是否以长度开头
+     */
+    default boolean isLengthPrefixed() {
+        return false;
+    }
+
+    /**
+     * 校验日志Payload的校验和，用于发现写入或传输过程中损坏的日志。
+     * 日志格式不包含校验和时直接返回true。
+     * @param entry 完整的日志
+     * @return 校验通过返回true，否则返回false
+     */
+    default boolean verifyChecksum(JournalEntry entry) {
+        return true;
+    }
+
     default JournalEntry parseHeader(byte[] headerBytes) {
         return parse(headerBytes);
     }
 
+    /**
+     * 解析ByteBuffer中日志的Header，不改变buffer的position。
+     * @param rawEntry 从position开始的序列化后的日志
+     * @return 只包含Header的日志
+     */
+    default JournalEntry parseHeader(ByteBuffer rawEntry) {
+        byte[] headerBytes = new byte[headerLength()];
+        rawEntry.duplicate().get(headerBytes);
+        return parseHeader(headerBytes);
+    }
+
+    /**
+     * 校验ByteBuffer中完整日志的校验和，不改变buffer的position。
+     * @param rawEntry 从position到limit的完整日志
+     * @return 校验通过返回true，否则返回false
+     */
+    default boolean verifyChecksum(ByteBuffer rawEntry) {
+        byte[] bytes = new byte[rawEntry.remaining()];
+        rawEntry.duplicate().get(bytes);
+        return verifyChecksum(parse(bytes));
+    }
+
     default JournalEntry createJournalEntry(byte[] payload) {
         int headerLength = headerLength();
         byte[] rawEntry = new byte[headerLength + payload.length];
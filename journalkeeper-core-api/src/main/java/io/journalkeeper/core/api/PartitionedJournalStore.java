@@ -155,6 +155,20 @@ public interface PartitionedJournalStore extends Watchable {
      */
     CompletableFuture<List<JournalEntry>> get(int partition, long index, int size);
 
+    /**
+     * 长轮询读取日志，用于消费者持续读取分区中的新日志。
+     * 没有新日志时不返回OVERFLOW，而是等待分区写入新日志或者超时。
+     * 请求可以由任意节点处理，不需要每次都经过LEADER。
+     * @param partition 分区
+     * @param index 读取起始位置。
+     * @param maxBytes 返回日志的最大字节数，至少返回一条日志。
+     * @param maxWaitMs 没有新日志时的最长等待时间，单位毫秒。
+     *
+     * @return 读到的日志，等待超时时返回空列表。
+     * @throws IndexUnderflowException 参数index不能小于当前minIndex。
+     */
+    CompletableFuture<List<JournalEntry>> fetch(int partition, long index, int maxBytes, long maxWaitMs);
+
     /**
      * 查询每个分区当前最小已提交日志索引序号。
      * @return 每个分区当前最小已提交日志索引序号。
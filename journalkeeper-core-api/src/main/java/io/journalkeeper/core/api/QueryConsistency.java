@@ -1,21 +1,31 @@
 package io.journalkeeper.core.api;
 
 /**
- * 读一致性模型。JournalKeeper支持3种读一致性：
+ * 读一致性模型。JournalKeeper支持5种读一致性：
  * STRICT：强一致，只在LEADER节点读取数据，保证强一致，可用性最低，性能最低。
  *
  * SEQUENTIAL：顺序一致，在所有节点读取数据，不保证每次读到的都是最新的数据，其它客户端写入的数据不一定会被马上读到，
- * 但可以保证每次读到的数据至少和上次读写的一样新，可以避免脏读。由于所有节点都可以提供读服务，性能和可用性都比较高。
+ * 但可以保证每次读到的数据至少和上次读写的一样新，可以避免脏读。节点的状态落后于客户端上次读写的位置时，等待状态追上之后再读取。
+ * 由于所有节点都可以提供读服务，性能和可用性都比较高。
  *
  * NONE：不保证一致性，性能和可用性最高。集群只要任何一个节点还存活，就可以读取数据。
  *
+ * READ_INDEX：强一致，在所有节点读取数据。LEADER记录当前的提交位置，和半数以上的节点交换一轮心跳确认自己仍然是LEADER，
+ * 读取数据的节点从LEADER获取这个提交位置，等待状态机执行到这个位置之后再读取数据。同一时刻的并发读请求共享一轮心跳，
+ * 读的吞吐量可以随节点数量扩展。
+ *
+ * LEASE：强一致，只在LEADER节点读取数据。LEADER在租约有效期内直接读取数据，不需要额外的心跳，租约失效时退化为READ_INDEX。
+ * 租约的正确性依赖于各节点的时钟频率偏差不超过配置的上限。
+ *
  * @author LiYue
  * Date: 2020/2/19
  */
 public enum QueryConsistency {
     STRICT(0),
     SEQUENTIAL(1),
-    NONE(2);
+    NONE(2),
+    READ_INDEX(3),
+    LEASE(4);
 
     private int value;
 
@@ -29,6 +39,10 @@ public enum QueryConsistency {
                 return SEQUENTIAL;
             case 2:
                 return NONE;
+            case 3:
+                return READ_INDEX;
+            case 4:
+                return LEASE;
             default:
                 return STRICT;
         }
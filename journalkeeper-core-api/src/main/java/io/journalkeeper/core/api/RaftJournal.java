@@ -78,6 +78,27 @@ public interface RaftJournal {
      */
     List<JournalEntry> batchReadByPartition(int partition, long index, int maxSize);
 
+    /**
+     * 根据分区索引批量读取序列化后的日志，不反序列化。
+     * 物理上相邻的日志一次读出，返回的每个字节数组包含一条或者多条首尾相连的完整日志。
+     * @param partition 分区
+     * @param index 分区索引
+     * @param maxSize 最多读取的分区索引数量
+     * @param maxBytes 最多读取的字节数，至少读取一条日志
+     * @return 序列化后的日志
+     */
+    List<byte[]> batchReadRawByPartition(int partition, long index, int maxSize, long maxBytes);
+
+    /**
+     * 查询分区索引对应的日志在所属批量日志中的位置。
+     * {@link #batchReadRawByPartition(int, long, int, long)}从批量日志中间开始读取时，
+     * 返回的是整条批量日志，需要用这个位置确定第一条日志的{@link JournalEntry#getOffset()}。
+     * @param partition 分区
+     * @param index 分区索引
+     * @return 相对于批量日志中第一条的偏移量，不是批量日志或者是批量日志的第一条时返回0
+     */
+    int batchOffsetByPartition(int partition, long index);
+
     /**
      * 使用全局索引读取Journal
      * @param index 全局索引
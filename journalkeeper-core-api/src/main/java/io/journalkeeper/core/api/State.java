@@ -17,6 +17,8 @@ import io.journalkeeper.exceptions.StateExecutionException;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -71,6 +73,27 @@ public interface State {
         }
     }
 
+    /**
+     * 批量执行一段连续的命令，这些命令在Journal中的索引序号从index开始依次递增。
+     * 实现类可以覆盖此方法，将多条命令合并为一次写入，以减少状态机的写入次数。
+     * 要求与{@link #execute(EntryFuture, int, long, int, RaftJournal)}相同，
+     * 默认实现逐条调用{@link #execute(EntryFuture, int, long, int, RaftJournal)}。
+     *
+     * @param entryFutures 待执行的命令
+     * @param partitions 每条命令的分区
+     * @param index 第一条命令在Journal中的索引序号
+     * @param batchSizes 每条命令的batchSize
+     * @param journal 当前的journal
+     * @return 与entryFutures一一对应的执行结果。See {@link StateResult}
+     */
+    default List<StateResult> executeBatch(List<EntryFuture> entryFutures, int [] partitions, long index, int [] batchSizes, RaftJournal journal) {
+        List<StateResult> results = new ArrayList<>(entryFutures.size());
+        for (int i = 0; i < entryFutures.size(); i++) {
+            results.add(execute(entryFutures.get(i), partitions[i], index + i, batchSizes[i], journal));
+        }
+        return results;
+    }
+
     /**
      * 查询
      * @param query 查询条件
@@ -87,6 +110,20 @@ public interface State {
      */
     void recover(Path path, Properties properties) throws IOException;
 
+    /**
+     * 创建状态机的检查点，用于生成快照，调用时状态机不会执行新的命令。
+     * 实现类可以覆盖此方法，使用存储引擎的检查点（例如RocksDB的Checkpoint）或者硬链接不可变文件等方式，低成本的生成快照。
+     * 生成的检查点必须可以通过{@link #recover(Path, Properties)}恢复。
+     * 默认实现返回false，由JournalKeeper复制状态文件，与上一个快照相比没有变化的文件通过硬链接共享。
+     *
+     * @param destPath 检查点的目录，调用时这个目录还不存在
+     * @return 成功创建检查点返回true，不支持返回false
+     * @throws IOException 发生IO异常时抛出
+     */
+    default boolean checkpoint(Path destPath) throws IOException {
+        return false;
+    }
+
     /**
      * 安全的关闭状态机
      */
@@ -42,6 +42,8 @@ public class JournalMonitorInfo {
     private long indexMaxOffset = -1L;
     // 索引存储物理刷盘位置
     private long indexFlushOffset = -1L;
+    // Journal存储写入时等待刷盘的累计时间，单位毫秒。如果持续增长，说明磁盘写入速度跟不上。
+    private long writeStallMs = -1L;
     // 分区信息
     private Collection<JournalPartitionMonitorInfo> partitions = null;
 
@@ -133,6 +135,14 @@ public class JournalMonitorInfo {
         this.indexFlushOffset = indexFlushOffset;
     }
 
+    public long getWriteStallMs() {
+        return writeStallMs;
+    }
+
+    public void setWriteStallMs(long writeStallMs) {
+        this.writeStallMs = writeStallMs;
+    }
+
     public Collection<JournalPartitionMonitorInfo> getPartitions() {
         return partitions;
     }
@@ -162,6 +172,7 @@ public class JournalMonitorInfo {
                 ", indexMinOffset=" + indexMinOffset +
                 ", indexMaxOffset=" + indexMaxOffset +
                 ", indexFlushOffset=" + indexFlushOffset +
+                ", writeStallMs=" + writeStallMs +
                 ", partitions=" + partitions +
                 ", usedSpace=" + getUsedSpace() +
                 '}';
@@ -27,6 +27,12 @@ public class LeaderMonitorInfo {
     private StateServer.ServerState state = null;
     // 请求队列排队数	写入请求队列当前排队数量。所有写入请求先进入这个队列然后再异步串行处理，如何这个数量持续保持高位，说明写入积压。
     private int requestQueueSize = -1;
+    // 回调队列排队数	已写入日志，等待复制或者刷盘后回调的请求数量。
+    private int callbackQueueSize = -1;
+    // 拒绝请求数	请求队列已满时直接返回SERVER_BUSY的累计请求数量，如果持续增长，说明写入超过了处理能力。
+    private long rejectedRequests = -1L;
+    // 回调队列阻塞时间	回调队列已满时写入线程等待的累计时间，单位毫秒。
+    private long callbackStallMs = -1L;
     // 是否可写	正常情况为true可写，管理员可以通过调用接口禁止写入。
     private boolean writeEnabled = false;
     // 从节点信息
@@ -48,6 +54,30 @@ public class LeaderMonitorInfo {
         this.requestQueueSize = requestQueueSize;
     }
 
+    public int getCallbackQueueSize() {
+        return callbackQueueSize;
+    }
+
+    public void setCallbackQueueSize(int callbackQueueSize) {
+        this.callbackQueueSize = callbackQueueSize;
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests;
+    }
+
+    public void setRejectedRequests(long rejectedRequests) {
+        this.rejectedRequests = rejectedRequests;
+    }
+
+    public long getCallbackStallMs() {
+        return callbackStallMs;
+    }
+
+    public void setCallbackStallMs(long callbackStallMs) {
+        this.callbackStallMs = callbackStallMs;
+    }
+
     public boolean isWriteEnabled() {
         return writeEnabled;
     }
@@ -69,6 +99,9 @@ public class LeaderMonitorInfo {
         return "LeaderMonitorInfo{" +
                 "state=" + state +
                 ", requestQueueSize=" + requestQueueSize +
+                ", callbackQueueSize=" + callbackQueueSize +
+                ", rejectedRequests=" + rejectedRequests +
+                ", callbackStallMs=" + callbackStallMs +
                 ", writeEnabled=" + writeEnabled +
                 ", followers=" + followers +
                 '}';
@@ -24,6 +24,7 @@ import io.journalkeeper.rpc.client.CheckLeadershipResponse;
 import io.journalkeeper.rpc.client.ClientServerRpc;
 import io.journalkeeper.rpc.client.UpdateClusterStateRequest;
 import io.journalkeeper.rpc.client.UpdateClusterStateResponse;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.event.Watchable;
 import org.slf4j.Logger;
@@ -99,6 +100,11 @@ public abstract class AbstractClient implements ClusterReadyAware, ServerConfigA
         clientRpc.watch(eventWatcher);
     }
 
+    @Override
+    public void watch(EventWatcher eventWatcher, EventFilter filter) {
+        clientRpc.watch(eventWatcher, filter);
+    }
+
     @Override
     public void unWatch(EventWatcher eventWatcher) {
         clientRpc.unWatch(eventWatcher);
@@ -68,15 +68,20 @@ public class DefaultRaftClient extends AbstractClient implements RaftClient {
 
     @Override
     public CompletableFuture<byte[]> query(byte[] query, QueryConsistency consistency) {
-        if (consistency == QueryConsistency.STRICT) {
-            return query(query);
+        switch (consistency) {
+            case SEQUENTIAL:
+            case NONE:
+            case READ_INDEX:
+                return queryAllServers(query, consistency);
+            default:
+                return queryLeader(query, consistency);
         }
-        return queryAllServers(query, consistency);
     }
 
     private CompletableFuture<byte[]> queryAllServers(byte[] query, QueryConsistency consistency) {
        return clientRpc.invokeClientServerRpc(
-               rpc -> rpc.queryServerState(new QueryStateRequest(query, consistency == QueryConsistency.NONE ? -1L : lastApplied.get()))
+               rpc -> rpc.queryServerState(new QueryStateRequest(query,
+                       consistency == QueryConsistency.NONE ? -1L : lastApplied.get(), consistency))
        )
                 .thenApply(super::checkResponse)
                 .thenApply(response -> {
@@ -89,8 +94,11 @@ public class DefaultRaftClient extends AbstractClient implements RaftClient {
 
     @Override
     public CompletableFuture<byte[]> query(byte[] query) {
+        return queryLeader(query, QueryConsistency.STRICT);
+    }
 
-        return clientRpc.invokeClientLeaderRpc(leaderRpc -> leaderRpc.queryClusterState(new QueryStateRequest(query)))
+    private CompletableFuture<byte[]> queryLeader(byte[] query, QueryConsistency consistency) {
+        return clientRpc.invokeClientLeaderRpc(leaderRpc -> leaderRpc.queryClusterState(new QueryStateRequest(query, consistency)))
                 .thenApply(super::checkResponse)
                 .thenApply(response -> {
                     maybeUpdateLastApplied(response.getLastApplied());
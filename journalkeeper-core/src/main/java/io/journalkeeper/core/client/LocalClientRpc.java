@@ -16,6 +16,7 @@ package io.journalkeeper.core.client;
 import io.journalkeeper.exceptions.ServerBusyException;
 import io.journalkeeper.rpc.BaseResponse;
 import io.journalkeeper.rpc.client.ClientServerRpc;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.retry.CheckRetry;
 import io.journalkeeper.utils.retry.CompletableRetry;
@@ -101,6 +102,11 @@ public class LocalClientRpc implements ClientRpc {
         localServer.watch(eventWatcher);
     }
 
+    @Override
+    public void watch(EventWatcher eventWatcher, EventFilter filter) {
+        localServer.watch(eventWatcher, filter);
+    }
+
     @Override
     public void unWatch(EventWatcher eventWatcher) {
         localServer.unWatch(eventWatcher);
@@ -22,9 +22,12 @@ import io.journalkeeper.exceptions.ServerNotFoundException;
 import io.journalkeeper.exceptions.TransportException;
 import io.journalkeeper.rpc.BaseResponse;
 import io.journalkeeper.rpc.LeaderResponse;
+import io.journalkeeper.rpc.StatusCode;
 import io.journalkeeper.rpc.client.ClientServerRpc;
 import io.journalkeeper.rpc.client.ClientServerRpcAccessPoint;
 import io.journalkeeper.rpc.client.GetServersResponse;
+import io.journalkeeper.rpc.client.UpdateClusterStateResponse;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.retry.CheckRetry;
 import io.journalkeeper.utils.retry.CompletableRetry;
@@ -160,6 +163,15 @@ public class RemoteClientRpc implements ClientRpc {
         }, clientCheckRetry, executor, scheduledExecutor);
     }
 
+    @Override
+    public void watch(EventWatcher eventWatcher, EventFilter filter) {
+        completableRetry.retry(uri -> {
+            clientServerRpcAccessPoint.getClintServerRpc(uri)
+                    .watch(eventWatcher, filter);
+            return CompletableFuture.completedFuture(null);
+        }, clientCheckRetry, executor, scheduledExecutor);
+    }
+
     @Override
     public void unWatch(EventWatcher eventWatcher) {
         completableRetry.retry(uri -> {
@@ -210,6 +222,14 @@ public class RemoteClientRpc implements ClientRpc {
                     return false;
             }
         }
+
+        @Override
+        public long retryAfterMs(BaseResponse response) {
+            if (response.getStatusCode() == StatusCode.SERVER_BUSY && response instanceof UpdateClusterStateResponse) {
+                return ((UpdateClusterStateResponse) response).getRetryAfterMs();
+            }
+            return 0L;
+        }
     }
 
     private class PreferredServerRandomUriSelector extends RandomDestinationSelector<URI> {
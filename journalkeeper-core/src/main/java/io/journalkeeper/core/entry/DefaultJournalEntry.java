@@ -25,16 +25,23 @@ import java.util.Arrays;
  * Date: 2019/10/12
  */
 public class DefaultJournalEntry implements JournalEntry {
-    public final static short MAGIC_CODE = ByteBuffer.wrap(new byte[]{(byte) 0XF4, (byte) 0X3C}).getShort();
+    // 第2版日志格式，Header中包含Payload的校验和
+    public final static short MAGIC_CODE = ByteBuffer.wrap(new byte[]{(byte) 0XF4, (byte) 0X3D}).getShort();
+    // 第1版日志格式，Header中没有校验和，只读兼容
+    public final static short MAGIC_CODE_V1 = ByteBuffer.wrap(new byte[]{(byte) 0XF4, (byte) 0X3C}).getShort();
 
     // 包含Header和Payload
     private final byte[] serializedBytes;
     private final ByteBuffer serializedBuffer;
     private int offset = 0;
+    // 按照日志格式版本确定的Header长度
+    private final int headerLength;
 
     DefaultJournalEntry(byte[] serializedBytes, boolean checkMagic, boolean checkLength) {
         this.serializedBytes = serializedBytes;
         this.serializedBuffer = ByteBuffer.wrap(serializedBytes);
+        this.headerLength = JournalEntryParseSupport.getHeaderLength(
+                JournalEntryParseSupport.getShort(serializedBuffer, JournalEntryParseSupport.MAGIC));
         if (checkMagic) {
             checkMagic();
         }
@@ -57,11 +64,42 @@ public class DefaultJournalEntry implements JournalEntry {
 
     private void checkMagic() {
         short magic = JournalEntryParseSupport.getShort(serializedBuffer(), JournalEntryParseSupport.MAGIC);
-        if (magicCode() != magic) {
+        if (magicCode() != magic && MAGIC_CODE_V1 != magic) {
             throw new ParseJournalException("Check magic failed！");
         }
     }
 
+    /**
+     * @return 是否是包含校验和的第2版日志格式
+     */
+    public boolean hasChecksum() {
+        return headerLength > JournalEntryParseSupport.CHECKSUM;
+    }
+
+    public int getChecksum() {
+        return hasChecksum() ? JournalEntryParseSupport.getInt(serializedBuffer(), JournalEntryParseSupport.CHECKSUM) : 0;
+    }
+
+    void updateChecksum() {
+        JournalEntryParseSupport.setInt(serializedBuffer(), JournalEntryParseSupport.CHECKSUM, calculateChecksum());
+    }
+
+    /**
+     * 校验Payload的校验和，第1版日志格式没有校验和，直接返回true
+     * @return 校验和一致返回true，否则返回false
+     */
+    public boolean verifyChecksum() {
+        if (!hasChecksum()) {
+            return true;
+        }
+        return serializedBytes.length >= headerLength &&
+                getChecksum() == calculateChecksum();
+    }
+
+    private int calculateChecksum() {
+        return JournalEntryParseSupport.checksum(serializedBytes, headerLength, serializedBytes.length - headerLength);
+    }
+
     @Override
     public int getBatchSize() {
         return JournalEntryParseSupport.getShort(serializedBuffer(), JournalEntryParseSupport.BATCH_SIZE);
@@ -102,8 +140,8 @@ public class DefaultJournalEntry implements JournalEntry {
     public BytesFragment getPayload() {
         return new BytesFragment(
                 serializedBytes,
-                JournalEntryParseSupport.getHeaderLength(),
-                serializedBytes.length - JournalEntryParseSupport.getHeaderLength());
+                headerLength,
+                serializedBytes.length - headerLength);
     }
 
     @Override
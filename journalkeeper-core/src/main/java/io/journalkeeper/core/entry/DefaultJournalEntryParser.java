@@ -28,11 +28,56 @@ public class DefaultJournalEntryParser implements JournalEntryParser {
         return JournalEntryParseSupport.getHeaderLength();
     }
 
+    @Override
+    public int minHeaderLength() {
+        return JournalEntryParseSupport.getMinHeaderLength();
+    }
+
+    @Override
+    public boolean isLengthPrefixed() {
+        return true;
+    }
+
+    @Override
+    public boolean verifyChecksum(JournalEntry entry) {
+        return !(entry instanceof DefaultJournalEntry) || ((DefaultJournalEntry) entry).verifyChecksum();
+    }
+
+    @Override
+    public boolean verifyChecksum(ByteBuffer rawEntry) {
+        if (rawEntry.remaining() < minHeaderLength()) {
+            return false;
+        }
+        ByteBuffer buffer = rawEntry.slice();
+        short magic = JournalEntryParseSupport.getShort(buffer, JournalEntryParseSupport.MAGIC);
+        int headerLength = JournalEntryParseSupport.getHeaderLength(magic);
+        if (headerLength <= JournalEntryParseSupport.CHECKSUM) {
+            // 第1版日志格式没有校验和
+            return true;
+        }
+        if (rawEntry.remaining() < headerLength) {
+            return false;
+        }
+        int checksum = JournalEntryParseSupport.getInt(buffer, JournalEntryParseSupport.CHECKSUM);
+        buffer.position(headerLength);
+        return checksum == JournalEntryParseSupport.checksum(buffer);
+    }
+
     @Override
     public JournalEntry parseHeader(byte[] headerBytes) {
         return new DefaultJournalEntry(headerBytes, true, false);
     }
 
+    /**
+     * 第1版日志格式的Header较短，buffer中剩余的数据不足{@link #headerLength()}时只读取剩余的数据。
+     */
+    @Override
+    public JournalEntry parseHeader(ByteBuffer rawEntry) {
+        byte[] headerBytes = new byte[Math.min(headerLength(), rawEntry.remaining())];
+        rawEntry.duplicate().get(headerBytes);
+        return parseHeader(headerBytes);
+    }
+
     @Override
     public JournalEntry parse(byte[] bytes) {
         return new DefaultJournalEntry(bytes, true, true);
@@ -49,10 +94,10 @@ public class DefaultJournalEntryParser implements JournalEntryParser {
         JournalEntryParseSupport.setLong(buffer, JournalEntryParseSupport.TIMESTAMP, System.currentTimeMillis());
 
 
-        for (int i = 0; i < payload.length; i++) {
-            rawEntry[headerLength + i] = payload[i];
-        }
-        return new DefaultJournalEntry(rawEntry, false, false);
+        System.arraycopy(payload, 0, rawEntry, headerLength, payload.length);
+        DefaultJournalEntry journalEntry = new DefaultJournalEntry(rawEntry, false, false);
+        journalEntry.updateChecksum();
+        return journalEntry;
 
     }
 }
@@ -16,8 +16,10 @@ package io.journalkeeper.core.entry;
 import io.journalkeeper.core.journal.ParseJournalException;
 import io.journalkeeper.utils.parser.EntryParser;
 
+import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.zip.CRC32;
 
 /**
  * @author LiYue
@@ -42,6 +44,7 @@ public class JournalEntryParseSupport extends EntryParser {
     final static int MAGIC = createAttribute("MAGIC", FIXED_LENGTH_2);
     final static int BATCH_SIZE = createAttribute("BATCH_SIZE", FIXED_LENGTH_2);
     public final static int TIMESTAMP = createAttribute("TIMESTAMP", FIXED_LENGTH_8);
+    final static int CHECKSUM = createAttribute("CHECKSUM", FIXED_LENGTH_4);
     final static int ENTRY = createAttribute("ENTRY", VARIABLE_LENGTH);
 
 
@@ -49,6 +52,46 @@ public class JournalEntryParseSupport extends EntryParser {
         return firstVarOffset;
     }
 
+    /**
+     * 按照日志格式版本返回Header长度，第1版日志格式的Header不包含校验和。
+     * @param magic 日志中的魔数
+     * @return Header长度
+     */
+    static int getHeaderLength(short magic) {
+        return magic == DefaultJournalEntry.MAGIC_CODE_V1 ? getMinHeaderLength() : getHeaderLength();
+    }
+
+    /**
+     * @return 所有日志格式版本中最短的Header长度，即第1版日志格式的Header长度
+     */
+    public static int getMinHeaderLength() {
+        return CHECKSUM;
+    }
+
+    /**
+     * 计算Payload的校验和
+     * @param bytes 序列化后的日志
+     * @param offset payload起始位置
+     * @param length payload长度
+     * @return 校验和
+     */
+    static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, offset, length);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * 计算Payload的校验和，不复制数据
+     * @param payload 从position到limit为payload，计算后position移动到limit
+     * @return 校验和
+     */
+    static int checksum(ByteBuffer payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        return (int) crc32.getValue();
+    }
+
     /**
      * 定长消息直接返回offset
      * 变长消息返回属性相对于第一个变长属性的索引值的偏移量的负值：第一个变长属性在attributes中的索引值 - 属性在attributes中的索引值
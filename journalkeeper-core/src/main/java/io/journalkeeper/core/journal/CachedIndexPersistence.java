@@ -0,0 +1,178 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.journal;
+
+import io.journalkeeper.persistence.JournalPersistence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static io.journalkeeper.core.journal.Journal.INDEX_STORAGE_SIZE;
+
+/**
+ * 带末尾缓存的索引存储。
+ * 所有写操作在写入存储的同时更新{@link IndexCache}，
+ * 读取最近写入的索引时直接从缓存中获取，不需要加锁和查找存储文件。
+ */
+class CachedIndexPersistence implements JournalPersistence {
+    private final JournalPersistence persistence;
+    private final IndexCache cache;
+
+    CachedIndexPersistence(JournalPersistence persistence, int cacheSize) {
+        this.persistence = persistence;
+        this.cache = new IndexCache(cacheSize);
+    }
+
+    /**
+     * 从缓存中读取索引对应的值
+     * @param index 索引序号
+     * @return 命中时返回缓存的值，否则返回{@link IndexCache#MISS}
+     */
+    long readCached(long index) {
+        return cache.get(index);
+    }
+
+    @Override
+    public long min() {
+        return persistence.min();
+    }
+
+    @Override
+    public long physicalMin() {
+        return persistence.physicalMin();
+    }
+
+    @Override
+    public long max() {
+        return persistence.max();
+    }
+
+    @Override
+    public long flushed() {
+        return persistence.flushed();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        persistence.flush();
+    }
+
+    @Override
+    public void sync() throws IOException {
+        persistence.sync();
+    }
+
+    @Override
+    public void truncate(long givenMax) throws IOException {
+        cache.truncate(givenMax / INDEX_STORAGE_SIZE);
+        persistence.truncate(givenMax);
+        resetIfUnaligned();
+    }
+
+    @Override
+    public long compact(long givenMin) throws IOException {
+        long min = persistence.compact(givenMin);
+        cache.compact((persistence.min() + INDEX_STORAGE_SIZE - 1) / INDEX_STORAGE_SIZE);
+        return min;
+    }
+
+    @Override
+    public long append(byte[] entry) throws IOException {
+        long position = persistence.max();
+        long max = persistence.append(entry);
+        cache(position, entry);
+        return max;
+    }
+
+    @Override
+    public long append(List<byte[]> entries) throws IOException {
+        long position = persistence.max();
+        long max = persistence.append(entries);
+        for (byte[] entry : entries) {
+            cache(position, entry);
+            position += entry.length;
+        }
+        return max;
+    }
+
+    @Override
+    public byte[] read(long position, int length) throws IOException {
+        return persistence.read(position, length);
+    }
+
+    @Override
+    public byte[] readLengthPrefixed(long position) throws IOException {
+        return persistence.readLengthPrefixed(position);
+    }
+
+    @Override
+    public Long readLong(long position) throws IOException {
+        return persistence.readLong(position);
+    }
+
+    @Override
+    public void recover(Path path, long min, Properties properties) throws IOException {
+        persistence.recover(path, min, properties);
+        cache.reset(persistence.max() / INDEX_STORAGE_SIZE);
+    }
+
+    @Override
+    public void delete() throws IOException {
+        cache.reset(0L);
+        persistence.delete();
+    }
+
+    @Override
+    public Path getBasePath() {
+        return persistence.getBasePath();
+    }
+
+    @Override
+    public void close() throws IOException {
+        cache.reset(0L);
+        persistence.close();
+    }
+
+    @Override
+    public String toString() {
+        return persistence.toString();
+    }
+
+    private void cache(long position, byte[] bytes) {
+        if (position % INDEX_STORAGE_SIZE != 0 || bytes.length % INDEX_STORAGE_SIZE != 0) {
+            cache.reset(persistence.max() / INDEX_STORAGE_SIZE);
+            return;
+        }
+        long index = position / INDEX_STORAGE_SIZE;
+        for (int i = 0; i < bytes.length; i += INDEX_STORAGE_SIZE) {
+            cache.put(index++, getLong(bytes, i));
+        }
+    }
+
+    private void resetIfUnaligned() {
+        if (persistence.max() % INDEX_STORAGE_SIZE != 0) {
+            cache.reset(persistence.max() / INDEX_STORAGE_SIZE);
+        }
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0L;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+}
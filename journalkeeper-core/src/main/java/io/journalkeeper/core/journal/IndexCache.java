@@ -0,0 +1,111 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.journal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 缓存索引末尾一段连续的值。
+ * 写操作需要调用方保证串行，读操作无锁且不产生对象。
+ * 缓存的索引范围为[start, end)，数组以环形方式复用，
+ * 覆盖旧值之前先推进start，读取之后再次校验范围，保证不会读到被覆盖的值。
+ */
+class IndexCache {
+    /**
+     * 未命中缓存时返回的值
+     */
+    static final long MISS = Long.MIN_VALUE;
+    private final AtomicLongArray values;
+    private final int mask;
+    private volatile long start = 0L;
+    private volatile long end = 0L;
+
+    /**
+     * @param capacity 缓存的最大条数，会向上取整为2的幂
+     */
+    IndexCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.values = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 读取索引对应的值
+     * @param index 索引序号
+     * @return 命中时返回缓存的值，否则返回{@link #MISS}
+     */
+    long get(long index) {
+        if (index >= start && index < end) {
+            long value = values.get(slot(index));
+            if (index >= start && index < end) {
+                return value;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * 在末尾追加一个值，如果index不连续，丢弃已缓存的值并从index开始重新缓存。
+     */
+    synchronized void put(long index, long value) {
+        if (index != end) {
+            reset(index);
+        }
+        if (index - start >= values.length()) {
+            start = index - values.length() + 1;
+        }
+        values.set(slot(index), value);
+        end = index + 1;
+    }
+
+    /**
+     * 删除index及之后的值
+     */
+    synchronized void truncate(long index) {
+        if (index < end) {
+            end = Math.max(index, start);
+        }
+    }
+
+    /**
+     * 删除index之前的值
+     */
+    synchronized void compact(long index) {
+        if (index > start) {
+            start = Math.min(index, end);
+        }
+    }
+
+    /**
+     * 丢弃所有已缓存的值，之后从index开始缓存
+     */
+    synchronized void reset(long index) {
+        // 先置空范围，避免读到[index, start)之间的旧值
+        start = Long.MAX_VALUE;
+        end = index;
+        start = index;
+    }
+
+    long start() {
+        return start;
+    }
+
+    long end() {
+        return end;
+    }
+
+    private int slot(long index) {
+        return (int) (index & mask);
+    }
+}
@@ -22,9 +22,11 @@ import io.journalkeeper.exceptions.IndexUnderflowException;
 import io.journalkeeper.exceptions.JournalException;
 import io.journalkeeper.persistence.BufferPool;
 import io.journalkeeper.persistence.JournalPersistence;
+import io.journalkeeper.persistence.MetadataPersistence;
 import io.journalkeeper.persistence.PersistenceFactory;
 import io.journalkeeper.persistence.TooManyBytesException;
 import io.journalkeeper.utils.ThreadSafeFormat;
+import io.journalkeeper.utils.threads.NamedThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +36,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -45,6 +49,12 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -61,10 +71,19 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     private static final Logger logger = LoggerFactory.getLogger(Journal.class);
     private static final String PARTITION_PATH = "index";
     private static final String INDEX_PATH = "index/all";
+    private static final String CHECKPOINT_FILE = "checkpoint";
     private static final String JOURNAL_PROPERTIES_PATTERN = "^persistence\\.journal\\.(.*)$";
     private static final String INDEX_PROPERTIES_PATTERN = "^persistence\\.index\\.(.*)$";
     private static final Properties DEFAULT_JOURNAL_PROPERTIES = new Properties();
     private static final Properties DEFAULT_INDEX_PROPERTIES = new Properties();
+    // 恢复时每次校验的日志条数
+    private static final int VERIFY_BATCH_SIZE = 1024;
+    // 提交时每批构建分区索引的最大日志条数
+    private static final int COMMIT_BATCH_SIZE = 4 * 1024;
+    // 恢复时顺序扫描日志每次读取的字节数
+    private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+    // 保存恢复检查点的最小间隔
+    private static final long CHECKPOINT_INTERVAL_MS = 1000L;
 
     static {
         DEFAULT_JOURNAL_PROPERTIES.put("file_data_size", String.valueOf(32 * 1024 * 1024));
@@ -80,18 +99,24 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     // 写入index时转换用的缓存
     private final byte[] indexBytes = new byte[INDEX_STORAGE_SIZE];
     private final ByteBuffer indexBuffer = ByteBuffer.wrap(indexBytes);
-    // 写入index时转换用的缓存
-    private final byte[] commitIndexBytes = new byte[INDEX_STORAGE_SIZE];
-    private final ByteBuffer commitIndexBuffer = ByteBuffer.wrap(commitIndexBytes);
-    private final JournalPersistence indexPersistence;
+    private final CachedIndexPersistence indexPersistence;
     private final JournalPersistence journalPersistence;
-    private final Map<Integer, JournalPersistence> partitionMap;
+    private final Map<Integer, CachedIndexPersistence> partitionMap;
     private final PersistenceFactory persistenceFactory;
     private final BufferPool bufferPool;
     private final JournalEntryParser journalEntryParser;
+    private final MetadataPersistence metadataPersistence;
+    private final JournalConfig journalConfig;
+    private final Object checkpointMutex = new Object();
+    private final Object commitMutex = new Object();
+    // 最近一次保存的检查点
+    private JournalCheckpoint lastCheckpoint = null;
+    private long lastCheckpointTime = 0L;
     private Path basePath = null;
     private Properties indexProperties;
     private Properties journalProperties;
+    // 每次写入索引存储的最大字节数，不能超过索引文件的大小
+    private int maxIndexAppendBytes = 128 * 1024;
 
     // Journal 读写锁。
     // 所有对Journal的Read、Append、Flush操作加读锁
@@ -99,12 +124,20 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
     public Journal(PersistenceFactory persistenceFactory, BufferPool bufferPool, JournalEntryParser journalEntryParser) {
-        this.indexPersistence = persistenceFactory.createJournalPersistenceInstance();
+        this(persistenceFactory, bufferPool, journalEntryParser, new JournalConfig());
+    }
+
+    public Journal(PersistenceFactory persistenceFactory, BufferPool bufferPool, JournalEntryParser journalEntryParser,
+                   JournalConfig journalConfig) {
+        this.journalConfig = journalConfig;
+        this.indexPersistence = new CachedIndexPersistence(persistenceFactory.createJournalPersistenceInstance(),
+                journalConfig.getIndexCacheSize());
         this.journalPersistence = persistenceFactory.createJournalPersistenceInstance();
         this.persistenceFactory = persistenceFactory;
         this.journalEntryParser = journalEntryParser;
         this.partitionMap = new ConcurrentHashMap<>();
         this.bufferPool = bufferPool;
+        this.metadataPersistence = persistenceFactory.createMetadataPersistenceInstance();
     }
 
     @Override
@@ -155,11 +188,11 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         synchronized (partitionMap) {
 
 
-            Iterator<Map.Entry<Integer, JournalPersistence>> iterator = partitionMap.entrySet().iterator();
+            Iterator<Map.Entry<Integer, CachedIndexPersistence>> iterator = partitionMap.entrySet().iterator();
             while (iterator.hasNext()) {
-                Map.Entry<Integer, JournalPersistence> entry = iterator.next();
+                Map.Entry<Integer, CachedIndexPersistence> entry = iterator.next();
                 int partition = entry.getKey();
-                JournalPersistence partitionPersistence = entry.getValue();
+                CachedIndexPersistence partitionPersistence = entry.getValue();
 
                 if (partitionMinIndices.containsKey(partition)) {
                     long minPartitionIndices = partitionMinIndices.get(entry.getKey());
@@ -175,7 +208,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
             for (Map.Entry<Integer, Long> entry : partitionMinIndices.entrySet()) {
                 int partition = entry.getKey();
                 if (!partitionMap.containsKey(partition)) {
-                    JournalPersistence partitionPersistence = persistenceFactory.createJournalPersistenceInstance();
+                    CachedIndexPersistence partitionPersistence = createPartitionPersistence();
                     partitionPersistence.recover(basePath.resolve(PARTITION_PATH).resolve(String.valueOf(partition)),
                             partitionMinIndices.get(partition) * INDEX_STORAGE_SIZE,
                             indexProperties);
@@ -224,15 +257,16 @@ public class Journal implements RaftJournal, Flushable, Closeable {
      * @throws IOException 发生IO异常时抛出
      */
     public void clear(JournalSnapshot snapshot) throws IOException {
+        invalidateCheckpoint(-1L);
         commitIndex.set(snapshot.minIndex());
         Map<Integer /* partition */ , Long /* min index of the partition */> partitionMinIndices = snapshot.partitionMinIndices();
         synchronized (partitionMap) {
 
 
-            Iterator<Map.Entry<Integer, JournalPersistence>> iterator = partitionMap.entrySet().iterator();
+            Iterator<Map.Entry<Integer, CachedIndexPersistence>> iterator = partitionMap.entrySet().iterator();
             while (iterator.hasNext()) {
-                Map.Entry<Integer, JournalPersistence> entry = iterator.next();
-                JournalPersistence partitionPersistence = entry.getValue();
+                Map.Entry<Integer, CachedIndexPersistence> entry = iterator.next();
+                CachedIndexPersistence partitionPersistence = entry.getValue();
                 partitionPersistence.close();
                 partitionPersistence.delete();
                 iterator.remove();
@@ -240,7 +274,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
             for (Map.Entry<Integer, Long> entry : partitionMinIndices.entrySet()) {
                 int partition = entry.getKey();
-                JournalPersistence partitionPersistence = persistenceFactory.createJournalPersistenceInstance();
+                CachedIndexPersistence partitionPersistence = createPartitionPersistence();
                 partitionPersistence.recover(basePath.resolve(PARTITION_PATH).resolve(String.valueOf(partition)),
                         partitionMinIndices.get(partition) * INDEX_STORAGE_SIZE,
                         indexProperties);
@@ -299,25 +333,146 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         return indices;
     }
 
-    // Not thread safe !
-
     /**
      * 提交journal，已提交的journal不可变。
+     * 多个线程并发提交时串行执行，每一批日志的分区索引只写入一次。
      * @param index 提交全局索引序号
      * @throws IOException 发生IO异常时抛出
      */
     public void commit(long index) throws IOException {
-        long finalCommitIndex;
-        while ((finalCommitIndex = commitIndex.get()) < index &&
-                finalCommitIndex < maxIndex() &&
-                commitIndex.compareAndSet(finalCommitIndex, finalCommitIndex + 1)) {
-            long offset = readOffset(finalCommitIndex);
+        synchronized (commitMutex) {
+            long from;
+            long to;
+            while ((from = commitIndex.get()) < (to = Math.min(Math.min(index, maxIndex()), from + COMMIT_BATCH_SIZE))) {
+                long start = from;
+                int count = (int) (to - from);
+                // 一次扫描读出这一批日志的头，按分区分组
+                PartitionIndices partitionIndices = withReadLock(() -> readPartitionIndices(start, count));
+                appendPartitionIndices(partitionIndices);
+                if (!commitIndex.compareAndSet(from, to)) {
+                    throw new JournalException(String.format("Commit index changed while committing, expected: %d, actual: %d.", from, commitIndex.get()));
+                }
+            }
+        }
+    }
 
-            JournalEntry header = readEntryHeaderByOffset(offset);
-            commitIndexBuffer.clear();
-            commitIndexBuffer.putLong(offset);
-            appendPartitionIndex(commitIndexBytes, header.getPartition(), header.getBatchSize());
+    /**
+     * 顺序读出全局索引[index, index + count)对应的这段连续日志，解析日志头并按分区分组。
+     */
+    private PartitionIndices readPartitionIndices(long index, int count) throws IOException {
+        long start = readOffset(index);
+        long lastOffset = readOffset(index + count - 1);
+        long end = lastOffset + journalEntryParser.parseHeader(
+                journalPersistence.read(lastOffset, journalEntryParser.headerLength())).getLength();
+        PartitionIndices partitionIndices = new PartitionIndices();
+        int[] scanned = {0};
+        long position = scanEntries(start, end, (entryOffset, header) -> {
+            partitionIndices.add(header.getPartition(), entryOffset, header.getBatchSize());
+            scanned[0]++;
+        }, () -> {});
+        if (position != end || scanned[0] != count) {
+            throw new JournalException(String.format(
+                    "Read journal headers failed, index: %d, count: %d, scanned: %d, offset: [%d, %d), scan position: %d.",
+                    index, count, scanned[0], start, end, position));
         }
+        return partitionIndices;
+    }
+
+    /**
+     * 写入分区索引，每个分区只写一次，多个分区在分区索引线程池中并行写入。
+     */
+    private void appendPartitionIndices(PartitionIndices partitionIndices) throws IOException {
+        if (partitionIndices.isEmpty()) {
+            return;
+        }
+        // Create partition which not exists
+        for (int partition : partitionIndices.partitions()) {
+            if (!partitionMap.containsKey(partition)) {
+                addPartition(partition, 0L);
+            }
+        }
+        forEachPartition(partitionIndices.partitions(), partition -> {
+            byte[] bytes = partitionIndices.toBytes(partition);
+            CachedIndexPersistence partitionPersistence = getPartitionPersistence(partition);
+            withReadLock(() -> appendIndexBytes(partitionPersistence, bytes));
+        });
+    }
+
+    /**
+     * 对每个分区执行task，多个分区时在分区索引线程池中并行执行，当前线程也执行其中一个分区。
+     * 等待所有分区执行完成后返回，任何一个分区执行失败都会抛出异常。
+     */
+    private void forEachPartition(Collection<Integer> partitions, PartitionTask task) throws IOException {
+        Iterator<Integer> iterator = partitions.iterator();
+        if (!iterator.hasNext()) {
+            return;
+        }
+        int first = iterator.next();
+        List<Future<?>> futures = new ArrayList<>(partitions.size() - 1);
+        while (iterator.hasNext()) {
+            int partition = iterator.next();
+            futures.add(PartitionIndexExecutorHolder.EXECUTOR.submit(() -> {
+                task.run(partition);
+                return null;
+            }));
+        }
+        Throwable error = null;
+        try {
+            task.run(first);
+        } catch (Throwable t) {
+            error = t;
+        }
+        // 必须等到所有分区都执行完成，否则调用方可能在其它分区写完之前修改提交位置
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (null == error) {
+                        error = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (null != error) {
+            throw new JournalException(error);
+        }
+    }
+
+    /**
+     * 写入索引，超过索引文件大小时分多次写入，每次写入的都是完整的索引。
+     */
+    private void appendIndexBytes(CachedIndexPersistence persistence, byte[] bytes) throws IOException {
+        if (bytes.length <= maxIndexAppendBytes) {
+            persistence.append(bytes);
+            return;
+        }
+        for (int from = 0; from < bytes.length; from += maxIndexAppendBytes) {
+            persistence.append(Arrays.copyOfRange(bytes, from, Math.min(bytes.length, from + maxIndexAppendBytes)));
+        }
+    }
+
+    private int maxIndexAppendBytes(Properties indexProperties) {
+        try {
+            int fileDataSize = Integer.parseInt(indexProperties.getProperty("file_data_size"));
+            if (fileDataSize >= INDEX_STORAGE_SIZE) {
+                return fileDataSize - fileDataSize % INDEX_STORAGE_SIZE;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        return 128 * 1024;
     }
 
     public JournalEntry readEntryHeaderByOffset(long offset) {
@@ -335,35 +490,9 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         return commitIndex.get();
     }
 
-    private void appendPartitionIndex(byte[] offset, int partition, int batchSize) throws IOException {
-        // Create partition which not exists
-        if (!partitionMap.containsKey(partition)) {
-            addPartition(partition, 0L);
-        }
-        byte[] bytes;
-        if (batchSize > 1) {
-            bytes = new byte[batchSize * INDEX_STORAGE_SIZE];
-            ByteBuffer pb = ByteBuffer.wrap(bytes);
-            int j = 0;
-            while (j < batchSize) {
-                if (j == 0) {
-                    pb.put(offset);
-                } else {
-                    pb.putLong(-1 * j);
-                }
-                j++;
-            }
-        } else {
-            bytes = offset;
-        }
-
-        JournalPersistence partitionPersistence = getPartitionPersistence(partition);
-        withReadLock(() -> partitionPersistence.append(bytes));
-    }
 
-
-    private JournalPersistence getPartitionPersistence(int partition) {
-        JournalPersistence partitionPersistence = partitionMap.get(partition);
+    private CachedIndexPersistence getPartitionPersistence(int partition) {
+        CachedIndexPersistence partitionPersistence = partitionMap.get(partition);
         if (null == partitionPersistence) {
             throw new NosuchPartitionException(partition);
         }
@@ -376,17 +505,26 @@ public class Journal implements RaftJournal, Flushable, Closeable {
      * @return 写入后的最大全局索引序号
      */
     public long appendBatchRaw(List<byte[]> storageEntries) {
+        return appendBatchBuffers(storageEntries.stream().map(ByteBuffer::wrap).collect(Collectors.toList()));
+    }
+
+    /**
+     * 批量追加写入序列化之后的StorageEntry，直接从ByteBuffer写入存储，不复制到堆内。
+     * @param storageEntries 从LEADER复制过来的entries，写入后position不变
+     * @return 写入后的最大全局索引序号
+     */
+    public long appendBatchBuffers(List<ByteBuffer> storageEntries) {
         // 计算索引
         long[] offsets = new long[storageEntries.size()];
         long offset = journalPersistence.max();
         for (int i = 0; i < offsets.length; i++) {
             offsets[i] = offset;
-            offset += storageEntries.get(i).length;
+            offset += storageEntries.get(i).remaining();
         }
 
         withReadLock(() -> {
             // 写入Journal
-            for (byte[] storageEntry : storageEntries) {
+            for (ByteBuffer storageEntry : storageEntries) {
                 journalPersistence.append(storageEntry);
             }
 
@@ -415,7 +553,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
     @Override
     public JournalEntry readByPartition(int partition, long index) {
-        JournalPersistence pp = getPartitionPersistence(partition);
+        CachedIndexPersistence pp = getPartitionPersistence(partition);
         long offset = readOffset(pp, index);
         long journalOffset;
         int relIndex;
@@ -448,6 +586,69 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         return list;
     }
 
+    /**
+     * 根据分区索引批量读取未反序列化的日志，不解析日志。
+     * 物理上相邻的日志合并为一次读取，返回的每个字节数组包含一条或者多条首尾相连的完整日志。
+     * 读取的条数和总字节数都不超过限制，但至少读取一条。
+     */
+    @Override
+    public List<byte[]> batchReadRawByPartition(int partition, long index, int maxSize, long maxBytes) {
+        CachedIndexPersistence pp = getPartitionPersistence(partition);
+        return withReadLock(() -> {
+            List<byte[]> list = new ArrayList<>();
+            int count = (int) Math.min(maxSize, pp.max() / INDEX_STORAGE_SIZE - index);
+            if (count <= 0) {
+                return list;
+            }
+            long[] offsets = readOffsets(pp, index, count);
+            if (offsets[0] < 0) {
+                // 从批量日志的中间开始读取，找到这条批量日志的偏移量
+                offsets[0] = readOffset(pp, index + offsets[0]);
+            }
+            long start = -1L;
+            long end = -1L;
+            long bytes = 0L;
+            for (long offset : offsets) {
+                if (offset < 0) {
+                    // 批量日志中的后续消息和第一条是同一条日志
+                    continue;
+                }
+                int length = readEntryLengthByOffset(offset);
+                if (bytes > 0 && bytes + length > maxBytes) {
+                    break;
+                }
+                if (offset != end) {
+                    readRange(start, end, list);
+                    start = offset;
+                }
+                end = offset + length;
+                bytes += length;
+            }
+            readRange(start, end, list);
+            return list;
+        });
+    }
+
+    @Override
+    public int batchOffsetByPartition(int partition, long index) {
+        long offset = readOffset(getPartitionPersistence(partition), index);
+        return offset < 0 ? (int) (-1 * offset) : 0;
+    }
+
+    /**
+     * 读取[start, end)之间的日志，相邻的日志可能分布在两个文件中，跨文件时分多次读取。
+     */
+    private void readRange(long start, long end, List<byte[]> list) throws IOException {
+        while (start < end) {
+            byte[] bytes = journalPersistence.read(start, (int) (end - start));
+            if (null == bytes || bytes.length == 0) {
+                throw new JournalException(String.format("Read journal failed, offset: %d, journal: %s.", start, journalPersistence));
+            }
+            list.add(bytes);
+            start += bytes.length;
+        }
+    }
+
 
     public JournalEntry read(long index) {
         return journalEntryParser.parse(readRaw(index));
@@ -464,6 +665,18 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     }
 
     private byte[] readRawByOffset(long offset) {
+        if (journalEntryParser.isLengthPrefixed()) {
+            // 一次读出整条日志
+            return withReadLock(() -> journalPersistence.readLengthPrefixed(offset));
+        }
+        return readRawByOffsetWithHeader(offset);
+    }
+
+    /**
+     * 先读取并解析Header，再按照Header中的长度读取整条日志。
+     * Header中包含的MAGIC等校验可以在读取整条日志之前发现无效的位置。
+     */
+    private byte[] readRawByOffsetWithHeader(long offset) {
         return withReadLock(() -> {
             int length = readEntryLengthByOffset(offset);
             return journalPersistence
@@ -479,16 +692,25 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         return readOffset(indexPersistence, index);
     }
 
-    private long readOffset(JournalPersistence indexPersistence, long index) {
+    private long readOffset(CachedIndexPersistence indexPersistence, long index) {
+        // 最近写入的索引直接从缓存中读取，不需要加锁
+        long offset = indexPersistence.readCached(index);
+        if (offset != IndexCache.MISS) {
+            return offset;
+        }
         return withReadLock(() -> indexPersistence.readLong(index * INDEX_STORAGE_SIZE));
     }
 
+    private CachedIndexPersistence createPartitionPersistence() {
+        return new CachedIndexPersistence(persistenceFactory.createJournalPersistenceInstance(),
+                journalConfig.getPartitionIndexCacheSize());
+    }
+
     public List<JournalEntry> batchRead(long index, int size) {
-        checkIndex(index);
-        List<JournalEntry> list = new ArrayList<>(size);
-        long i = index;
-        while (list.size() < size && i < maxIndex()) {
-            list.add(read(i++));
+        List<byte[]> rawEntries = readRaw(index, size);
+        List<JournalEntry> list = new ArrayList<>(rawEntries.size());
+        for (byte[] rawEntry : rawEntries) {
+            list.add(journalEntryParser.parse(rawEntry));
         }
         return list;
     }
@@ -503,13 +725,92 @@ public class Journal implements RaftJournal, Flushable, Closeable {
      * @throws IndexOverflowException 如果index 不小于 maxIndex()
      */
     public List<byte[]> readRaw(long index, int size) {
+        return readRaw(index, size, Long.MAX_VALUE);
+    }
+
+    /**
+     * 批量读取StorageEntry，读取的条数和总字节数都不超过限制，但至少读取一条。
+     * @param index 起始索引位置
+     * @param size 期望读取的条数
+     * @param maxBytes 读取的最大字节数
+     * @return 未反序列化的StorageEntry列表。
+     * @throws IndexUnderflowException 如果 index 小于 minIndex()
+     * @throws IndexOverflowException 如果index 不小于 maxIndex()
+     */
+    public List<byte[]> readRaw(long index, int size, long maxBytes) {
         checkIndex(index);
-        List<byte[]> list = new ArrayList<>(size);
-        long i = index;
-        while (list.size() < size && i < maxIndex()) {
-            list.add(readRaw(i++));
+        return withReadLock(() -> {
+            int count = (int) Math.min(size, maxIndex() - index);
+            if (count <= 0) {
+                return new ArrayList<>();
+            }
+            // 一次读出所有条目的偏移量，如果后面还有日志，多读一个偏移量作为最后一条的结束位置
+            boolean hasNext = index + count < maxIndex();
+            long[] offsets = readOffsets(index, hasNext ? count + 1 : count);
+            long endOffset = hasNext ? offsets[count] :
+                    offsets[count - 1] + readEntryLengthByOffset(offsets[count - 1]);
+
+            // 按照字节数限制读取的条数
+            int limit = 1;
+            while (limit < count &&
+                    (limit + 1 < offsets.length ? offsets[limit + 1] : endOffset) - offsets[0] <= maxBytes) {
+                limit++;
+            }
+            if (limit < count) {
+                endOffset = offsets[limit];
+                count = limit;
+            }
+
+            // 连续读取这些条目，读取的数据跨文件时分多次读取
+            List<byte[]> list = new ArrayList<>(count);
+            int i = 0;
+            while (i < count) {
+                long position = offsets[i];
+                ByteBuffer buffer = ByteBuffer.wrap(journalPersistence.read(position, (int) (endOffset - position)));
+                int start = i;
+                while (i < count) {
+                    long entryEnd = i + 1 < offsets.length ? offsets[i + 1] : endOffset;
+                    if (entryEnd - position > buffer.limit()) {
+                        break;
+                    }
+                    byte[] entry = new byte[(int) (entryEnd - offsets[i])];
+                    buffer.get(entry);
+                    list.add(entry);
+                    i++;
+                }
+                if (i == start) {
+                    throw new JournalException(String.format("Read journal failed, offset: %d, journal: %s.", position, journalPersistence));
+                }
+            }
+            return list;
+        });
+    }
+
+    /**
+     * 读取连续的多个全局索引对应的偏移量
+     */
+    private long[] readOffsets(long index, int count) throws IOException {
+        return readOffsets(indexPersistence, index, count);
+    }
+
+    private long[] readOffsets(CachedIndexPersistence indexPersistence, long index, int count) throws IOException {
+        long[] offsets = new long[count];
+        int i = 0;
+        // 先从缓存中读取，未命中的部分再从存储中读取
+        while (i < count && (offsets[i] = indexPersistence.readCached(index + i)) != IndexCache.MISS) {
+            i++;
         }
-        return list;
+        while (i < count) {
+            byte[] bytes = indexPersistence.read((index + i) * INDEX_STORAGE_SIZE, (count - i) * INDEX_STORAGE_SIZE);
+            if (null == bytes || bytes.length < INDEX_STORAGE_SIZE) {
+                throw new JournalException(String.format("Read index failed, index: %d, index persistence: %s.", index + i, indexPersistence));
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.remaining() >= INDEX_STORAGE_SIZE) {
+                offsets[i++] = buffer.getLong();
+            }
+        }
+        return offsets;
     }
 
     /**
@@ -531,22 +832,41 @@ public class Journal implements RaftJournal, Flushable, Closeable {
      * 从index位置开始：
      * 如果一条已经存在的日志与新的冲突（index 相同但是任期号 term 不同），则删除已经存在的日志和它之后所有的日志
      * 添加任何在已有的日志中不存在的条目。
+     * 写入之前校验每条日志的校验和，存在损坏的日志时不写入任何日志。
      * @param rawEntries 待比较的日志
      * @param startIndex 起始位置
      * @throws IndexUnderflowException 如果 startIndex 小于 minIndex()
      * @throws IndexOverflowException 如果 startIndex 不小于 maxIndex()
      */
     public void compareOrAppendRaw(List<byte[]> rawEntries, long startIndex) {
-        List<JournalEntry> entries = rawEntries.stream()
-                .map(journalEntryParser::parse)
-                .collect(Collectors.toList());
+        compareOrAppendBuffers(rawEntries.stream().map(ByteBuffer::wrap).collect(Collectors.toList()), startIndex);
+    }
+
+    /**
+     * 同{@link #compareOrAppendRaw(List, long)}，日志直接从ByteBuffer中解析和写入，不复制到堆内。
+     * @param rawEntries 待比较的日志，每个ByteBuffer从position到limit为一条完整的日志，处理后position不变
+     * @param startIndex 起始位置
+     * @throws IndexUnderflowException 如果 startIndex 小于 minIndex()
+     * @throws IndexOverflowException 如果 startIndex 不小于 maxIndex()
+     */
+    public void compareOrAppendBuffers(List<ByteBuffer> rawEntries, long startIndex) {
+        int[] terms = new int[rawEntries.size()];
+        for (int i = 0; i < rawEntries.size(); i++) {
+            ByteBuffer rawEntry = rawEntries.get(i);
+            // 只解析Header
+            terms[i] = journalEntryParser.parseHeader(rawEntry).getTerm();
+            if (!journalEntryParser.verifyChecksum(rawEntry)) {
+                throw new ParseJournalException(
+                        String.format("Journal entry checksum mismatch, index: %d!", startIndex + i));
+            }
+        }
         long index = startIndex;
-        for (int i = 0; i < entries.size(); i++, index++) {
-            if (index < maxIndex() && getTerm(index) != entries.get(i).getTerm()) {
+        for (int i = 0; i < terms.length; i++, index++) {
+            if (index < maxIndex() && getTerm(index) != terms[i]) {
                 truncate(index);
             }
             if (index == maxIndex()) {
-                appendBatchRaw(rawEntries.subList(i, entries.size()));
+                appendBatchBuffers(rawEntries.subList(i, terms.length));
                 break;
             }
         }
@@ -565,6 +885,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
             truncatePartitions(journalOffset);
             indexPersistence.truncate(index * INDEX_STORAGE_SIZE);
             journalPersistence.truncate(journalOffset);
+            invalidateCheckpoint(index);
         });
 
         // 安全更新commitIndex
@@ -577,7 +898,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     }
 
     private void truncatePartitions(long journalOffset) throws IOException {
-        for (JournalPersistence partitionPersistence : partitionMap.values()) {
+        for (CachedIndexPersistence partitionPersistence : partitionMap.values()) {
             long position = partitionPersistence.max() - INDEX_STORAGE_SIZE;
             while (position > partitionPersistence.min()) {
                 long offset = readOffset(partitionPersistence, position / INDEX_STORAGE_SIZE);
@@ -594,6 +915,8 @@ public class Journal implements RaftJournal, Flushable, Closeable {
      * 从指定path恢复Journal。
      * 1. 删除journal或者index文件末尾可能存在的不完整的数据。
      * 2. 以Journal为准，修复全局索引和分区索引：删除多余的索引，并创建缺失的索引。
+     *    存在有效的恢复检查点时，只需要从检查点开始顺序扫描一遍日志。
+     * 3. 校验commitIndex之后的日志，从第一条校验失败的日志开始截掉后面的数据。
      * @param path 恢复目录
      * @param commitIndex 当前journal提交全局索引
      * @param journalSnapshot 快照
@@ -607,26 +930,44 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         journalProperties = replacePropertiesNames(properties,
                 JOURNAL_PROPERTIES_PATTERN, DEFAULT_JOURNAL_PROPERTIES);
         journalPersistence.recover(path, journalSnapshot.minOffset(), journalProperties);
-        // 截掉末尾半条数据
-        truncateJournalTailPartialEntry();
 
         indexProperties = replacePropertiesNames(properties,
                 INDEX_PROPERTIES_PATTERN, DEFAULT_INDEX_PROPERTIES);
+        maxIndexAppendBytes = maxIndexAppendBytes(indexProperties);
         indexPersistence.recover(indexPath, journalSnapshot.minIndex() * INDEX_STORAGE_SIZE, indexProperties);
         // 截掉末尾半条数据
         indexPersistence.truncate(indexPersistence.max() - indexPersistence.max() % INDEX_STORAGE_SIZE);
 
-        // 删除多余的索引
-        truncateExtraIndices();
+        JournalCheckpoint checkpoint = loadCheckpoint();
+        lastCheckpoint = checkpoint;
+        if (isValidCheckpoint(checkpoint)) {
+            // 检查点之前的日志和全局索引都是完整的，丢弃检查点之后的索引，从检查点开始重建
+            logger.info("Recover journal from checkpoint: {}, maxIndex: {}, maxOffset: {}, path: {}.",
+                    checkpoint, maxIndex(), journalPersistence.max(), path.toAbsolutePath().toString());
+            indexPersistence.truncate(checkpoint.getIndex() * INDEX_STORAGE_SIZE);
+            buildIndices(checkpoint.getOffset());
+        } else {
+            // 截掉末尾半条数据
+            truncateJournalTailPartialEntry();
 
-        // 创建缺失的索引
-        buildMissingIndices();
+            // 删除多余的索引
+            truncateExtraIndices();
+
+            // 创建缺失的索引
+            buildMissingIndices();
+        }
+
+        // 截掉末尾损坏的日志
+        truncateCorruptedTailEntries(commitIndex);
 
         checkAndSetCommitIndex(commitIndex);
 
         // 恢复分区索引
-        recoverPartitions(partitionPath, journalSnapshot.partitionMinIndices(), indexProperties);
+        recoverPartitions(partitionPath, journalSnapshot.partitionMinIndices(), indexProperties, checkpoint);
 
+        // 恢复完成后刷盘并保存新的检查点，不再沿用之前的检查点
+        lastCheckpoint = null;
+        lastCheckpointTime = 0L;
         flush();
         logger.debug("Journal recovered, minIndex: {}, maxIndex: {}, partitions: {}, path: {}.",
                 minIndex(), maxIndex(), partitionMap.keySet(), path.toAbsolutePath().toString());
@@ -645,46 +986,56 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         }
     }
 
-    private void recoverPartitions(Path partitionPath, Map<Integer, Long> partitionIndices, Properties properties) throws IOException {
-
+    private void recoverPartitions(Path partitionPath, Map<Integer, Long> partitionIndices, Properties properties,
+                                   JournalCheckpoint checkpoint) throws IOException {
 
-        Map<Integer, Long> lastIndexedOffsetMap = new HashMap<>(partitionIndices.size());
-        for (Map.Entry<Integer, Long> entry : partitionIndices.entrySet()) {
-            int partition = entry.getKey();
-            long lastIncludedIndex = entry.getValue();
-            JournalPersistence pp = persistenceFactory.createJournalPersistenceInstance();
+        boolean checkpointValid = isValidPartitionCheckpoint(checkpoint);
+        if (checkpointValid) {
+            logger.info("Recover journal partitions from checkpoint: {}, path: {}.",
+                    checkpoint, basePath.toAbsolutePath().toString());
+        }
+        // 在分区索引线程池中并行恢复每个分区的索引文件
+        Map<Integer, Long> lastIndexedOffsetMap = new ConcurrentHashMap<>(partitionIndices.size());
+        Map<Integer, Long> scanStartMap = new ConcurrentHashMap<>(partitionIndices.size());
+        forEachPartition(partitionIndices.keySet(), partition -> {
+            long lastIncludedIndex = partitionIndices.get(partition);
+            CachedIndexPersistence pp = createPartitionPersistence();
             pp.recover(partitionPath.resolve(String.valueOf(partition)), lastIncludedIndex * INDEX_STORAGE_SIZE, properties);
             // 截掉末尾半条数据
             pp.truncate(pp.max() - pp.max() % INDEX_STORAGE_SIZE);
             truncateTailPartialBatchIndices(pp);
 
             partitionMap.put(partition, pp);
-            lastIndexedOffsetMap.put(partition, getLastIndexedOffset(pp));
-        }
+            long lastIndexedOffset = getLastIndexedOffset(pp);
+            lastIndexedOffsetMap.put(partition, lastIndexedOffset);
+            // 检查点之前已提交日志的分区索引都是完整的，不需要再扫描
+            scanStartMap.put(partition, checkpointValid && checkpoint.isPartitionValid(partition, pp.max()) ?
+                    Math.max(lastIndexedOffset, checkpoint.getPartitionOffset()) : lastIndexedOffset);
+        });
 
         // 重建缺失的分区索引
-        long offset = lastIndexedOffsetMap.values().stream().mapToLong(l -> l).min().orElse(journalPersistence.min());
+        long offset = Math.max(journalPersistence.min(),
+                scanStartMap.values().stream().mapToLong(l -> l).min().orElse(journalPersistence.min()));
 
         // 只创建已提交的分区索引
         long commitOffset = commitIndex.get() == maxIndex() ? journalPersistence.max() :
                 readOffset(commitIndex.get());
 
-        // 创建缺失的索引
-        while (offset < commitOffset) {
-            JournalEntry header = readEntryHeaderByOffset(offset);
-            int length = readEntryLengthByOffset(offset);
-            if (offset > lastIndexedOffsetMap.get(header.getPartition())) {
-                indexBuffer.clear();
-                indexBuffer.putLong(offset);
-                appendPartitionIndex(indexBytes, header.getPartition(), header.getBatchSize());
+        // 顺序扫描一遍日志，创建缺失的索引，每批索引的多个分区并行写入
+        PartitionIndices[] missingIndices = {new PartitionIndices()};
+        scanEntries(offset, commitOffset, (entryOffset, header) -> {
+            int partition = header.getPartition();
+            if (entryOffset > lastIndexedOffsetMap.getOrDefault(partition, -1L)) {
+                missingIndices[0].add(partition, entryOffset, header.getBatchSize());
             }
-            offset += length;
-        }
-
-        // 删除未提交部分的分区索引
+        }, () -> {
+            appendPartitionIndices(missingIndices[0]);
+            missingIndices[0] = new PartitionIndices();
+        });
 
-        for (Integer partition : partitionIndices.keySet()) {
-            JournalPersistence partitionPersistence = partitionMap.get(partition);
+        // 并行删除未提交部分的分区索引
+        forEachPartition(partitionIndices.keySet(), partition -> {
+            CachedIndexPersistence partitionPersistence = partitionMap.get(partition);
             long partitionIndex = partitionPersistence.max() / INDEX_STORAGE_SIZE - 1;
             while (partitionIndex * INDEX_STORAGE_SIZE >= partitionPersistence.min()) {
                 long journalOffset = readOffset(partitionPersistence, partitionIndex);
@@ -696,12 +1047,11 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
             partitionIndex += 1;
             partitionPersistence.truncate(partitionIndex * INDEX_STORAGE_SIZE);
-
-        }
+        });
 
     }
 
-    private long getLastIndexedOffset(JournalPersistence pp) {
+    private long getLastIndexedOffset(CachedIndexPersistence pp) {
         // 读出最后一条索引对应的Journal Offset
         long lastIndexedOffset = journalPersistence.min();
 
@@ -719,7 +1069,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         return lastIndexedOffset;
     }
 
-    private void truncateTailPartialBatchIndices(JournalPersistence pp) throws IOException {
+    private void truncateTailPartialBatchIndices(CachedIndexPersistence pp) throws IOException {
         if (pp.max() > pp.min()) {
             // 如果最后一条索引是批消息的索引，需要检查其完整性
             long lastIndex = pp.max() / INDEX_STORAGE_SIZE - 1;
@@ -757,19 +1107,112 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         }
 
         // 创建索引
-        List<Long> indices = new LinkedList<>();
-        while (indexOffset < journalPersistence.max()) {
-            indices.add(indexOffset);
-            indexOffset += readEntryLengthByOffset(indexOffset);
+        buildIndices(indexOffset);
+    }
+
+    /**
+     * 从offset开始顺序扫描日志，创建全局索引。
+     * 遇到无法解析或者不完整的日志时，截掉这条及之后的日志。
+     * @param offset 开始扫描的位置，必须是一条日志的起始位置
+     */
+    private void buildIndices(long offset) throws IOException {
+        ByteBuffer indices = ByteBuffer.allocate(SCAN_BUFFER_SIZE / 4);
+        long end = scanEntries(offset, journalPersistence.max(), (entryOffset, header) -> {
+            if (!indices.hasRemaining()) {
+                appendIndices(indices);
+            }
+            indices.putLong(entryOffset);
+        }, () -> appendIndices(indices));
+        if (end < journalPersistence.max()) {
+            logger.warn("Invalid journal entry found, truncate journal from offset: {}, max offset: {}, path: {}.",
+                    end, journalPersistence.max(), basePath.toAbsolutePath().toString());
+            journalPersistence.truncate(end);
+        }
+    }
+
+    private void appendIndices(ByteBuffer indices) throws IOException {
+        if (indices.position() > 0) {
+            appendIndexBytes(indexPersistence, Arrays.copyOf(indices.array(), indices.position()));
+            indices.clear();
+        }
+    }
+
+    /**
+     * 从offset开始顺序扫描日志，直到end或者遇到无法解析、不完整的日志为止。
+     * 每次读取一大块数据，在内存中依次解析日志头，每条日志只读一次。
+     * @param offset 开始扫描的位置，必须是一条日志的起始位置
+     * @param end 结束位置
+     * @param visitor 每条日志的回调
+     * @param listener 每处理完一块数据的回调
+     * @return 扫描结束的位置，全部日志有效时等于end
+     */
+    private long scanEntries(long offset, long end, EntryVisitor visitor, ScanListener listener) throws IOException {
+        int headerLength = journalEntryParser.minHeaderLength();
+        long position = offset;
+        boolean valid = true;
+        while (valid && position < end) {
+            // 一条日志不会跨文件存储，读到文件末尾时只返回这个文件内的数据
+            byte[] bytes = journalPersistence.read(position, (int) Math.min(SCAN_BUFFER_SIZE, end - position));
+            if (null == bytes) {
+                break;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int consumed = 0;
+            while (bytes.length - consumed >= headerLength) {
+                buffer.position(consumed);
+                JournalEntry header = parseHeaderQuietly(buffer);
+                if (null == header || header.getLength() < headerLength || position + consumed + header.getLength() > end) {
+                    valid = false;
+                    break;
+                }
+                visitor.visit(position + consumed, header);
+                consumed += header.getLength();
+            }
+            position += consumed;
+            listener.onBatch();
+            if (consumed == 0) {
+                // 剩下的数据不足一个日志头
+                break;
+            }
+        }
+        return position;
+    }
+
+    private JournalEntry parseHeaderQuietly(ByteBuffer buffer) {
+        try {
+            return journalEntryParser.parseHeader(buffer);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 只校验commitIndex之后可能未刷盘的日志，
+     * 遇到第一条校验失败的日志时，截掉这条及之后的日志和索引。
+     */
+    private void truncateCorruptedTailEntries(long commitIndex) throws IOException {
+        long index = Math.max(commitIndex, minIndex());
+        while (index < maxIndex()) {
+            for (byte[] rawEntry : readRaw(index, VERIFY_BATCH_SIZE)) {
+                if (!verifyRawEntry(rawEntry)) {
+                    long offset = readOffset(index);
+                    logger.warn("Journal entry checksum mismatch, truncate journal from index: {}, offset: {}, path: {}.",
+                            index, offset, basePath.toAbsolutePath().toString());
+                    indexPersistence.truncate(index * INDEX_STORAGE_SIZE);
+                    journalPersistence.truncate(offset);
+                    invalidateCheckpoint(index);
+                    return;
+                }
+                index++;
+            }
         }
+    }
 
-        // 写入索引
-        if (!indices.isEmpty()) {
-            ByteBuffer buffer = bufferPool.allocate(indices.size() * INDEX_STORAGE_SIZE);
-            indices.forEach(buffer::putLong);
-            buffer.flip();
-            indexPersistence.append(buffer.array());
-            bufferPool.release(buffer);
+    private boolean verifyRawEntry(byte[] rawEntry) {
+        try {
+            return journalEntryParser.verifyChecksum(journalEntryParser.parse(rawEntry));
+        } catch (Exception e) {
+            return false;
         }
     }
 
@@ -786,12 +1229,12 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
         // 找最后的连续2条记录
 
-        long position = journalPersistence.max() - journalEntryParser.headerLength();
+        long position = journalPersistence.max() - journalEntryParser.minHeaderLength();
         long lastEntryPosition = -1; // 最后连续2条记录中后面那条的位置
         JournalEntry lastEntryHeader = null;
         while (position >= journalPersistence.min()) {
             try {
-                JournalEntry header = readByOffset(position);
+                JournalEntry header = journalEntryParser.parse(readRawByOffsetWithHeader(position));
                 // 找到一条记录的开头位置
                 if (lastEntryPosition < 0) { // 之前是否已经找到一条？
                     // 这是倒数第一条，记录之
@@ -859,6 +1302,163 @@ public class Journal implements RaftJournal, Flushable, Closeable {
                 flushed = 0;
             }
         } while (flushed > 0);
+        maybeSaveCheckpoint();
+    }
+
+    /**
+     * 刷盘之后调用，定期保存恢复检查点。
+     * 检查点只记录已经刷盘的数据，保存失败不影响正常读写，只会使下次恢复变慢。
+     */
+    private void maybeSaveCheckpoint() {
+        if (System.currentTimeMillis() - lastCheckpointTime >= CHECKPOINT_INTERVAL_MS) {
+            saveCheckpoint();
+        }
+    }
+
+    /**
+     * 保存恢复检查点
+     */
+    void saveCheckpoint() {
+        if (null == basePath) {
+            return;
+        }
+        withReadLock(() -> {
+            synchronized (checkpointMutex) {
+                lastCheckpointTime = System.currentTimeMillis();
+                JournalCheckpoint checkpoint = createCheckpoint();
+                if (!checkpoint.sameAs(lastCheckpoint)) {
+                    try {
+                        metadataPersistence.save(checkpointPath(), checkpoint);
+                        lastCheckpoint = checkpoint;
+                    } catch (IOException e) {
+                        logger.warn("Save journal checkpoint exception, checkpoint: {}, path: {}.",
+                                checkpoint, basePath.toAbsolutePath().toString(), e);
+                    }
+                }
+            }
+        });
+    }
+
+    private JournalCheckpoint createCheckpoint() {
+        JournalCheckpoint checkpoint = new JournalCheckpoint();
+
+        // 找到日志和全局索引都已经刷盘的最大位置
+        long journalFlushed = journalPersistence.flushed();
+        long index = Math.min(indexPersistence.flushed() / INDEX_STORAGE_SIZE, maxIndex());
+        for (int i = 0; i < VERIFY_BATCH_SIZE && index > minIndex(); i++, index--) {
+            long end = readEntryEndOffset(index - 1);
+            if (end <= journalFlushed) {
+                checkpoint.setIndex(index);
+                checkpoint.setOffset(end);
+                break;
+            }
+        }
+
+        // 先读取提交位置，再检查分区索引是否都已经刷盘
+        long partitionIndex = commitIndex.get();
+        Map<Integer, Long> partitionPositions = new HashMap<>(partitionMap.size());
+        for (Map.Entry<Integer, CachedIndexPersistence> entry : partitionMap.entrySet()) {
+            CachedIndexPersistence partitionPersistence = entry.getValue();
+            long max = partitionPersistence.max();
+            if (partitionPersistence.flushed() < max) {
+                partitionPositions = null;
+                break;
+            }
+            partitionPositions.put(entry.getKey(), max);
+        }
+        if (null != partitionPositions && partitionIndex > minIndex()) {
+            checkpoint.setPartitionIndex(partitionIndex);
+            checkpoint.setPartitionOffset(readEntryEndOffset(partitionIndex - 1));
+            checkpoint.setPartitionPositions(partitionPositions);
+        } else if (null != lastCheckpoint) {
+            // 分区索引还有未刷盘的数据，沿用上一个检查点的分区部分
+            checkpoint.setPartitionIndex(lastCheckpoint.getPartitionIndex());
+            checkpoint.setPartitionOffset(lastCheckpoint.getPartitionOffset());
+            checkpoint.setPartitionPositions(lastCheckpoint.getPartitionPositions());
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 截断日志时调用，如果截断的位置在检查点之前，检查点不再有效。
+     * @param index 截断后的最大全局索引，小于0时总是使检查点失效
+     */
+    private void invalidateCheckpoint(long index) {
+        synchronized (checkpointMutex) {
+            if (null != lastCheckpoint &&
+                    (index < 0L || lastCheckpoint.getIndex() > index || lastCheckpoint.getPartitionIndex() > index)) {
+                try {
+                    // 保存一个空的检查点覆盖之前的检查点
+                    metadataPersistence.save(checkpointPath(), new JournalCheckpoint());
+                } catch (IOException e) {
+                    logger.warn("Invalidate journal checkpoint exception, path: {}.",
+                            basePath.toAbsolutePath().toString(), e);
+                }
+                lastCheckpoint = null;
+            }
+        }
+    }
+
+    private JournalCheckpoint loadCheckpoint() {
+        try {
+            return metadataPersistence.load(checkpointPath(), JournalCheckpoint.class);
+        } catch (Exception e) {
+            logger.debug("No journal checkpoint found, path: {}.", basePath.toAbsolutePath().toString());
+            return null;
+        }
+    }
+
+    /**
+     * 检查全局部分的检查点是否和恢复后的日志、全局索引一致
+     */
+    private boolean isValidCheckpoint(JournalCheckpoint checkpoint) {
+        if (null == checkpoint || checkpoint.getIndex() <= minIndex() || checkpoint.getIndex() > maxIndex() ||
+                checkpoint.getOffset() > journalPersistence.max()) {
+            return false;
+        }
+        try {
+            return readEntryEndOffset(checkpoint.getIndex() - 1) == checkpoint.getOffset();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 检查分区部分的检查点是否和恢复后的日志一致
+     */
+    private boolean isValidPartitionCheckpoint(JournalCheckpoint checkpoint) {
+        if (null == checkpoint || null == checkpoint.getPartitionPositions() ||
+                checkpoint.getPartitionIndex() <= minIndex() || checkpoint.getPartitionIndex() > maxIndex()) {
+            return false;
+        }
+        try {
+            return readEntryEndOffset(checkpoint.getPartitionIndex() - 1) == checkpoint.getPartitionOffset();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 读取第index条日志的结束位置，即下一条日志的起始位置
+     */
+    private long readEntryEndOffset(long index) {
+        long offset = readOffset(index);
+        return offset + readEntryLengthByOffset(offset);
+    }
+
+    private Path checkpointPath() {
+        return basePath.resolve(CHECKPOINT_FILE);
+    }
+
+    /**
+     * 将已经刷盘的Journal和全局索引同步到磁盘上（fdatasync）。
+     * 调用前需要先执行{@link #flush()}。
+     */
+    public void sync() {
+        withReadLock(() -> {
+            journalPersistence.sync();
+            indexPersistence.sync();
+        });
     }
 
     boolean isDirty() {
@@ -886,7 +1486,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
                 }
 
                 List<Integer> toBeRemoved = new ArrayList<>();
-                for (Map.Entry<Integer, JournalPersistence> entry : partitionMap.entrySet()) {
+                for (Map.Entry<Integer, CachedIndexPersistence> entry : partitionMap.entrySet()) {
                     if (!partitions.contains(entry.getKey())) {
                         toBeRemoved.add(entry.getKey());
                     }
@@ -908,7 +1508,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     public long queryIndexByTimestamp(int partition, long timestamp) {
         try {
             if (partitionMap.containsKey(partition)) {
-                JournalPersistence indexStore = partitionMap.get(partition);
+                CachedIndexPersistence indexStore = partitionMap.get(partition);
                 long searchedIndex = binarySearchByTimestamp(timestamp, indexStore, indexStore.min() / INDEX_STORAGE_SIZE, indexStore.max() / INDEX_STORAGE_SIZE - 1);
 
                 // 考虑到有可能出现连续n条消息时间相同，找到这n条消息的第一条
@@ -926,7 +1526,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
     // 折半查找
     private long binarySearchByTimestamp(long timestamp,
-                                         JournalPersistence indexStore,
+                                         CachedIndexPersistence indexStore,
                                          long leftIndexInclude,
                                          long rightIndexInclude) {
 
@@ -958,7 +1558,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     }
 
     private long getStorageTimestamp(
-            JournalPersistence indexStore,
+            CachedIndexPersistence indexStore,
             long index) {
         JournalEntry header = readEntryHeaderByOffset(readOffset(indexStore, index));
         return header.getTimestamp();
@@ -976,7 +1576,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     private void addPartition(int partition, long minIndex) throws IOException {
         synchronized (partitionMap) {
             if (!partitionMap.containsKey(partition)) {
-                JournalPersistence partitionPersistence = persistenceFactory.createJournalPersistenceInstance();
+                CachedIndexPersistence partitionPersistence = createPartitionPersistence();
                 partitionPersistence.recover(
                         basePath.resolve(PARTITION_PATH).resolve(String.valueOf(partition)),
                         minIndex * INDEX_STORAGE_SIZE,
@@ -988,7 +1588,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
     public void removePartition(int partition) throws IOException {
         synchronized (partitionMap) {
-            JournalPersistence removedPersistence;
+            CachedIndexPersistence removedPersistence;
             if ((removedPersistence = partitionMap.remove(partition)) != null) {
                 logger.info("Partition removed: {}, journal: {}.", partition, basePath.toAbsolutePath().toString());
                 removedPersistence.close();
@@ -999,6 +1599,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
     @Override
     public void close() throws IOException {
+        saveCheckpoint();
         for (JournalPersistence persistence : partitionMap.values()) {
             persistence.close();
         }
@@ -1033,9 +1634,9 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     public Map<Integer, Long> calcPartitionIndices(long journalOffset) {
 
         Map<Integer, Long> partitionIndices = new HashMap<>(partitionMap.size());
-        for (Map.Entry<Integer, JournalPersistence> entry : partitionMap.entrySet()) {
+        for (Map.Entry<Integer, CachedIndexPersistence> entry : partitionMap.entrySet()) {
             int partition = entry.getKey();
-            JournalPersistence partitionPersistence = entry.getValue();
+            CachedIndexPersistence partitionPersistence = entry.getValue();
             long index = maxIndex(partition);
             while (--index >= minIndex(partition)) {
                 long offset = readOffset(partitionPersistence, index);
@@ -1101,4 +1702,34 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     private interface LockedCode {
         void call() throws Exception;
     }
+
+    @FunctionalInterface
+    private interface PartitionTask {
+        void run(int partition) throws IOException;
+    }
+
+    /**
+     * 同一个进程内所有Journal共用的分区索引线程池，线程数有上限，空闲的线程会退出。
+     * 用于提交和恢复时并行写入多个分区的索引。
+     */
+    private static class PartitionIndexExecutorHolder {
+        private static final ExecutorService EXECUTOR = createExecutor();
+
+        private static ExecutorService createExecutor() {
+            int threads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                    60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new NamedThreadFactory("JournalKeeper-Partition-Index-Executor", true));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    private interface EntryVisitor {
+        void visit(long offset, JournalEntry header) throws IOException;
+    }
+
+    private interface ScanListener {
+        void onBatch() throws IOException;
+    }
 }
@@ -0,0 +1,106 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.journal;
+
+import java.util.Map;
+
+/**
+ * Journal恢复检查点，定期保存，用于加快重启时的恢复速度。
+ *
+ * 全局部分：全局索引 index 之前的日志和全局索引都已经刷盘，offset 为第 index 条日志的起始偏移量。
+ * 恢复时只需要从 offset 开始扫描日志，重建之后的全局索引。
+ *
+ * 分区部分：全局索引 partitionIndex 之前所有已提交日志的分区索引都已经刷盘，
+ * partitionOffset 为第 partitionIndex 条日志的起始偏移量，
+ * partitionPositions 为保存检查点时每个分区索引的刷盘位置。
+ * 恢复时分区索引不小于记录位置的分区，只需要从 partitionOffset 开始补齐分区索引。
+ */
+class JournalCheckpoint {
+    private long index = 0L;
+    private long offset = 0L;
+    private long partitionIndex = 0L;
+    private long partitionOffset = 0L;
+    private Map<Integer, Long> partitionPositions = null;
+
+    long getIndex() {
+        return index;
+    }
+
+    void setIndex(long index) {
+        this.index = index;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    long getPartitionIndex() {
+        return partitionIndex;
+    }
+
+    void setPartitionIndex(long partitionIndex) {
+        this.partitionIndex = partitionIndex;
+    }
+
+    long getPartitionOffset() {
+        return partitionOffset;
+    }
+
+    void setPartitionOffset(long partitionOffset) {
+        this.partitionOffset = partitionOffset;
+    }
+
+    Map<Integer, Long> getPartitionPositions() {
+        return partitionPositions;
+    }
+
+    void setPartitionPositions(Map<Integer, Long> partitionPositions) {
+        this.partitionPositions = partitionPositions;
+    }
+
+    /**
+     * 分区的检查点是否有效
+     * @param partition 分区
+     * @param position 恢复后分区索引的最大位置
+     * @return 分区索引没有丢失检查点之前刷盘的数据时返回true
+     */
+    boolean isPartitionValid(int partition, long position) {
+        if (null == partitionPositions) {
+            return false;
+        }
+        Long checkpointPosition = partitionPositions.get(partition);
+        return null != checkpointPosition && position >= checkpointPosition;
+    }
+
+    boolean sameAs(JournalCheckpoint other) {
+        return null != other && index == other.index && offset == other.offset &&
+                partitionIndex == other.partitionIndex && partitionOffset == other.partitionOffset &&
+                (null == partitionPositions ? null == other.partitionPositions : partitionPositions.equals(other.partitionPositions));
+    }
+
+    @Override
+    public String toString() {
+        return "JournalCheckpoint{" +
+                "index=" + index +
+                ", offset=" + offset +
+                ", partitionIndex=" + partitionIndex +
+                ", partitionOffset=" + partitionOffset +
+                ", partitions=" + (null == partitionPositions ? 0 : partitionPositions.size()) +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.journal;
+
+/**
+ * Journal的配置
+ */
+public class JournalConfig {
+    public final static int DEFAULT_INDEX_CACHE_SIZE = 64 * 1024;
+    public final static int DEFAULT_PARTITION_INDEX_CACHE_SIZE = 4 * 1024;
+    public final static String INDEX_CACHE_SIZE_KEY = "index_cache_size";
+    public final static String PARTITION_INDEX_CACHE_SIZE_KEY = "partition_index_cache_size";
+
+    private int indexCacheSize = DEFAULT_INDEX_CACHE_SIZE; // 全局索引在内存中缓存的末尾索引条数
+    private int partitionIndexCacheSize = DEFAULT_PARTITION_INDEX_CACHE_SIZE; // 每个分区索引在内存中缓存的末尾索引条数
+
+    public int getIndexCacheSize() {
+        return indexCacheSize;
+    }
+
+    public void setIndexCacheSize(int indexCacheSize) {
+        this.indexCacheSize = indexCacheSize;
+    }
+
+    public int getPartitionIndexCacheSize() {
+        return partitionIndexCacheSize;
+    }
+
+    public void setPartitionIndexCacheSize(int partitionIndexCacheSize) {
+        this.partitionIndexCacheSize = partitionIndexCacheSize;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.journal;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static io.journalkeeper.core.journal.Journal.INDEX_STORAGE_SIZE;
+
+/**
+ * 按分区分组的一批待写入的分区索引，非线程安全。
+ * 每个分区的索引值保存在一个可扩容的long数组中，
+ * 批量消息的第一条索引为日志偏移量，之后每条依次为-1, -2, ...
+ */
+class PartitionIndices {
+    private static final int INITIAL_CAPACITY = 16;
+    private final Map<Integer, Values> partitions = new HashMap<>();
+
+    /**
+     * 添加一条日志的分区索引
+     * @param partition 分区
+     * @param offset 日志偏移量
+     * @param batchSize 批量消息的条数
+     */
+    void add(int partition, long offset, int batchSize) {
+        Values values = partitions.computeIfAbsent(partition, p -> new Values());
+        values.add(offset);
+        for (int j = 1; j < batchSize; j++) {
+            values.add(-1L * j);
+        }
+    }
+
+    Set<Integer> partitions() {
+        return partitions.keySet();
+    }
+
+    /**
+     * 序列化分区的所有索引，用于一次性写入分区索引存储
+     * @param partition 分区
+     * @return 序列化后的索引，分区不存在时返回长度为0的数组
+     */
+    byte[] toBytes(int partition) {
+        Values values = partitions.get(partition);
+        if (null == values) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[values.size * INDEX_STORAGE_SIZE];
+        ByteBuffer.wrap(bytes).asLongBuffer().put(values.values, 0, values.size);
+        return bytes;
+    }
+
+    boolean isEmpty() {
+        return partitions.isEmpty();
+    }
+
+    private static class Values {
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size = 0;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length << 1);
+            }
+            values[size++] = value;
+        }
+    }
+}
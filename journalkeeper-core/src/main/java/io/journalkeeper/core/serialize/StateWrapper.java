@@ -1,5 +1,6 @@
 package io.journalkeeper.core.serialize;
 
+import io.journalkeeper.core.api.EntryFuture;
 import io.journalkeeper.core.api.RaftJournal;
 import io.journalkeeper.core.api.State;
 import io.journalkeeper.core.api.StateResult;
@@ -7,6 +8,8 @@ import io.journalkeeper.core.api.StateResult;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -38,6 +41,22 @@ public class StateWrapper<E, ER, Q, QR> implements State, Flushable {
                 wrappedStateResult.getEventData());
     }
 
+    @Override
+    public List<StateResult> executeBatch(List<EntryFuture> entryFutures, int [] partitions, long index, int [] batchSizes, RaftJournal journal) {
+        List<E> entries = new ArrayList<>(entryFutures.size());
+        for (EntryFuture entryFuture : entryFutures) {
+            entries.add(serializeExtensionPoint.parse(entryFuture.get()));
+        }
+        List<WrappedStateResult<ER>> wrappedStateResults = wrappedState.executeBatchAndNotify(entries);
+        List<StateResult> results = new ArrayList<>(wrappedStateResults.size());
+        for (WrappedStateResult<ER> wrappedStateResult : wrappedStateResults) {
+            results.add(new StateResult(
+                    serializeExtensionPoint.serialize(wrappedStateResult.getResult()),
+                    wrappedStateResult.getEventData()));
+        }
+        return results;
+    }
+
     @Override
     public byte[] query(byte[] query, RaftJournal journal) {
         return serializeExtensionPoint.serialize(
@@ -52,6 +71,11 @@ public class StateWrapper<E, ER, Q, QR> implements State, Flushable {
         wrappedState.recover(path, properties);
     }
 
+    @Override
+    public boolean checkpoint(Path destPath) throws IOException {
+        return wrappedState.checkpoint(destPath);
+    }
+
     @Override
     public void close() {
         wrappedState.close();
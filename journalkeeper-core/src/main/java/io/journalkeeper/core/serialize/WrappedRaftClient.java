@@ -7,6 +7,7 @@ import io.journalkeeper.core.api.ServerConfigAware;
 import io.journalkeeper.core.api.UpdateRequest;
 import io.journalkeeper.core.api.transaction.TransactionContext;
 import io.journalkeeper.core.api.transaction.TransactionId;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.event.Watchable;
 
@@ -138,6 +139,11 @@ public class WrappedRaftClient<E, ER, Q, QR> implements Watchable, ClusterReadyA
         raftClient.watch(eventWatcher);
     }
 
+    @Override
+    public void watch(EventWatcher eventWatcher, EventFilter filter) {
+        raftClient.watch(eventWatcher, filter);
+    }
+
     @Override
     public void unWatch(EventWatcher eventWatcher) {
         raftClient.unWatch(eventWatcher);
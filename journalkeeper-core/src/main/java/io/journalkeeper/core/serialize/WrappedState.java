@@ -2,6 +2,8 @@ package io.journalkeeper.core.serialize;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -27,6 +29,21 @@ public interface WrappedState<E, ER, Q, QR> {
         return new WrappedStateResult<>(execute(entry), null);
     }
 
+    /**
+     * 按顺序批量执行一组命令，实现类可以覆盖此方法将多条命令合并为一次写入。
+     * 要求与{@link #executeAndNotify(Object)}相同，默认实现逐条调用{@link #executeAndNotify(Object)}。
+     *
+     * @param entries 待执行的命令
+     * @return 与entries一一对应的执行结果。
+     */
+    default List<WrappedStateResult<ER>> executeBatchAndNotify(List<E> entries) {
+        List<WrappedStateResult<ER>> results = new ArrayList<>(entries.size());
+        for (E entry : entries) {
+            results.add(executeAndNotify(entry));
+        }
+        return results;
+    }
+
     /**
      * 在状态state上执行命令entries，JournalKeeper保证执行操作命令的线性语义。要求：
      * <ul>
@@ -57,6 +74,17 @@ public interface WrappedState<E, ER, Q, QR> {
      */
     void recover(Path path, Properties properties) throws IOException;
 
+    /**
+     * 创建状态机的检查点，用于生成快照。See {@link io.journalkeeper.core.api.State#checkpoint(Path)}
+     *
+     * @param destPath 检查点的目录，调用时这个目录还不存在
+     * @return 成功创建检查点返回true，不支持返回false
+     * @throws IOException 发生IO异常时抛出
+     */
+    default boolean checkpoint(Path destPath) throws IOException {
+        return false;
+    }
+
     default void close() {
     }
 }
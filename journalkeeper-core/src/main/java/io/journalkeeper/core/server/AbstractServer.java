@@ -16,8 +16,10 @@ package io.journalkeeper.core.server;
 import io.journalkeeper.base.ReplicableIterator;
 import io.journalkeeper.core.Logo;
 import io.journalkeeper.core.api.ClusterConfiguration;
+import io.journalkeeper.core.api.EntryFuture;
 import io.journalkeeper.core.api.JournalEntry;
 import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.api.QueryConsistency;
 import io.journalkeeper.core.api.RaftServer;
 import io.journalkeeper.core.api.StateFactory;
 import io.journalkeeper.core.api.StateResult;
@@ -34,6 +36,7 @@ import io.journalkeeper.core.state.Snapshot;
 import io.journalkeeper.exceptions.JournalException;
 import io.journalkeeper.exceptions.RecoverException;
 import io.journalkeeper.core.journal.Journal;
+import io.journalkeeper.core.journal.JournalConfig;
 import io.journalkeeper.core.journal.JournalSnapshot;
 import io.journalkeeper.core.metric.DummyMetric;
 import io.journalkeeper.core.state.ConfigState;
@@ -44,6 +47,7 @@ import io.journalkeeper.core.strategy.JournalCompactionStrategy;
 import io.journalkeeper.exceptions.IndexOverflowException;
 import io.journalkeeper.exceptions.IndexUnderflowException;
 import io.journalkeeper.exceptions.NoSuchSnapshotException;
+import io.journalkeeper.exceptions.NotLeaderException;
 import io.journalkeeper.metric.JMetric;
 import io.journalkeeper.metric.JMetricFactory;
 import io.journalkeeper.metric.JMetricSupport;
@@ -52,7 +56,11 @@ import io.journalkeeper.persistence.LockablePersistence;
 import io.journalkeeper.persistence.MetadataPersistence;
 import io.journalkeeper.persistence.PersistenceFactory;
 import io.journalkeeper.persistence.ServerMetadata;
+import io.journalkeeper.rpc.RpcException;
+import io.journalkeeper.rpc.StatusCode;
+import io.journalkeeper.rpc.client.AddPullWatchRequest;
 import io.journalkeeper.rpc.client.AddPullWatchResponse;
+import io.journalkeeper.rpc.client.ClientServerRpc;
 import io.journalkeeper.rpc.client.ConvertRollRequest;
 import io.journalkeeper.rpc.client.ConvertRollResponse;
 import io.journalkeeper.rpc.client.GetServersResponse;
@@ -71,6 +79,7 @@ import io.journalkeeper.rpc.server.ServerRpcAccessPoint;
 import io.journalkeeper.utils.ThreadSafeFormat;
 import io.journalkeeper.utils.event.Event;
 import io.journalkeeper.utils.event.EventBus;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventType;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.files.FileUtils;
@@ -151,12 +160,16 @@ public abstract class AbstractServer
     protected final BufferPool bufferPool;
     protected final Map<URI, ServerRpc> remoteServers = new HashMap<>();
     protected final EventBus eventBus;
-    protected final Threads threads = ThreadsFactory.create();
+    protected final Threads threads;
     protected final Properties properties;
     protected final StateFactory stateFactory;
     protected final JournalEntryParser journalEntryParser;
     protected final VoterConfigManager voterConfigManager;
     private final Map<Integer, ReplicableIterator> snapshotIteratorMap = new ConcurrentHashMap<>();
+    /**
+     * 等待状态机执行到指定位置的请求，key为日志位置
+     */
+    private final NavigableMap<Long, CompletableFuture<Void>> appliedWaiters = new ConcurrentSkipListMap<>();
     private  JMetricFactory metricFactory;
     private  Map<String, JMetric> metricMap;
     private final JMetric applyEntriesMetric;
@@ -197,6 +210,18 @@ public abstract class AbstractServer
      * 上次保存的元数据
      */
     private ServerMetadata lastSavedServerMetadata = null;
+    /**
+     * 已经同步到磁盘的Journal位置，只在刷盘线程中访问
+     */
+    private long syncedOffset = 0L;
+    /**
+     * 第一次发现未同步数据的时间，没有未同步数据时为-1
+     */
+    private long firstUnsyncedNanos = -1L;
+    /**
+     * 同步刷盘的自适应合并窗口，只在刷盘线程中访问
+     */
+    private final JournalSyncWindow syncWindow;
     private ScheduledFuture flushStateFuture;
     private ScheduledFuture compactJournalFuture;
     private JournalCompactionStrategy journalCompactionStrategy;
@@ -207,6 +232,9 @@ public abstract class AbstractServer
         this.scheduledExecutor = scheduledExecutor;
         this.asyncExecutor = asyncExecutor;
         this.config = toConfig(properties);
+        this.syncWindow = new JournalSyncWindow(config.getSyncIntervalMs(), config.getSyncBytes());
+        // 同一进程中运行大量Server时，所有后台线程共享scheduledExecutor，不再每个线程占用一个独立线程
+        this.threads = config.isSharedThreads() ? ThreadsFactory.create(scheduledExecutor) : ThreadsFactory.create();
         this.serverRpcAccessPoint = serverRpcAccessPoint;
         this.properties = properties;
         this.stateFactory = stateFactory;
@@ -239,13 +267,13 @@ public abstract class AbstractServer
         applyEntriesMetric = getMetric(METRIC_APPLY_ENTRIES);
 
 
-        this.eventBus = new EventBus(config.getRpcTimeoutMs());
+        this.eventBus = new EventBus(config.getRpcTimeoutMs(), config.getPullEventCapacity());
         persistenceFactory = ServiceSupport.load(PersistenceFactory.class);
         metadataPersistence = persistenceFactory.createMetadataPersistenceInstance();
         bufferPool = ServiceSupport.load(BufferPool.class);
         journal = new Journal(
                 persistenceFactory,
-                bufferPool, journalEntryParser);
+                bufferPool, journalEntryParser, toJournalConfig(properties));
         this.state = new JournalKeeperState(stateFactory, metadataPersistence);
 
         this.partialSnapshot = new PartialSnapshot(partialSnapshotPath());
@@ -286,12 +314,16 @@ public abstract class AbstractServer
         return ThreadBuilder.builder()
                 .name(threadName(FLUSH_JOURNAL_THREAD))
                 .doWork(this::flushJournal)
-                .sleepTime(config.getFlushIntervalMs(), config.getFlushIntervalMs())
+                .sleepTime(flushSleepMs(), flushSleepMs())
                 .onException(new DefaultExceptionListener(FLUSH_JOURNAL_THREAD))
                 .daemon(true)
                 .build();
     }
 
+    private long flushSleepMs() {
+        return config.isSyncJournal() ? Math.min(config.getFlushIntervalMs(), config.getSyncIntervalMs()) : config.getFlushIntervalMs();
+    }
+
     private AsyncLoopThread buildPrintMetricThread() {
         return ThreadBuilder.builder()
                 .name(threadName(PRINT_METRIC_THREAD))
@@ -410,22 +442,69 @@ public abstract class AbstractServer
      * 反复执行applyEntries直到lastApplied == commitIndex：
      *
      * 1. 如果需要，复制当前状态为新的快照保存到属性snapshots, 索引值为lastApplied。
-     * 2. lastApplied自增，将log[lastApplied]应用到状态机，更新当前状态state；
+     * 2. 每次最多读取applyBatchSize条已提交的日志，批量应用到状态机，更新当前状态state；
+     * 3. 按顺序逐条回调执行结果并发布状态变化事件。
      *
      */
     private void applyEntries() {
         while (state.lastApplied() < journal.commitIndex()) {
             applyEntriesMetric.start();
-            long offset = journal.readOffset(state.lastApplied());
-            JournalEntry entryHeader = journal.readEntryHeaderByOffset(offset);
-            StateResult stateResult = state.applyEntry(entryHeader, new EntryFutureImpl(journal, offset), journal);
-            afterStateChanged(stateResult.getUserResult());
-
-            if(config.isEnableEvents()) {
-                stateResult.putEventData("lastApplied", String.valueOf(state.lastApplied()));
-                fireEvent(EventType.ON_STATE_CHANGE, stateResult.getEventData());
+            long startIndex = state.lastApplied();
+            int size = (int) Math.min(config.getApplyBatchSize(), journal.commitIndex() - startIndex);
+            // 一次读出这一批已提交的日志，Header和Payload都从读出的数据中解析，不再逐条读取
+            List<byte[]> rawEntries = journal.readRaw(startIndex, size);
+            List<JournalEntry> entryHeaders = new ArrayList<>(rawEntries.size());
+            List<EntryFuture> entryFutures = new ArrayList<>(rawEntries.size());
+            long length = 0L;
+            for (byte[] rawEntry : rawEntries) {
+                JournalEntry entry = journalEntryParser.parse(rawEntry);
+                entryHeaders.add(entry);
+                entryFutures.add(() -> entry.getPayload().getBytes());
+                length += entry.getLength();
+            }
+            List<StateResult> stateResults = state.applyEntries(entryHeaders, entryFutures, journal);
+            for (StateResult stateResult : stateResults) {
+                afterStateChanged(stateResult.getLastApplied(), stateResult.getUserResult());
+
+                if(config.isEnableEvents()) {
+                    stateResult.putEventData("lastApplied", String.valueOf(stateResult.getLastApplied()));
+                    fireEvent(EventType.ON_STATE_CHANGE, stateResult.getEventData());
+                }
+            }
+            long appliedLength = length;
+            applyEntriesMetric.end(() -> appliedLength);
+            notifyAppliedWaiters(state.lastApplied());
+        }
+    }
+
+    /**
+     * 等待状态机执行到指定位置，超时后抛出TimeoutException。
+     * @param index 日志位置
+     * @return 状态机的lastApplied不小于index时完成
+     */
+    protected CompletableFuture<Void> waitForApplied(long index) {
+        if (state.lastApplied() >= index) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = appliedWaiters.computeIfAbsent(index, key -> {
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            scheduledExecutor.schedule(() -> {
+                appliedWaiters.remove(key, waiter);
+                waiter.completeExceptionally(new TimeoutException());
+            }, config.getRpcTimeoutMs(), TimeUnit.MILLISECONDS);
+            return waiter;
+        });
+        // 注册之前状态机可能已经执行到这个位置了
+        notifyAppliedWaiters(state.lastApplied());
+        return future;
+    }
+
+    private void notifyAppliedWaiters(long lastApplied) {
+        Map.Entry<Long, CompletableFuture<Void>> entry;
+        while (null != (entry = appliedWaiters.firstEntry()) && entry.getKey() <= lastApplied) {
+            if (appliedWaiters.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().complete(null);
             }
-            applyEntriesMetric.end(() -> (long) entryHeader.getLength());
         }
     }
 
@@ -493,29 +572,74 @@ public abstract class AbstractServer
 
     /**
      * 当状态变化后触发事件
+     * @param lastApplied 执行后状态机的lastApplied
      * @param updateResult 状态机执行结果
      */
-    protected void afterStateChanged(byte[] updateResult) {
+    protected void afterStateChanged(long lastApplied, byte[] updateResult) {
     }
 
     /**
      * 如果需要，保存一次快照
      */
 
+    /**
+     * 在当前节点查询状态，如果状态机还没有执行到请求中的位置，等待状态机执行到这个位置之后再查询。
+     * 读一致性为READ_INDEX时，先从LEADER获取ReadIndex，等待状态机执行到ReadIndex之后再查询，保证强一致。
+     */
     @Override
     public CompletableFuture<QueryStateResponse> queryServerState(QueryStateRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (request.getIndex() > 0 && state.lastApplied() < request.getIndex()) {
-                    return new QueryStateResponse(new IllegalStateException());
-                } else {
+        CompletableFuture<Long> indexFuture = request.getConsistency() == QueryConsistency.READ_INDEX ?
+                readIndex().thenApply(readIndex -> Math.max(readIndex, request.getIndex())) :
+                CompletableFuture.completedFuture(request.getIndex());
+        return indexFuture
+                .thenCompose(this::waitForApplied)
+                .thenApplyAsync(aVoid -> {
                     StateQueryResult queryResult = state.query(request.getQuery(), journal);
                     return new QueryStateResponse(queryResult.getResult(), queryResult.getLastApplied());
-                }
-            } catch (Throwable throwable) {
-                return new QueryStateResponse(throwable);
-            }
-        }, asyncExecutor);
+                }, asyncExecutor)
+                .exceptionally(exception -> {
+                    try {
+                        throw exception instanceof CompletionException ? exception.getCause() : exception;
+                    } catch (Throwable t) {
+                        return new QueryStateResponse(t);
+                    }
+                });
+    }
+
+    /**
+     * 从LEADER获取ReadIndex，即LEADER确认自己仍然有效时的提交位置。
+     * @return ReadIndex，没有LEADER时以NotLeaderException异常结束
+     */
+    protected CompletableFuture<Long> readIndex() {
+        return readIndex(leaderUri, true);
+    }
+
+    /**
+     * 从指定节点获取ReadIndex
+     * @param server 节点地址，一般是LEADER
+     * @param redirect 如果这个节点不是LEADER，是否根据返回的LEADER地址重试一次
+     * @return ReadIndex，节点为空时以NotLeaderException异常结束，请求失败时以RpcException异常结束
+     */
+    protected CompletableFuture<Long> readIndex(URI server, boolean redirect) {
+        if (null == server) {
+            CompletableFuture<Long> future = new CompletableFuture<>();
+            future.completeExceptionally(new NotLeaderException(null));
+            return future;
+        }
+        return getServerRpc(server)
+                .thenCompose(ClientServerRpc::lastApplied)
+                .thenCompose(response -> {
+                    if (response.success()) {
+                        return CompletableFuture.completedFuture(response.getLastApplied());
+                    }
+                    if (redirect && response.getStatusCode() == StatusCode.NOT_LEADER &&
+                            null != response.getLeader() && !server.equals(response.getLeader())) {
+                        return readIndex(response.getLeader(), false);
+                    }
+                    CompletableFuture<Long> future = new CompletableFuture<>();
+                    future.completeExceptionally(new RpcException(response));
+                    return future;
+                });
     }
 
     /**
@@ -558,7 +682,8 @@ public abstract class AbstractServer
                     if (Files.exists(tempSnapshotPath)) {
                         throw new ConcurrentModificationException(String.format("A snapshot of position %d is creating, please retry later.", request.getIndex()));
                     }
-                    nearestSnapshot.getValue().dump(tempSnapshotPath);
+                    // 与最近的快照相比没有变化的文件通过硬链接共享，打开用户状态之前会复制被共享的文件
+                    nearestSnapshot.getValue().checkpoint(tempSnapshotPath, nearestSnapshot.getValue().getPath());
                     snapshot.recover(tempSnapshotPath, properties);
 
                     while (snapshot.lastApplied() < request.getIndex()) {
@@ -607,6 +732,19 @@ public abstract class AbstractServer
         logger.info("recover snapshot success, target snapshot: {}", targetSnapshot.getPath());
     }
 
+    private JournalConfig toJournalConfig(Properties properties) {
+        JournalConfig journalConfig = new JournalConfig();
+        journalConfig.setIndexCacheSize(Integer.parseInt(
+                properties.getProperty(
+                        JournalConfig.INDEX_CACHE_SIZE_KEY,
+                        String.valueOf(JournalConfig.DEFAULT_INDEX_CACHE_SIZE))));
+        journalConfig.setPartitionIndexCacheSize(Integer.parseInt(
+                properties.getProperty(
+                        JournalConfig.PARTITION_INDEX_CACHE_SIZE_KEY,
+                        String.valueOf(JournalConfig.DEFAULT_PARTITION_INDEX_CACHE_SIZE))));
+        return journalConfig;
+    }
+
     private Config toConfig(Properties properties) {
         Config config = new Config();
         config.setSnapshotIntervalSec(Integer.parseInt(
@@ -655,6 +793,36 @@ public abstract class AbstractServer
                         Config.ENABLE_EVENTS_KEY,
                         String.valueOf(Config.DEFAULT_ENABLE_EVENTS))));
 
+        config.setApplyBatchSize(Integer.parseInt(
+                properties.getProperty(
+                        Config.APPLY_BATCH_SIZE_KEY,
+                        String.valueOf(Config.DEFAULT_APPLY_BATCH_SIZE))));
+
+        config.setSyncJournal(Boolean.parseBoolean(
+                properties.getProperty(
+                        Config.SYNC_JOURNAL_KEY,
+                        String.valueOf(Config.DEFAULT_SYNC_JOURNAL))));
+
+        config.setSyncIntervalMs(Long.parseLong(
+                properties.getProperty(
+                        Config.SYNC_INTERVAL_MS_KEY,
+                        String.valueOf(Config.DEFAULT_SYNC_INTERVAL_MS))));
+
+        config.setSyncBytes(Long.parseLong(
+                properties.getProperty(
+                        Config.SYNC_BYTES_KEY,
+                        String.valueOf(Config.DEFAULT_SYNC_BYTES))));
+
+        config.setSharedThreads(Boolean.parseBoolean(
+                properties.getProperty(
+                        Config.SHARED_THREADS_KEY,
+                        String.valueOf(Config.DEFAULT_SHARED_THREADS))));
+
+        config.setPullEventCapacity(Integer.parseInt(
+                properties.getProperty(
+                        Config.PULL_EVENT_CAPACITY_KEY,
+                        String.valueOf(Config.DEFAULT_PULL_EVENT_CAPACITY))));
+
         return config;
     }
 
@@ -664,15 +832,20 @@ public abstract class AbstractServer
         this.eventBus.watch(eventWatcher);
     }
 
+    @Override
+    public void watch(EventWatcher eventWatcher, EventFilter filter) {
+        this.eventBus.watch(eventWatcher, filter);
+    }
+
     @Override
     public void unWatch(EventWatcher eventWatcher) {
         this.eventBus.unWatch(eventWatcher);
     }
 
     @Override
-    public CompletableFuture<AddPullWatchResponse> addPullWatch() {
+    public CompletableFuture<AddPullWatchResponse> addPullWatch(AddPullWatchRequest request) {
         return CompletableFuture.supplyAsync(() ->
-                new AddPullWatchResponse(eventBus.addPullWatch(), eventBus.pullIntervalMs()), asyncExecutor);
+                new AddPullWatchResponse(eventBus.addPullWatch(request.getFilter()), eventBus.pullIntervalMs()), asyncExecutor);
     }
 
     @Override
@@ -684,12 +857,14 @@ public abstract class AbstractServer
 
     @Override
     public CompletableFuture<PullEventsResponse> pullEvents(PullEventsRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
+        return CompletableFuture.runAsync(() -> {
             if (request.getAckSequence() >= 0) {
                 eventBus.ackPullEvents(request.getPullWatchId(), request.getAckSequence());
             }
-            return new PullEventsResponse(eventBus.pullEvents(request.getPullWatchId()));
-        }, asyncExecutor);
+        }, asyncExecutor)
+                // 没有新事件时挂起请求，直到有新事件或者等待超时
+                .thenCompose(v -> eventBus.pullEvents(request.getPullWatchId(), request.getMaxWaitMs(), scheduledExecutor))
+                .thenApply(PullEventsResponse::new);
     }
 
     @Override
@@ -708,9 +883,10 @@ public abstract class AbstractServer
         long lastApplied = state.lastApplied();
         logger.info("Creating snapshot at index: {}...", lastApplied);
         Path snapshotPath = snapshotsPath().resolve(String.valueOf(lastApplied));
+        Map.Entry<Long, Snapshot> baseSnapshot = snapshots.lowerEntry(lastApplied);
         try {
             FileUtils.deleteFolder(snapshotPath);
-            state.dump(snapshotPath);
+            state.checkpoint(snapshotPath, null == baseSnapshot ? null : baseSnapshot.getValue().getPath());
             Snapshot.markComplete(snapshotPath);
             Snapshot snapshot = new Snapshot(stateFactory, metadataPersistence);
             snapshot.recover(snapshotPath, properties);
@@ -803,12 +979,45 @@ public abstract class AbstractServer
         flushState();
     }
 
+    /**
+     * 刷盘Journal。
+     * 开启同步刷盘时，合并上次同步之后的所有写入，
+     * 待同步的数据超过syncBytes或者等待时间超过自适应的合并窗口后，执行一次fdatasync，
+     * 同步完成后才通知已刷盘的位置。
+     * 合并窗口根据实测的等待时间在0和syncIntervalMs之间调整，见{@link JournalSyncWindow}。
+     */
     private void flushJournal() {
+        long flushIndex = journal.maxIndex();
+        long flushOffset = journal.maxOffset();
         this.journal.flush();
-        onJournalFlushed();
+        if (config.isSyncJournal()) {
+            if (flushOffset < syncedOffset) {
+                // Journal被截断过，截断位置之后的数据需要重新同步
+                syncedOffset = -1L;
+            }
+            if (flushOffset > syncedOffset) {
+                long now = System.nanoTime();
+                if (firstUnsyncedNanos < 0L) {
+                    firstUnsyncedNanos = now;
+                }
+                if (!syncWindow.shouldSync(flushOffset - syncedOffset, now - firstUnsyncedNanos)) {
+                    return;
+                }
+                journal.sync();
+                long syncedNanos = System.nanoTime();
+                syncWindow.onSynced(flushOffset - syncedOffset, syncedNanos - firstUnsyncedNanos, syncedNanos - now);
+                syncedOffset = flushOffset;
+                firstUnsyncedNanos = -1L;
+            }
+        }
+        onJournalFlushed(flushIndex);
     }
 
-    protected void onJournalFlushed() {
+    /**
+     * Journal刷盘后调用
+     * @param flushIndex 这个位置之前的日志都已经刷盘
+     */
+    protected void onJournalFlushed(long flushIndex) {
     }
 
     private void flushState() {
@@ -1267,6 +1476,12 @@ public abstract class AbstractServer
         public final static int DEFAULT_PRINT_METRIC_INTERVAL_SEC = 0;
         public final static int DEFAULT_JOURNAL_RETENTION_MIN = 0;
         public final static boolean DEFAULT_ENABLE_EVENTS = true;
+        public final static int DEFAULT_APPLY_BATCH_SIZE = 128;
+        public final static boolean DEFAULT_SYNC_JOURNAL = false;
+        public final static long DEFAULT_SYNC_INTERVAL_MS = 10L;
+        public final static long DEFAULT_SYNC_BYTES = 4L * 1024 * 1024;
+        public final static boolean DEFAULT_SHARED_THREADS = false;
+        public final static int DEFAULT_PULL_EVENT_CAPACITY = EventBus.DEFAULT_PULL_EVENT_CAPACITY;
         public final static String SNAPSHOT_INTERVAL_SEC_KEY = "snapshot_interval_sec";
         public final static String RPC_TIMEOUT_MS_KEY = "rpc_timeout_ms";
         public final static String FLUSH_INTERVAL_MS_KEY = "flush_interval_ms";
@@ -1277,6 +1492,12 @@ public abstract class AbstractServer
         public final static String PRINT_METRIC_INTERVAL_SEC_KEY = "print_metric_interval_sec";
         public final static String JOURNAL_RETENTION_MIN_KEY = "journal_retention_min";
         public final static String ENABLE_EVENTS_KEY = "enable_events";
+        public final static String APPLY_BATCH_SIZE_KEY = "apply_batch_size";
+        public final static String SYNC_JOURNAL_KEY = "sync_journal";
+        public final static String SYNC_INTERVAL_MS_KEY = "sync_interval_ms";
+        public final static String SYNC_BYTES_KEY = "sync_bytes";
+        public final static String SHARED_THREADS_KEY = "shared_threads";
+        public final static String PULL_EVENT_CAPACITY_KEY = "pull_event_capacity";
 
         private int snapshotIntervalSec = DEFAULT_SNAPSHOT_INTERVAL_SEC;
         private long rpcTimeoutMs = DEFAULT_RPC_TIMEOUT_MS;
@@ -1288,6 +1509,14 @@ public abstract class AbstractServer
         private int printMetricIntervalSec = DEFAULT_PRINT_METRIC_INTERVAL_SEC;
         private int journalRetentionMin = DEFAULT_JOURNAL_RETENTION_MIN;
         private boolean enableEvents = DEFAULT_ENABLE_EVENTS;
+        private int applyBatchSize = DEFAULT_APPLY_BATCH_SIZE;
+        private boolean syncJournal = DEFAULT_SYNC_JOURNAL;
+        // 同步刷盘时写入等待同步的目标时间，合并窗口在0到这个时间之间自适应调整
+        private long syncIntervalMs = DEFAULT_SYNC_INTERVAL_MS;
+        // 同步刷盘时每次同步的目标数据量，待同步的数据达到这个值时立即同步
+        private long syncBytes = DEFAULT_SYNC_BYTES;
+        private boolean sharedThreads = DEFAULT_SHARED_THREADS; // 后台线程是否共享scheduledExecutor
+        private int pullEventCapacity = DEFAULT_PULL_EVENT_CAPACITY; // 远程监听最多缓存的事件数量
         int getSnapshotIntervalSec() {
             return snapshotIntervalSec;
         }
@@ -1367,5 +1596,53 @@ public abstract class AbstractServer
         public void setEnableEvents(boolean enableEvents) {
             this.enableEvents = enableEvents;
         }
+
+        public int getApplyBatchSize() {
+            return applyBatchSize;
+        }
+
+        public void setApplyBatchSize(int applyBatchSize) {
+            this.applyBatchSize = applyBatchSize;
+        }
+
+        public boolean isSyncJournal() {
+            return syncJournal;
+        }
+
+        public void setSyncJournal(boolean syncJournal) {
+            this.syncJournal = syncJournal;
+        }
+
+        public long getSyncIntervalMs() {
+            return syncIntervalMs;
+        }
+
+        public void setSyncIntervalMs(long syncIntervalMs) {
+            this.syncIntervalMs = syncIntervalMs;
+        }
+
+        public long getSyncBytes() {
+            return syncBytes;
+        }
+
+        public void setSyncBytes(long syncBytes) {
+            this.syncBytes = syncBytes;
+        }
+
+        public boolean isSharedThreads() {
+            return sharedThreads;
+        }
+
+        public void setSharedThreads(boolean sharedThreads) {
+            this.sharedThreads = sharedThreads;
+        }
+
+        public int getPullEventCapacity() {
+            return pullEventCapacity;
+        }
+
+        public void setPullEventCapacity(int pullEventCapacity) {
+            this.pullEventCapacity = pullEventCapacity;
+        }
     }
 }
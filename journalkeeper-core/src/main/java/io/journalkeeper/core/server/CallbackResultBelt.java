@@ -27,4 +27,16 @@ interface CallbackResultBelt {
     void callback(long position, byte[] result);
 
     void failAll();
+
+    /**
+     * 等待回调的请求数
+     * @return 等待回调的请求数
+     */
+    int size();
+
+    /**
+     * 因队列已满，写入线程等待的累计时间
+     * @return 累计等待时间，单位毫秒
+     */
+    long getStallTimeMs();
 }
@@ -42,6 +42,7 @@ class Follower extends ServerStateMachine implements StateServer {
      */
     protected final JournalKeeperState state;
     private final Journal journal;
+    private final ReplicationBacktracking backtracking;
     private final URI serverUri;
     private final int currentTerm;
     private final VoterConfigManager voterConfigManager;
@@ -63,6 +64,7 @@ class Follower extends ServerStateMachine implements StateServer {
         this.threads = threads;
         this.snapshots = snapshots;
         this.journal = journal;
+        this.backtracking = new ReplicationBacktracking(journal::getTerm, journal::minIndex, journal::maxIndex);
         this.serverUri = serverUri;
         this.currentTerm = currentTerm;
     }
@@ -101,7 +103,7 @@ class Follower extends ServerStateMachine implements StateServer {
      */
     AsyncAppendEntriesResponse handleAppendEntriesRequest(AsyncAppendEntriesRequest request) {
 
-        boolean notHeartBeat = null != request.getEntries() && request.getEntries().size() > 0;
+        boolean notHeartBeat = request.getEntryCount() > 0;
         // Reply false if log does not contain an entry at prevLogIndex
         // whose term matches prevLogTerm
         if (notHeartBeat &&
@@ -109,8 +111,7 @@ class Follower extends ServerStateMachine implements StateServer {
                 request.getPrevLogIndex() >= journal.maxIndex() ||
                 getTerm(request.getPrevLogIndex()) != request.getPrevLogTerm())
         ) {
-            return new AsyncAppendEntriesResponse(false, request.getPrevLogIndex() + 1,
-                    request.getTerm(), request.getEntries().size());
+            return mismatchResponse(request);
         }
 
         try {
@@ -126,10 +127,11 @@ class Follower extends ServerStateMachine implements StateServer {
                 // 如果要删除部分未提交的日志，并且待删除的这部分存在配置变更日志，则需要回滚配置
                 voterConfigManager.maybeRollbackConfig(startIndex, journal, state.getConfigState());
 
-                journal.compareOrAppendRaw(request.getEntries(), startIndex);
+                // 日志直接从接收缓冲区写入Journal，不复制到堆内
+                journal.compareOrAppendBuffers(request.getEntryBuffers(), startIndex);
 
                 // 非Leader（Follower和Observer）复制日志到本地后，如果日志中包含配置变更，则立即变更配置
-                voterConfigManager.maybeUpdateNonLeaderConfig(request.getEntries(), state.getConfigState());
+                voterConfigManager.maybeUpdateNonLeaderConfig(request.getEntryBuffers(), state.getConfigState());
             }
 
             // If leaderCommit > commitIndex, set commitIndex =
@@ -143,7 +145,7 @@ class Follower extends ServerStateMachine implements StateServer {
                 leaderMaxIndex = request.getMaxIndex();
             }
             return new AsyncAppendEntriesResponse(true, request.getPrevLogIndex() + 1,
-                    currentTerm, request.getEntries().size());
+                    currentTerm, request.getEntryCount());
 
         } catch (Throwable t) {
 
@@ -151,13 +153,32 @@ class Follower extends ServerStateMachine implements StateServer {
                             "term: {}, leader: {}, prevLogIndex: {}, prevLogTerm: {}, entries: {}, leaderCommits: {}, " +
                             "{}.",
                     request.getTerm(), request.getLeader(), request.getPrevLogIndex(),
-                    request.getPrevLogTerm(), request.getEntries().size(),
+                    request.getPrevLogTerm(), request.getEntryCount(),
                     request.getLeaderCommit(), voterInfo(), t);
             return new AsyncAppendEntriesResponse(t);
         }
 
     }
 
+    /**
+     * 日志不匹配时，在响应中提示LEADER下次复制的位置，LEADER可以直接跳到这个位置，不用逐批回退。
+     */
+    private AsyncAppendEntriesResponse mismatchResponse(AsyncAppendEntriesRequest request) {
+        long prevLogIndex = request.getPrevLogIndex();
+        long conflictIndex = -1L;
+        int conflictTerm = -1;
+        if (prevLogIndex >= journal.maxIndex()) {
+            // 日志比LEADER短，从FOLLOWER日志的末尾开始复制
+            conflictIndex = journal.maxIndex();
+        } else if (prevLogIndex >= journal.minIndex()) {
+            // 任期冲突，跳过FOLLOWER日志中这个任期的所有日志
+            conflictTerm = journal.getTerm(prevLogIndex);
+            conflictIndex = backtracking.firstIndexOfTerm(conflictTerm, prevLogIndex);
+        }
+        return new AsyncAppendEntriesResponse(false, prevLogIndex + 1,
+                request.getTerm(), request.getEntryCount(), conflictIndex, conflictTerm);
+    }
+
     long getLeaderMaxIndex() {
         return leaderMaxIndex;
     }
@@ -0,0 +1,80 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步刷盘的自适应合并窗口，非线程安全，只在刷盘线程中使用。
+ *
+ * 目标是写入等待同步的时间（排队时间 + fdatasync耗时）不超过 targetLatencyMs，
+ * 每次同步的数据量尽量达到 targetBytes：
+ * 待同步的数据达到 targetBytes，或者最早的未同步写入已经等待了一个窗口，执行一次同步；
+ * 同步后实测的等待时间超过目标时，窗口减半，并且给fdatasync留出时间；
+ * 等待时间没有超过目标，并且这次同步的数据量小于 targetBytes 时，逐步放大窗口，合并更多的写入。
+ * 窗口在 0 和 targetLatencyMs 减去最近一次fdatasync耗时之间。
+ */
+class JournalSyncWindow {
+    // 每次放大窗口的步长是目标等待时间的1/8
+    private static final int GROW_STEPS = 8;
+    private final long targetLatencyNanos;
+    private final long targetBytes;
+    private final long growNanos;
+    private long windowNanos;
+
+    /**
+     * @param targetLatencyMs 目标等待时间，单位毫秒
+     * @param targetBytes 每次同步的目标数据量
+     */
+    JournalSyncWindow(long targetLatencyMs, long targetBytes) {
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, targetLatencyMs));
+        this.targetBytes = Math.max(1L, targetBytes);
+        this.growNanos = Math.max(1L, targetLatencyNanos / GROW_STEPS);
+        this.windowNanos = targetLatencyNanos;
+    }
+
+    /**
+     * @return 当前的窗口，单位纳秒
+     */
+    long windowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * 是否需要执行同步
+     * @param pendingBytes 待同步的数据量
+     * @param waitedNanos 最早的未同步写入已经等待的时间，单位纳秒
+     * @return 需要同步返回true
+     */
+    boolean shouldSync(long pendingBytes, long waitedNanos) {
+        return pendingBytes >= targetBytes || waitedNanos >= windowNanos;
+    }
+
+    /**
+     * 每次同步完成后调用，根据实测的等待时间和数据量调整窗口
+     * @param bytes 这次同步的数据量
+     * @param latencyNanos 最早的未同步写入从发现到同步完成的时间，单位纳秒
+     * @param syncNanos fdatasync的耗时，单位纳秒
+     */
+    void onSynced(long bytes, long latencyNanos, long syncNanos) {
+        long maxWindowNanos = Math.max(0L, targetLatencyNanos - syncNanos);
+        if (latencyNanos > targetLatencyNanos) {
+            windowNanos = Math.min(windowNanos / 2, maxWindowNanos);
+        } else if (bytes < targetBytes) {
+            windowNanos = Math.min(windowNanos + growNanos, maxWindowNanos);
+        } else {
+            windowNanos = Math.min(windowNanos, maxWindowNanos);
+        }
+    }
+}
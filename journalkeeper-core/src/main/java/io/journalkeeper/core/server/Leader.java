@@ -26,6 +26,7 @@ import io.journalkeeper.core.entry.internal.InternalEntriesSerializeSupport;
 import io.journalkeeper.core.entry.internal.InternalEntryType;
 import io.journalkeeper.core.entry.internal.LeaderAnnouncementEntry;
 import io.journalkeeper.core.journal.Journal;
+import io.journalkeeper.core.journal.ParseJournalException;
 import io.journalkeeper.core.state.ApplyInternalEntryInterceptor;
 import io.journalkeeper.core.state.ApplyReservedEntryInterceptor;
 import io.journalkeeper.core.state.ConfigState;
@@ -33,7 +34,9 @@ import io.journalkeeper.core.state.JournalKeeperState;
 import io.journalkeeper.core.state.Snapshot;
 import io.journalkeeper.core.transaction.JournalTransactionManager;
 import io.journalkeeper.exceptions.IndexUnderflowException;
+import io.journalkeeper.exceptions.InstallSnapshotException;
 import io.journalkeeper.exceptions.NotLeaderException;
+import io.journalkeeper.exceptions.ServerBusyException;
 import io.journalkeeper.metric.JMetric;
 import io.journalkeeper.rpc.client.ClientServerRpc;
 import io.journalkeeper.rpc.client.UpdateClusterStateRequest;
@@ -44,6 +47,7 @@ import io.journalkeeper.rpc.server.InstallSnapshotRequest;
 import io.journalkeeper.rpc.server.InstallSnapshotResponse;
 import io.journalkeeper.rpc.server.ServerRpc;
 import io.journalkeeper.utils.async.Async;
+import io.journalkeeper.utils.locks.ProgressCondition;
 import io.journalkeeper.utils.state.ServerStateMachine;
 import io.journalkeeper.utils.state.StateServer;
 import io.journalkeeper.utils.threads.AsyncLoopThread;
@@ -54,6 +58,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -63,6 +68,7 @@ import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
@@ -73,6 +79,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -116,8 +123,30 @@ class Leader extends ServerStateMachine implements StateServer {
     private final Threads threads;
     private final long heartbeatIntervalMs;
     private final int replicationBatchSize;
+    private final long replicationBatchBytes;
+    private final boolean adaptiveReplicationBatch;
+    /**
+     * 每个FOLLOWER最多允许的在途复制请求数量，大于1时开启流水线复制
+     */
+    private final int replicationWindowSize;
+    /**
+     * 安装快照时并行发送的最大Trunk数量
+     */
+    private final int installSnapshotWindowSize;
+    /**
+     * 合并连续的普通请求，一次写入Journal
+     */
+    private final UpdateRequestBatcher<UpdateStateRequestResponse> updateRequestBatcher;
+    /**
+     * LEADER租约时长，小于等于0时不使用租约
+     */
+    private final long leaseDurationMs;
     private final long rpcTimeoutMs;
     private final Journal journal;
+    /**
+     * 日志不匹配时快速回退复制位置
+     */
+    private final ReplicationBacktracking backtracking;
     /**
      * 存放节点上所有状态快照的稀疏数组，数组的索引（key）就是快照对应的日志位置的索引
      */
@@ -139,6 +168,10 @@ class Leader extends ServerStateMachine implements StateServer {
     private final int snapshotIntervalSec;
     private final AtomicBoolean isLeaderAnnouncementApplied = new AtomicBoolean(false);
     private final AtomicLong callbackBarrier = new AtomicLong(0L);
+    // 写入线程登记完回调后唤醒等待登记的状态机线程
+    private final ProgressCondition callbackBarrierProgress = new ProgressCondition();
+    // 因请求队列已满被拒绝的请求数
+    private final AtomicLong rejectedRequests = new AtomicLong(0L);
     /**
      * Leader有效期，用于读取状态时判断leader是否还有效，每次从Follower收到心跳响应，定时更新leader的有效期。
      */
@@ -147,11 +180,30 @@ class Leader extends ServerStateMachine implements StateServer {
     private JMetric appendJournalMetric;
     private ScheduledFuture takeSnapshotFuture;
     private AtomicBoolean isAnyFollowerNextIndexUpdated = new AtomicBoolean(false);
+    /**
+     * 已经开始的ReadIndex心跳轮次
+     */
+    private final AtomicLong readIndexRound = new AtomicLong(0L);
+    private final Object readIndexMutex = new Object();
+    /**
+     * 等待下一轮心跳确认的读请求
+     */
+    private ReadIndexRound pendingReadIndexRound = null;
+    /**
+     * 正在进行中的一轮心跳
+     */
+    private ReadIndexRound inflightReadIndexRound = null;
 
     Leader(Journal journal, JournalKeeperState state, Map<Long, Snapshot> immutableSnapshots,
            int currentTerm,
            URI serverUri,
            int cacheRequests, long heartbeatIntervalMs, long rpcTimeoutMs, int replicationBatchSize,
+           long replicationBatchBytes, boolean adaptiveReplicationBatch,
+           int replicationWindowSize,
+           int installSnapshotWindowSize,
+           int appendBatchSize,
+           long appendBatchBytes,
+           long leaseDurationMs,
            int snapshotIntervalSec,
            Threads threads,
            ServerRpcProvider serverRpcProvider,
@@ -167,6 +219,12 @@ class Leader extends ServerStateMachine implements StateServer {
         this.state = state;
         this.serverUri = serverUri;
         this.replicationBatchSize = replicationBatchSize;
+        this.replicationBatchBytes = replicationBatchBytes;
+        this.adaptiveReplicationBatch = adaptiveReplicationBatch;
+        this.replicationWindowSize = replicationWindowSize;
+        this.installSnapshotWindowSize = Math.max(1, installSnapshotWindowSize);
+        this.updateRequestBatcher = new UpdateRequestBatcher<>(appendBatchSize, appendBatchBytes, UpdateStateRequestResponse::getRequest);
+        this.leaseDurationMs = leaseDurationMs;
         this.rpcTimeoutMs = rpcTimeoutMs;
         this.currentTerm = currentTerm;
         this.immutableSnapshots = immutableSnapshots;
@@ -182,6 +240,7 @@ class Leader extends ServerStateMachine implements StateServer {
         this.flushCallbacks = new RingBufferBelt(rpcTimeoutMs, cacheRequests);
         this.appendEntriesRpcMetricMap = new HashMap<>(2);
         this.journal = journal;
+        this.backtracking = new ReplicationBacktracking(journal::getTerm, journal::minIndex, journal::maxIndex);
         this.heartbeatIntervalMs = heartbeatIntervalMs;
         this.journalTransactionManager = new JournalTransactionManager(journal, server, scheduledExecutor, transactionTimeoutMs);
         this.journalTransactionInterceptor = (entryHeader, entryFuture, index) -> journalTransactionManager.applyEntry(entryHeader, entryFuture);
@@ -202,7 +261,7 @@ class Leader extends ServerStateMachine implements StateServer {
         return ThreadBuilder.builder()
                 .name(threadName(LEADER_APPEND_ENTRY_THREAD))
                 .doWork(this::appendJournalEntry)
-                .sleepTime(0, 0)
+                .sleepTime(heartbeatIntervalMs, heartbeatIntervalMs)
                 .onException(new DefaultExceptionListener(LEADER_APPEND_ENTRY_THREAD))
                 .daemon(true)
                 .build();
@@ -234,27 +293,44 @@ class Leader extends ServerStateMachine implements StateServer {
     }
 
     /**
-     * 串行写入日志
+     * 串行写入日志，直到队列中没有待写入的请求。
+     * 这里不阻塞等待新请求，新请求入队时会唤醒这个线程，避免在共享线程池中长时间占用线程。
      */
     private void appendJournalEntry() throws Exception {
+        while (!Thread.currentThread().isInterrupted()) {
+            UpdateStateRequestResponse rr = pendingUpdateStateRequests.poll();
+            if (null == rr) {
+                break;
+            }
+            appendJournalEntry(rr);
+        }
+    }
 
-        UpdateStateRequestResponse rr = pendingUpdateStateRequests.take();
+    private void appendJournalEntry(UpdateStateRequestResponse rr) throws Exception {
         final UpdateClusterStateRequest request = rr.getRequest();
         final ResponseFuture responseFuture = rr.getResponseFuture();
         try {
-
-            if (request.getRequests().size() == 1 && voterConfigManager.maybeUpdateLeaderConfig(request.getRequests().get(0),
-                    state.getConfigState(), journal, () -> doAppendJournalEntryCallable(request, responseFuture),
-                    serverUri, this)) {
+            if (isInternalRequest(request)) {
+                // 配置变更等内部请求单独处理，不与其它请求合并
+                if (request.getRequests().size() == 1 && voterConfigManager.maybeUpdateLeaderConfig(request.getRequests().get(0),
+                        state.getConfigState(), journal, () -> doAppendJournalEntryCallable(request, responseFuture),
+                        serverUri, this)) {
+                    return;
+                }
+                doAppendJournalEntry(request, responseFuture);
                 return;
             }
-            doAppendJournalEntry(request, responseFuture);
-
         } catch (Throwable t) {
             responseFuture.getResponseFuture().complete(new UpdateClusterStateResponse(t));
             throw t;
         }
 
+        // 合并队列中排队的普通请求，一次写入Journal
+        doAppendJournalEntries(updateRequestBatcher.poll(rr, pendingUpdateStateRequests));
+    }
+
+    private boolean isInternalRequest(UpdateClusterStateRequest request) {
+        return UpdateRequestBatcher.isInternalRequest(request);
     }
 
     private Void doAppendJournalEntryCallable(UpdateClusterStateRequest request, ResponseFuture responseFuture) throws InterruptedException {
@@ -264,13 +340,70 @@ class Leader extends ServerStateMachine implements StateServer {
 
     private void doAppendJournalEntry(UpdateClusterStateRequest request, ResponseFuture responseFuture) throws InterruptedException {
         appendJournalMetric.start();
+        List<JournalEntry> journalEntries = toJournalEntries(request);
+        List<Long> offsets = appendJournal(journalEntries);
+        wakeupReplicationAndFlushThreads();
+        for (Long offset : offsets) {
+            setCallback(request.getResponseConfig(), responseFuture, offset);
+        }
+        appendJournalMetric.end(() -> journalEntries.stream().mapToLong(JournalEntry::getLength).sum());
+    }
+
+    /**
+     * 批量写入多个请求：所有请求的日志一次写入Journal，
+     * 写入完成后按顺序注册回调，只唤醒一次复制和刷盘线程。
+     */
+    private void doAppendJournalEntries(List<UpdateStateRequestResponse> batch) throws InterruptedException {
+        List<UpdateStateRequestResponse> accepted = new ArrayList<>(batch.size());
+        List<JournalEntry> journalEntries = new ArrayList<>();
+        for (UpdateStateRequestResponse rr : batch) {
+            try {
+                journalEntries.addAll(toJournalEntries(rr.getRequest()));
+                accepted.add(rr);
+            } catch (Throwable t) {
+                logger.warn("Parse update request failed, leader: {}.", serverUri, t);
+                rr.getResponseFuture().getResponseFuture().complete(new UpdateClusterStateResponse(t));
+            }
+        }
+        if (journalEntries.isEmpty()) {
+            return;
+        }
+
+        appendJournalMetric.start();
+        List<Long> indices;
+        try {
+            indices = appendJournal(journalEntries);
+        } catch (Throwable t) {
+            for (UpdateStateRequestResponse rr : accepted) {
+                rr.getResponseFuture().getResponseFuture().complete(new UpdateClusterStateResponse(t));
+            }
+            throw t;
+        }
+        wakeupReplicationAndFlushThreads();
+
+        // 每登记一个回调就推进一次callbackBarrier：一批的回调数量可能超过回调队列的容量，
+        // 队列满时写入线程等待回调线程和状态机消费，而它们只处理callbackBarrier之前的回调。
+        int i = 0;
+        for (UpdateStateRequestResponse rr : accepted) {
+            ResponseConfig responseConfig = rr.getRequest().getResponseConfig();
+            for (int j = 0; j < rr.getRequest().getRequests().size(); j++) {
+                setCallback(responseConfig, rr.getResponseFuture(), indices.get(i++));
+            }
+        }
+
+        appendJournalMetric.end(() -> journalEntries.stream().mapToLong(JournalEntry::getLength).sum());
+    }
 
+    private List<JournalEntry> toJournalEntries(UpdateClusterStateRequest request) {
         List<JournalEntry> journalEntries = new ArrayList<>(request.getRequests().size());
         for (UpdateRequest serializedUpdateRequest : request.getRequests()) {
             JournalEntry entry;
 
             if (request.isIncludeHeader()) {
                 entry = journalEntryParser.parse(serializedUpdateRequest.getEntry());
+                if (!journalEntryParser.verifyChecksum(entry)) {
+                    throw new ParseJournalException("Journal entry checksum mismatch!");
+                }
             } else {
                 entry = journalEntryParser.createJournalEntry(serializedUpdateRequest.getEntry());
             }
@@ -284,10 +417,7 @@ class Leader extends ServerStateMachine implements StateServer {
             }
             journalEntries.add(entry);
         }
-        appendAndCallback(journalEntries, request.getResponseConfig(), responseFuture);
-        wakeupReplicationThreads();
-        threads.wakeupThread(threadName(FLUSH_JOURNAL_THREAD));
-        appendJournalMetric.end(() -> journalEntries.stream().mapToLong(JournalEntry::getLength).sum());
+        return journalEntries;
     }
 
     private void wakeupReplicationThreads() {
@@ -304,18 +434,32 @@ class Leader extends ServerStateMachine implements StateServer {
     }
 
     private void appendAndCallback(List<JournalEntry> journalEntries, ResponseConfig responseConfig, ResponseFuture responseFuture) throws InterruptedException {
-        if (journalEntries.size() == 1) {
-            long offset = journal.append(journalEntries.get(0));
+        for (Long offset : appendJournal(journalEntries)) {
             setCallback(responseConfig, responseFuture, offset);
-        } else {
-            List<Long> offsets = journal.append(journalEntries);
-            for (Long offset : offsets) {
-                setCallback(responseConfig, responseFuture, offset);
-            }
         }
     }
 
+    private List<Long> appendJournal(List<JournalEntry> journalEntries) {
+        return journalEntries.size() == 1 ?
+                Collections.singletonList(journal.append(journalEntries.get(0))) :
+                journal.append(journalEntries);
+    }
+
+    /**
+     * 日志写入Journal后、登记回调前调用。
+     * 回调队列满时，登记回调需要等待已写入的日志提交或刷盘，不能等到登记完才唤醒复制和刷盘线程。
+     */
+    private void wakeupReplicationAndFlushThreads() {
+        wakeupReplicationThreads();
+        threads.wakeupThread(threadName(FLUSH_JOURNAL_THREAD));
+    }
+
     private void setCallback(ResponseConfig responseConfig, ResponseFuture responseFuture, long offset) throws InterruptedException {
+        addCallback(responseConfig, responseFuture, offset);
+        setCallbackBarrier(offset);
+    }
+
+    private void addCallback(ResponseConfig responseConfig, ResponseFuture responseFuture, long offset) throws InterruptedException {
         if (responseConfig == ResponseConfig.REPLICATION) {
             replicationCallbacks.put(new Callback(offset, responseFuture));
         } else if (responseConfig == ResponseConfig.PERSISTENCE) {
@@ -324,7 +468,6 @@ class Leader extends ServerStateMachine implements StateServer {
             replicationCallbacks.put(new Callback(offset, responseFuture));
             flushCallbacks.put(new Callback(offset, responseFuture));
         }
-        callbackBarrier.set(offset);
     }
 
     private int getPreLogTerm(long currentLogIndex) {
@@ -426,41 +569,76 @@ class Leader extends ServerStateMachine implements StateServer {
         }
     }
 
-    private void installSnapshot(ReplicationDestination follower, Snapshot snapshot) {
-
+    /**
+     * 向FOLLOWER安装快照。
+     * 第一个和最后一个Trunk单独发送，中间的Trunk以滑动窗口的方式并行发送，
+     * 失败时记录已确认的连续偏移量，下次从该偏移量继续安装。
+     * @return 安装成功返回true，否则返回false。
+     */
+    private boolean installSnapshot(ReplicationDestination follower, Snapshot snapshot) {
+        long ackedOffset = follower.getInstalledSnapshotOffset(snapshot.lastIncludedIndex());
         try {
-            logger.info("Install snapshot to {} ...", follower.getUri());
+            logger.info("Install snapshot to {}, offset: {}...", follower.getUri(), ackedOffset);
             ServerRpc rpc = serverRpcProvider.getServerRpc(follower.getUri()).get(heartbeatIntervalMs, TimeUnit.MILLISECONDS);
-            int offset = 0;
             ReplicableIterator iterator = snapshot.iterator();
+            iterator.skipTo(ackedOffset);
+            Queue<InflightTrunk> inflightTrunks = new ArrayDeque<>(installSnapshotWindowSize);
             while (iterator.hasMoreTrunks()) {
+                long offset = iterator.offset();
                 byte[] trunk = iterator.nextTrunk();
+                boolean isDone = !iterator.hasMoreTrunks();
+                // 第一个Trunk会重建接收端的临时目录，最后一个Trunk会触发快照安装，都必须在其它Trunk确认之后单独发送
+                boolean exclusive = offset == 0L || isDone;
+                while (!inflightTrunks.isEmpty() &&
+                        (exclusive || inflightTrunks.size() >= installSnapshotWindowSize)) {
+                    ackedOffset = waitForTrunk(follower, inflightTrunks.poll());
+                }
                 InstallSnapshotRequest request = new InstallSnapshotRequest(
                         currentTerm, serverUri, snapshot.lastIncludedIndex(), snapshot.lastIncludedTerm(),
-                        offset, trunk, !iterator.hasMoreTrunks()
+                        (int) offset, trunk, isDone
                 );
-                InstallSnapshotResponse response = rpc.installSnapshot(request).get();
-                if (!response.success()) {
-                    logger.warn("Install snapshot to {} failed! Cause: {}.", follower.getUri(), response.errorString());
-                    return;
+                inflightTrunks.add(new InflightTrunk(offset + trunk.length, rpc.installSnapshot(request)));
+                if (exclusive) {
+                    ackedOffset = waitForTrunk(follower, inflightTrunks.poll());
                 }
-                offset += trunk.length;
             }
+            while (!inflightTrunks.isEmpty()) {
+                ackedOffset = waitForTrunk(follower, inflightTrunks.poll());
+            }
+            follower.setInstalledSnapshotOffset(-1L, 0L);
             logger.info("Install snapshot to {} success!", follower.getUri());
+            return true;
+        } catch (InstallSnapshotException e) {
+            // 接收端拒绝了请求，下次从头开始安装
+            follower.setInstalledSnapshotOffset(-1L, 0L);
+            logger.warn("Install snapshot to {} failed! Cause: {}.", follower.getUri(), e.getMessage());
         } catch (Throwable t) {
-            logger.warn("Install snapshot to {} failed!", follower.getUri(), t);
+            follower.setInstalledSnapshotOffset(snapshot.lastIncludedIndex(), ackedOffset);
+            logger.warn("Install snapshot to {} failed, acked offset: {}!", follower.getUri(), ackedOffset, t);
         }
+        return false;
     }
 
-    private void callback() {
-        long callbackIndex = journalFlushIndex.get();
-        if (callbackIndex > callbackBarrier.get()) {
-            flushCallbacks.callbackBefore(callbackBarrier.get());
+    private long waitForTrunk(ReplicationDestination follower, InflightTrunk inflightTrunk) throws InterruptedException, ExecutionException, TimeoutException {
+        InstallSnapshotResponse response = inflightTrunk.getFuture().get(rpcTimeoutMs, TimeUnit.MILLISECONDS);
+        if (!response.success()) {
+            throw new InstallSnapshotException(
+                    String.format("Install snapshot to %s failed! Cause: %s.", follower.getUri(), response.errorString()));
         }
-        while (callbackIndex > callbackBarrier.get()) {
-            Thread.yield();
+        return inflightTrunk.getEndOffset();
+    }
+
+    private void callback() {
+        // 已刷盘但写入线程还没登记完回调的日志，这里不等待，写入线程登记完回调后会再唤醒这个线程
+        flushCallbacks.callbackBefore(Math.min(journalFlushIndex.get(), callbackBarrier.get()));
+    }
+
+    private void setCallbackBarrier(long offset) {
+        long previous = callbackBarrier.getAndSet(offset);
+        callbackBarrierProgress.signalAll();
+        if (journalFlushIndex.get() > previous && serverState() == ServerState.RUNNING) {
+            threads.wakeupThread(threadName(LEADER_CALLBACK_THREAD));
         }
-        flushCallbacks.callbackBefore(callbackIndex);
     }
 
     private String voterInfo() {
@@ -483,7 +661,20 @@ class Leader extends ServerStateMachine implements StateServer {
                 throw new IllegalStateException("Server disabled temporarily.");
             }
 
-            pendingUpdateStateRequests.put(requestResponse);
+            if (isInternalRequest(request)) {
+                pendingUpdateStateRequests.put(requestResponse);
+            } else if (!pendingUpdateStateRequests.offer(requestResponse)) {
+                // 队列已满，不阻塞调用线程，让客户端稍后重试。
+                // 写入线程至少每个心跳周期运行一次，建议客户端一个心跳周期后重试。
+                rejectedRequests.incrementAndGet();
+                throw new ServerBusyException(String.format("Too many pending requests: %d.",
+                        pendingUpdateStateRequests.size()), heartbeatIntervalMs);
+            }
+            try {
+                threads.wakeupThread(threadName(LEADER_APPEND_ENTRY_THREAD));
+            } catch (NoSuchElementException ignored) {
+                // Leader is stopping
+            }
             if (request.getResponseConfig() == ResponseConfig.RECEIVE) {
                 requestResponse.getResponseFuture().getResponseFuture().complete(new UpdateClusterStateResponse());
             }
@@ -583,6 +774,7 @@ class Leader extends ServerStateMachine implements StateServer {
 
         this.threads.stopThread(threadName(LEADER_CALLBACK_THREAD));
         failAllPendingCallbacks();
+        failAllReadIndexRounds();
         this.threads.stopThread(threadName(LEADER_COMMIT_THREAD));
         this.threads.removeThread(threadName(LEADER_APPEND_ENTRY_THREAD));
         this.threads.removeThread(threadName(LEADER_CALLBACK_THREAD));
@@ -617,15 +809,22 @@ class Leader extends ServerStateMachine implements StateServer {
     }
 
     void callback(long lastApplied, byte[] result) {
-        while (lastApplied > callbackBarrier.get()) {
-            Thread.yield();
+        // 等待写入线程登记完这条日志的回调。写入线程登记回调时只等待callbackBarrier之前的回调被消费，
+        // 不会反过来等待这里，超时说明存在缺陷：记录WARN日志，之后登记的回调会按照超时处理。
+        try {
+            if (!callbackBarrierProgress.await(() -> lastApplied <= callbackBarrier.get(), rpcTimeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.warn("Wait for callback registration timeout, this is a bug! index: {}, callback barrier: {}, {}.",
+                        lastApplied, callbackBarrier.get(), voterInfo());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
         replicationCallbacks.callback(lastApplied, result);
     }
 
-    void onJournalFlushed() {
+    void onJournalFlushed(long flushIndex) {
 
-        journalFlushIndex.set(journal.maxIndex());
+        journalFlushIndex.set(flushIndex);
         if (serverState() == ServerState.RUNNING) {
             threads.wakeupThread(threadName(LEADER_APPEND_ENTRY_THREAD));
             threads.wakeupThread(threadName(LEADER_CALLBACK_THREAD));
@@ -685,6 +884,124 @@ class Leader extends ServerStateMachine implements StateServer {
         }
     }
 
+    /**
+     * ReadIndex：记录当前的提交位置，然后和半数以上的FOLLOWER交换一轮心跳确认LEADER仍然有效。
+     * 所有在同一轮心跳开始之前到达的读请求共享这一轮心跳，正在进行中的心跳轮次不接受新的读请求，
+     * 新的读请求等待下一轮。
+     * @return 确认LEADER有效后返回记录的提交位置，超时抛出NotLeaderException。
+     */
+    CompletableFuture<Long> readIndex() {
+        if (!isLeaderAnnouncementApplied.get()) {
+            // 当前任期的日志提交之前，提交位置可能落后于上一任LEADER
+            return waitLeadership().thenCompose(aVoid -> readIndex());
+        }
+
+        final long commitIndex = journal.commitIndex();
+        if (followers.isEmpty()) {
+            return CompletableFuture.completedFuture(commitIndex);
+        }
+
+        ReadIndexRound round;
+        synchronized (readIndexMutex) {
+            if (null == pendingReadIndexRound) {
+                pendingReadIndexRound = new ReadIndexRound();
+            }
+            round = pendingReadIndexRound;
+            maybeStartReadIndexRound();
+        }
+        return round.getFuture().thenApply(aVoid -> commitIndex);
+    }
+
+    /**
+     * 租约读：LEADER在租约有效期内直接返回当前的提交位置，租约失效时退化为{@link #readIndex()}。
+     * 租约的起点是半数以上FOLLOWER确认的心跳请求的发送时间，FOLLOWER收到心跳后的最小选举超时内不会给其它候选人投票，
+     * 因此租约时长为最小选举超时减去时钟偏差上限。
+     */
+    CompletableFuture<Long> leaseReadIndex() {
+        if (isLeaseValid()) {
+            return CompletableFuture.completedFuture(journal.commitIndex());
+        }
+        return readIndex();
+    }
+
+    private boolean isLeaseValid() {
+        // 转移LEADER时会先禁止写入，这时候新的LEADER可能不受租约的限制
+        if (leaseDurationMs <= 0 || !isLeaderAnnouncementApplied.get() || !writeEnabled.get()) {
+            return false;
+        }
+        if (followers.isEmpty()) {
+            return true;
+        }
+        long[] sortedAckedRequestTimes = followers.stream().mapToLong(ReplicationDestination::getLastAckedRequestTime)
+                .sorted().toArray();
+        // 不含LEADER自己，需要半数以上的节点确认
+        int quorum = (sortedAckedRequestTimes.length + 1) / 2;
+        return System.currentTimeMillis() < sortedAckedRequestTimes[sortedAckedRequestTimes.length - quorum] + leaseDurationMs;
+    }
+
+    /**
+     * 如果当前没有进行中的心跳轮次，开始新的一轮，调用时必须持有readIndexMutex。
+     */
+    private void maybeStartReadIndexRound() {
+        if (null == inflightReadIndexRound && null != pendingReadIndexRound) {
+            final ReadIndexRound round = pendingReadIndexRound;
+            pendingReadIndexRound = null;
+            inflightReadIndexRound = round;
+            round.setRound(readIndexRound.incrementAndGet());
+            scheduledExecutor.schedule(() -> onReadIndexRoundTimeout(round), rpcTimeoutMs, TimeUnit.MILLISECONDS);
+            wakeupReplicationThreads();
+        }
+    }
+
+    /**
+     * FOLLOWER确认了新的心跳轮次后调用，检查进行中的心跳轮次是否已经得到半数以上节点的确认。
+     */
+    private void checkReadIndexRound() {
+        ReadIndexRound confirmed = null;
+        synchronized (readIndexMutex) {
+            ReadIndexRound round = inflightReadIndexRound;
+            if (null != round) {
+                long ackedCount = followers.stream()
+                        .filter(follower -> follower.getAckedReadIndexRound() >= round.getRound())
+                        .count();
+                if ((ackedCount + 1) * 2 > followers.size() + 1) {
+                    confirmed = round;
+                    inflightReadIndexRound = null;
+                    maybeStartReadIndexRound();
+                }
+            }
+        }
+        if (null != confirmed) {
+            confirmed.getFuture().complete(null);
+        }
+    }
+
+    private void onReadIndexRoundTimeout(ReadIndexRound round) {
+        synchronized (readIndexMutex) {
+            if (inflightReadIndexRound != round) {
+                return;
+            }
+            inflightReadIndexRound = null;
+            maybeStartReadIndexRound();
+        }
+        round.getFuture().completeExceptionally(new NotLeaderException(null));
+    }
+
+    private void failAllReadIndexRounds() {
+        List<ReadIndexRound> rounds = new ArrayList<>(2);
+        synchronized (readIndexMutex) {
+            if (null != inflightReadIndexRound) {
+                rounds.add(inflightReadIndexRound);
+                inflightReadIndexRound = null;
+            }
+            if (null != pendingReadIndexRound) {
+                rounds.add(pendingReadIndexRound);
+                pendingReadIndexRound = null;
+            }
+        }
+        rounds.forEach(round -> round.getFuture().completeExceptionally(new NotLeaderException(null)));
+    }
+
     CompletableFuture<JournalKeeperTransactionContext> createTransaction(Map<String, String> context) {
         return journalTransactionManager.createTransaction(context);
     }
@@ -702,6 +1019,21 @@ class Leader extends ServerStateMachine implements StateServer {
         return pendingUpdateStateRequests.size();
     }
 
+    // for monitor only
+    int getCallbackQueueSize() {
+        return replicationCallbacks.size() + flushCallbacks.size();
+    }
+
+    // for monitor only
+    long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    // for monitor only
+    long getCallbackStallMs() {
+        return replicationCallbacks.getStallTimeMs() + flushCallbacks.getStallTimeMs();
+    }
+
     boolean isWriteEnabled() {
         return writeEnabled.get();
     }
@@ -764,20 +1096,46 @@ class Leader extends ServerStateMachine implements StateServer {
         /**
          * 需要发给它的下一个日志条目的索引（初始化为领导人上一条日志的索引值 +1）
          */
-        private long nextIndex;
+        private volatile long nextIndex;
         /**
          * 已经复制到该服务器的日志的最高索引值（从 0 开始递增）
          */
-        private long matchIndex = 0L;
+        private volatile long matchIndex = 0L;
+        /**
+         * 流水线复制时，上次日志不匹配的位置
+         */
+        private long mismatchIndex = -1L;
+        /**
+         * 流水线复制时，按照日志索引顺序排列的在途请求
+         */
+        private final Queue<InflightBatch> inflightBatches = new ArrayDeque<>();
 
         /**
          * 上次从FOLLOWER收到心跳（asyncAppendEntries）成功响应的时间戳
          */
         private long lastHeartbeatResponseTime;
         private long lastHeartbeatRequestTime = 0L;
+        /**
+         * 最近一次被FOLLOWER成功确认的请求的发送时间，用于计算LEADER租约
+         */
+        private volatile long lastAckedRequestTime = 0L;
+        /**
+         * 已经发送和已经被FOLLOWER确认的最大ReadIndex心跳轮次
+         */
+        private long sentReadIndexRound = 0L;
+        private volatile long ackedReadIndexRound = 0L;
+        /**
+         * 未安装完成的快照及已经被FOLLOWER确认的偏移量，用于断点续传
+         */
+        private long installingSnapshotIndex = -1L;
+        private long installedSnapshotOffset = 0L;
 
         private final String replicationThreadName;
         private final JMetric metric;
+        /**
+         * 每批复制的字节数，根据FOLLOWER的响应时间自适应调整
+         */
+        private final ReplicationBatchSizer batchSizer;
 
 
         ReplicationDestination(URI uri, long nextIndex) {
@@ -786,6 +1144,7 @@ class Leader extends ServerStateMachine implements StateServer {
             this.lastHeartbeatResponseTime = 0L;
             replicationThreadName = LEADER_REPLICATION_THREAD + "-" + serverUri +  "->" + uri;
             metric = Leader.this.appendEntriesRpcMetricMap.get(uri);
+            batchSizer = new ReplicationBatchSizer(replicationBatchBytes, heartbeatIntervalMs, adaptiveReplicationBatch);
         }
 
         private AsyncLoopThread buildLeaderReplicationThread() {
@@ -813,14 +1172,22 @@ class Leader extends ServerStateMachine implements StateServer {
         }
 
         private void replication() {
+            if (Leader.this.replicationWindowSize > 1) {
+                pipelinedReplication();
+            } else {
+                syncReplication();
+            }
+        }
+
+        private void syncReplication() {
             long maxIndex;
             while (serverState() == ServerState.RUNNING &&
                     !Thread.currentThread().isInterrupted() &&
                     (nextIndex < (maxIndex = journal.maxIndex()) // 还有需要复制的数据
                     ||
-                    System.currentTimeMillis() - lastHeartbeatRequestTime >= heartbeatIntervalMs) // 距离上次复制/心跳已经超过一个心跳超时了
+                    isHeartbeatRequired()) // 距离上次复制/心跳已经超过一个心跳超时了，或者有读请求等待心跳确认
             ) {
-                long start = metric == null ? 0L : System.nanoTime();
+                long start = System.nanoTime();
 
                 // 如果有必要，先安装第一个快照
                 Map.Entry<Long, Snapshot> fistSnapShotEntry = snapshots.firstEntry();
@@ -829,12 +1196,14 @@ class Leader extends ServerStateMachine implements StateServer {
                 // 读取需要复制的Entry
                 List<byte[]> entries;
                 if (nextIndex < maxIndex) { // 复制
-                    entries = journal.readRaw(nextIndex, Leader.this.replicationBatchSize);
+                    entries = journal.readRaw(nextIndex, Leader.this.replicationBatchSize, batchSizer.batchBytes());
                 } else { // 心跳
                     entries = Collections.emptyList();
                 }
 
                 // 构建请求并发送
+                long requestTime = System.currentTimeMillis();
+                long round = sentReadIndexRound = Leader.this.readIndexRound.get();
                 AsyncAppendEntriesRequest request =
                         new AsyncAppendEntriesRequest(Leader.this.currentTerm, Leader.this.serverUri,
                                 nextIndex - 1, Leader.this.getPreLogTerm(nextIndex),
@@ -842,12 +1211,15 @@ class Leader extends ServerStateMachine implements StateServer {
                 AsyncAppendEntriesResponse response = null;
                 try {
                     response = serverRpcProvider.getServerRpc(uri)
-                            .thenCompose(serverRpc -> serverRpc.asyncAppendEntries(request)).get();
+                            .thenCompose(serverRpc -> serverRpc.asyncAppendEntries(request))
+                            .get(rpcTimeoutMs, TimeUnit.MILLISECONDS);
                     lastHeartbeatRequestTime = System.currentTimeMillis();
                 } catch (InterruptedException ie) {
                     logger.warn("Replication was interrupted, from {} to {}.", Leader.this.serverUri, uri);
                     Thread.currentThread().interrupt();
                     break;
+                } catch (TimeoutException e) {
+                    logger.warn("Replication timeout, from {} to {}, journal index: {}.", Leader.this.serverUri, uri, nextIndex);
                 } catch (ExecutionException e) {
                     logger.warn("Replication execution exception, from {} to {}, cause: {}.", Leader.this.serverUri, uri, null == e.getCause()? e.getMessage() : e.getCause().getMessage());
                 } catch (Throwable t) {
@@ -857,33 +1229,210 @@ class Leader extends ServerStateMachine implements StateServer {
                 // 处理返回的响应
                 if(null != response && response.success()) { // 成功收到响应响应
                     lastHeartbeatResponseTime = System.currentTimeMillis();
+                    onAcked(response, requestTime, round);
 
+                    long bytes = entries.stream().mapToLong(e -> e.length).sum();
                     if (response.isSuccess()) { // 复制成功
                         if (entries.size() > 0) {
                             nextIndex += entries.size();
                             matchIndex = nextIndex;
                             isAnyFollowerNextIndexUpdated.compareAndSet(false, true);
                             Leader.this.threads.wakeupThread(Leader.this.threadName(LEADER_COMMIT_THREAD));
+                            batchSizer.onSuccess(bytes, System.nanoTime() - start);
                         }
                     } else {
                         // 不匹配，回退
-                        int rollbackSize = (int) Math.min(replicationBatchSize, nextIndex - fistSnapShotEntry.getKey());
-                        nextIndex -= rollbackSize;
+                        nextIndex = nextIndexOnMismatch(nextIndex, response, fistSnapShotEntry.getKey());
                     }
                     if (null != metric) {
-                        metric.mark(() -> System.nanoTime() - start, () -> request.getEntries().stream().mapToLong(e -> e.length).sum());
+                        metric.mark(() -> System.nanoTime() - start, () -> bytes);
                     }
                 } else { // 没收到响应或者请求失败
                     // 等下一个心跳超时之后，再进入这个方法会自动重试
+                    batchSizer.onFailure();
+                    break;
+                }
+
+            }
+        }
+
+
+        /**
+         * 流水线复制：每个FOLLOWER最多同时发送replicationWindowSize个AsyncAppendEntries请求，不必等待上一批的响应。
+         * 1. 发送请求时就推进nextIndex；
+         * 2. 按照日志索引顺序处理响应，响应中的journalIndex必须与在途请求的起始位置一致，
+         * 只有队首的请求复制成功时才推进matchIndex；
+         * 3. 请求失败、超时或者日志不匹配时，丢弃所有在途请求，从第一个未确认的位置重新发送。
+         */
+        private void pipelinedReplication() {
+            long maxIndex;
+            while (serverState() == ServerState.RUNNING && !Thread.currentThread().isInterrupted()) {
+
+                if (!handleInflightResponses()) {
+                    // 没收到响应或者请求失败，等下一个心跳超时之后，再进入这个方法会自动重试
+                    break;
+                }
+
+                // 如果有必要，先安装第一个快照
+                if (inflightBatches.isEmpty()) {
+                    maybeInstallSnapshotFirst(snapshots.firstEntry());
+                }
+
+                if (inflightBatches.size() < Leader.this.replicationWindowSize && nextIndex < (maxIndex = journal.maxIndex())) { // 复制
+                    sendAsync(journal.readRaw(nextIndex, Leader.this.replicationBatchSize, batchSizer.batchBytes()), maxIndex);
+                } else if (inflightBatches.isEmpty() && isHeartbeatRequired()) { // 心跳
+                    sendAsync(Collections.emptyList(), journal.maxIndex());
+                } else {
+                    // 窗口已满或者没有需要复制的数据，等待响应或者新的日志唤醒复制线程
                     break;
                 }
+            }
+        }
+
+        private void sendAsync(List<byte[]> entries, long maxIndex) {
+            long requestTime = System.currentTimeMillis();
+            long round = sentReadIndexRound = Leader.this.readIndexRound.get();
+            AsyncAppendEntriesRequest request =
+                    new AsyncAppendEntriesRequest(Leader.this.currentTerm, Leader.this.serverUri,
+                            nextIndex - 1, Leader.this.getPreLogTerm(nextIndex),
+                            entries, journal.commitIndex(), maxIndex);
+            InflightBatch batch = new InflightBatch(nextIndex, entries, requestTime, round,
+                    serverRpcProvider.getServerRpc(uri)
+                            .thenCompose(serverRpc -> serverRpc.asyncAppendEntries(request)));
+            inflightBatches.add(batch);
+            nextIndex += entries.size();
+            lastHeartbeatRequestTime = System.currentTimeMillis();
+            batch.getFuture().whenComplete((response, exception) -> wakeup());
+        }
+
+        private void wakeup() {
+            try {
+                Leader.this.threads.wakeupThread(replicationThreadName);
+            } catch (NoSuchElementException ignored) {
+                // follower removed
+            }
+        }
+
+        /**
+         * 按照日志索引顺序处理已经返回的响应。
+         * @return 返回false表示请求失败或者超时，需要等待一个心跳周期后再重试。
+         */
+        private boolean handleInflightResponses() {
+            InflightBatch batch;
+            while (null != (batch = inflightBatches.peek())) {
+                if (!batch.getFuture().isDone()) {
+                    if (System.currentTimeMillis() - batch.getSendTime() > rpcTimeoutMs) {
+                        logger.warn("Replication timeout, from {} to {}, journal index: {}.",
+                                Leader.this.serverUri, uri, batch.getStartIndex());
+                        batchSizer.onFailure();
+                        resendFrom(batch.getStartIndex());
+                        return false;
+                    }
+                    return true;
+                }
+                inflightBatches.poll();
+
+                AsyncAppendEntriesResponse response;
+                try {
+                    response = batch.getFuture().get();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } catch (ExecutionException e) {
+                    logger.warn("Replication execution exception, from {} to {}, cause: {}.", Leader.this.serverUri, uri, null == e.getCause() ? e.getMessage() : e.getCause().getMessage());
+                    batchSizer.onFailure();
+                    resendFrom(batch.getStartIndex());
+                    return false;
+                }
+
+                if (!response.success()) {
+                    logger.warn("Replication failed, from {} to {}, cause: {}.", Leader.this.serverUri, uri, response.errorString());
+                    batchSizer.onFailure();
+                    resendFrom(batch.getStartIndex());
+                    return false;
+                }
+                lastHeartbeatResponseTime = System.currentTimeMillis();
+                onAcked(response, batch.getSendTime(), batch.getReadIndexRound());
+
+                if (batch.getEntries().isEmpty()) { // 心跳
+                    continue;
+                }
 
+                if (response.getJournalIndex() != batch.getStartIndex()) {
+                    // 响应与在途请求不对应，从这个请求的位置重新发送
+                    logger.warn("Replication response not matched, from {} to {}, expected journal index: {}, response: {}.",
+                            Leader.this.serverUri, uri, batch.getStartIndex(), response);
+                    resendFrom(batch.getStartIndex());
+                    return true;
+                }
+
+                if (response.isSuccess()) { // 复制成功
+                    matchIndex = batch.getStartIndex() + batch.getEntries().size();
+                    mismatchIndex = -1L;
+                    isAnyFollowerNextIndexUpdated.compareAndSet(false, true);
+                    Leader.this.threads.wakeupThread(Leader.this.threadName(LEADER_COMMIT_THREAD));
+                    long rtt = System.nanoTime() - batch.getSendNanoTime();
+                    long bytes = batch.getEntries().stream().mapToLong(e -> e.length).sum();
+                    batchSizer.onSuccess(bytes, rtt);
+                    if (null != metric) {
+                        metric.mark(() -> rtt, () -> bytes);
+                    }
+                } else if (response.getConflictIndex() >= 0 || batch.getStartIndex() == mismatchIndex) {
+                    // FOLLOWER给出了冲突位置，直接跳过去；或者重发之后依然不匹配，回退
+                    mismatchIndex = -1L;
+                    resendFrom(nextIndexOnMismatch(batch.getStartIndex(), response, snapshots.firstKey()));
+                    return true;
+                } else {
+                    // 可能是FOLLOWER还没有处理完前面的请求，先从这个位置重发一次
+                    mismatchIndex = batch.getStartIndex();
+                    resendFrom(batch.getStartIndex());
+                    return true;
+                }
             }
+            return true;
+        }
+
+        /**
+         * 日志不匹配时计算下次复制的位置
+         * @param startIndex 不匹配的请求的起始位置
+         * @param response 响应
+         * @param minIndex 可以回退到的最小位置，即第一个快照的位置
+         * @return 下次复制的位置
+         */
+        private long nextIndexOnMismatch(long startIndex, AsyncAppendEntriesResponse response, long minIndex) {
+            return backtracking.nextIndexOnMismatch(startIndex, response.getConflictIndex(), response.getConflictTerm(),
+                    matchIndex, minIndex, replicationBatchSize);
+        }
+
+        private boolean isHeartbeatRequired() {
+            return System.currentTimeMillis() - lastHeartbeatRequestTime >= heartbeatIntervalMs ||
+                    sentReadIndexRound < Leader.this.readIndexRound.get();
+        }
+
+        /**
+         * FOLLOWER在当前任期内成功响应了请求，不论日志是否匹配，都可以用于确认LEADER的有效性。
+         */
+        private void onAcked(AsyncAppendEntriesResponse response, long requestTime, long round) {
+            if (response.getTerm() != Leader.this.currentTerm) {
+                return;
+            }
+            if (requestTime > lastAckedRequestTime) {
+                lastAckedRequestTime = requestTime;
+            }
+            if (round > ackedReadIndexRound) {
+                ackedReadIndexRound = round;
+                Leader.this.checkReadIndexRound();
+            }
+        }
+
+        private void resendFrom(long index) {
+            inflightBatches.clear();
+            nextIndex = index;
         }
 
         private void maybeInstallSnapshotFirst(Map.Entry<Long, Snapshot> fistSnapShotEntry) {
-            if (nextIndex <= fistSnapShotEntry.getKey()) {
-                installSnapshot(this, fistSnapShotEntry.getValue());
+            if (nextIndex <= fistSnapShotEntry.getKey() &&
+                    installSnapshot(this, fistSnapShotEntry.getValue())) {
                 nextIndex = fistSnapShotEntry.getKey();
             }
         }
@@ -896,6 +1445,15 @@ class Leader extends ServerStateMachine implements StateServer {
             return nextIndex;
         }
 
+        long getInstalledSnapshotOffset(long snapshotIndex) {
+            return snapshotIndex == installingSnapshotIndex ? installedSnapshotOffset : 0L;
+        }
+
+        void setInstalledSnapshotOffset(long snapshotIndex, long offset) {
+            this.installingSnapshotIndex = snapshotIndex;
+            this.installedSnapshotOffset = offset;
+        }
+
         long getMatchIndex() {
             return matchIndex;
         }
@@ -908,6 +1466,14 @@ class Leader extends ServerStateMachine implements StateServer {
             return lastHeartbeatRequestTime;
         }
 
+        long getLastAckedRequestTime() {
+            return lastAckedRequestTime;
+        }
+
+        long getAckedReadIndexRound() {
+            return ackedReadIndexRound;
+        }
+
         @Override
         public String toString() {
             return "{" +
@@ -918,5 +1484,85 @@ class Leader extends ServerStateMachine implements StateServer {
         }
     }
 
+    private static class InflightTrunk {
+        private final long endOffset;
+        private final CompletableFuture<InstallSnapshotResponse> future;
+
+        InflightTrunk(long endOffset, CompletableFuture<InstallSnapshotResponse> future) {
+            this.endOffset = endOffset;
+            this.future = future;
+        }
+
+        long getEndOffset() {
+            return endOffset;
+        }
+
+        CompletableFuture<InstallSnapshotResponse> getFuture() {
+            return future;
+        }
+    }
+
+    private static class InflightBatch {
+        private final long startIndex;
+        private final List<byte[]> entries;
+        private final CompletableFuture<AsyncAppendEntriesResponse> future;
+        private final long sendTime;
+        private final long readIndexRound;
+        private final long sendNanoTime = System.nanoTime();
+
+        InflightBatch(long startIndex, List<byte[]> entries, long sendTime, long readIndexRound,
+                      CompletableFuture<AsyncAppendEntriesResponse> future) {
+            this.startIndex = startIndex;
+            this.entries = entries;
+            this.sendTime = sendTime;
+            this.readIndexRound = readIndexRound;
+            this.future = future;
+        }
+
+        long getStartIndex() {
+            return startIndex;
+        }
+
+        List<byte[]> getEntries() {
+            return entries;
+        }
+
+        CompletableFuture<AsyncAppendEntriesResponse> getFuture() {
+            return future;
+        }
+
+        long getSendTime() {
+            return sendTime;
+        }
+
+        long getSendNanoTime() {
+            return sendNanoTime;
+        }
+
+        long getReadIndexRound() {
+            return readIndexRound;
+        }
+    }
+
+    /**
+     * 一轮ReadIndex心跳，这一轮心跳得到半数以上节点确认后，所有加入这一轮的读请求都可以读取数据。
+     */
+    private static class ReadIndexRound {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private long round = 0L;
+
+        CompletableFuture<Void> getFuture() {
+            return future;
+        }
+
+        long getRound() {
+            return round;
+        }
+
+        void setRound(long round) {
+            this.round = round;
+        }
+    }
+
 
 }
@@ -63,6 +63,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -71,6 +72,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
@@ -157,13 +160,15 @@ class Observer extends AbstractServer {
         GetServerEntriesResponse response =
                 invokeParentsRpc(
                         rpc -> rpc.getServerEntries(new GetServerEntriesRequest(journal.commitIndex(), config.getPullBatchSize()))
-                ).get();
+                ).get(getRpcTimeoutMs(), TimeUnit.MILLISECONDS);
 
         if (response.success()) {
 
             journal.appendBatchRaw(response.getEntries());
 
-            voterConfigManager.maybeUpdateNonLeaderConfig(response.getEntries(), state.getConfigState());
+            voterConfigManager.maybeUpdateNonLeaderConfig(
+                    response.getEntries().stream().map(ByteBuffer::wrap).collect(Collectors.toList()),
+                    state.getConfigState());
 //            commitIndex.addAndGet(response.getEntries().size());
             journal.commit(journal.maxIndex());
             // 唤醒状态机线程
@@ -189,7 +194,7 @@ class Observer extends AbstractServer {
             int finalIteratorId = iteratorId;
             GetServerStateResponse r = invokeParentsRpc(
                     rpc -> rpc.getServerState(new GetServerStateRequest(lastIncludedIndex, finalIteratorId))
-            ).get();
+            ).get(getRpcTimeoutMs(), TimeUnit.MILLISECONDS);
             if (r.success()) {
                 installSnapshot(r.getOffset(), r.getLastIncludedIndex(), r.getLastIncludedTerm(), r.getData(), r.isDone());
                 iteratorId = r.getIteratorId();
@@ -233,6 +238,17 @@ class Observer extends AbstractServer {
         return CompletableFuture.completedFuture(new QueryStateResponse(new NotLeaderException(leaderUri)));
     }
 
+    /**
+     * OBSERVER不知道LEADER的地址，从任意一个上游节点获取ReadIndex，如果上游节点不是LEADER，重定向到LEADER。
+     */
+    @Override
+    protected CompletableFuture<Long> readIndex() {
+        List<URI> parents = config.getParents();
+        URI server = null != leaderUri || parents.isEmpty() ? leaderUri :
+                parents.get(ThreadLocalRandom.current().nextInt(parents.size()));
+        return readIndex(server, true);
+    }
+
     @Override
     public CompletableFuture<LastAppliedResponse> lastApplied() {
         return CompletableFuture.completedFuture(new LastAppliedResponse(new NotLeaderException(leaderUri)));
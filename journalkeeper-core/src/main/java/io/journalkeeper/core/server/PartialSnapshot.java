@@ -44,12 +44,13 @@ import io.journalkeeper.utils.files.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 
 /**
@@ -77,7 +78,8 @@ class PartialSnapshot {
 
     /**
      * 安装快照。
-     * 反复调用install复制序列化的状态数据。
+     * 反复调用install复制序列化的状态数据，每个Trunk直接写入文件中对应的位置，
+     * 因此除第一个Trunk外，其它Trunk可以乱序或者重复安装。
      * 状态数据先被安装在{@link #partialSnapshotPath}中，当全部状态数据安装完成后，
      * 再复制到{@link #snapshotPath}中
      * 所有数据都复制完成后，将状态。
@@ -103,12 +105,6 @@ class PartialSnapshot {
                 );
             }
 
-            if (offset != getOffset()) {
-                throw new InstallSnapshotException(
-                        String.format("Partial snapshot offset not match! Partial snapshot: %s, request offset: %d.", this, offset)
-                );
-            }
-
         }
 
         ByteBuffer buffer = ByteBuffer.wrap(data);
@@ -120,9 +116,8 @@ class PartialSnapshot {
 
         Path filePath = this.partialSnapshotPath.resolve(filePathString);
 
-        if (offsetOfFile == 0) {
-            Files.createDirectories(filePath.getParent());
-        }
+        // Trunk可能乱序到达，不能依赖文件的第一个Trunk创建父目录
+        Files.createDirectories(filePath.getParent());
 
 
         if (offsetOfFile == 0 && isDirectory(buffer)) {
@@ -130,20 +125,14 @@ class PartialSnapshot {
             Files.createDirectories(filePath);
         } else {
             logger.info("Installing snapshot file: {}...", filePath);
-            if(offsetOfFile == 0 || Files.size(filePath) == offsetOfFile) {
-                try (FileOutputStream output = new FileOutputStream(filePath.toFile(), true)) {
-                    output.write(data, buffer.position(), buffer.remaining());
+            try (FileChannel fc = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long position = offsetOfFile;
+                while (buffer.hasRemaining()) {
+                    position += fc.write(buffer, position);
                 }
-            } else {
-                throw new InstallSnapshotException(
-                        String.format(
-                                "Current file size %d should equal trunk offset %d! File: %s",
-                                Files.size(filePath), offsetOfFile, filePath.toString()
-                        )
-                );
             }
         }
-        this.offset += data.length;
+        this.offset = Math.max(this.offset, offset + data.length);
     }
 
     private boolean isDirectory(ByteBuffer buffer) {
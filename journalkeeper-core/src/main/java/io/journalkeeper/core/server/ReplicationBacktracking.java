@@ -0,0 +1,113 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import java.util.function.LongSupplier;
+import java.util.function.LongToIntFunction;
+
+/**
+ * 日志不匹配时快速回退复制位置，LEADER和FOLLOWER共用。
+ *
+ * FOLLOWER在不匹配的响应中返回冲突的任期和这个任期在FOLLOWER上的第一条日志，
+ * LEADER据此一次跳过整个冲突的任期，不用逐批回退。
+ * 日志的任期是单调递增的，按任期查找日志位置时使用二分查找。
+ */
+class ReplicationBacktracking {
+    private final LongToIntFunction termOf;
+    private final LongSupplier minIndex;
+    private final LongSupplier maxIndex;
+
+    /**
+     * @param termOf 查询日志的任期
+     * @param minIndex 日志的最小索引序号
+     * @param maxIndex 日志的最大索引序号（不含）
+     */
+    ReplicationBacktracking(LongToIntFunction termOf, LongSupplier minIndex, LongSupplier maxIndex) {
+        this.termOf = termOf;
+        this.minIndex = minIndex;
+        this.maxIndex = maxIndex;
+    }
+
+    /**
+     * LEADER收到不匹配的响应时计算下次复制的位置。
+     * 如果FOLLOWER返回了冲突的任期，并且LEADER也有这个任期的日志，从LEADER这个任期的最后一条日志之后开始复制；
+     * 否则直接跳到FOLLOWER提示的位置；FOLLOWER没有提示时，回退一批。
+     * @param startIndex 不匹配的请求的起始位置
+     * @param conflictIndex FOLLOWER提示的位置，没有提示时小于0
+     * @param conflictTerm 冲突的任期，FOLLOWER的日志比LEADER短时小于0
+     * @param matchIndex 已经确认复制成功的位置，不会回退到这个位置之前
+     * @param firstIndex 可以回退到的最小位置，即第一个快照的位置
+     * @param batchSize 没有提示时回退的条数
+     * @return 下次复制的位置
+     */
+    long nextIndexOnMismatch(long startIndex, long conflictIndex, int conflictTerm,
+                             long matchIndex, long firstIndex, int batchSize) {
+        long next;
+        if (conflictIndex < 0) {
+            next = startIndex - batchSize;
+        } else {
+            next = conflictIndex;
+            if (conflictTerm >= 0) {
+                long lastIndex = lastIndexOfTerm(conflictTerm, Math.min(startIndex - 1, maxIndex.getAsLong()));
+                if (lastIndex >= 0) {
+                    next = lastIndex + 1;
+                }
+            }
+        }
+        // 已经确认复制成功的日志不需要重发
+        return Math.max(firstIndex, Math.min(Math.max(next, matchIndex), startIndex - 1));
+    }
+
+    /**
+     * 查找 [minIndex, maxIndex) 中最后一条任期为term的日志
+     * @param term 任期
+     * @param maxIndex 查找范围的结束位置（不含）
+     * @return 日志的索引序号，不存在返回-1
+     */
+    long lastIndexOfTerm(int term, long maxIndex) {
+        long min = minIndex.getAsLong();
+        long low = min;
+        long high = maxIndex;
+        // 查找第一条任期大于term的日志
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (termOf.applyAsInt(mid) <= term) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low > min && termOf.applyAsInt(low - 1) == term ? low - 1 : -1L;
+    }
+
+    /**
+     * 查找 [minIndex, maxIndex] 中第一条任期不小于term的日志，FOLLOWER用来提示冲突任期的起始位置
+     * @param term 任期
+     * @param maxIndex 查找范围的结束位置（含），这条日志的任期不小于term
+     * @return 日志的索引序号
+     */
+    long firstIndexOfTerm(int term, long maxIndex) {
+        long low = minIndex.getAsLong();
+        long high = maxIndex;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (termOf.applyAsInt(mid) < term) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+/**
+ * 根据FOLLOWER的响应时间和吞吐量，自适应调整每次复制的最大字节数，非线程安全。
+ *
+ * 目标是每批复制的响应时间不超过 targetRttMs：
+ * 响应时间小于目标并且上一批数据量受字节数限制时，加倍；
+ * 响应时间超过目标时，按照实测的吞吐量（字节数 / 响应时间）计算目标时间内能复制的字节数；
+ * 请求失败或者超时时，减半。
+ * 批大小不小于 {@link #MIN_BATCH_BYTES}，不超过配置的最大值。
+ */
+class ReplicationBatchSizer {
+    static final long MIN_BATCH_BYTES = 64 * 1024L;
+    private final long maxBatchBytes;
+    private final long minBatchBytes;
+    private final long targetRttNanos;
+    private final boolean adaptive;
+    private long batchBytes;
+
+    /**
+     * @param maxBatchBytes 每批最大字节数
+     * @param targetRttMs 目标响应时间
+     * @param adaptive 是否自适应调整，为false时始终使用maxBatchBytes
+     */
+    ReplicationBatchSizer(long maxBatchBytes, long targetRttMs, boolean adaptive) {
+        this.maxBatchBytes = Math.max(1L, maxBatchBytes);
+        this.minBatchBytes = Math.min(MIN_BATCH_BYTES, this.maxBatchBytes);
+        this.targetRttNanos = Math.max(1L, targetRttMs) * 1000000L;
+        this.adaptive = adaptive;
+        this.batchBytes = this.maxBatchBytes;
+    }
+
+    /**
+     * @return 下一批复制的最大字节数
+     */
+    long batchBytes() {
+        return batchBytes;
+    }
+
+    /**
+     * 复制成功时调用
+     * @param bytes 这一批复制的字节数
+     * @param rttNanos 这一批的响应时间，单位纳秒
+     */
+    void onSuccess(long bytes, long rttNanos) {
+        if (!adaptive || bytes <= 0L) {
+            return;
+        }
+        if (rttNanos > targetRttNanos) {
+            // 按吞吐量估算目标时间内能复制的字节数
+            long expected = (long) ((double) bytes * targetRttNanos / rttNanos);
+            batchBytes = clamp(Math.min(batchBytes, expected));
+        } else if (bytes * 2 >= batchBytes) {
+            // 数据量接近上限，响应时间还有余量，加大批次
+            batchBytes = batchBytes > maxBatchBytes / 2 ? maxBatchBytes : clamp(batchBytes * 2);
+        }
+    }
+
+    /**
+     * 复制失败或者超时时调用
+     */
+    void onFailure() {
+        if (adaptive) {
+            batchBytes = clamp(batchBytes / 2);
+        }
+    }
+
+    private long clamp(long bytes) {
+        return Math.max(minBatchBytes, Math.min(maxBatchBytes, bytes));
+    }
+}
@@ -14,9 +14,11 @@
 package io.journalkeeper.core.server;
 
 import io.journalkeeper.utils.buffer.LockFreeRingBuffer;
+import io.journalkeeper.utils.locks.ProgressCondition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -27,6 +29,8 @@ public class RingBufferBelt implements CallbackResultBelt {
     private static final Logger logger = LoggerFactory.getLogger(RingBufferBelt.class);
     private final long timeoutMs;
     private final LockFreeRingBuffer<Callback> buffer;
+    // 队列满时写入线程在这里等待，回调后唤醒
+    private final ProgressCondition notFull = new ProgressCondition();
 
     RingBufferBelt(long timeoutMs, int capacity) {
         this.timeoutMs = timeoutMs;
@@ -39,10 +43,25 @@ public class RingBufferBelt implements CallbackResultBelt {
         return buffer.full();
     }
 
+    /**
+     * 登记回调，队列满时等待消费。
+     * 调用方必须保证队列中已有的回调都可以被消费，不依赖这次登记，
+     * 即登记之前已经把callbackBarrier推进到队列中所有回调的位置。
+     * 因此等待超时说明存在缺陷，记录WARN日志后按照超时的回调处理，不长时间占用写入线程。
+     */
     @Override
     public void put(Callback callback) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
         while (!buffer.put(callback)) {
-            Thread.yield();
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0L || !notFull.await(() -> !buffer.full(), remaining, TimeUnit.MILLISECONDS)) {
+                Callback head = buffer.get();
+                logger.warn("Wait for free callback slot timeout, this is a bug! callback index: {}, " +
+                                "next callback in the waiting buffer: {}, buffer size: {}.",
+                        callback.getPosition(), null == head ? -1L : head.getPosition(), buffer.size());
+                callback.getResponseFuture().completedExceptionally(new TimeoutException());
+                return;
+            }
         }
     }
 
@@ -57,6 +76,7 @@ public class RingBufferBelt implements CallbackResultBelt {
             }
         }
         callbackTimeouted();
+        notFull.signalAll();
     }
 
     private void callbackTimeouted() {
@@ -82,6 +102,7 @@ public class RingBufferBelt implements CallbackResultBelt {
             c = buffer.remove();
             c.getResponseFuture().putResult(result, position);
         }
+        notFull.signalAll();
     }
 
     @Override
@@ -90,5 +111,16 @@ public class RingBufferBelt implements CallbackResultBelt {
             buffer.remove()
                     .getResponseFuture().completedExceptionally(new IllegalStateException());
         }
+        notFull.signalAll();
+    }
+
+    @Override
+    public int size() {
+        return buffer.size();
+    }
+
+    @Override
+    public long getStallTimeMs() {
+        return notFull.getStallTimeMs();
     }
 }
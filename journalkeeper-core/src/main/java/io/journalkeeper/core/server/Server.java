@@ -18,6 +18,7 @@ import io.journalkeeper.core.api.RaftServer;
 import io.journalkeeper.core.api.StateFactory;
 import io.journalkeeper.monitor.MonitorCollector;
 import io.journalkeeper.rpc.RpcAccessPointFactory;
+import io.journalkeeper.rpc.client.AddPullWatchRequest;
 import io.journalkeeper.rpc.client.AddPullWatchResponse;
 import io.journalkeeper.rpc.client.CheckLeadershipResponse;
 import io.journalkeeper.rpc.client.CompleteTransactionRequest;
@@ -55,6 +56,7 @@ import io.journalkeeper.rpc.server.RequestVoteRequest;
 import io.journalkeeper.rpc.server.RequestVoteResponse;
 import io.journalkeeper.rpc.server.ServerRpc;
 import io.journalkeeper.rpc.server.ServerRpcAccessPoint;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.spi.ServiceSupport;
 import io.journalkeeper.utils.state.StateServer;
@@ -175,8 +177,8 @@ public class Server
     }
 
     @Override
-    public CompletableFuture<AddPullWatchResponse> addPullWatch() {
-        return server.addPullWatch();
+    public CompletableFuture<AddPullWatchResponse> addPullWatch(AddPullWatchRequest request) {
+        return server.addPullWatch(request);
     }
 
     @Override
@@ -247,6 +249,11 @@ public class Server
         server.watch(eventWatcher);
     }
 
+    @Override
+    public void watch(EventWatcher eventWatcher, EventFilter filter) {
+        server.watch(eventWatcher, filter);
+    }
+
     @Override
     public void unWatch(EventWatcher eventWatcher) {
         server.unWatch(eventWatcher);
@@ -133,6 +133,9 @@ public class ServerMonitorInfoProvider implements MonitoredServer {
             leaderMonitorInfo = new LeaderMonitorInfo();
             leaderMonitorInfo.setState(leader.serverState());
             leaderMonitorInfo.setRequestQueueSize(leader.getRequestQueueSize());
+            leaderMonitorInfo.setCallbackQueueSize(leader.getCallbackQueueSize());
+            leaderMonitorInfo.setRejectedRequests(leader.getRejectedRequests());
+            leaderMonitorInfo.setCallbackStallMs(leader.getCallbackStallMs());
             leaderMonitorInfo.setWriteEnabled(leader.isWriteEnabled());
             @SuppressWarnings("unchecked")
             List<Leader.ReplicationDestination> replicationDestinations = leader.getFollowers();
@@ -184,6 +187,9 @@ public class ServerMonitorInfoProvider implements MonitoredServer {
             journalMonitorInfo.setMinOffset(journalPersistence.min());
             journalMonitorInfo.setMaxOffset(journalPersistence.max());
             journalMonitorInfo.setFlushOffset(journalPersistence.flushed());
+            if (journalPersistence instanceof MonitoredPersistence) {
+                journalMonitorInfo.setWriteStallMs(((MonitoredPersistence) journalPersistence).getWriteStallTimeMs());
+            }
             JournalPersistence indexPersistence = journal.getIndexPersistence();
             journalMonitorInfo.setIndexMinOffset(indexPersistence.min());
             journalMonitorInfo.setIndexMaxOffset(indexPersistence.max());
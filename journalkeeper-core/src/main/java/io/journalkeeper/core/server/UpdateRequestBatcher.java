@@ -0,0 +1,83 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import io.journalkeeper.core.api.UpdateRequest;
+import io.journalkeeper.rpc.client.UpdateClusterStateRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Function;
+
+import static io.journalkeeper.core.api.RaftJournal.INTERNAL_PARTITION;
+
+/**
+ * 从待写入的请求队列中取出连续的普通请求，合并为一批写入Journal。
+ * 配置变更等内部请求需要单独处理，不会被合并，遇到内部请求时停止合并。
+ *
+ * @param <T> 队列中元素的类型
+ */
+class UpdateRequestBatcher<T> {
+    private final int maxSize;
+    private final long maxBytes;
+    private final Function<T, UpdateClusterStateRequest> requestGetter;
+
+    /**
+     * @param maxSize 每批最多合并的请求数量
+     * @param maxBytes 每批请求的日志总长度达到这个值后不再合并
+     * @param requestGetter 从队列元素中取出请求
+     */
+    UpdateRequestBatcher(int maxSize, long maxBytes, Function<T, UpdateClusterStateRequest> requestGetter) {
+        this.maxSize = Math.max(1, maxSize);
+        this.maxBytes = maxBytes;
+        this.requestGetter = requestGetter;
+    }
+
+    /**
+     * 以first开头，从queue的头部依次取出可以合并的请求。
+     * @param first 这一批的第一个请求，必须是普通请求
+     * @param queue 待写入的请求队列
+     * @return 合并后的一批请求，至少包含first
+     */
+    List<T> poll(T first, Queue<T> queue) {
+        List<T> batch = new ArrayList<>();
+        batch.add(first);
+        long batchBytes = requestBytes(requestGetter.apply(first));
+        T next;
+        while (batch.size() < maxSize && batchBytes < maxBytes &&
+                null != (next = queue.peek()) && !isInternalRequest(requestGetter.apply(next))) {
+            batch.add(queue.poll());
+            batchBytes += requestBytes(requestGetter.apply(next));
+        }
+        return batch;
+    }
+
+    static boolean isInternalRequest(UpdateClusterStateRequest request) {
+        for (UpdateRequest updateRequest : request.getRequests()) {
+            if (updateRequest.getPartition() == INTERNAL_PARTITION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long requestBytes(UpdateClusterStateRequest request) {
+        long bytes = 0L;
+        for (UpdateRequest updateRequest : request.getRequests()) {
+            bytes += updateRequest.getEntry().length;
+        }
+        return bytes;
+    }
+}
@@ -115,9 +115,9 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
     }
 
     @Override
-    protected void onJournalFlushed() {
+    protected void onJournalFlushed(long flushIndex) {
         if (null != leader) {
-            leader.onJournalFlushed();
+            leader.onJournalFlushed(flushIndex);
         }
     }
 
@@ -148,6 +148,34 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
                 properties.getProperty(
                         Config.REPLICATION_BATCH_SIZE_KEY,
                         String.valueOf(Config.DEFAULT_REPLICATION_BATCH_SIZE))));
+        config.setReplicationBatchBytes(Long.parseLong(
+                properties.getProperty(
+                        Config.REPLICATION_BATCH_BYTES_KEY,
+                        String.valueOf(Config.DEFAULT_REPLICATION_BATCH_BYTES))));
+        config.setAdaptiveReplicationBatch(Boolean.parseBoolean(
+                properties.getProperty(
+                        Config.ADAPTIVE_REPLICATION_BATCH_KEY,
+                        String.valueOf(Config.DEFAULT_ADAPTIVE_REPLICATION_BATCH))));
+        config.setReplicationWindowSize(Integer.parseInt(
+                properties.getProperty(
+                        Config.REPLICATION_WINDOW_SIZE_KEY,
+                        String.valueOf(Config.DEFAULT_REPLICATION_WINDOW_SIZE))));
+        config.setInstallSnapshotWindowSize(Integer.parseInt(
+                properties.getProperty(
+                        Config.INSTALL_SNAPSHOT_WINDOW_SIZE_KEY,
+                        String.valueOf(Config.DEFAULT_INSTALL_SNAPSHOT_WINDOW_SIZE))));
+        config.setAppendBatchSize(Integer.parseInt(
+                properties.getProperty(
+                        Config.APPEND_BATCH_SIZE_KEY,
+                        String.valueOf(Config.DEFAULT_APPEND_BATCH_SIZE))));
+        config.setAppendBatchBytes(Long.parseLong(
+                properties.getProperty(
+                        Config.APPEND_BATCH_BYTES_KEY,
+                        String.valueOf(Config.DEFAULT_APPEND_BATCH_BYTES))));
+        config.setMaxClockDriftMs(Long.parseLong(
+                properties.getProperty(
+                        Config.MAX_CLOCK_DRIFT_MS_KEY,
+                        String.valueOf(Config.DEFAULT_MAX_CLOCK_DRIFT_MS))));
         config.setCacheRequests(Integer.parseInt(
                 properties.getProperty(
                         Config.CACHE_REQUESTS_KEY,
@@ -373,7 +401,11 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
 
             this.leader = new Leader(journal, state, snapshots, currentTerm.get(),
                     uri, config.getCacheRequests(), config.getHeartbeatIntervalMs(), config.getRpcTimeoutMs(),
-                    config.getReplicationBatchSize(),
+                    config.getReplicationBatchSize(), config.getReplicationBatchBytes(),
+                    config.isAdaptiveReplicationBatch(), config.getReplicationWindowSize(),
+                    config.getInstallSnapshotWindowSize(),
+                    config.getAppendBatchSize(), config.getAppendBatchBytes(),
+                    config.getElectionTimeoutMs() - config.getMaxClockDriftMs(),
                     config.getSnapshotIntervalSec(), threads,
                     this, this, scheduledExecutor, voterConfigManager, this,
                     this.journalEntryParser, config.getTransactionTimeoutMs(), snapshots);
@@ -444,18 +476,18 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
         if (request.getTerm() < currentTerm.get()) {
             // 如果收到的请求term小于当前term，拒绝请求
             return CompletableFuture.supplyAsync(() -> new AsyncAppendEntriesResponse(false, request.getPrevLogIndex() + 1,
-                    currentTerm.get(), request.getEntries().size()));
+                    currentTerm.get(), request.getEntryCount()));
 
         }
 
         if (voterState() != VoterState.FOLLOWER) {
             convertToFollower();
         }
-        if (logger.isDebugEnabled() && request.getEntries() != null && !request.getEntries().isEmpty()) {
+        if (logger.isDebugEnabled() && request.getEntryCount() > 0) {
             logger.debug("Received appendEntriesRequest, term: {}, leader: {}, prevLogIndex: {}, prevLogTerm: {}, " +
                             "entries: {}, leaderCommit: {}, {}.",
                     request.getTerm(), request.getLeader(), request.getPrevLogIndex(), request.getPrevLogTerm(),
-                    request.getEntries().size(), request.getLeaderCommit(), voterInfo());
+                    request.getEntryCount(), request.getLeaderCommit(), voterInfo());
         }
 
         // reset heartbeat
@@ -607,9 +639,9 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
 
     @Override
     public CompletableFuture<QueryStateResponse> queryClusterState(QueryStateRequest request) {
-        return waitLeadership()
-                .thenApplyAsync(aVoid -> state.query(request.getQuery(), journal).getResult(), asyncExecutor)
-                .thenApply(QueryStateResponse::new)
+        return waitReadable(request.getConsistency())
+                .thenApplyAsync(aVoid -> state.query(request.getQuery(), journal), asyncExecutor)
+                .thenApply(queryResult -> new QueryStateResponse(queryResult.getResult(), queryResult.getLastApplied()))
                 .exceptionally(exception -> {
                     try {
                         throw exception instanceof CompletionException ? exception.getCause() : exception;
@@ -640,12 +672,18 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
         return isTermChanged;
     }
 
-    // 改为同步方法，提升性能
+    /**
+     * 返回ReadIndex：LEADER通过一轮心跳确认自己仍然有效时的提交位置，
+     * FOLLOWER和OBSERVER等待状态机执行到这个位置之后，就可以提供强一致读。
+     */
     @Override
     public CompletableFuture<LastAppliedResponse> lastApplied() {
-
-        return waitLeadership()
-                .thenApplyAsync(aVoid -> new LastAppliedResponse(state.lastApplied()), asyncExecutor)
+        Leader finalLeader = leader;
+        if (!isLeaderAvailable(finalLeader)) {
+            return CompletableFuture.completedFuture(new LastAppliedResponse(new NotLeaderException(this.leaderUri)));
+        }
+        return finalLeader.readIndex()
+                .thenApply(LastAppliedResponse::new)
                 .exceptionally(exception -> {
                     try {
                         throw exception instanceof CompletionException ? exception.getCause() : exception;
@@ -655,6 +693,37 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
                 });
     }
 
+    /**
+     * 按照读一致性等待LEADER可以提供读服务：
+     * READ_INDEX和LEASE在确认LEADER有效之后，等待状态机执行到确认时的提交位置；
+     * 其它一致性使用心跳时间戳检测LEADER的有效性。
+     */
+    private CompletableFuture<Void> waitReadable(QueryConsistency consistency) {
+        Leader finalLeader = leader;
+        if (!isLeaderAvailable(finalLeader)) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(new NotLeaderException(this.leaderUri));
+            return future;
+        }
+        switch (consistency) {
+            case READ_INDEX:
+                return finalLeader.readIndex().thenCompose(this::waitForApplied);
+            case LEASE:
+                return finalLeader.leaseReadIndex().thenCompose(this::waitForApplied);
+            default:
+                return finalLeader.waitLeadership();
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Long> readIndex() {
+        Leader finalLeader = leader;
+        if (isLeaderAvailable(finalLeader)) {
+            return finalLeader.readIndex();
+        }
+        return super.readIndex();
+    }
+
     private CompletableFuture<Void> waitLeadership() {
         Leader finalLeader = leader;
         if (isLeaderAvailable(finalLeader)) {
@@ -858,11 +927,11 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
     }
 
     @Override
-    protected void afterStateChanged(byte[] updateResult) {
-        super.afterStateChanged(updateResult);
+    protected void afterStateChanged(long lastApplied, byte[] updateResult) {
+        super.afterStateChanged(lastApplied, updateResult);
         if (null != leader) {
             try {
-                leader.callback(state.lastApplied(), updateResult);
+                leader.callback(lastApplied, updateResult);
             } catch (Throwable e) {
                 logger.warn("Callback exception! {}", voterInfo(), e);
             }
@@ -1004,26 +1073,47 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
         public final static long DEFAULT_HEARTBEAT_INTERVAL_MS = 100L;
         public final static long DEFAULT_ELECTION_TIMEOUT_MS = 300L;
         public final static int DEFAULT_REPLICATION_BATCH_SIZE = 128;
+        public final static long DEFAULT_REPLICATION_BATCH_BYTES = 1024 * 1024L;
+        public final static boolean DEFAULT_ADAPTIVE_REPLICATION_BATCH = true;
+        public final static int DEFAULT_REPLICATION_WINDOW_SIZE = 1;
         public final static int DEFAULT_CACHE_REQUESTS = 1024;
         public final static long DEFAULT_TRANSACTION_TIMEOUT_MS = 10L * 60 * 1000;
         public final static int DEFAULT_PRINT_STATE_INTERVAL_SEC = 0;
         public final static boolean DEFAULT_ENABLE_PRE_VOTE = true;
+        public final static long DEFAULT_MAX_CLOCK_DRIFT_MS = 100L;
+        public final static int DEFAULT_INSTALL_SNAPSHOT_WINDOW_SIZE = 4;
+        public final static int DEFAULT_APPEND_BATCH_SIZE = 1024;
+        public final static long DEFAULT_APPEND_BATCH_BYTES = 4L * 1024 * 1024;
 
         public final static String HEARTBEAT_INTERVAL_KEY = "heartbeat_interval_ms";
         public final static String ELECTION_TIMEOUT_KEY = "election_timeout_ms";
         public final static String REPLICATION_BATCH_SIZE_KEY = "replication_batch_size";
+        public final static String REPLICATION_BATCH_BYTES_KEY = "replication_batch_bytes";
+        public final static String ADAPTIVE_REPLICATION_BATCH_KEY = "adaptive_replication_batch";
+        public final static String REPLICATION_WINDOW_SIZE_KEY = "replication_window_size";
         public final static String CACHE_REQUESTS_KEY = "cache_requests";
         public final static String TRANSACTION_TIMEOUT_MS_KEY = "transaction_timeout_ms";
         public final static String PRINT_STATE_INTERVAL_SEC_KEY = "print_state_interval_sec";
         public final static String ENABLE_PRE_VOTE_KEY = "enable_pre_vote";
+        public final static String MAX_CLOCK_DRIFT_MS_KEY = "max_clock_drift_ms";
+        public final static String INSTALL_SNAPSHOT_WINDOW_SIZE_KEY = "install_snapshot_window_size";
+        public final static String APPEND_BATCH_SIZE_KEY = "append_batch_size";
+        public final static String APPEND_BATCH_BYTES_KEY = "append_batch_bytes";
 
         private long heartbeatIntervalMs = DEFAULT_HEARTBEAT_INTERVAL_MS;
         private long electionTimeoutMs = DEFAULT_ELECTION_TIMEOUT_MS;  // 最小选举超时
         private int replicationBatchSize = DEFAULT_REPLICATION_BATCH_SIZE;
+        private long replicationBatchBytes = DEFAULT_REPLICATION_BATCH_BYTES; // 每次复制的最大字节数，需要小于传输层的最大帧长度
+        private boolean adaptiveReplicationBatch = DEFAULT_ADAPTIVE_REPLICATION_BATCH; // 是否根据FOLLOWER的响应时间自适应调整每次复制的字节数
+        private int replicationWindowSize = DEFAULT_REPLICATION_WINDOW_SIZE;
         private int cacheRequests = DEFAULT_CACHE_REQUESTS;
         private long transactionTimeoutMs = DEFAULT_TRANSACTION_TIMEOUT_MS;
         private int printStateIntervalSec = DEFAULT_PRINT_STATE_INTERVAL_SEC;
         private boolean enablePreVote = DEFAULT_ENABLE_PRE_VOTE;
+        private long maxClockDriftMs = DEFAULT_MAX_CLOCK_DRIFT_MS; // 租约读允许的时钟偏差上限
+        private int installSnapshotWindowSize = DEFAULT_INSTALL_SNAPSHOT_WINDOW_SIZE; // 安装快照时并行发送的Trunk数量
+        private int appendBatchSize = DEFAULT_APPEND_BATCH_SIZE; // 每次写入Journal时最多合并的请求数量
+        private long appendBatchBytes = DEFAULT_APPEND_BATCH_BYTES; // 每次写入Journal时最多合并的请求字节数
         public int getReplicationBatchSize() {
             return replicationBatchSize;
         }
@@ -1032,6 +1122,30 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
             this.replicationBatchSize = replicationBatchSize;
         }
 
+        public long getReplicationBatchBytes() {
+            return replicationBatchBytes;
+        }
+
+        public void setReplicationBatchBytes(long replicationBatchBytes) {
+            this.replicationBatchBytes = replicationBatchBytes;
+        }
+
+        public boolean isAdaptiveReplicationBatch() {
+            return adaptiveReplicationBatch;
+        }
+
+        public void setAdaptiveReplicationBatch(boolean adaptiveReplicationBatch) {
+            this.adaptiveReplicationBatch = adaptiveReplicationBatch;
+        }
+
+        public int getReplicationWindowSize() {
+            return replicationWindowSize;
+        }
+
+        public void setReplicationWindowSize(int replicationWindowSize) {
+            this.replicationWindowSize = replicationWindowSize;
+        }
+
 
         public long getHeartbeatIntervalMs() {
             return heartbeatIntervalMs;
@@ -1080,6 +1194,38 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
         public void setEnablePreVote(boolean enablePreVote) {
             this.enablePreVote = enablePreVote;
         }
+
+        public long getMaxClockDriftMs() {
+            return maxClockDriftMs;
+        }
+
+        public void setMaxClockDriftMs(long maxClockDriftMs) {
+            this.maxClockDriftMs = maxClockDriftMs;
+        }
+
+        public int getInstallSnapshotWindowSize() {
+            return installSnapshotWindowSize;
+        }
+
+        public void setInstallSnapshotWindowSize(int installSnapshotWindowSize) {
+            this.installSnapshotWindowSize = installSnapshotWindowSize;
+        }
+
+        public int getAppendBatchSize() {
+            return appendBatchSize;
+        }
+
+        public void setAppendBatchSize(int appendBatchSize) {
+            this.appendBatchSize = appendBatchSize;
+        }
+
+        public long getAppendBatchBytes() {
+            return appendBatchBytes;
+        }
+
+        public void setAppendBatchBytes(long appendBatchBytes) {
+            this.appendBatchBytes = appendBatchBytes;
+        }
     }
 
 
@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -137,19 +138,23 @@ public class VoterConfigManager {
     }
 
     // 非Leader（Follower和Observer）复制日志到本地后，如果日志中包含配置变更，则立即变更配置
-    void maybeUpdateNonLeaderConfig(List<byte[]> entries, ConfigState votersConfigStateMachine) throws Exception {
-        for (byte[] rawEntry : entries) {
-            JournalEntry entryHeader = journalEntryParser.parseHeader(rawEntry);
+    void maybeUpdateNonLeaderConfig(List<ByteBuffer> entries, ConfigState votersConfigStateMachine) throws Exception {
+        for (ByteBuffer entryBuffer : entries) {
+            JournalEntry entryHeader = journalEntryParser.parseHeader(entryBuffer);
             if (entryHeader.getPartition() == INTERNAL_PARTITION) {
-                int headerLength = journalEntryParser.headerLength();
-                InternalEntryType entryType = InternalEntriesSerializeSupport.parseEntryType(rawEntry, headerLength, rawEntry.length - headerLength);
+                // 只有内部日志需要复制到堆内解析
+                byte[] rawEntry = new byte[entryBuffer.remaining()];
+                entryBuffer.duplicate().get(rawEntry);
+                // 不同版本日志格式的Header长度不同，从解析后的日志中取Payload的位置
+                BytesFragment payload = journalEntryParser.parse(rawEntry).getPayload();
+                InternalEntryType entryType = InternalEntriesSerializeSupport.parseEntryType(rawEntry, payload.getOffset(), payload.getLength());
                 if (entryType == TYPE_UPDATE_VOTERS_S1) {
-                    UpdateVotersS1Entry updateVotersS1Entry = InternalEntriesSerializeSupport.parse(rawEntry, headerLength, rawEntry.length - headerLength);
+                    UpdateVotersS1Entry updateVotersS1Entry = InternalEntriesSerializeSupport.parse(rawEntry, payload.getOffset(), payload.getLength());
 
                     votersConfigStateMachine.toJointConsensus(updateVotersS1Entry.getConfigOld(), updateVotersS1Entry.getConfigNew(),
                             () -> null);
                 } else if (entryType == TYPE_UPDATE_VOTERS_S2) {
-                    UpdateVotersS2Entry updateVotersS2Entry = InternalEntriesSerializeSupport.parse(rawEntry, headerLength, rawEntry.length - headerLength);
+                    UpdateVotersS2Entry updateVotersS2Entry = InternalEntriesSerializeSupport.parse(rawEntry, payload.getOffset(), payload.getLength());
                     logger.info("Follower received voter config change. old {}, new {}",updateVotersS2Entry.getConfigOld(),updateVotersS2Entry.getConfigNew());
                     votersConfigStateMachine.toNewConfig(() ->null);
                 }
@@ -40,13 +40,14 @@ package io.journalkeeper.core.state;
 
 import io.journalkeeper.base.ReplicableIterator;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -106,44 +107,71 @@ public class FolderTrunkIterator implements ReplicableIterator {
     public byte[] nextTrunk() throws IOException {
         Path relFile = files.get(fileIndex);
         Path file = root.resolve(relFile);
-        long fileSize = Files.isDirectory(file) ? DIRECTORY_MAGIC_CODE.length : Files.size(file);
-        long remainingSize;
-
-        byte[] trunk;
-        ByteBuffer buffer;
-
+        boolean isDirectory = Files.isDirectory(file);
+        long fileSize = isDirectory ? DIRECTORY_MAGIC_CODE.length : Files.size(file);
         byte[] filenameBytes = relFile.toString().getBytes(StandardCharsets.UTF_8);
-        remainingSize =
-                fileSize +
-                        Integer.BYTES + filenameBytes.length + Long.BYTES - // Header size
-                        offsetOfCurrentFile;
 
-        trunk = new byte[(int) Math.min(remainingSize, maxTrunkSize)];
-        buffer = ByteBuffer.wrap(trunk);
+        byte[] trunk = new byte[trunkSize(filenameBytes, fileSize)];
+        ByteBuffer buffer = ByteBuffer.wrap(trunk);
         buffer.putInt(filenameBytes.length);
         buffer.put(filenameBytes);
         buffer.putLong(offsetOfCurrentFile);
 
         int sizeToRead = buffer.remaining();
-        if(Files.isDirectory(file)) {
+        if (isDirectory) {
             buffer.put(DIRECTORY_MAGIC_CODE);
         } else {
-            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r"); FileChannel fc = raf.getChannel()) {
-                fc.position(offsetOfCurrentFile);
+            try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+                long position = offsetOfCurrentFile;
                 while (buffer.hasRemaining()) {
-                    fc.read(buffer);
+                    int read = fc.read(buffer, position);
+                    if (read < 0) {
+                        throw new EOFException(String.format("Unexpected end of file: %s, position: %d.", file, position));
+                    }
+                    position += read;
                 }
             }
         }
 
-        offsetOfCurrentFile += sizeToRead;
+        moveForward(sizeToRead, fileSize, trunk.length);
+        return trunk;
+    }
+
+    /**
+     * 只计算Trunk的大小，不读取文件内容。
+     */
+    @Override
+    public void skipTo(long offset) throws IOException {
+        while (this.offset < offset && hasMoreTrunks()) {
+            Path relFile = files.get(fileIndex);
+            Path file = root.resolve(relFile);
+            long fileSize = Files.isDirectory(file) ? DIRECTORY_MAGIC_CODE.length : Files.size(file);
+            byte[] filenameBytes = relFile.toString().getBytes(StandardCharsets.UTF_8);
+            int trunkSize = trunkSize(filenameBytes, fileSize);
+            moveForward(trunkSize - headerSize(filenameBytes), fileSize, trunkSize);
+        }
+        if (this.offset != offset) {
+            throw new IllegalArgumentException(
+                    String.format("Offset %d is not the start of a trunk, current offset: %d!", offset, this.offset));
+        }
+    }
+
+    private int headerSize(byte[] filenameBytes) {
+        return Integer.BYTES + filenameBytes.length + Long.BYTES;
+    }
 
+    private int trunkSize(byte[] filenameBytes, long fileSize) {
+        long remainingSize = fileSize + headerSize(filenameBytes) - offsetOfCurrentFile;
+        return (int) Math.min(remainingSize, maxTrunkSize);
+    }
+
+    private void moveForward(int dataSize, long fileSize, int trunkSize) {
+        offsetOfCurrentFile += dataSize;
         if (offsetOfCurrentFile == fileSize) {
             fileIndex++;
             offsetOfCurrentFile = 0;
         }
-        offset += trunk.length;
-        return trunk;
+        offset += trunkSize;
     }
 
     @Override
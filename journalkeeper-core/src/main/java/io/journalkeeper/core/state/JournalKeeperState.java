@@ -44,6 +44,7 @@ import io.journalkeeper.core.entry.internal.InternalEntryType;
 import io.journalkeeper.core.entry.internal.ScalePartitionsEntry;
 import io.journalkeeper.core.entry.internal.SetPreferredLeaderEntry;
 import io.journalkeeper.core.journal.JournalSnapshot;
+import io.journalkeeper.exceptions.StateExecutionException;
 import io.journalkeeper.exceptions.StateRecoverException;
 import io.journalkeeper.persistence.MetadataPersistence;
 import io.journalkeeper.utils.files.FileUtils;
@@ -226,32 +227,95 @@ public class JournalKeeperState implements Flushable {
     }
 
     public StateResult applyEntry(JournalEntry entryHeader, EntryFuture entryFuture, RaftJournal journal) {
+        long stamp = stateLock.writeLock();
+        try {
+            return applyEntryUnsafe(entryHeader, entryFuture, journal);
+        }
+        finally {
+            stateLock.unlockWrite(stamp);
+        }
+    }
+
+    private StateResult applyEntryUnsafe(JournalEntry entryHeader, EntryFuture entryFuture, RaftJournal journal) {
         int partition = entryHeader.getPartition();
         int batchSize = entryHeader.getBatchSize();
 
         StateResult result = new StateResult(null);
+        if (partition < RESERVED_PARTITIONS_START) {
+            result = userState.execute(entryFuture, partition, lastApplied(), batchSize, journal);
+        } else if (partition == INTERNAL_PARTITION) {
+            applyInternalEntry(entryFuture.get());
+        } else {
+
+            for (ApplyReservedEntryInterceptor reservedEntryInterceptor : reservedEntryInterceptors) {
+                reservedEntryInterceptor.applyReservedEntry(entryHeader, entryFuture, lastApplied());
+            }
+        }
+        internalState.setLastIncludedTerm(entryHeader.getTerm());
+        internalState.next();
+        result.setLastApplied(lastApplied());
+        return result;
+    }
+
+    /**
+     * 批量应用一段连续的日志。
+     * 连续的用户分区日志合并为一次{@link State#executeBatch(List, int[], long, int[], RaftJournal)}调用，
+     * 内部分区和保留分区的日志仍然逐条应用。
+     * @param entryHeaders 日志头
+     * @param entryFutures 与entryHeaders一一对应的日志内容
+     * @param journal 当前的journal
+     * @return 与entryHeaders一一对应的执行结果
+     */
+    public List<StateResult> applyEntries(List<JournalEntry> entryHeaders, List<EntryFuture> entryFutures, RaftJournal journal) {
+        List<StateResult> results = new ArrayList<>(entryHeaders.size());
         long stamp = stateLock.writeLock();
         try {
-            if (partition < RESERVED_PARTITIONS_START) {
-                result = userState.execute(entryFuture, partition, lastApplied(), batchSize, journal);
-            } else if (partition == INTERNAL_PARTITION) {
-                applyInternalEntry(entryFuture.get());
-            } else {
-
-                for (ApplyReservedEntryInterceptor reservedEntryInterceptor : reservedEntryInterceptors) {
-                    reservedEntryInterceptor.applyReservedEntry(entryHeader, entryFuture, lastApplied());
+            int i = 0;
+            while (i < entryHeaders.size()) {
+                if (entryHeaders.get(i).getPartition() < RESERVED_PARTITIONS_START) {
+                    int start = i;
+                    while (i < entryHeaders.size() && entryHeaders.get(i).getPartition() < RESERVED_PARTITIONS_START) {
+                        i++;
+                    }
+                    applyUserEntriesUnsafe(entryHeaders.subList(start, i), entryFutures.subList(start, i), journal, results);
+                } else {
+                    results.add(applyEntryUnsafe(entryHeaders.get(i), entryFutures.get(i), journal));
+                    i++;
                 }
             }
-            internalState.setLastIncludedTerm(entryHeader.getTerm());
-            internalState.next();
-            result.setLastApplied(lastApplied());
-        }
-        finally {
+        } finally {
             stateLock.unlockWrite(stamp);
         }
-        return result;
+        return results;
     }
 
+    private void applyUserEntriesUnsafe(List<JournalEntry> entryHeaders, List<EntryFuture> entryFutures, RaftJournal journal, List<StateResult> results) {
+        if (entryHeaders.size() == 1) {
+            results.add(applyEntryUnsafe(entryHeaders.get(0), entryFutures.get(0), journal));
+            return;
+        }
+        int [] partitions = new int[entryHeaders.size()];
+        int [] batchSizes = new int[entryHeaders.size()];
+        for (int i = 0; i < entryHeaders.size(); i++) {
+            partitions[i] = entryHeaders.get(i).getPartition();
+            batchSizes[i] = entryHeaders.get(i).getBatchSize();
+        }
+        List<StateResult> batchResults = userState.executeBatch(entryFutures, partitions, lastApplied(), batchSizes, journal);
+        if (null == batchResults || batchResults.size() != entryHeaders.size()) {
+            throw new StateExecutionException(String.format("Invalid batch execute result, expected %d results, actual: %s.",
+                    entryHeaders.size(), null == batchResults ? null : batchResults.size()));
+        }
+        for (int i = 0; i < entryHeaders.size(); i++) {
+            StateResult result = batchResults.get(i);
+            if (null == result) {
+                result = new StateResult(null);
+            }
+            internalState.setLastIncludedTerm(entryHeaders.get(i).getTerm());
+            internalState.next();
+            result.setLastApplied(lastApplied());
+            results.add(result);
+        }
+    }
 
     private void applyInternalEntry(byte[] internalEntry) {
         InternalEntryType type = InternalEntriesSerializeSupport.parseEntryType(internalEntry);
@@ -329,6 +393,32 @@ public class JournalKeeperState implements Flushable {
         }
     }
 
+    /**
+     * 创建状态的检查点用于生成快照，调用时状态机不会执行新的命令。
+     * 用户状态优先使用{@link State#checkpoint(Path)}创建检查点，不支持时复制状态文件，
+     * 与基准快照相比没有变化的文件通过硬链接共享。
+     *
+     * @param destPath 检查点目录
+     * @param basePath 基准快照的目录，为null时复制所有文件
+     * @throws IOException 发生IO异常时抛出
+     */
+    public void checkpoint(Path destPath, Path basePath) throws IOException {
+        flush();
+        try {
+            stateFilesLock.readLock().lock();
+            Path userStatePath = path.resolve(USER_STATE_PATH);
+            Path destUserStatePath = destPath.resolve(USER_STATE_PATH);
+            // 内部状态文件很小，并且在快照创建之后还会修改，直接复制
+            FileUtils.dump(path, destPath, null, file -> !file.startsWith(userStatePath));
+            if (null == userState || !userState.checkpoint(destUserStatePath)) {
+                FileUtils.dump(userStatePath, destUserStatePath,
+                        null == basePath ? null : basePath.resolve(USER_STATE_PATH), file -> true);
+            }
+        } finally {
+            stateFilesLock.readLock().unlock();
+        }
+    }
+
     public List<URI> voters() {
         return internalState.getConfigState().voters();
     }
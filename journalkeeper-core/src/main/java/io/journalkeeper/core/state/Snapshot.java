@@ -76,6 +76,8 @@ private static final Logger logger = LoggerFactory.getLogger(Snapshot.class);
     private void maybeRecoverUserState() throws IOException {
 
         if(isUserStateAvailable.compareAndSet(false, true)) {
+            // 快照的文件可能与其它快照共享，打开用户状态之前先复制一份
+            FileUtils.copyOnWrite(path.resolve(USER_STATE_PATH));
             recoverUserState();
         }
         isUserStateAvailable.set(true);
@@ -0,0 +1,66 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.journal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 索引缓存测试
+ */
+public class IndexCacheTest {
+
+    @Test
+    public void putAndGetTest() {
+        IndexCache cache = new IndexCache(100);
+        for (long i = 10; i < 1000; i++) {
+            cache.put(i, i * 3);
+        }
+        // 容量向上取整为128，只保留最后128条
+        Assert.assertEquals(1000 - 128, cache.start());
+        Assert.assertEquals(1000, cache.end());
+        Assert.assertEquals(IndexCache.MISS, cache.get(1000 - 129));
+        Assert.assertEquals(IndexCache.MISS, cache.get(1000));
+        for (long i = cache.start(); i < cache.end(); i++) {
+            Assert.assertEquals(i * 3, cache.get(i));
+        }
+    }
+
+    @Test
+    public void truncateAndCompactTest() {
+        IndexCache cache = new IndexCache(128);
+        for (long i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        cache.truncate(80);
+        Assert.assertEquals(IndexCache.MISS, cache.get(80));
+        Assert.assertEquals(79, cache.get(79));
+
+        // 截断后重新写入的值覆盖旧值
+        cache.put(80, -1L);
+        Assert.assertEquals(-1L, cache.get(80));
+
+        cache.compact(20);
+        Assert.assertEquals(IndexCache.MISS, cache.get(19));
+        Assert.assertEquals(20, cache.get(20));
+
+        // 不连续的写入会丢弃已有的缓存
+        cache.put(200, 200);
+        Assert.assertEquals(IndexCache.MISS, cache.get(79));
+        Assert.assertEquals(200, cache.get(200));
+
+        cache.reset(0L);
+        Assert.assertEquals(IndexCache.MISS, cache.get(200));
+    }
+}
@@ -15,11 +15,13 @@ package io.journalkeeper.core.journal;
 
 import io.journalkeeper.core.api.JournalEntry;
 import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.entry.DefaultJournalEntry;
 import io.journalkeeper.core.entry.DefaultJournalEntryParser;
 import io.journalkeeper.metric.JMetric;
 import io.journalkeeper.metric.JMetricFactory;
 import io.journalkeeper.metric.JMetricSupport;
 import io.journalkeeper.persistence.BufferPool;
+import io.journalkeeper.persistence.MetadataPersistence;
 import io.journalkeeper.persistence.PersistenceFactory;
 import io.journalkeeper.utils.format.Format;
 import io.journalkeeper.utils.spi.ServiceSupport;
@@ -38,6 +40,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -441,6 +444,44 @@ public class JournalTest {
         }
     }
 
+    /**
+     * 索引缓存很小时，未命中缓存的索引从存储中读取
+     */
+    @Test
+    public void smallIndexCacheTest() throws IOException, InterruptedException {
+        journal.close();
+        JournalConfig journalConfig = new JournalConfig();
+        journalConfig.setIndexCacheSize(2);
+        journalConfig.setPartitionIndexCacheSize(2);
+        journal = createJournal(0L, new Properties(), journalConfig);
+
+        int size = 1024;
+        List<byte[]> entries = ByteUtils.createRandomSizeByteList(1024, size);
+        List<Integer> partitionList = new ArrayList<>(partitions);
+        Map<Integer, List<byte[]>> partitionEntries =
+                partitions.stream().collect(Collectors.toMap(p -> p, p -> new ArrayList<>()));
+        for (int i = 0; i < size; i++) {
+            int partition = partitionList.get(i % partitionList.size());
+            JournalEntry entry = journalEntryParser.createJournalEntry(entries.get(i));
+            entry.setPartition(partition);
+            journal.append(entry);
+            partitionEntries.get(partition).add(entries.get(i));
+        }
+        journal.commit(journal.maxIndex());
+
+        for (int i = 0; i < size; i++) {
+            Assert.assertArrayEquals(entries.get(i), journal.read(i).getPayload().getBytes());
+        }
+        for (Map.Entry<Integer, List<byte[]>> entry : partitionEntries.entrySet()) {
+            List<byte[]> pEntries = entry.getValue();
+            Assert.assertEquals(pEntries.size(), journal.maxIndex(entry.getKey()));
+            for (int i = 0; i < pEntries.size(); i++) {
+                Assert.assertArrayEquals(pEntries.get(i),
+                        journal.readByPartition(entry.getKey(), i).getPayload().getBytes());
+            }
+        }
+    }
+
     @Test
     public void batchEntriesTest() throws IOException {
         int maxLength = 1024;
@@ -472,6 +513,52 @@ public class JournalTest {
         }
     }
 
+    @Test
+    public void readRawByPartitionTest() throws IOException {
+        // 分区4的前11条日志相邻，之后和分区5交替写入，最后一条是批量日志
+        List<JournalEntry> storageEntries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            JournalEntry entry = journalEntryParser.createJournalEntry(ByteUtils.createFixedSizeBytes(128));
+            entry.setPartition(i < 10 || i % 2 == 0 ? 4 : 5);
+            storageEntries.add(entry);
+        }
+        JournalEntry batchEntry = journalEntryParser.createJournalEntry(ByteUtils.createFixedSizeBytes(128));
+        batchEntry.setPartition(4);
+        batchEntry.setBatchSize(3);
+        storageEntries.add(batchEntry);
+        for (JournalEntry storageEntry : storageEntries) {
+            journal.append(storageEntry);
+        }
+        journal.commit(journal.maxIndex());
+
+        List<JournalEntry> partitionEntries = storageEntries.stream()
+                .filter(entry -> entry.getPartition() == 4).collect(Collectors.toList());
+        int entryLength = batchEntry.getLength();
+        List<byte[]> raw = journal.batchReadRawByPartition(4, 0L, 1024, Long.MAX_VALUE);
+        // 相邻的11条一次读出，之后每条单独读出
+        Assert.assertEquals(1 + partitionEntries.size() - 11, raw.size());
+        Assert.assertEquals(11 * entryLength, raw.get(0).length);
+        Assert.assertArrayEquals(
+                ByteUtils.concatBytes(partitionEntries.stream().map(JournalEntry::getSerializedBytes).collect(Collectors.toList())),
+                ByteUtils.concatBytes(raw));
+
+        // 按照字节数限制，至少读取一条
+        Assert.assertArrayEquals(partitionEntries.get(0).getSerializedBytes(),
+                ByteUtils.concatBytes(journal.batchReadRawByPartition(4, 0L, 1024, 1L)));
+        Assert.assertEquals(3 * entryLength,
+                ByteUtils.concatBytes(journal.batchReadRawByPartition(4, 0L, 1024, 3 * entryLength + 1)).length);
+
+        // 从批量日志中间开始读取，返回整条批量日志，并且可以查询到读取位置在批量日志中的偏移量
+        long index = journal.maxIndex(4) - 2;
+        Assert.assertArrayEquals(batchEntry.getSerializedBytes(),
+                ByteUtils.concatBytes(journal.batchReadRawByPartition(4, index, 1024, Long.MAX_VALUE)));
+        Assert.assertEquals(1, journal.batchOffsetByPartition(4, index));
+        Assert.assertEquals(2, journal.batchOffsetByPartition(4, index + 1));
+        Assert.assertEquals(0, journal.batchOffsetByPartition(4, index - 1));
+        Assert.assertEquals(journal.readByPartition(4, index).getOffset(), journal.batchOffsetByPartition(4, index));
+        Assert.assertTrue(journal.batchReadRawByPartition(4, journal.maxIndex(4), 1024, Long.MAX_VALUE).isEmpty());
+    }
+
     @Test
     public void writeReadRawTest() throws IOException {
         int maxLength = 1024;
@@ -499,6 +586,66 @@ public class JournalTest {
 
     }
 
+    @Test
+    public void readRawAcrossFilesTest() throws IOException, InterruptedException {
+        journal.close();
+        TestPathUtils.destroyBaseDir();
+        Properties properties = new Properties();
+        properties.setProperty("persistence.journal.file_data_size", String.valueOf(16 * 1024));
+        properties.setProperty("persistence.index.file_data_size", String.valueOf(256));
+        journal = createJournal(properties);
+
+        int maxLength = 1024;
+        int size = 1024;
+        int batchSize = 37;
+        List<byte[]> entries = ByteUtils.createRandomSizeByteList(maxLength, size);
+        List<byte[]> storageEntries =
+                entries.stream()
+                        .map(entry -> journalEntryParser.createJournalEntry(entry))
+                        .peek(entry -> entry.setTerm(8))
+                        .peek(entry -> entry.setPartition(0))
+                        .map(this::serialize)
+                        .collect(Collectors.toList());
+        for (byte[] storageEntry : storageEntries) {
+            journal.appendBatchRaw(Collections.singletonList(storageEntry));
+        }
+
+        for (int index = 0; index < size; index += batchSize) {
+            List<byte[]> readStorageEntries = journal.readRaw(index, batchSize);
+            Assert.assertEquals(Math.min(batchSize, size - index), readStorageEntries.size());
+            for (int i = 0; i < readStorageEntries.size(); i++) {
+                Assert.assertArrayEquals(storageEntries.get(index + i), readStorageEntries.get(i));
+                Assert.assertArrayEquals(entries.get(index + i), journal.read(index + i).getPayload().getBytes());
+            }
+        }
+    }
+
+    @Test
+    public void readRawMaxBytesTest() {
+        int size = 100;
+        List<byte[]> storageEntries =
+                ByteUtils.createFixedSizeByteList(100, size).stream()
+                        .map(entry -> journalEntryParser.createJournalEntry(entry))
+                        .peek(entry -> entry.setTerm(8))
+                        .peek(entry -> entry.setPartition(0))
+                        .map(this::serialize)
+                        .collect(Collectors.toList());
+        journal.appendBatchRaw(storageEntries);
+        int entryLength = storageEntries.get(0).length;
+
+        // 字节数限制
+        List<byte[]> readStorageEntries = journal.readRaw(0, size, 10L * entryLength + entryLength / 2);
+        Assert.assertEquals(10, readStorageEntries.size());
+        for (int i = 0; i < readStorageEntries.size(); i++) {
+            Assert.assertArrayEquals(storageEntries.get(i), readStorageEntries.get(i));
+        }
+        // 条数限制
+        Assert.assertEquals(5, journal.readRaw(20, 5, Long.MAX_VALUE).size());
+        // 至少读取一条
+        Assert.assertEquals(1, journal.readRaw(size - 1, size, 1L).size());
+        Assert.assertEquals(1, journal.readRaw(0, size, 1L).size());
+    }
+
     private byte[] serialize(JournalEntry storageEntry) {
         return storageEntry.getSerializedBytes();
     }
@@ -677,6 +824,203 @@ public class JournalTest {
 
     }
 
+    @Test
+    public void checkpointRecoverTest() throws IOException, InterruptedException {
+        int entrySize = 128;
+        int size = 15;
+        int checkpointSize = 10;
+        int entriesPerFile = 5;
+        int term = 8;
+
+        journal.close();
+        Properties properties = new Properties();
+        // 最后一个日志文件留出空间，用于写入半条数据
+        properties.setProperty("persistence.journal.file_data_size", String.valueOf((entrySize + journalEntryParser.headerLength()) * (entriesPerFile + 1)));
+        properties.setProperty("persistence.index.file_data_size", String.valueOf(Long.BYTES * entriesPerFile));
+        journal = createJournal(properties);
+
+        List<Integer> partitionList = new ArrayList<>(partitions);
+        List<byte[]> entries = ByteUtils.createFixedSizeByteList(entrySize, size);
+        List<byte[]> storageEntries = new ArrayList<>(size);
+        Map<Integer, Integer> partitionSizes = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            JournalEntry entry = journalEntryParser.createJournalEntry(entries.get(i));
+            int partition = partitionList.get(i % partitionList.size());
+            entry.setTerm(term);
+            entry.setPartition(partition);
+            storageEntries.add(entry.getSerializedBytes());
+            partitionSizes.merge(partition, 1, Integer::sum);
+        }
+
+        // 写入前10条，关闭时保存检查点
+        journal.appendBatchRaw(storageEntries.subList(0, checkpointSize));
+        journal.commit(journal.maxIndex());
+        journal.flush();
+        journal.close();
+
+        MetadataPersistence metadataPersistence =
+                ServiceSupport.load(PersistenceFactory.class).createMetadataPersistenceInstance();
+        JournalCheckpoint checkpoint = metadataPersistence.load(path.resolve("checkpoint"), JournalCheckpoint.class);
+        Assert.assertEquals(checkpointSize, checkpoint.getIndex());
+        Assert.assertEquals(checkpointSize, checkpoint.getPartitionIndex());
+
+        // 再写入5条，然后恢复之前的检查点，模拟检查点之后异常退出
+        journal = createJournal(checkpointSize, properties);
+        journal.appendBatchRaw(storageEntries.subList(checkpointSize, size));
+        journal.commit(journal.maxIndex());
+        journal.flush();
+        journal.close();
+        metadataPersistence.save(path.resolve("checkpoint"), checkpoint);
+
+        // 日志末尾写入半条数据，删掉最后一条全局索引和最后一条分区索引
+        File lastFile = findLastFile(path);
+        try (RandomAccessFile raf = new RandomAccessFile(lastFile, "rw")) {
+            raf.seek(raf.length());
+            raf.write(Arrays.copyOf(storageEntries.get(0), journalEntryParser.headerLength() + 1));
+        }
+        truncateLastIndex(path.resolve("index").resolve("all"));
+        int lastPartition = partitionList.get((size - 1) % partitionList.size());
+        truncateLastIndex(path.resolve("index").resolve(String.valueOf(lastPartition)));
+
+        journal = createJournal(size, properties);
+        Assert.assertEquals(size, journal.maxIndex());
+        Assert.assertEquals(size, journal.commitIndex());
+        for (int i = 0; i < size; i++) {
+            Assert.assertArrayEquals(entries.get(i), journal.read(i).getPayload().getBytes());
+        }
+        for (Map.Entry<Integer, Integer> entry : partitionSizes.entrySet()) {
+            Assert.assertEquals(entry.getValue().longValue(), journal.maxIndex(entry.getKey()));
+        }
+        for (int i = 0; i < partitionSizes.get(lastPartition); i++) {
+            Assert.assertArrayEquals(entries.get(i * partitionList.size() + partitionList.indexOf(lastPartition)),
+                    journal.readByPartition(lastPartition, i).getPayload().getBytes());
+        }
+    }
+
+    private void truncateLastIndex(Path indexPath) throws IOException {
+        File lastFile = findLastFile(indexPath);
+        try (RandomAccessFile raf = new RandomAccessFile(lastFile, "rw");
+             FileChannel fileChannel = raf.getChannel()) {
+            fileChannel.truncate(fileChannel.size() - Long.BYTES);
+        }
+    }
+
+    @Test
+    public void checksumTest() throws IOException, InterruptedException {
+        int entrySize = 128;
+        int size = 15;
+        int entriesPerFile = 5;
+        int term = 8;
+        long commitIndex = 10;
+
+        journal.close();
+        Properties properties = new Properties();
+        properties.setProperty("persistence.journal.file_data_size", String.valueOf((entrySize + journalEntryParser.headerLength()) * entriesPerFile));
+        properties.setProperty("persistence.index.file_data_size", String.valueOf(Long.BYTES * entriesPerFile));
+        journal = createJournal(properties);
+
+        List<byte[]> entries = ByteUtils.createFixedSizeByteList(entrySize, size);
+        List<byte[]> storageEntries =
+                entries.stream()
+                        .map(entry -> journalEntryParser.createJournalEntry(entry))
+                        .peek(entry -> entry.setTerm(term))
+                        .peek(entry -> entry.setPartition(0))
+                        .map(this::serialize)
+                        .collect(Collectors.toList());
+
+        // 复制损坏的日志时，不写入任何日志
+        byte[] corrupted = storageEntries.get(size - 1).clone();
+        corrupted[corrupted.length - 1] ^= 0xFF;
+        List<byte[]> appendEntries = new ArrayList<>(storageEntries.subList(0, size - 1));
+        appendEntries.add(corrupted);
+        try {
+            journal.compareOrAppendRaw(appendEntries, 0);
+            Assert.fail("Corrupted entry should not be appended!");
+        } catch (ParseJournalException ignored) {
+        }
+        Assert.assertEquals(0, journal.maxIndex());
+
+        journal.appendBatchRaw(storageEntries);
+        Assert.assertEquals(size, journal.maxIndex());
+        journal.flush();
+        journal.close();
+
+        // 修改最后一条Entry的最后一个字节，恢复时应截掉这条Entry
+        File lastFile = findLastFile(path);
+        try (RandomAccessFile raf = new RandomAccessFile(lastFile, "rw")) {
+            raf.seek(raf.length() - 1);
+            int b = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(b ^ 0xFF);
+        }
+
+        journal = createJournal(commitIndex, properties);
+        Assert.assertEquals(size - 1, journal.maxIndex());
+        for (long index = journal.minIndex(); index < journal.maxIndex(); index++) {
+            Assert.assertArrayEquals(entries.get((int) index), journal.read(index).getPayload().getBytes());
+        }
+    }
+
+    /**
+     * 第1版日志格式（没有校验和）写入的日志升级后仍然可以恢复和读取
+     */
+    @Test
+    public void legacyFormatTest() throws IOException, InterruptedException {
+        int size = 12;
+        int partition = 4;
+        long commitIndex = 5;
+        List<byte[]> payloads = new ArrayList<>(size);
+        List<byte[]> storageEntries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // 最后几条日志的Payload比校验和还短
+            byte[] payload = ByteUtils.createFixedSizeBytes(i < size - 3 ? 64 : 3);
+            payloads.add(payload);
+            storageEntries.add(createV1Entry(payload, partition, 7));
+        }
+
+        journal.appendBatchRaw(storageEntries);
+        Assert.assertEquals(size, journal.maxIndex());
+        journal.commit(size);
+        journal.flush();
+        journal.close();
+
+        journal = createJournal(commitIndex);
+        Assert.assertEquals(size, journal.maxIndex());
+        // 提交时重新读取旧格式日志的Header构建分区索引
+        journal.commit(size);
+        for (int i = 0; i < size; i++) {
+            JournalEntry entry = journal.read(i);
+            Assert.assertEquals(7, entry.getTerm());
+            Assert.assertTrue(journalEntryParser.verifyChecksum(entry));
+            Assert.assertArrayEquals(payloads.get(i), entry.getPayload().getBytes());
+            Assert.assertArrayEquals(payloads.get(i), journal.readByPartition(partition, i).getPayload().getBytes());
+        }
+
+        // 新格式的日志可以继续追加在旧格式的日志之后
+        byte[] payload = ByteUtils.createFixedSizeBytes(64);
+        JournalEntry entry = journalEntryParser.createJournalEntry(payload);
+        entry.setTerm(8);
+        entry.setPartition(partition);
+        journal.append(entry);
+        Assert.assertArrayEquals(payload, journal.read(size).getPayload().getBytes());
+    }
+
+    /**
+     * 按照第1版日志格式构造日志：Header中没有校验和
+     */
+    private byte[] createV1Entry(byte[] payload, int partition, int term) {
+        int headerLength = journalEntryParser.minHeaderLength();
+        ByteBuffer buffer = ByteBuffer.allocate(headerLength + payload.length);
+        buffer.putInt(headerLength + payload.length);
+        buffer.putShort((short) partition);
+        buffer.putInt(term);
+        buffer.putShort(DefaultJournalEntry.MAGIC_CODE_V1);
+        buffer.putShort((short) 1);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.put(payload);
+        return buffer.array();
+    }
+
     @Test
     public void compactTest() throws Exception {
         int entrySize = 128;
@@ -750,11 +1094,15 @@ public class JournalTest {
     }
 
     private Journal createJournal(long commitIndex, Properties properties) throws IOException, InterruptedException {
+        return createJournal(commitIndex, properties, new JournalConfig());
+    }
+
+    private Journal createJournal(long commitIndex, Properties properties, JournalConfig journalConfig) throws IOException, InterruptedException {
         PersistenceFactory persistenceFactory = ServiceSupport.load(PersistenceFactory.class);
         BufferPool bufferPool = ServiceSupport.load(BufferPool.class);
         Journal journal = new Journal(
                 persistenceFactory,
-                bufferPool, journalEntryParser);
+                bufferPool, journalEntryParser, journalConfig);
         journal.recover(path, commitIndex, new JournalSnapshotImpl(partitions), properties);
         return journal;
     }
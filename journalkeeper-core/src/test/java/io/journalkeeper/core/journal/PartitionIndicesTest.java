@@ -0,0 +1,63 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.journal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static io.journalkeeper.core.journal.Journal.INDEX_STORAGE_SIZE;
+
+/**
+ * 分区索引分组测试
+ */
+public class PartitionIndicesTest {
+
+    @Test
+    public void groupByPartitionTest() {
+        PartitionIndices partitionIndices = new PartitionIndices();
+        Assert.assertTrue(partitionIndices.isEmpty());
+        long offset = 0L;
+        for (int i = 0; i < 100; i++) {
+            partitionIndices.add(i % 3, offset, 1);
+            offset += 10;
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList(0, 1, 2)), partitionIndices.partitions());
+
+        ByteBuffer buffer = ByteBuffer.wrap(partitionIndices.toBytes(1));
+        Assert.assertEquals(33 * INDEX_STORAGE_SIZE, buffer.remaining());
+        for (long expected = 10L; buffer.hasRemaining(); expected += 30L) {
+            Assert.assertEquals(expected, buffer.getLong());
+        }
+        Assert.assertEquals(0, partitionIndices.toBytes(4).length);
+    }
+
+    @Test
+    public void batchEntriesTest() {
+        PartitionIndices partitionIndices = new PartitionIndices();
+        partitionIndices.add(0, 666L, 3);
+        partitionIndices.add(0, 888L, 1);
+
+        ByteBuffer buffer = ByteBuffer.wrap(partitionIndices.toBytes(0));
+        // 批量消息第一条为偏移量，之后依次为-1, -2
+        Assert.assertEquals(666L, buffer.getLong());
+        Assert.assertEquals(-1L, buffer.getLong());
+        Assert.assertEquals(-2L, buffer.getLong());
+        Assert.assertEquals(888L, buffer.getLong());
+        Assert.assertFalse(buffer.hasRemaining());
+    }
+}
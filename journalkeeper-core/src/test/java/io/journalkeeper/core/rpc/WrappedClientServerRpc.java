@@ -1,5 +1,6 @@
 package io.journalkeeper.core.rpc;
 
+import io.journalkeeper.rpc.client.AddPullWatchRequest;
 import io.journalkeeper.rpc.client.AddPullWatchResponse;
 import io.journalkeeper.rpc.client.CheckLeadershipResponse;
 import io.journalkeeper.rpc.client.ClientServerRpc;
@@ -81,8 +82,8 @@ public class WrappedClientServerRpc implements ClientServerRpc {
     }
 
     @Override
-    public CompletableFuture<AddPullWatchResponse> addPullWatch() {
-        return clientServerRpc.addPullWatch();
+    public CompletableFuture<AddPullWatchResponse> addPullWatch(AddPullWatchRequest request) {
+        return clientServerRpc.addPullWatch(request);
     }
 
     @Override
@@ -0,0 +1,88 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步刷盘自适应合并窗口测试
+ */
+public class JournalSyncWindowTest {
+    private static final long TARGET_LATENCY_MS = 10L;
+    private static final long TARGET_BYTES = 1024L * 1024;
+
+    @Test
+    public void shouldSyncTest() {
+        JournalSyncWindow window = new JournalSyncWindow(TARGET_LATENCY_MS, TARGET_BYTES);
+        Assert.assertEquals(millis(TARGET_LATENCY_MS), window.windowNanos());
+        Assert.assertFalse(window.shouldSync(1024L, millis(1L)));
+        // 数据量达到目标
+        Assert.assertTrue(window.shouldSync(TARGET_BYTES, 0L));
+        // 等待时间达到窗口
+        Assert.assertTrue(window.shouldSync(1024L, millis(TARGET_LATENCY_MS)));
+    }
+
+    @Test
+    public void shrinkTest() {
+        JournalSyncWindow window = new JournalSyncWindow(TARGET_LATENCY_MS, TARGET_BYTES);
+        // 等待时间超过目标，窗口减半
+        window.onSynced(1024L, millis(15L), millis(2L));
+        Assert.assertEquals(millis(5L), window.windowNanos());
+        Assert.assertTrue(window.shouldSync(1024L, millis(5L)));
+
+        // fdatasync很慢时，给fdatasync留出时间
+        window = new JournalSyncWindow(TARGET_LATENCY_MS, TARGET_BYTES);
+        window.onSynced(1024L, millis(11L), millis(9L));
+        Assert.assertEquals(millis(1L), window.windowNanos());
+
+        // fdatasync本身超过目标时，每次刷盘都同步
+        window.onSynced(1024L, millis(20L), millis(20L));
+        Assert.assertEquals(0L, window.windowNanos());
+        Assert.assertTrue(window.shouldSync(1L, 0L));
+    }
+
+    @Test
+    public void growTest() {
+        JournalSyncWindow window = new JournalSyncWindow(TARGET_LATENCY_MS, TARGET_BYTES);
+        window.onSynced(1024L, millis(15L), millis(1L));
+        Assert.assertEquals(millis(5L), window.windowNanos());
+
+        // 等待时间没有超过目标，数据量小于目标，放大窗口合并更多的写入
+        window.onSynced(1024L, millis(6L), millis(1L));
+        Assert.assertEquals(millis(5L) + millis(TARGET_LATENCY_MS) / 8, window.windowNanos());
+
+        // 不超过目标减去fdatasync的耗时
+        for (int i = 0; i < 10; i++) {
+            window.onSynced(1024L, millis(6L), millis(1L));
+        }
+        Assert.assertEquals(millis(9L), window.windowNanos());
+    }
+
+    @Test
+    public void bytesTargetReachedTest() {
+        JournalSyncWindow window = new JournalSyncWindow(TARGET_LATENCY_MS, TARGET_BYTES);
+        window.onSynced(1024L, millis(15L), millis(1L));
+        long before = window.windowNanos();
+        // 数据量已经达到目标，不放大窗口
+        window.onSynced(TARGET_BYTES, millis(3L), millis(1L));
+        Assert.assertEquals(before, window.windowNanos());
+    }
+
+    private static long millis(long ms) {
+        return TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+}
@@ -15,6 +15,7 @@ package io.journalkeeper.core.server;
 
 import io.journalkeeper.core.BootStrap;
 import io.journalkeeper.core.api.AdminClient;
+import io.journalkeeper.core.api.QueryConsistency;
 import io.journalkeeper.core.api.RaftServer;
 import io.journalkeeper.core.api.ServerStatus;
 import io.journalkeeper.core.api.VoterState;
@@ -41,6 +42,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
@@ -228,6 +230,188 @@ public class KvTest {
     }
 
 
+    /**
+     * 开启流水线复制，验证所有节点的数据一致
+     */
+    @Test
+    public void pipelinedReplicationTest() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        final int nodes = 3;
+        final int keys = 1000;
+        Path path = TestPathUtils.prepareBaseDir("pipelinedReplication" + nodes);
+        List<URI> serverURIs = new ArrayList<>(nodes);
+        List<Properties> propertiesList = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            URI uri = URI.create("local://test" + i);
+            serverURIs.add(uri);
+            Path workingDir = path.resolve("server" + i);
+            Properties properties = new Properties();
+            properties.setProperty("working_dir", workingDir.toString());
+            properties.setProperty("persistence.journal.file_data_size", String.valueOf(128 * 1024));
+            properties.setProperty("persistence.index.file_data_size", String.valueOf(16 * 1024));
+            properties.setProperty("disable_logo", "true");
+            properties.setProperty("replication_batch_size", "8");
+            properties.setProperty("replication_window_size", "4");
+            propertiesList.add(properties);
+        }
+        List<WrappedBootStrap<String, String, String, String>> kvServers = createServers(serverURIs, propertiesList, RaftServer.Roll.VOTER, true);
+        try {
+            WrappedRaftClient<String, String, String, String> kvClient = kvServers.get(0).getClient();
+            List<CompletableFuture<String>> futures = new ArrayList<>(keys);
+            for (int i = 0; i < keys; i++) {
+                futures.add(kvClient.update("SET key" + i + " value" + i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+            for (int i = 0; i < keys; i++) {
+                Assert.assertEquals("value" + i, kvServers.get(i % nodes).getClient().query("GET key" + i).get());
+            }
+        } finally {
+            stopServers(kvServers);
+            TestPathUtils.destroyBaseDir(path.toFile());
+        }
+    }
+
+    /**
+     * 批量应用日志，验证每条命令的执行结果都回调给了对应的请求
+     */
+    @Test
+    public void batchApplyTest() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        final int nodes = 3;
+        final int commands = 500;
+        Path path = TestPathUtils.prepareBaseDir("batchApply" + nodes);
+        List<URI> serverURIs = new ArrayList<>(nodes);
+        List<Properties> propertiesList = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            URI uri = URI.create("local://test" + i);
+            serverURIs.add(uri);
+            Path workingDir = path.resolve("server" + i);
+            Properties properties = new Properties();
+            properties.setProperty("working_dir", workingDir.toString());
+            properties.setProperty("persistence.journal.file_data_size", String.valueOf(128 * 1024));
+            properties.setProperty("persistence.index.file_data_size", String.valueOf(16 * 1024));
+            properties.setProperty("disable_logo", "true");
+            properties.setProperty("apply_batch_size", "16");
+            propertiesList.add(properties);
+        }
+        List<WrappedBootStrap<String, String, String, String>> kvServers = createServers(serverURIs, propertiesList, RaftServer.Roll.VOTER, true);
+        try {
+            WrappedRaftClient<String, String, String, String> kvClient = kvServers.get(0).getClient();
+            List<CompletableFuture<String>> futures = new ArrayList<>(commands);
+            for (int i = 0; i < commands; i++) {
+                futures.add(kvClient.update(i % 10 == 0 ? "BAD" + i : "SET key" + i + " value" + i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+            for (int i = 0; i < commands; i++) {
+                if (i % 10 == 0) {
+                    Assert.assertEquals("Unknown command: BAD" + i + "!", futures.get(i).get());
+                } else {
+                    Assert.assertNull(futures.get(i).get());
+                    Assert.assertEquals("value" + i, kvServers.get(i % nodes).getClient().query("GET key" + i).get());
+                }
+            }
+        } finally {
+            stopServers(kvServers);
+            TestPathUtils.destroyBaseDir(path.toFile());
+        }
+    }
+
+    /**
+     * READ_INDEX和LEASE读一致性：每个客户端写入之后，通过其它节点的客户端并发读取，必须读到刚刚写入的数据
+     */
+    @Test
+    public void readIndexAndLeaseQueryTest() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        final int nodes = 3;
+        final int keys = 200;
+        Path path = TestPathUtils.prepareBaseDir("readIndexAndLeaseQuery" + nodes);
+        List<URI> serverURIs = new ArrayList<>(nodes);
+        List<Properties> propertiesList = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            URI uri = URI.create("local://test" + i);
+            serverURIs.add(uri);
+            Path workingDir = path.resolve("server" + i);
+            Properties properties = new Properties();
+            properties.setProperty("working_dir", workingDir.toString());
+            properties.setProperty("persistence.journal.file_data_size", String.valueOf(128 * 1024));
+            properties.setProperty("persistence.index.file_data_size", String.valueOf(16 * 1024));
+            properties.setProperty("disable_logo", "true");
+            propertiesList.add(properties);
+        }
+        List<WrappedBootStrap<String, String, String, String>> kvServers = createServers(serverURIs, propertiesList, RaftServer.Roll.VOTER, true);
+        try {
+            for (QueryConsistency consistency : new QueryConsistency[]{QueryConsistency.READ_INDEX, QueryConsistency.LEASE}) {
+                for (int i = 0; i < keys; i++) {
+                    String key = consistency + "-key" + i;
+                    kvServers.get(i % nodes).getClient().update("SET " + key + " value" + i).get();
+                    Assert.assertEquals("value" + i,
+                            kvServers.get((i + 1) % nodes).getClient().query("GET " + key, consistency).get());
+                }
+
+                // 并发的读请求共享心跳
+                List<CompletableFuture<String>> futures = new ArrayList<>(keys);
+                for (int i = 0; i < keys; i++) {
+                    futures.add(kvServers.get(i % nodes).getClient().query("GET " + consistency + "-key" + i, consistency));
+                }
+                for (int i = 0; i < keys; i++) {
+                    Assert.assertEquals("value" + i, futures.get(i).get());
+                }
+            }
+        } finally {
+            stopServers(kvServers);
+            TestPathUtils.destroyBaseDir(path.toFile());
+        }
+    }
+
+    /**
+     * FOLLOWER和OBSERVER读：READ_INDEX读到LEADER上最新提交的数据，SEQUENTIAL读到自己写入的数据
+     */
+    @Test
+    public void followerAndObserverReadTest() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        final int keys = 50;
+        Path path = TestPathUtils.prepareBaseDir("followerAndObserverRead");
+        List<WrappedBootStrap<String, String, String, String>> servers = createServers(3, path);
+        List<URI> voters = servers.stream()
+                .map(WrappedBootStrap::getServer)
+                .map(RaftServer::serverUri)
+                .collect(Collectors.toList());
+
+        URI observerUri = URI.create("local://test3");
+        Properties properties = new Properties();
+        properties.setProperty("working_dir", path.resolve("server3").toString());
+        properties.setProperty("persistence.journal.file_data_size", String.valueOf(128 * 1024));
+        properties.setProperty("persistence.index.file_data_size", String.valueOf(16 * 1024));
+        properties.setProperty("disable_logo", "true");
+        properties.setProperty("observer.parents", String.join(",", voters.stream().map(URI::toString).toArray(String[]::new)));
+        WrappedBootStrap<String, String, String, String> observer = new WrappedBootStrap<>(RaftServer.Roll.OBSERVER, new KvStateFactory(), properties);
+        observer.getServer().init(observerUri, voters);
+        observer.getServer().recover();
+        observer.getServer().start();
+        servers.add(observer);
+
+        try {
+            WrappedRaftClient<String, String, String, String> writer = servers.get(0).getClient();
+            for (int i = 0; i < keys; i++) {
+                writer.update("SET key" + i + " value" + i).get();
+                for (WrappedBootStrap<String, String, String, String> server : servers) {
+                    Assert.assertEquals("value" + i,
+                            server.getLocalClient().query("GET key" + i, QueryConsistency.READ_INDEX).get());
+                }
+            }
+
+            for (WrappedBootStrap<String, String, String, String> server : servers) {
+                // 写请求发给LEADER，读请求优先发给当前节点
+                WrappedRaftClient<String, String, String, String> client = server.getClient();
+                for (int i = 0; i < keys; i++) {
+                    client.update("SET key" + i + " new" + i).get();
+                    Assert.assertEquals("new" + i, client.query("GET key" + i, QueryConsistency.SEQUENTIAL).get());
+                }
+            }
+        } finally {
+            stopServers(servers);
+            TestPathUtils.destroyBaseDir(path.toFile());
+        }
+    }
+
     private WrappedBootStrap<String, String, String, String> recoverServer(String serverPath, Path path) throws IOException {
         Path workingDir = path.resolve(serverPath);
         Properties properties = new Properties();
@@ -0,0 +1,130 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import io.journalkeeper.base.ReplicableIterator;
+import io.journalkeeper.core.state.FolderTrunkIterator;
+import io.journalkeeper.utils.files.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 快照分段安装测试
+ */
+public class PartialSnapshotTest {
+
+    private static final String ROOT = String.format("%s/export/partialSnapshotTest", System.getProperty("java.io.tmpdir"));
+    private static final int TRUNK_SIZE = 1024;
+
+    @Before
+    public void before() throws Exception {
+        FileUtils.deleteFolder(new File(ROOT).toPath());
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteFolder(new File(ROOT).toPath());
+    }
+
+    @Test
+    public void installOutOfOrderTest() throws Exception {
+        Path root = new File(ROOT).toPath();
+        Path src = root.resolve("src");
+        Path dest = root.resolve("dest");
+        List<Path> files = createFiles(src);
+
+        List<Long> offsets = new ArrayList<>();
+        List<byte[]> trunks = new ArrayList<>();
+        ReplicableIterator iterator = new FolderTrunkIterator(src, files, TRUNK_SIZE, 0L, 0);
+        while (iterator.hasMoreTrunks()) {
+            offsets.add(iterator.offset());
+            trunks.add(iterator.nextTrunk());
+        }
+        Assert.assertTrue(trunks.size() > 3);
+
+        // 第一个和最后一个Trunk按顺序安装，中间的Trunk乱序并且重复安装
+        PartialSnapshot partialSnapshot = new PartialSnapshot(root.resolve("partial"));
+        partialSnapshot.installTrunk(offsets.get(0), trunks.get(0), dest);
+        List<Integer> middle = new ArrayList<>();
+        for (int i = 1; i < trunks.size() - 1; i++) {
+            middle.add(i);
+            middle.add(i);
+        }
+        Collections.shuffle(middle);
+        for (int i : middle) {
+            partialSnapshot.installTrunk(offsets.get(i), trunks.get(i), dest);
+        }
+        int last = trunks.size() - 1;
+        partialSnapshot.installTrunk(offsets.get(last), trunks.get(last), dest);
+        partialSnapshot.finish();
+
+        for (Path file : files) {
+            Path destFile = dest.resolve(src.relativize(file));
+            if (Files.isDirectory(file)) {
+                Assert.assertTrue(Files.isDirectory(destFile));
+            } else {
+                Assert.assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(destFile));
+            }
+        }
+    }
+
+    @Test
+    public void skipToTest() throws Exception {
+        Path src = new File(ROOT).toPath().resolve("src");
+        List<Path> files = createFiles(src);
+
+        List<Long> offsets = new ArrayList<>();
+        List<byte[]> trunks = new ArrayList<>();
+        ReplicableIterator iterator = new FolderTrunkIterator(src, files, TRUNK_SIZE, 0L, 0);
+        while (iterator.hasMoreTrunks()) {
+            offsets.add(iterator.offset());
+            trunks.add(iterator.nextTrunk());
+        }
+
+        for (int i = 0; i < trunks.size(); i++) {
+            iterator = new FolderTrunkIterator(src, files, TRUNK_SIZE, 0L, 0);
+            iterator.skipTo(offsets.get(i));
+            Assert.assertEquals(offsets.get(i).longValue(), iterator.offset());
+            Assert.assertArrayEquals(trunks.get(i), iterator.nextTrunk());
+        }
+    }
+
+    private List<Path> createFiles(Path src) throws Exception {
+        Random random = new Random();
+        List<Path> files = new ArrayList<>();
+        Path emptyDir = src.resolve("empty");
+        Files.createDirectories(emptyDir);
+        files.add(emptyDir);
+        int [] sizes = new int [] {0, 10, TRUNK_SIZE, 5 * TRUNK_SIZE + 7};
+        for (int i = 0; i < sizes.length; i++) {
+            Path file = src.resolve("sub").resolve("file_" + i);
+            Files.createDirectories(file.getParent());
+            byte [] bytes = new byte[sizes[i]];
+            random.nextBytes(bytes);
+            Files.write(file, bytes);
+            files.add(file);
+        }
+        return files;
+    }
+}
@@ -24,6 +24,8 @@ import org.junit.Test;
 
 import java.io.File;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -88,6 +90,40 @@ public class RecoverSnapshotTest {
         kvServer.shutdown();
     }
 
+    /**
+     * 两次快照之间状态文件没有变化时，快照之间通过硬链接共享文件
+     */
+    @Test
+    public void incrementalSnapshotTest() throws Exception {
+        URI uri = URI.create("local://test");
+        File root = new File(ROOT);
+        Properties properties = new Properties();
+        properties.setProperty("working_dir", root.toString());
+
+        WrappedBootStrap<String, String, String, String> kvServer = new WrappedBootStrap<>(new KvStateFactory(), properties);
+        kvServer.getServer().init(uri, Collections.singletonList(uri));
+        kvServer.getServer().recover();
+        kvServer.getServer().start();
+        kvServer.getAdminClient().waitForClusterReady(1000 * 5);
+
+        WrappedRaftClient<String, String, String, String> client = kvServer.getClient();
+        Assert.assertNull(client.update("SET key_1 value_1").get());
+        kvServer.getAdminClient().takeSnapshot().get();
+        kvServer.getAdminClient().takeSnapshot().get();
+        Assert.assertEquals(kvServer.getAdminClient().getSnapshots().get().getSnapshots().size(), 3);
+
+        Path firstSnapshotFile = root.toPath().resolve("snapshots").resolve("2").resolve("user").resolve("map");
+        Path secondSnapshotFile = root.toPath().resolve("snapshots").resolve("3").resolve("user").resolve("map");
+        Assert.assertTrue(Files.isSameFile(firstSnapshotFile, secondSnapshotFile));
+
+        Assert.assertNull(client.update("SET key_1 value_2").get());
+        kvServer.getAdminClient().recoverSnapshot(3).get();
+        Assert.assertEquals("value_1", client.query("GET key_1").get());
+        Assert.assertTrue(Files.isSameFile(firstSnapshotFile, secondSnapshotFile));
+
+        kvServer.shutdown();
+    }
+
     @Test
     public void clusterTakeAndRecoverTest() throws Exception {
         List<URI> uris = new ArrayList<>();
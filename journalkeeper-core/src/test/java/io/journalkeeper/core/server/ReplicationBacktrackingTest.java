@@ -0,0 +1,95 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 日志不匹配时快速回退复制位置测试
+ */
+public class ReplicationBacktrackingTest {
+    private static final int BATCH_SIZE = 4;
+    // LEADER日志的任期，索引序号0~9
+    private static final int[] LEADER_TERMS = {1, 1, 1, 2, 2, 4, 4, 4, 5, 5};
+
+    @Test
+    public void followerShorterTest() {
+        ReplicationBacktracking leader = backtracking(LEADER_TERMS, 0L);
+        // FOLLOWER只有5条日志，没有冲突的任期，从FOLLOWER日志的末尾开始复制
+        Assert.assertEquals(5L, leader.nextIndexOnMismatch(8L, 5L, -1, 0L, 0L, BATCH_SIZE));
+    }
+
+    @Test
+    public void leaderHasConflictTermTest() {
+        ReplicationBacktracking leader = backtracking(LEADER_TERMS, 0L);
+        // FOLLOWER在索引7上的任期是2，从LEADER任期2的最后一条日志之后开始复制
+        Assert.assertEquals(5L, leader.nextIndexOnMismatch(8L, 3L, 2, 0L, 0L, BATCH_SIZE));
+        Assert.assertEquals(4L, leader.lastIndexOfTerm(2, 7L));
+        Assert.assertEquals(9L, leader.lastIndexOfTerm(5, 10L));
+        // 只在startIndex之前查找
+        Assert.assertEquals(2L, leader.lastIndexOfTerm(1, 7L));
+    }
+
+    @Test
+    public void leaderLacksConflictTermTest() {
+        ReplicationBacktracking leader = backtracking(LEADER_TERMS, 0L);
+        // LEADER没有任期3的日志，直接跳到FOLLOWER提示的位置
+        Assert.assertEquals(-1L, leader.lastIndexOfTerm(3, 7L));
+        Assert.assertEquals(3L, leader.nextIndexOnMismatch(8L, 3L, 3, 0L, 0L, BATCH_SIZE));
+        // 比所有日志的任期都小或者都大
+        Assert.assertEquals(-1L, leader.lastIndexOfTerm(0, 10L));
+        Assert.assertEquals(-1L, leader.lastIndexOfTerm(6, 10L));
+    }
+
+    @Test
+    public void noHintTest() {
+        ReplicationBacktracking leader = backtracking(LEADER_TERMS, 0L);
+        // FOLLOWER没有提示时回退一批
+        Assert.assertEquals(4L, leader.nextIndexOnMismatch(8L, -1L, -1, 0L, 0L, BATCH_SIZE));
+        Assert.assertEquals(0L, leader.nextIndexOnMismatch(2L, -1L, -1, 0L, 0L, BATCH_SIZE));
+    }
+
+    @Test
+    public void clampTest() {
+        ReplicationBacktracking leader = backtracking(LEADER_TERMS, 0L);
+        // 不回退到已经确认复制成功的位置之前
+        Assert.assertEquals(4L, leader.nextIndexOnMismatch(8L, 3L, 3, 4L, 0L, BATCH_SIZE));
+        Assert.assertEquals(6L, leader.nextIndexOnMismatch(8L, -1L, -1, 6L, 0L, BATCH_SIZE));
+        // 不回退到第一个快照之前
+        Assert.assertEquals(3L, leader.nextIndexOnMismatch(8L, 1L, -1, 0L, 3L, BATCH_SIZE));
+        // 至少回退一条
+        Assert.assertEquals(7L, leader.nextIndexOnMismatch(8L, 9L, -1, 0L, 0L, BATCH_SIZE));
+    }
+
+    @Test
+    public void firstIndexOfTermTest() {
+        // FOLLOWER日志的任期，索引序号0~5
+        int[] followerTerms = {1, 1, 2, 2, 2, 3};
+        ReplicationBacktracking follower = backtracking(followerTerms, 0L);
+        Assert.assertEquals(2L, follower.firstIndexOfTerm(2, 4L));
+        Assert.assertEquals(0L, follower.firstIndexOfTerm(1, 1L));
+        Assert.assertEquals(5L, follower.firstIndexOfTerm(3, 5L));
+
+        // 日志被压缩后，从最小索引开始查找
+        follower = backtracking(followerTerms, 3L);
+        Assert.assertEquals(3L, follower.firstIndexOfTerm(2, 4L));
+        Assert.assertEquals(-1L, follower.lastIndexOfTerm(1, 6L));
+        Assert.assertEquals(4L, follower.lastIndexOfTerm(2, 6L));
+    }
+
+    private static ReplicationBacktracking backtracking(int[] terms, long minIndex) {
+        return new ReplicationBacktracking(index -> terms[(int) index], () -> minIndex, () -> terms.length);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应复制批大小测试
+ */
+public class ReplicationBatchSizerTest {
+    private static final long KB = 1024L;
+    private static final long MAX_BATCH_BYTES = 4 * 1024 * KB;
+    private static final long TARGET_RTT_MS = 10L;
+
+    @Test
+    public void doubleUnderTargetTest() {
+        ReplicationBatchSizer sizer = new ReplicationBatchSizer(MAX_BATCH_BYTES, TARGET_RTT_MS, true);
+        Assert.assertEquals(MAX_BATCH_BYTES, sizer.batchBytes());
+        sizer.onFailure();
+        sizer.onFailure();
+        Assert.assertEquals(1024 * KB, sizer.batchBytes());
+
+        // 响应时间小于目标，并且这一批用满了批大小，加倍
+        sizer.onSuccess(1024 * KB, millis(1L));
+        Assert.assertEquals(2048 * KB, sizer.batchBytes());
+
+        // 这一批数据量远小于批大小，说明没有更多的日志，不调整
+        sizer.onSuccess(100 * KB, millis(1L));
+        Assert.assertEquals(2048 * KB, sizer.batchBytes());
+
+        // 加倍不超过最大值
+        sizer.onSuccess(2048 * KB, millis(1L));
+        Assert.assertEquals(MAX_BATCH_BYTES, sizer.batchBytes());
+        sizer.onSuccess(MAX_BATCH_BYTES, millis(1L));
+        Assert.assertEquals(MAX_BATCH_BYTES, sizer.batchBytes());
+    }
+
+    @Test
+    public void scaleByThroughputTest() {
+        ReplicationBatchSizer sizer = new ReplicationBatchSizer(MAX_BATCH_BYTES, TARGET_RTT_MS, true);
+        // 2MB用了40ms，目标10ms内能复制512KB
+        sizer.onSuccess(2048 * KB, millis(40L));
+        Assert.assertEquals(512 * KB, sizer.batchBytes());
+
+        // 400KB用了20ms，目标10ms内能复制200KB
+        sizer.onSuccess(400 * KB, millis(20L));
+        Assert.assertEquals(200 * KB, sizer.batchBytes());
+
+        // 至少复制一条日志，这一批可能超过批大小：按吞吐量估算的批大小比当前的大时，不放大
+        sizer.onSuccess(1024 * KB, millis(20L));
+        Assert.assertEquals(200 * KB, sizer.batchBytes());
+    }
+
+    @Test
+    public void halveOnFailureTest() {
+        ReplicationBatchSizer sizer = new ReplicationBatchSizer(MAX_BATCH_BYTES, TARGET_RTT_MS, true);
+        sizer.onFailure();
+        Assert.assertEquals(MAX_BATCH_BYTES / 2, sizer.batchBytes());
+        sizer.onFailure();
+        Assert.assertEquals(MAX_BATCH_BYTES / 4, sizer.batchBytes());
+    }
+
+    @Test
+    public void minBatchBytesTest() {
+        ReplicationBatchSizer sizer = new ReplicationBatchSizer(MAX_BATCH_BYTES, TARGET_RTT_MS, true);
+        for (int i = 0; i < 20; i++) {
+            sizer.onFailure();
+        }
+        Assert.assertEquals(ReplicationBatchSizer.MIN_BATCH_BYTES, sizer.batchBytes());
+
+        sizer = new ReplicationBatchSizer(MAX_BATCH_BYTES, TARGET_RTT_MS, true);
+        // 吞吐量很低时，也不小于下限
+        sizer.onSuccess(MAX_BATCH_BYTES, TimeUnit.SECONDS.toNanos(100L));
+        Assert.assertEquals(ReplicationBatchSizer.MIN_BATCH_BYTES, sizer.batchBytes());
+
+        // 最大值小于下限时，以最大值为准
+        sizer = new ReplicationBatchSizer(16 * KB, TARGET_RTT_MS, true);
+        sizer.onFailure();
+        Assert.assertEquals(16 * KB, sizer.batchBytes());
+    }
+
+    @Test
+    public void notAdaptiveTest() {
+        ReplicationBatchSizer sizer = new ReplicationBatchSizer(MAX_BATCH_BYTES, TARGET_RTT_MS, false);
+        sizer.onFailure();
+        sizer.onSuccess(MAX_BATCH_BYTES, millis(1000L));
+        Assert.assertEquals(MAX_BATCH_BYTES, sizer.batchBytes());
+    }
+
+    private static long millis(long ms) {
+        return TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+}
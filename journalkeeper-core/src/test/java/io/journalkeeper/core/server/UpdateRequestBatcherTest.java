@@ -0,0 +1,101 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import io.journalkeeper.core.api.RaftJournal;
+import io.journalkeeper.core.api.UpdateRequest;
+import io.journalkeeper.rpc.client.UpdateClusterStateRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Function;
+
+/**
+ * Leader合并写入请求测试
+ */
+public class UpdateRequestBatcherTest {
+
+    @Test
+    public void mergeConsecutiveRequestsTest() {
+        UpdateRequestBatcher<UpdateClusterStateRequest> batcher = new UpdateRequestBatcher<>(100, Long.MAX_VALUE, Function.identity());
+        UpdateClusterStateRequest first = request(0, 10);
+        Queue<UpdateClusterStateRequest> queue = new LinkedList<>();
+        for (int i = 0; i < 5; i++) {
+            queue.add(request(i % 3, 10));
+        }
+        List<UpdateClusterStateRequest> expected = new LinkedList<>(queue);
+        expected.add(0, first);
+
+        List<UpdateClusterStateRequest> batch = batcher.poll(first, queue);
+        Assert.assertEquals(expected, batch);
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void batchLimitTest() {
+        // 数量限制
+        UpdateRequestBatcher<UpdateClusterStateRequest> batcher = new UpdateRequestBatcher<>(3, Long.MAX_VALUE, Function.identity());
+        Queue<UpdateClusterStateRequest> queue = new LinkedList<>();
+        for (int i = 0; i < 5; i++) {
+            queue.add(request(0, 10));
+        }
+        Assert.assertEquals(3, batcher.poll(request(0, 10), queue).size());
+        Assert.assertEquals(3, queue.size());
+
+        // 字节数限制：达到限制之前的最后一个请求仍然会被合并
+        batcher = new UpdateRequestBatcher<>(100, 25, Function.identity());
+        Assert.assertEquals(3, batcher.poll(request(0, 10), queue).size());
+        Assert.assertEquals(1, queue.size());
+
+        // 第一个请求超过字节数限制时不合并
+        Assert.assertEquals(1, batcher.poll(request(0, 30), queue).size());
+        Assert.assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void internalRequestNotMergedTest() {
+        UpdateRequestBatcher<UpdateClusterStateRequest> batcher = new UpdateRequestBatcher<>(100, Long.MAX_VALUE, Function.identity());
+        UpdateClusterStateRequest internal = request(RaftJournal.INTERNAL_PARTITION, 10);
+        UpdateClusterStateRequest mixed = new UpdateClusterStateRequest(Arrays.asList(
+                new UpdateRequest(new byte[10], 0, 1),
+                new UpdateRequest(new byte[10], RaftJournal.INTERNAL_PARTITION, 1)));
+        Assert.assertTrue(UpdateRequestBatcher.isInternalRequest(internal));
+        Assert.assertTrue(UpdateRequestBatcher.isInternalRequest(mixed));
+        Assert.assertFalse(UpdateRequestBatcher.isInternalRequest(request(0, 10)));
+
+        Queue<UpdateClusterStateRequest> queue = new LinkedList<>();
+        UpdateClusterStateRequest second = request(0, 10);
+        queue.add(second);
+        queue.add(internal);
+        queue.add(request(0, 10));
+        queue.add(mixed);
+
+        // 遇到内部请求停止合并，内部请求留在队列头部单独处理
+        UpdateClusterStateRequest first = request(0, 10);
+        Assert.assertEquals(Arrays.asList(first, second), batcher.poll(first, queue));
+        Assert.assertSame(internal, queue.poll());
+
+        List<UpdateClusterStateRequest> batch = batcher.poll(queue.poll(), queue);
+        Assert.assertEquals(1, batch.size());
+        Assert.assertSame(mixed, queue.peek());
+    }
+
+    private UpdateClusterStateRequest request(int partition, int size) {
+        return new UpdateClusterStateRequest(new UpdateRequest(new byte[size], partition, 1));
+    }
+}
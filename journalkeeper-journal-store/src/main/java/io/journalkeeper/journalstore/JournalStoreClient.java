@@ -18,6 +18,7 @@ import io.journalkeeper.core.BootStrap;
 import io.journalkeeper.core.api.JournalEntry;
 import io.journalkeeper.core.api.JournalEntryParser;
 import io.journalkeeper.core.api.PartitionedJournalStore;
+import io.journalkeeper.core.api.QueryConsistency;
 import io.journalkeeper.core.api.RaftClient;
 import io.journalkeeper.core.api.ResponseConfig;
 import io.journalkeeper.core.api.UpdateRequest;
@@ -34,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -43,6 +45,7 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -51,10 +54,14 @@ import java.util.stream.Collectors;
  */
 public class JournalStoreClient implements PartitionedJournalStore, TransactionalJournalStore {
     private static final Logger logger = LoggerFactory.getLogger(JournalStoreClient.class);
+    // 已知有新日志但是LEADER还没有执行到时，重新读取的间隔
+    private static final long FETCH_RETRY_INTERVAL_MS = 10L;
     private final RaftClient raftClient;
     private final Serializer<Long> appendResultSerializer;
     private final Serializer<JournalStoreQuery> querySerializer;
     private final Serializer<JournalStoreQueryResult> queryResultSerializer;
+    private final PartitionChangeWatcher partitionChangeWatcher = new PartitionChangeWatcher();
+    private final AtomicBoolean watchingPartitions = new AtomicBoolean(false);
 
     JournalStoreClient(RaftClient raftClient, JournalEntryParser journalEntryParser) {
         this.raftClient = raftClient;
@@ -145,6 +152,53 @@ public class JournalStoreClient implements PartitionedJournalStore, Transactiona
                 .thenApply(JournalStoreQueryResult::getEntries);
     }
 
+    /**
+     * 先在任意节点上读取，没有新日志时等待分区变化的事件，收到事件后再次读取。
+     * 如果事件表明分区已经有新日志，但是处理请求的节点还没有执行到，用READ_INDEX再读一次，
+     * 仍然读不到时每隔{@link #FETCH_RETRY_INTERVAL_MS}毫秒重新读取，直到读到日志或者超时。
+     */
+    @Override
+    public CompletableFuture<List<JournalEntry>> fetch(int partition, long index, int maxBytes, long maxWaitMs) {
+        ReservedPartition.validatePartition(partition);
+        if (watchingPartitions.compareAndSet(false, true)) {
+            raftClient.watch(partitionChangeWatcher, PartitionChangeWatcher.FILTER);
+        }
+        long deadline = System.currentTimeMillis() + Math.max(0L, maxWaitMs);
+        return fetch(partition, index, maxBytes, deadline, QueryConsistency.SEQUENTIAL);
+    }
+
+    private CompletableFuture<List<JournalEntry>> fetch(int partition, long index, int maxBytes, long deadline, QueryConsistency consistency) {
+        return raftClient.query(querySerializer.serialize(JournalStoreQuery.createFetchEntries(partition, index, Short.MAX_VALUE, maxBytes)), consistency)
+                .thenApply(queryResultSerializer::parse)
+                .thenCompose(result -> {
+                    if (result.getCode() == JournalStoreQueryResult.CODE_UNDERFLOW) {
+                        throw new CompletionException(new IndexUnderflowException());
+                    } else if (result.getCode() != JournalStoreQueryResult.CODE_SUCCESS) {
+                        throw new CompletionException(new QueryJournalStoreException("Unknown exception"));
+                    }
+                    if (!result.getEntries().isEmpty()) {
+                        return CompletableFuture.completedFuture(result.getEntries());
+                    }
+                    long remainingMs = deadline - System.currentTimeMillis();
+                    if (partitionChangeWatcher.maxIndex(partition) > index) {
+                        // 已知index之后有日志，只是处理请求的节点还没有执行到
+                        if (consistency != QueryConsistency.READ_INDEX) {
+                            return fetch(partition, index, maxBytes, deadline, QueryConsistency.READ_INDEX);
+                        }
+                        if (remainingMs <= 0L) {
+                            return CompletableFuture.completedFuture(Collections.<JournalEntry>emptyList());
+                        }
+                        // LEADER也还没有执行到，稍后重新读取，不等待更新的日志
+                        return partitionChangeWatcher.delay(Math.min(FETCH_RETRY_INTERVAL_MS, remainingMs))
+                                .thenCompose(v -> fetch(partition, index, maxBytes, deadline, QueryConsistency.READ_INDEX));
+                    }
+                    return partitionChangeWatcher.waitFor(partition, index, remainingMs)
+                            .thenCompose(changed -> changed ?
+                                    fetch(partition, index, maxBytes, deadline, QueryConsistency.SEQUENTIAL) :
+                                    CompletableFuture.completedFuture(Collections.<JournalEntry>emptyList()));
+                });
+    }
+
     @Override
     public CompletableFuture<Map<Integer, Long>> minIndices() {
         return raftClient.query(querySerializer.serialize(JournalStoreQuery.createQueryPartitions()))
@@ -201,7 +255,7 @@ public class JournalStoreClient implements PartitionedJournalStore, Transactiona
 
     @Override
     public void unWatch(EventWatcher eventWatcher) {
-        raftClient.watch(eventWatcher);
+        raftClient.unWatch(eventWatcher);
     }
 
     @Override
@@ -22,19 +22,26 @@ public class JournalStoreQuery {
     public static final int CMD_QUERY_ENTRIES = 0;
     public static final int CMD_QUERY_PARTITIONS = 1;
     public static final int CMD_QUERY_INDEX = 2;
+    public static final int CMD_FETCH_ENTRIES = 3;
     private final int cmd;
     private final int partition;
     private final long index;
     private final int size;
     private final long timestamp;
+    private final int maxBytes;
 
 
     JournalStoreQuery(int cmd, int partition, long index, int size, long timestamp) {
+        this(cmd, partition, index, size, timestamp, 0);
+    }
+
+    JournalStoreQuery(int cmd, int partition, long index, int size, long timestamp, int maxBytes) {
         this.cmd = cmd;
         this.partition = partition;
         this.index = index;
         this.size = size;
         this.timestamp = timestamp;
+        this.maxBytes = maxBytes;
     }
 
     private JournalStoreQuery(int cmd) {
@@ -49,6 +56,14 @@ public class JournalStoreQuery {
         return new JournalStoreQuery(CMD_QUERY_ENTRIES, partition, index, size, 0L);
     }
 
+    /**
+     * 读取分区日志，返回的日志总字节数不超过maxBytes，至少返回一条日志。
+     * 没有新日志时返回空列表而不是OVERFLOW，结果中的index为节点上这个分区的最大索引序号。
+     */
+    public static JournalStoreQuery createFetchEntries(int partition, long index, int size, int maxBytes) {
+        return new JournalStoreQuery(CMD_FETCH_ENTRIES, partition, index, size, 0L, maxBytes);
+    }
+
     public static JournalStoreQuery createQueryPartitions() {
         return new JournalStoreQuery(CMD_QUERY_PARTITIONS);
     }
@@ -76,4 +91,8 @@ public class JournalStoreQuery {
     public long getTimestamp() {
         return timestamp;
     }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
 }
@@ -34,6 +34,10 @@ public class JournalStoreQueryResult {
     private final long index;
     private final List<JournalEntry> entries;
     private final Map<Integer, Boundary> boundaries;
+    // 未反序列化的日志，每个字节数组包含一条或者多条首尾相连的完整日志
+    private final List<byte[]> rawEntries;
+    // 从批量日志中间开始读取时，第一条日志在批量日志中的偏移量
+    private final int firstEntryOffset;
 
     public JournalStoreQueryResult(List<JournalEntry> entries, Map<Integer, Boundary> boundaries, long index, int cmd) {
         this(entries, boundaries, cmd, index, CODE_SUCCESS);
@@ -45,6 +49,29 @@ public class JournalStoreQueryResult {
         this.cmd = cmd;
         this.index = index;
         this.code = code;
+        this.rawEntries = null;
+        this.firstEntryOffset = 0;
+    }
+
+    public JournalStoreQueryResult(List<byte[]> rawEntries, long index, int cmd) {
+        this(rawEntries, 0, index, cmd);
+    }
+
+    /**
+     * 返回未反序列化的日志，序列化时直接写入，不需要解析每条日志。
+     * @param rawEntries 序列化后的日志
+     * @param firstEntryOffset 第一条日志在批量日志中的偏移量
+     * @param index 分区的最大索引序号
+     * @param cmd 查询命令
+     */
+    public JournalStoreQueryResult(List<byte[]> rawEntries, int firstEntryOffset, long index, int cmd) {
+        this.entries = null;
+        this.boundaries = null;
+        this.cmd = cmd;
+        this.index = index;
+        this.code = CODE_SUCCESS;
+        this.rawEntries = rawEntries;
+        this.firstEntryOffset = firstEntryOffset;
     }
 
     public JournalStoreQueryResult(List<JournalEntry> entries) {
@@ -65,6 +92,8 @@ public class JournalStoreQueryResult {
         this.boundaries = null;
         this.entries = null;
         this.index = 0L;
+        this.rawEntries = null;
+        this.firstEntryOffset = 0;
         try {
             throw t;
         } catch (IndexUnderflowException e) {
@@ -84,6 +113,14 @@ public class JournalStoreQueryResult {
         return entries;
     }
 
+    public List<byte[]> getRawEntries() {
+        return rawEntries;
+    }
+
+    public int getFirstEntryOffset() {
+        return firstEntryOffset;
+    }
+
     public Map<Integer, Boundary> getBoundaries() {
         return boundaries;
     }
@@ -47,6 +47,12 @@ import java.util.Map;
  *  Bourdary: 18 Bytes
  *  ...
  *
+ * Raw entries
+ *  Raw entries length: 4 Bytes
+ *  Raw entries: Variable，首尾相连的序列化后的日志，客户端读取时才解析
+ *
+ * First entry offset: 2 Bytes，Raw entries或者Entries中第一条日志在批量日志中的偏移量
+ *
  */
 public class JournalStoreQueryResultSerializer implements Serializer<JournalStoreQueryResult> {
     private static final int FIXED_LENGTH =
@@ -54,7 +60,9 @@ public class JournalStoreQueryResultSerializer implements Serializer<JournalStor
                     Byte.BYTES + /* Code */
                     Short.BYTES + /* Entries size */
                     Short.BYTES + /* Boundaries size */
-                    Long.BYTES; /* Index size */
+                    Long.BYTES + /* Index size */
+                    Integer.BYTES + /* Raw entries length */
+                    Short.BYTES; /* First entry offset */
     private final JournalEntryParser journalEntryParser;
 
     public JournalStoreQueryResultSerializer(JournalEntryParser journalEntryParser) {
@@ -68,7 +76,21 @@ public class JournalStoreQueryResultSerializer implements Serializer<JournalStor
                         journalStoreQueryResult.getBoundaries().size() * (Short.BYTES + Long.BYTES + Long.BYTES)) +
                         (journalStoreQueryResult.getEntries() == null ? 0 :
                                 journalStoreQueryResult.getEntries().stream().mapToInt(JournalEntry::getLength)
-                                        .sum()) + FIXED_LENGTH;
+                                        .sum()) + rawLength(journalStoreQueryResult) + FIXED_LENGTH;
+
+    }
+
+    private int firstEntryOffset(JournalStoreQueryResult journalStoreQueryResult) {
+        if (journalStoreQueryResult.getRawEntries() != null) {
+            return journalStoreQueryResult.getFirstEntryOffset();
+        }
+        List<JournalEntry> entries = journalStoreQueryResult.getEntries();
+        return entries == null || entries.isEmpty() ? 0 : entries.get(0).getOffset();
+    }
+
+    private int rawLength(JournalStoreQueryResult journalStoreQueryResult) {
+        return journalStoreQueryResult.getRawEntries() == null ? 0 :
+                journalStoreQueryResult.getRawEntries().stream().mapToInt(raw -> raw.length).sum();
 
     }
 
@@ -98,6 +120,12 @@ public class JournalStoreQueryResultSerializer implements Serializer<JournalStor
             buffer.putLong(boundary.getMax());
         });
 
+        buffer.putInt(rawLength(journalStoreQueryResult));
+        if (journalStoreQueryResult.getRawEntries() != null) {
+            journalStoreQueryResult.getRawEntries().forEach(buffer::put);
+        }
+        buffer.putShort((short) firstEntryOffset(journalStoreQueryResult));
+
         return bytes;
     }
 
@@ -109,12 +137,8 @@ public class JournalStoreQueryResultSerializer implements Serializer<JournalStor
         long index = buffer.getLong();
         int entriesSize = buffer.getShort();
         List<JournalEntry> entries = new ArrayList<>(entriesSize);
-        byte[] headerBytes = new byte[journalEntryParser.headerLength()];
         for (int i = 0; i < entriesSize; i++) {
-            buffer.mark();
-            buffer.get(headerBytes);
-            buffer.reset();
-            JournalEntry header = journalEntryParser.parseHeader(headerBytes);
+            JournalEntry header = journalEntryParser.parseHeader(buffer);
             int length = header.getLength();
             byte[] raw = new byte[length];
             buffer.get(raw);
@@ -129,6 +153,21 @@ public class JournalStoreQueryResultSerializer implements Serializer<JournalStor
                     new JournalStoreQueryResult.Boundary(buffer.getLong(), buffer.getLong()));
         }
 
+        // 兼容没有Raw entries的旧版本结果
+        int rawLength = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : 0;
+        ByteBuffer rawBuffer = null;
+        if (rawLength > 0) {
+            rawBuffer = ByteBuffer.wrap(bytes, buffer.position(), rawLength).slice();
+            buffer.position(buffer.position() + rawLength);
+        }
+        // 兼容没有第一条日志偏移量的旧版本结果
+        int firstEntryOffset = buffer.remaining() >= Short.BYTES ? buffer.getShort() : 0;
+        if (null != rawBuffer) {
+            entries = new LazyJournalEntryList(journalEntryParser, rawBuffer, firstEntryOffset);
+        } else if (!entries.isEmpty()) {
+            entries.get(0).setOffset(firstEntryOffset);
+        }
+
         return new JournalStoreQueryResult(entries, boundaries, cmd, index, code);
 
     }
@@ -18,7 +18,7 @@ import io.journalkeeper.base.Serializer;
 import java.nio.ByteBuffer;
 
 public class JournalStoreQuerySerializer implements Serializer<JournalStoreQuery> {
-    private static final int SIZE = Byte.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int SIZE = Byte.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
 
     @Override
     public byte[] serialize(JournalStoreQuery query) {
@@ -29,12 +29,15 @@ public class JournalStoreQuerySerializer implements Serializer<JournalStoreQuery
         buffer.putLong(query.getIndex());
         buffer.putInt(query.getSize());
         buffer.putLong(query.getTimestamp());
+        buffer.putInt(query.getMaxBytes());
         return bytes;
     }
 
     @Override
     public JournalStoreQuery parse(byte[] bytes) {
         ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        return new JournalStoreQuery(buffer.get(), buffer.getShort(), buffer.getLong(), buffer.getInt(), buffer.getLong());
+        return new JournalStoreQuery(buffer.get(), buffer.getShort(), buffer.getLong(), buffer.getInt(), buffer.getLong(),
+                // 兼容没有maxBytes的旧版本请求
+                buffer.remaining() >= Integer.BYTES ? buffer.getInt() : 0);
     }
 }
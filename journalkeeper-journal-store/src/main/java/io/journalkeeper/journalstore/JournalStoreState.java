@@ -33,6 +33,7 @@ import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static io.journalkeeper.core.api.RaftJournal.RESERVED_PARTITIONS_START;
+import static io.journalkeeper.journalstore.JournalStoreQuery.CMD_FETCH_ENTRIES;
 import static io.journalkeeper.journalstore.JournalStoreQuery.CMD_QUERY_ENTRIES;
 import static io.journalkeeper.journalstore.JournalStoreQuery.CMD_QUERY_INDEX;
 import static io.journalkeeper.journalstore.JournalStoreQuery.CMD_QUERY_PARTITIONS;
@@ -116,6 +117,8 @@ public class JournalStoreState implements State, Flushable {
                     return queryPartitions(journal);
                 case CMD_QUERY_INDEX:
                     return queryIndex(query.getPartition(), query.getTimestamp(), journal);
+                case CMD_FETCH_ENTRIES:
+                    return fetchEntries(query.getPartition(), query.getIndex(), query.getSize(), query.getMaxBytes(), journal);
                 default:
                     throw new QueryJournalStoreException(String.format("Invalid command type: %d.", query.getCmd()));
 
@@ -167,6 +170,26 @@ public class JournalStoreState implements State, Flushable {
 
     }
 
+    /**
+     * 从index开始读取已执行的日志，直到读满size条或者maxBytes字节，至少读取一条。
+     * 没有新日志时返回空列表，结果中的index为当前节点上这个分区已执行的最大索引序号，
+     * 客户端据此判断是否需要等待新的日志。
+     */
+    private JournalStoreQueryResult fetchEntries(int partition, long index, int size, int maxBytes, RaftJournal journal) {
+        long maxAppliedIndex = Math.min(appliedIndices.getOrDefault(partition, 0L), journal.maxIndex(partition));
+        if (index < journal.minIndex(partition)) {
+            return new JournalStoreQueryResult(null, null, CMD_FETCH_ENTRIES, index, JournalStoreQueryResult.CODE_UNDERFLOW);
+        }
+
+        if (index >= maxAppliedIndex) {
+            return new JournalStoreQueryResult(Collections.emptyList(), maxAppliedIndex, CMD_FETCH_ENTRIES);
+        }
+        // 直接读取序列化后的日志，不反序列化
+        int safeSize = (int) Math.min(size, maxAppliedIndex - index);
+        return new JournalStoreQueryResult(journal.batchReadRawByPartition(partition, index, safeSize, maxBytes),
+                journal.batchOffsetByPartition(partition, index), maxAppliedIndex, CMD_FETCH_ENTRIES);
+    }
+
     @Override
     public void close() {
         if (null != appliedIndices) {
@@ -0,0 +1,92 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.journalstore;
+
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * 首尾相连的序列化日志组成的只读列表。
+ * 创建时只解析每条日志的Header确定日志的位置，访问某条日志时才从收到的数据中复制并解析这条日志。
+ */
+class LazyJournalEntryList extends AbstractList<JournalEntry> {
+    private final JournalEntryParser journalEntryParser;
+    private final ByteBuffer buffer;
+    private final int[] positions;
+    private final JournalEntry[] entries;
+    private final int firstEntryOffset;
+
+    /**
+     * @param journalEntryParser 日志解析器
+     * @param buffer position到limit之间为首尾相连的完整日志
+     * @param firstEntryOffset 第一条日志在批量日志中的偏移量，从批量日志中间开始读取时不为0
+     */
+    LazyJournalEntryList(JournalEntryParser journalEntryParser, ByteBuffer buffer, int firstEntryOffset) {
+        this.journalEntryParser = journalEntryParser;
+        this.firstEntryOffset = firstEntryOffset;
+        this.buffer = buffer.slice();
+        int[] positions = new int[16];
+        int size = 0;
+        int position = 0;
+        ByteBuffer header = this.buffer.duplicate();
+        while (position < this.buffer.limit()) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size << 1);
+            }
+            positions[size++] = position;
+            header.position(position);
+            int length = journalEntryParser.parseHeader(header).getLength();
+            if (length <= 0) {
+                break;
+            }
+            position += length;
+        }
+        if (position != this.buffer.limit()) {
+            throw new QueryJournalStoreException(String.format("Invalid raw entries, length: %d, parsed: %d.",
+                    this.buffer.limit(), position));
+        }
+        this.positions = Arrays.copyOf(positions, size + 1);
+        this.positions[size] = position;
+        this.entries = new JournalEntry[size];
+    }
+
+    @Override
+    public JournalEntry get(int index) {
+        if (index < 0 || index >= entries.length) {
+            throw new IndexOutOfBoundsException(String.format("Index: %d, size: %d.", index, entries.length));
+        }
+        JournalEntry entry = entries[index];
+        if (null == entry) {
+            byte[] raw = new byte[positions[index + 1] - positions[index]];
+            ByteBuffer duplicate = buffer.duplicate();
+            duplicate.position(positions[index]);
+            duplicate.get(raw);
+            entry = journalEntryParser.parse(raw);
+            if (index == 0) {
+                entry.setOffset(firstEntryOffset);
+            }
+            entries[index] = entry;
+        }
+        return entry;
+    }
+
+    @Override
+    public int size() {
+        return entries.length;
+    }
+}
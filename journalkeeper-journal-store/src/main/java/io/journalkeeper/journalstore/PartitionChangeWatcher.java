@@ -0,0 +1,138 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.journalstore;
+
+import io.journalkeeper.utils.event.Event;
+import io.journalkeeper.utils.event.EventFilter;
+import io.journalkeeper.utils.event.EventType;
+import io.journalkeeper.utils.event.EventWatcher;
+import io.journalkeeper.utils.threads.NamedThreadFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 监听状态机的ON_STATE_CHANGE事件，记录每个分区已知的最大索引序号，
+ * 唤醒等待分区新日志的长轮询读请求。
+ *
+ * 事件由服务端的长轮询推送（见{@link io.journalkeeper.utils.event.Watchable}），
+ * 没有新日志时客户端不需要反复查询。
+ */
+class PartitionChangeWatcher implements EventWatcher {
+    static final EventFilter FILTER = new EventFilter(Collections.singleton(EventType.ON_STATE_CHANGE), null, null);
+    private static final String MAX_INDEX_KEY = "maxIndex";
+    private final Map<Integer, Long> maxIndices = new ConcurrentHashMap<>();
+    private final Map<Integer, Queue<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    @Override
+    public void onEvent(Event event) {
+        Map<String, String> eventData = event.getEventData();
+        if (event.getEventType() != EventType.ON_STATE_CHANGE || null == eventData) {
+            return;
+        }
+        String partitionString = eventData.get(EventFilter.PARTITION_KEY);
+        String maxIndexString = eventData.get(MAX_INDEX_KEY);
+        if (null == partitionString || null == maxIndexString) {
+            return;
+        }
+        try {
+            int partition = Integer.parseInt(partitionString);
+            long maxIndex = maxIndices.merge(partition, Long.parseLong(maxIndexString), Math::max);
+            Queue<Waiter> queue = waiters.get(partition);
+            if (null != queue) {
+                queue.removeIf(waiter -> waiter.index < maxIndex && waiter.complete(true));
+            }
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    /**
+     * @param partition 分区
+     * @return 从事件中得到的分区最大索引序号，没有收到过这个分区的事件时返回-1
+     */
+    long maxIndex(int partition) {
+        return maxIndices.getOrDefault(partition, -1L);
+    }
+
+    /**
+     * 等待分区的最大索引序号超过index
+     * @param partition 分区
+     * @param index 等待的索引序号
+     * @param maxWaitMs 最长等待时间
+     * @return 分区有新日志时返回true，超时返回false
+     */
+    CompletableFuture<Boolean> waitFor(int partition, long index, long maxWaitMs) {
+        if (maxIndex(partition) > index) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (maxWaitMs <= 0L) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Waiter waiter = new Waiter(index);
+        Queue<Waiter> queue = waiters.computeIfAbsent(partition, p -> new ConcurrentLinkedQueue<>());
+        queue.add(waiter);
+        // 注册之前可能已经收到了事件
+        if (maxIndex(partition) > index && waiter.complete(true)) {
+            queue.remove(waiter);
+            return waiter.future;
+        }
+        ScheduledFuture<?> timeout = Timer.SCHEDULER.schedule(() -> {
+            if (waiter.complete(false)) {
+                queue.remove(waiter);
+            }
+        }, maxWaitMs, TimeUnit.MILLISECONDS);
+        waiter.future.whenComplete((changed, t) -> timeout.cancel(false));
+        return waiter.future;
+    }
+
+    /**
+     * 等待一段时间，用于已知分区有新日志、但是节点还没有执行到时，稍后重新读取
+     * @param delayMs 等待时间
+     * @return delayMs毫秒后完成
+     */
+    CompletableFuture<Void> delay(long delayMs) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Timer.SCHEDULER.schedule(() -> future.complete(null), delayMs, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private static class Waiter {
+        private final long index;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        private Waiter(long index) {
+            this.index = index;
+        }
+
+        private boolean complete(boolean changed) {
+            return future.complete(changed);
+        }
+    }
+
+    /**
+     * 所有客户端共用一个超时定时器线程
+     */
+    private static class Timer {
+        private static final ScheduledExecutorService SCHEDULER =
+                Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("JournalStore-Fetch-Timer", true));
+    }
+}
@@ -41,4 +41,16 @@ public interface BufferHolder extends Timed {
      * @return true：可写，false：只读
      */
     boolean writable();
+
+    /**
+     * 累计访问（读和写）次数，用于缓存置换和统计命中率。
+     * @return 访问次数
+     */
+    long accessCount();
+
+    /**
+     * 累计未命中次数，即访问时需要加载缓存页的次数。
+     * @return 未命中次数
+     */
+    long missCount();
 }
@@ -0,0 +1,163 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.persistence.local.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * 一类缓存页（读写页或只读页），使用GCLOCK算法置换。
+ * 加入和删除缓存页无锁，置换时加锁，同一时间只有一个线程扫描时钟队列。
+ *
+ * 所有缓存页排成一个时钟队列，每个页有一个权重：
+ * 置换时从队头取出页面，如果这个页在上次扫描之后被访问过，权重加1（不超过{@link #MAX_WEIGHT}）；
+ * 否则权重减1，权重减到0并且可以释放时将其置换出内存，其它情况放回队尾。
+ * 经常访问的页权重更高，可以在多轮扫描中存活，效果近似于LFU + LRU；
+ * 每次置换只扫描有限数量的页，不需要对所有页排序。
+ *
+ * @see BufferHolder#accessCount()
+ */
+class CacheTier {
+    static final int MAX_WEIGHT = 3;
+    private final String name;
+    private final int initialWeight;
+    private final Map<BufferHolder, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicLong usedSize = new AtomicLong(0L);
+
+    /**
+     * @param name 名称
+     * @param initialWeight 新加入的页的初始权重
+     */
+    CacheTier(String name, int initialWeight) {
+        this.name = name;
+        this.initialWeight = Math.min(initialWeight, MAX_WEIGHT);
+    }
+
+    void add(BufferHolder bufferHolder) {
+        Entry entry = new Entry(bufferHolder, initialWeight);
+        Entry previous = entries.put(bufferHolder, entry);
+        if (null != previous) {
+            previous.removed = true;
+            usedSize.addAndGet(-1 * previous.size);
+        }
+        usedSize.addAndGet(entry.size);
+        clock.add(entry);
+    }
+
+    /**
+     * 删除缓存页
+     * @param bufferHolder 缓存页
+     * @return 被删除的页，如果页不存在返回null
+     */
+    Entry remove(BufferHolder bufferHolder) {
+        Entry entry = entries.remove(bufferHolder);
+        if (null != entry) {
+            entry.removed = true;
+            usedSize.addAndGet(-1 * entry.size);
+        }
+        return entry;
+    }
+
+    /**
+     * 扫描时钟队列，置换缓存页，直到满足条件 {@code enough} 或者扫描了2轮。
+     * @param filter 只置换满足条件的页
+     * @param enough 已经置换够了
+     * @return 置换出的页数
+     */
+    synchronized int evict(Predicate<BufferHolder> filter, BooleanSupplier enough) {
+        int evicted = 0;
+        int maxScan = 2 * (MAX_WEIGHT + 1) * entries.size();
+        for (int scanned = 0; scanned < maxScan && !enough.getAsBoolean(); scanned++) {
+            Entry entry = clock.poll();
+            if (null == entry) {
+                break;
+            }
+            if (entry.removed) {
+                continue;
+            }
+            BufferHolder bufferHolder = entry.bufferHolder;
+            long accessCount = bufferHolder.accessCount();
+            if (accessCount != entry.lastAccessCount) {
+                // 上次扫描之后被访问过
+                entry.lastAccessCount = accessCount;
+                entry.weight = Math.min(entry.weight + 1, MAX_WEIGHT);
+            } else if (entry.weight > 0) {
+                entry.weight--;
+            } else if (filter.test(bufferHolder) && bufferHolder.isFree() && bufferHolder.evict()) {
+                evicted++;
+                continue;
+            }
+            if (!entry.removed) {
+                clock.add(entry);
+            }
+        }
+        return evicted;
+    }
+
+    long getUsedSize() {
+        return usedSize.get();
+    }
+
+    int getCount() {
+        return entries.size();
+    }
+
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    Collection<BufferHolder> bufferHolders() {
+        return entries.keySet();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    static class Entry {
+        private final BufferHolder bufferHolder;
+        private final int size;
+        // 加入缓存时页的访问次数，用于统计命中率
+        private final long baseAccessCount;
+        private volatile boolean removed = false;
+        private long lastAccessCount;
+        private int weight;
+
+        private Entry(BufferHolder bufferHolder, int weight) {
+            this.bufferHolder = bufferHolder;
+            this.size = bufferHolder.size();
+            this.baseAccessCount = bufferHolder.accessCount();
+            this.lastAccessCount = baseAccessCount;
+            this.weight = weight;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return 加入缓存之后的访问次数，即命中次数
+         */
+        long hitCount() {
+            return bufferHolder.accessCount() - baseAccessCount;
+        }
+    }
+}
@@ -29,17 +29,16 @@ import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
 import java.util.stream.Stream;
 
 /**
@@ -62,13 +61,23 @@ public class PreloadBufferPool implements MemoryCacheManager {
      * 缓存核心利用率，系统会尽量将这个比率以内的内存用满。
      */
     private static final float DEFAULT_CORE_RATIO = 0.8f;
-    private static final long DEFAULT_WRITE_PAGE_EXTRA_WEIGHT_MS = 60000L;
+    /**
+     * 读写页的配额占清理阈值的比率，剩余部分是只读页的配额。
+     */
+    private static final float DEFAULT_WRITE_RATIO = 0.5f;
+    /**
+     * 新加入缓存的读写页的初始权重，只读页的初始权重为0。
+     */
+    private static final int DEFAULT_WRITE_PAGE_WEIGHT = 1;
     private final static long INTERVAL_MS = 50L;
 
     private final static String MAX_MEMORY_KEY = "memory_cache.max_memory";
     private final static String EVICT_RATIO_KEY = "memory_cache.evict_ratio";
     private final static String CORE_RATIO_KEY = "memory_cache.core_ratio";
-    private static final String WRITE_PAGE_EXTRA_WEIGHT_MS_KEY="memory_cache.write.weight.ms";
+    private final static String WRITE_RATIO_KEY = "memory_cache.write_ratio";
+    private static final String WRITE_PAGE_WEIGHT_KEY = "memory_cache.write.weight";
+    // 已废弃，被WRITE_PAGE_WEIGHT_KEY替代
+    private static final String DEPRECATED_WRITE_PAGE_EXTRA_WEIGHT_MS_KEY = "memory_cache.write.weight.ms";
 
     private static final PreloadBufferPool instance = null;
     private final Threads threads = ThreadsFactory.create();
@@ -77,18 +86,16 @@ public class PreloadBufferPool implements MemoryCacheManager {
     private final long maxMemorySize;
     // 核心堆外内存大小，JournalKeeper总是尽量占满coreMemorySize内存用于缓存更多的文件，提升读写性能。
     private final long coreMemorySize;
-    // 堆外内存超过evictMemorySize就会启动清理，清理的策略是LRU
+    // 堆外内存超过evictMemorySize就会启动清理，清理的策略是GCLOCK，见 CacheTier
     private final long evictMemorySize;
-
-    // 正在写入的页在置换时有额外的权重，这个权重用时间Ms体现。
-    // 默认是60秒。
-    // 置换权重 = 上次访问时间戳 + 额外权重，优先从内存中驱逐权重小的页。
-    // 例如：一个只读的页，上次访问时间戳是T，一个读写页，上次访问时间是T - 60秒，
-    // 这两个页在置换时有同样的权重
-    private final long writePageExtraWeightMs;
+    // 读写页和只读页分别有各自的配额，清理时先清理超出配额的那一类页
+    private final long writeQuota;
+    private final long readQuota;
     private final AtomicLong usedSize = new AtomicLong(0L);
-    private final Set<BufferHolder> directBufferHolders = ConcurrentHashMap.newKeySet();
-    private final Set<BufferHolder> mMapBufferHolders = ConcurrentHashMap.newKeySet();
+    // 读写页：DirectBuffer
+    private final CacheTier writeTier;
+    // 只读页：mmap
+    private final CacheTier readTier;
     private Map<Integer, PreLoadCache> bufferCache = new ConcurrentHashMap<>();
 
     public PreloadBufferPool() {
@@ -98,16 +105,22 @@ public class PreloadBufferPool implements MemoryCacheManager {
         evictMemorySize = Math.round(maxMemorySize * evictRatio);
         float coreRatio = getFloatProperty(CORE_RATIO_KEY, DEFAULT_CORE_RATIO);
         coreMemorySize = Math.round(maxMemorySize * coreRatio);
-        writePageExtraWeightMs = Long.parseLong(System.getProperty(WRITE_PAGE_EXTRA_WEIGHT_MS_KEY,String.valueOf(DEFAULT_WRITE_PAGE_EXTRA_WEIGHT_MS)));
+        float writeRatio = getFloatProperty(WRITE_RATIO_KEY, DEFAULT_WRITE_RATIO);
+        writeQuota = Math.round(evictMemorySize * writeRatio);
+        readQuota = evictMemorySize - writeQuota;
+        writeTier = new CacheTier("write", getWritePageWeight());
+        readTier = new CacheTier("mmap", 0);
 
         threads.createThread(buildPreloadThread());
         threads.createThread(buildEvictThread());
         threads.start();
 
-        logger.info("JournalKeeper PreloadBufferPool loaded, max direct memory: {}, core direct memory: {}, evict direct memory: {}.",
+        logger.info("JournalKeeper PreloadBufferPool loaded, max direct memory: {}, core direct memory: {}, evict direct memory: {}, write/mmap quota: {}/{}.",
                 Format.formatSize(maxMemorySize),
                 Format.formatSize(coreMemorySize),
-                Format.formatSize(evictMemorySize));
+                Format.formatSize(evictMemorySize),
+                Format.formatSize(writeQuota),
+                Format.formatSize(readQuota));
     }
 
     private static float getFloatProperty(String key, float defaultValue) {
@@ -118,6 +131,30 @@ public class PreloadBufferPool implements MemoryCacheManager {
         }
     }
 
+    /**
+     * 读写页的初始权重。
+     * 旧配置memory_cache.write.weight.ms按时间给读写页额外的权重，GCLOCK置换中不再适用：
+     * 配置为0时表示读写页没有额外权重，初始权重为0，其它值使用默认权重。
+     */
+    private static int getWritePageWeight() {
+        String weight = System.getProperty(WRITE_PAGE_WEIGHT_KEY);
+        String deprecatedWeightMs = System.getProperty(DEPRECATED_WRITE_PAGE_EXTRA_WEIGHT_MS_KEY);
+        if (null == weight && null != deprecatedWeightMs) {
+            logger.warn("Property \"{}\" is deprecated and replaced by \"{}\" (0 - {}).",
+                    DEPRECATED_WRITE_PAGE_EXTRA_WEIGHT_MS_KEY, WRITE_PAGE_WEIGHT_KEY, CacheTier.MAX_WEIGHT);
+            try {
+                return Long.parseLong(deprecatedWeightMs) <= 0L ? 0 : DEFAULT_WRITE_PAGE_WEIGHT;
+            } catch (NumberFormatException e) {
+                return DEFAULT_WRITE_PAGE_WEIGHT;
+            }
+        }
+        try {
+            return null == weight ? DEFAULT_WRITE_PAGE_WEIGHT : Integer.parseInt(weight);
+        } catch (NumberFormatException e) {
+            return DEFAULT_WRITE_PAGE_WEIGHT;
+        }
+    }
+
     private AsyncLoopThread buildPreloadThread() {
         return ThreadBuilder.builder()
                 .name(PRELOAD_THREAD)
@@ -140,9 +177,10 @@ public class PreloadBufferPool implements MemoryCacheManager {
     }
 
     /**
-     * 清除文件缓存页。LRU。
+     * 清除文件缓存页。
+     * 先清理超出配额的那一类页，如果内存占用仍然超过阈值，优先清理只读页。
      */
-    private synchronized void evict() {
+    private void evict() {
 
         // 清理超过maxCount的缓存页
         for (PreLoadCache preLoadCache : bufferCache.values()) {
@@ -157,25 +195,27 @@ public class PreloadBufferPool implements MemoryCacheManager {
             }
         }
 
-        // 清理使用中最旧的页面，直到内存占用率达标
         if (needEviction()) {
-            List<LruWrapper<BufferHolder>> sorted;
-            sorted = Stream.concat(directBufferHolders.stream(), mMapBufferHolders.stream())
-                    .filter(BufferHolder::isFree)
-                    .map(bufferHolder -> new LruWrapper<>(bufferHolder, bufferHolder.lastAccessTime(), bufferHolder.writable() ? writePageExtraWeightMs : 0L))
-                    .sorted(Comparator.comparing(LruWrapper::getWeight))
-                    .collect(Collectors.toList());
-
-            while (needEviction() && !sorted.isEmpty()) {
-                LruWrapper<BufferHolder> wrapper = sorted.remove(0);
-                BufferHolder holder = wrapper.get();
-                if (holder.lastAccessTime() == wrapper.getLastAccessTime()) {
-                    holder.evict();
-                }
-            }
+            evict(writeTier, writeQuota, readTier, readQuota, () -> !needEviction());
         }
     }
 
+    /**
+     * 按配额清理读写页和只读页。
+     * 先清理超出配额的那一类页，如果内存占用仍然超过阈值，优先清理只读页。
+     * @param writeTier 读写页
+     * @param writeQuota 读写页的配额
+     * @param readTier 只读页
+     * @param readQuota 只读页的配额
+     * @param enough 已经清理够了
+     */
+    static void evict(CacheTier writeTier, long writeQuota, CacheTier readTier, long readQuota, BooleanSupplier enough) {
+        writeTier.evict(bufferHolder -> true, () -> enough.getAsBoolean() || writeTier.getUsedSize() <= writeQuota);
+        readTier.evict(bufferHolder -> true, () -> enough.getAsBoolean() || readTier.getUsedSize() <= readQuota);
+        readTier.evict(bufferHolder -> true, enough);
+        writeTier.evict(bufferHolder -> true, enough);
+    }
+
     @Override
     public void printMetric() {
         long totalUsed = usedSize.get();
@@ -183,14 +223,14 @@ public class PreloadBufferPool implements MemoryCacheManager {
             long cached = preLoadCache.cache.size();
             long usedPreLoad = preLoadCache.onFlyCounter.get();
             long totalSize = preLoadCache.bufferSize * (cached + usedPreLoad);
-            logger.info("PreloadCache usage: cached: {} * {} = {}, used: {} * {} = {}, total: {}",
+            logger.info("PreloadCache usage: cached: {} * {} = {}, used: {} * {} = {}, total: {}, hit/miss: {}/{}.",
                     Format.formatSize(preLoadCache.bufferSize), cached, Format.formatSize(preLoadCache.bufferSize * cached),
                     Format.formatSize(preLoadCache.bufferSize), usedPreLoad, Format.formatSize(preLoadCache.bufferSize * usedPreLoad),
-                    Format.formatSize(totalSize));
+                    Format.formatSize(totalSize), preLoadCache.getHitCount(), preLoadCache.getMissCount());
             return totalSize;
         }).sum();
-        long mmpUsed = mMapBufferHolders.stream().mapToLong(BufferHolder::size).sum();
-        long directUsed = directBufferHolders.stream().mapToLong(BufferHolder::size).sum();
+        long mmpUsed = readTier.getUsedSize();
+        long directUsed = writeTier.getUsedSize();
         logger.info("Direct memory usage: preload/direct/mmp/used/max: {}/{}/{}/{}/{}.",
                 Format.formatSize(plUsed),
                 Format.formatSize(directUsed),
@@ -213,7 +253,8 @@ public class PreloadBufferPool implements MemoryCacheManager {
 
     @Override
     public synchronized void addPreLoad(int bufferSize, int coreCount, int maxCount) {
-        PreLoadCache preLoadCache = bufferCache.putIfAbsent(bufferSize, new PreLoadCache(bufferSize, coreCount, maxCount));
+        PreLoadCache preLoadCache = bufferCache.putIfAbsent(bufferSize,
+                new PreLoadCache(bufferSize, coreCount, maxCount, () -> liveHitCount(bufferSize)));
         if (null != preLoadCache) {
             preLoadCache.referenceCount.incrementAndGet();
         }
@@ -247,19 +288,9 @@ public class PreloadBufferPool implements MemoryCacheManager {
                         return;
                     }
                 } else {
-                    List<LruWrapper<BufferHolder>> outdated = directBufferHolders.stream()
-                            .filter(b -> b.size() == preLoadCache.bufferSize)
-                            .filter(BufferHolder::isFree)
-                            .map(bufferHolder -> new LruWrapper<>(bufferHolder, bufferHolder.lastAccessTime(), bufferHolder.writable() ? writePageExtraWeightMs : 0L))
-                            .sorted(Comparator.comparing(LruWrapper::getWeight))
-                            .collect(Collectors.toList());
-                    while (preLoadCache.cache.size() < preLoadCache.coreCount && !outdated.isEmpty()) {
-                        LruWrapper<BufferHolder> wrapper = outdated.remove(0);
-                        BufferHolder holder = wrapper.get();
-                        if (holder.lastAccessTime() == wrapper.getLastAccessTime()) {
-                            holder.evict();
-                        }
-                    }
+                    // 内存已经用满，置换出同样大小的读写页补充到预加载缓存中
+                    writeTier.evict(bufferHolder -> bufferHolder.size() == preLoadCache.bufferSize,
+                            () -> preLoadCache.cache.size() >= preLoadCache.coreCount);
                 }
             }
         }
@@ -321,16 +352,41 @@ public class PreloadBufferPool implements MemoryCacheManager {
     @Override
     public void allocateMMap(BufferHolder bufferHolder) {
         reserveMemory(bufferHolder.size());
-        mMapBufferHolders.add(bufferHolder);
+        readTier.add(bufferHolder);
+        recordMiss(bufferHolder.size());
     }
 
     @Override
     public ByteBuffer allocateDirect(int bufferSize, BufferHolder bufferHolder) {
         ByteBuffer buffer = allocateDirect(bufferSize);
-        directBufferHolders.add(bufferHolder);
+        writeTier.add(bufferHolder);
+        recordMiss(bufferSize);
         return buffer;
     }
 
+    private void recordMiss(int bufferSize) {
+        PreLoadCache preLoadCache = bufferCache.get(bufferSize);
+        if (null != preLoadCache) {
+            preLoadCache.missCounter.increment();
+        }
+    }
+
+    private void recordHits(CacheTier.Entry entry) {
+        if (null != entry) {
+            PreLoadCache preLoadCache = bufferCache.get(entry.size());
+            if (null != preLoadCache) {
+                preLoadCache.hitCounter.add(entry.hitCount());
+            }
+        }
+    }
+
+    private long liveHitCount(int bufferSize) {
+        return Stream.concat(writeTier.entries().stream(), readTier.entries().stream())
+                .filter(entry -> entry.size() == bufferSize)
+                .mapToLong(CacheTier.Entry::hitCount)
+                .sum();
+    }
+
     private ByteBuffer allocateDirect(int bufferSize) {
         try {
             PreLoadCache preLoadCache = bufferCache.get(bufferSize);
@@ -359,7 +415,7 @@ public class PreloadBufferPool implements MemoryCacheManager {
 
     @Override
     public void releaseDirect(ByteBuffer byteBuffer, BufferHolder bufferHolder) {
-        directBufferHolders.remove(bufferHolder);
+        recordHits(writeTier.remove(bufferHolder));
         int size = byteBuffer.capacity();
         PreLoadCache preLoadCache = bufferCache.get(size);
         if (null != preLoadCache) {
@@ -378,7 +434,7 @@ public class PreloadBufferPool implements MemoryCacheManager {
 
     @Override
     public void releaseMMap(BufferHolder bufferHolder) {
-        mMapBufferHolders.remove(bufferHolder);
+        recordHits(readTier.remove(bufferHolder));
         usedSize.getAndAdd(-1 * bufferHolder.size());
 
     }
@@ -400,7 +456,7 @@ public class PreloadBufferPool implements MemoryCacheManager {
 
     @Override
     public long getDirectUsedMemorySize() {
-        return directBufferHolders.stream().mapToLong(BufferHolder::size).sum() +
+        return writeTier.getUsedSize() +
                 bufferCache.values().stream().mapToLong(c -> c.getBufferSize() * c.getCachedCount()).sum();
     }
 
@@ -452,8 +508,8 @@ public class PreloadBufferPool implements MemoryCacheManager {
 
                 }
             });
-            PreloadBufferPool.instance.directBufferHolders.parallelStream().forEach(BufferHolder::evict);
-            PreloadBufferPool.instance.mMapBufferHolders.parallelStream().forEach(BufferHolder::evict);
+            new ArrayList<>(PreloadBufferPool.instance.writeTier.bufferHolders()).parallelStream().forEach(BufferHolder::evict);
+            new ArrayList<>(PreloadBufferPool.instance.readTier.bufferHolders()).parallelStream().forEach(BufferHolder::evict);
             PreloadBufferPool.instance.bufferCache.values().forEach(p -> {
                 while (!p.cache.isEmpty()) {
                     PreloadBufferPool.instance.destroyOne(p.cache.remove());
@@ -465,7 +521,7 @@ public class PreloadBufferPool implements MemoryCacheManager {
     }
     @Override
     public long getMapUsedMemorySize() {
-        return mMapBufferHolders.stream().mapToLong(BufferHolder::size).sum();
+        return readTier.getUsedSize();
     }
 
     public static class PreLoadCache implements PreloadCacheMetric {
@@ -474,12 +530,18 @@ public class PreloadBufferPool implements MemoryCacheManager {
         private final Queue<ByteBuffer> cache = new ConcurrentLinkedQueue<>();
         private final AtomicInteger onFlyCounter = new AtomicInteger(0);
         private final AtomicInteger referenceCount;
+        // 已经释放的缓存页的命中次数
+        private final LongAdder hitCounter = new LongAdder();
+        private final LongAdder missCounter = new LongAdder();
+        // 还在缓存中的页的命中次数
+        private final LongSupplier liveHitCounter;
 
-        PreLoadCache(int bufferSize, int coreCount, int maxCount) {
+        PreLoadCache(int bufferSize, int coreCount, int maxCount, LongSupplier liveHitCounter) {
             this.bufferSize = bufferSize;
             this.coreCount = coreCount;
             this.maxCount = maxCount;
             this.referenceCount = new AtomicInteger(1);
+            this.liveHitCounter = liveHitCounter;
         }
 
         public int getBufferSize() {
@@ -501,29 +563,13 @@ public class PreloadBufferPool implements MemoryCacheManager {
         public int getCachedCount() {
             return cache.size();
         }
-    }
-
-    private static class LruWrapper<V> {
-        private final long lastAccessTime;
-        private final long extraWeight;
-        private final V t;
-
-        LruWrapper(V t, long lastAccessTime, long extraWeight) {
-            this.lastAccessTime = lastAccessTime;
-            this.t = t;
-            this.extraWeight = extraWeight;
-        }
-
-        private long getLastAccessTime() {
-            return lastAccessTime;
-        }
 
-        private V get() {
-            return t;
+        public long getHitCount() {
+            return hitCounter.sum() + liveHitCounter.getAsLong();
         }
 
-        private long getWeight() {
-            return lastAccessTime + extraWeight;
+        public long getMissCount() {
+            return missCounter.sum();
         }
     }
 }
@@ -15,4 +15,16 @@ public interface PreloadCacheMetric {
 
     int getCachedCount();
 
+    /**
+     * 这个大小的缓存页被访问时已经在内存中的次数
+     * @return 命中次数
+     */
+    long getHitCount();
+
+    /**
+     * 这个大小的缓存页被访问时需要加载到内存中的次数
+     * @return 未命中次数
+     */
+    long getMissCount();
+
 }
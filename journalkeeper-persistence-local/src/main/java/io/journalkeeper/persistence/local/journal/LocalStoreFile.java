@@ -31,6 +31,7 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.StampedLock;
 
 /**
@@ -63,7 +64,11 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
 
     private MemoryCacheManager bufferPool;
     private final int capacity;
+    // 上次加载缓存页的时间
     private long lastAccessTime = System.currentTimeMillis();
+    // 访问次数和加载缓存页的次数，见 BufferHolder#accessCount()
+    private final LongAdder accessCounter = new LongAdder();
+    private final LongAdder missCounter = new LongAdder();
 
     // 当前刷盘位置
     private int flushPosition;
@@ -100,6 +105,7 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
 
     private void loadRoUnsafe() throws IOException {
         if (null != pageBuffer) throw new IOException("Buffer already loaded!");
+        onLoad();
         bufferPool.allocateMMap(this);
         ByteBuffer loadBuffer;
         try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel fileChannel = raf.getChannel()) {
@@ -126,6 +132,7 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
             unloadUnsafe();
         }
 
+        onLoad();
         ByteBuffer buffer = bufferPool.allocateDirect(capacity, this);
         loadDirectBuffer(buffer);
         writeClosed = false;
@@ -239,6 +246,23 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
             if (rs != 0L) {
                 stamp = rs;
             }
+            if (length < 0) {
+                // 自动判断数据长度：数据以4字节的长度开头
+                if ((long) position + Integer.BYTES > writePosition) {
+                    throw new IOException(String.format("No length at position %d, write position: %d, file: %s.",
+                            position, writePosition, file.getAbsolutePath()));
+                }
+                length = pageBuffer.getInt(position);
+                if (length < Integer.BYTES) {
+                    throw new IOException(String.format("Invalid length %d at position %d, file: %s.",
+                            length, position, file.getAbsolutePath()));
+                }
+                if ((long) position + length > writePosition) {
+                    throw new IOException(String.format(
+                            "Length %d at position %d exceeds write position %d, file: %s.",
+                            length, position, writePosition, file.getAbsolutePath()));
+                }
+            }
             ByteBuffer byteBuffer = pageBuffer.asReadOnlyBuffer();
             byteBuffer.position(position);
             byteBuffer.limit(writePosition);
@@ -359,6 +383,11 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
     }
 
     private void touch() {
+        accessCounter.increment();
+    }
+
+    private void onLoad() {
+        missCounter.increment();
         lastAccessTime = System.currentTimeMillis();
     }
 
@@ -532,9 +561,20 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
         return bufferType == DIRECT_BUFFER && !writeClosed;
     }
 
+    @Override
+    public long accessCount() {
+        return accessCounter.sum();
+    }
+
+    @Override
+    public long missCount() {
+        return missCounter.sum();
+    }
+
     private void closeFileChannel() throws IOException {
-        force();
-        if (null != fileChannel) {
+        // 从未加载过的文件没有打开文件描述符，不需要刷盘
+        if (null != fileChannel && fileChannel.isOpen()) {
+            force();
             fileChannel.close();
         }
         if (null != raf) {
@@ -542,6 +582,18 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
         }
     }
 
+    @Override
+    public void sync() throws IOException {
+        fileLock.waitAndLock();
+        try {
+            if (null != fileChannel && fileChannel.isOpen()) {
+                fileChannel.force(false);
+            }
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
     @Override
     public void force() throws IOException {
         if(forced.compareAndSet(false, true)) {
@@ -19,6 +19,7 @@ import io.journalkeeper.persistence.JournalPersistence;
 import io.journalkeeper.persistence.MonitoredPersistence;
 import io.journalkeeper.persistence.TooManyBytesException;
 import io.journalkeeper.utils.ThreadSafeFormat;
+import io.journalkeeper.utils.locks.ProgressCondition;
 import io.journalkeeper.utils.spi.ServiceSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -52,10 +54,13 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
     private final Object fileMapMutex = new Object();    // 正在写入的
     private File base;
     private AtomicLong flushPosition = new AtomicLong(0L);
+    private AtomicLong syncPosition = new AtomicLong(0L);
     private AtomicLong writePosition = new AtomicLong(0L);
     private AtomicLong leftPosition = new AtomicLong(0L);
     private StoreFile writeStoreFile = null;
     private Config config = null;
+    // 脏数据超过上限时，写入线程在这里等待刷盘
+    private final ProgressCondition flushProgress = new ProgressCondition();
 
     public PositioningStore() {
         this.bufferPool = ServiceSupport.load(MemoryCacheManager.class);
@@ -90,7 +95,9 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
                 rollbackFiles(givenMax);
                 this.writePosition.set(givenMax);
                 if (this.flushPosition.get() > givenMax) this.flushPosition.set(givenMax);
+                if (this.syncPosition.get() > givenMax) this.syncPosition.set(givenMax);
                 resetWriteStoreFile();
+                flushProgress.signalAll();
             }
         }
     }
@@ -161,6 +168,7 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
 
         long recoverPosition = this.storeFileMap.isEmpty() ? min : this.storeFileMap.lastKey() + this.storeFileMap.lastEntry().getValue().fileDataSize();
         flushPosition.set(recoverPosition);
+        syncPosition.set(recoverPosition);
         writePosition.set(recoverPosition);
 
         leftPosition.set(this.storeFileMap.isEmpty() ? min : this.storeFileMap.firstKey());
@@ -233,15 +241,21 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
 
     @Override
     public long append(byte[] bytes) throws IOException {
+        return append(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public long append(ByteBuffer entry) throws IOException {
 
-        if (bytes.length > config.fileDataSize) {
-            throw new TooManyBytesException(bytes.length, config.fileDataSize, base.toPath());
+        if (entry.remaining() > config.fileDataSize) {
+            throw new TooManyBytesException(entry.remaining(), config.fileDataSize, base.toPath());
         }
 
         // Wait for flush
         maybeWaitForFlush();
 
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        // 直接从entry复制到页缓存，不经过堆内数组
+        ByteBuffer buffer = entry.duplicate();
         if (null == writeStoreFile) writeStoreFile = createStoreFile(writePosition.get());
         if (writeStoreFile.size() - writeStoreFile.writePosition() < buffer.remaining()) {
             writeStoreFile.closeWrite();
@@ -281,9 +295,14 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
     }
 
 
-    private void maybeWaitForFlush() {
-        while (config.getMaxDirtySize() > 0 && max() - flushed() > config.getMaxDirtySize()) {
-            Thread.yield();
+    private void maybeWaitForFlush() throws InterruptedIOException {
+        if (config.getMaxDirtySize() > 0) {
+            try {
+                flushProgress.await(() -> max() - flushed() <= config.getMaxDirtySize());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
         }
     }
 
@@ -326,10 +345,25 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
             }
             if (flushPosition.get() < storeFile.position() + storeFile.flushPosition()) {
                 flushPosition.set(storeFile.position() + storeFile.flushPosition());
+                flushProgress.signalAll();
             }
         }
     }
 
+    @Override
+    public void sync() throws IOException {
+        long synced = syncPosition.get();
+        long flushed = flushPosition.get();
+        if (synced < flushed) {
+            // 同步上次同步之后所有写入过数据的文件
+            Long fromKey = storeFileMap.floorKey(synced);
+            for (StoreFile storeFile : storeFileMap.subMap(null == fromKey ? synced : fromKey, true, flushed, false).values()) {
+                storeFile.sync();
+            }
+            syncPosition.compareAndSet(synced, flushed);
+        }
+    }
+
     private StoreFile createStoreFile(long position) {
         StoreFile storeFile = new LocalStoreFile(position, base, config.getFileHeaderSize(), bufferPool, config.getFileDataSize());
         StoreFile present;
@@ -358,6 +392,17 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
         return storeFile.read(relPosition, length).array();
     }
 
+    @Override
+    public byte[] readLengthPrefixed(long position) throws IOException {
+        checkReadPosition(position);
+        StoreFile storeFile = getStoreFile(position);
+        if(null == storeFile) {
+            return null;
+        }
+        int relPosition = (int) (position - storeFile.position());
+        return storeFile.read(relPosition, -1).array();
+    }
+
     public Long readLong(long position) throws IOException {
         checkReadPosition(position);
         StoreFile storeFile = getStoreFile(position);
@@ -470,6 +515,11 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
         return base.getTotalSpace();
     }
 
+    @Override
+    public long getWriteStallTimeMs() {
+        return flushProgress.getStallTimeMs();
+    }
+
     @Override
     public String toString() {
         return "PositioningStore{" +
@@ -132,5 +132,11 @@ public interface StoreFile extends Timed {
      */
     void force() throws IOException;
 
+    /**
+     * 把已经刷盘的数据同步到磁盘上（fdatasync），可以反复调用
+     * @throws IOException 发生IO异常时抛出
+     */
+    void sync() throws IOException;
+
     Long readLong(int position) throws IOException;
 }
@@ -0,0 +1,250 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.persistence.local.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * GCLOCK缓存置换和读写页/只读页配额测试
+ */
+public class CacheTierTest {
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * 上次扫描之后被访问过的页不会被置换
+     */
+    @Test
+    public void evictIdlePageTest() {
+        CacheTier tier = new CacheTier("test", 0);
+        TestPage a = add(tier), b = add(tier), c = add(tier);
+        a.access();
+
+        Assert.assertEquals(1, tier.evict(page -> true, () -> tier.getCount() <= 2));
+        Assert.assertFalse(a.evicted);
+        Assert.assertTrue(b.evicted);
+        Assert.assertFalse(c.evicted);
+        Assert.assertEquals(2 * PAGE_SIZE, tier.getUsedSize());
+    }
+
+    /**
+     * 经常访问的页在多轮置换中存活
+     */
+    @Test
+    public void hotPageSurvivesTest() {
+        CacheTier tier = new CacheTier("test", 0);
+        TestPage hot = add(tier);
+        for (int round = 0; round < 10; round++) {
+            TestPage cold = add(tier);
+            hot.access();
+            tier.evict(page -> true, () -> tier.getCount() <= 1);
+            Assert.assertTrue(cold.evicted);
+            Assert.assertFalse(hot.evicted);
+        }
+        Assert.assertEquals(1, tier.getCount());
+    }
+
+    /**
+     * 权重每轮扫描减1，减到0之后才能置换，权重不超过MAX_WEIGHT
+     */
+    @Test
+    public void weightTest() {
+        for (int initialWeight = 0; initialWeight <= CacheTier.MAX_WEIGHT + 2; initialWeight++) {
+            CacheTier tier = new CacheTier("test", initialWeight);
+            TestPage page = add(tier);
+            int scansBefore = page.accessCountCalls;
+            Assert.assertEquals(1, tier.evict(p -> true, () -> false));
+            Assert.assertTrue(page.evicted);
+            Assert.assertEquals(Math.min(initialWeight, CacheTier.MAX_WEIGHT) + 1, page.accessCountCalls - scansBefore);
+        }
+    }
+
+    /**
+     * 不能释放或者不满足过滤条件的页不会被置换，扫描的次数有上限
+     */
+    @Test
+    public void notEvictableTest() {
+        CacheTier tier = new CacheTier("test", 0);
+        TestPage busy = add(tier);
+        busy.free = false;
+        TestPage large = add(tier, 2 * PAGE_SIZE);
+
+        Assert.assertEquals(0, tier.evict(page -> page.size() == PAGE_SIZE, () -> false));
+        Assert.assertFalse(busy.evicted);
+        Assert.assertFalse(large.evicted);
+        Assert.assertEquals(2, tier.getCount());
+
+        busy.free = true;
+        Assert.assertEquals(1, tier.evict(page -> page.size() == PAGE_SIZE, () -> false));
+        Assert.assertTrue(busy.evicted);
+        Assert.assertFalse(large.evicted);
+    }
+
+    @Test
+    public void addAndRemoveTest() {
+        CacheTier tier = new CacheTier("test", 0);
+        TestPage a = add(tier), b = add(tier);
+        Assert.assertEquals(2 * PAGE_SIZE, tier.getUsedSize());
+
+        // 重复加入只计算一次
+        tier.add(a);
+        Assert.assertEquals(2, tier.getCount());
+        Assert.assertEquals(2 * PAGE_SIZE, tier.getUsedSize());
+
+        Assert.assertNotNull(tier.remove(a));
+        Assert.assertNull(tier.remove(a));
+        Assert.assertEquals(PAGE_SIZE, tier.getUsedSize());
+
+        // 已删除的页不会被置换
+        Assert.assertEquals(1, tier.evict(page -> true, () -> false));
+        Assert.assertFalse(a.evicted);
+        Assert.assertTrue(b.evicted);
+        Assert.assertEquals(0L, tier.getUsedSize());
+    }
+
+    /**
+     * 先清理超出配额的读写页
+     */
+    @Test
+    public void writeOverQuotaTest() {
+        CacheTier writeTier = new CacheTier("write", 0);
+        CacheTier readTier = new CacheTier("read", 0);
+        addPages(writeTier, 4);
+        addPages(readTier, 2);
+
+        PreloadBufferPool.evict(writeTier, 2 * PAGE_SIZE, readTier, 3 * PAGE_SIZE,
+                () -> writeTier.getUsedSize() + readTier.getUsedSize() <= 5 * PAGE_SIZE);
+        Assert.assertEquals(3 * PAGE_SIZE, writeTier.getUsedSize());
+        Assert.assertEquals(2 * PAGE_SIZE, readTier.getUsedSize());
+    }
+
+    /**
+     * 先清理超出配额的只读页
+     */
+    @Test
+    public void readOverQuotaTest() {
+        CacheTier writeTier = new CacheTier("write", 0);
+        CacheTier readTier = new CacheTier("read", 0);
+        addPages(writeTier, 2);
+        addPages(readTier, 4);
+
+        PreloadBufferPool.evict(writeTier, 3 * PAGE_SIZE, readTier, 2 * PAGE_SIZE,
+                () -> writeTier.getUsedSize() + readTier.getUsedSize() <= 3 * PAGE_SIZE);
+        // 只读页清理到配额以内后仍然超过阈值，继续优先清理只读页
+        Assert.assertEquals(2 * PAGE_SIZE, writeTier.getUsedSize());
+        Assert.assertEquals(PAGE_SIZE, readTier.getUsedSize());
+    }
+
+    /**
+     * 都没有超出配额时优先清理只读页，只读页不能释放时再清理读写页
+     */
+    @Test
+    public void withinQuotaTest() {
+        CacheTier writeTier = new CacheTier("write", 0);
+        CacheTier readTier = new CacheTier("read", 0);
+        addPages(writeTier, 2);
+        addPages(readTier, 2);
+
+        PreloadBufferPool.evict(writeTier, 3 * PAGE_SIZE, readTier, 3 * PAGE_SIZE,
+                () -> writeTier.getUsedSize() + readTier.getUsedSize() <= 3 * PAGE_SIZE);
+        Assert.assertEquals(2 * PAGE_SIZE, writeTier.getUsedSize());
+        Assert.assertEquals(PAGE_SIZE, readTier.getUsedSize());
+
+        for (BufferHolder page : readTier.bufferHolders()) {
+            ((TestPage) page).free = false;
+        }
+        PreloadBufferPool.evict(writeTier, 3 * PAGE_SIZE, readTier, 3 * PAGE_SIZE,
+                () -> writeTier.getUsedSize() + readTier.getUsedSize() <= 2 * PAGE_SIZE);
+        Assert.assertEquals(PAGE_SIZE, writeTier.getUsedSize());
+        Assert.assertEquals(PAGE_SIZE, readTier.getUsedSize());
+    }
+
+    private static void addPages(CacheTier tier, int count) {
+        for (int i = 0; i < count; i++) {
+            add(tier);
+        }
+    }
+
+    private static TestPage add(CacheTier tier) {
+        return add(tier, PAGE_SIZE);
+    }
+
+    private static TestPage add(CacheTier tier, int size) {
+        TestPage page = new TestPage(tier, size);
+        tier.add(page);
+        return page;
+    }
+
+    /**
+     * 释放时从所在的CacheTier中删除，和LocalStoreFile的行为一致
+     */
+    private static class TestPage implements BufferHolder {
+        private final CacheTier tier;
+        private final int size;
+        private long accessCount = 0L;
+        private int accessCountCalls = 0;
+        private boolean free = true;
+        private boolean evicted = false;
+
+        private TestPage(CacheTier tier, int size) {
+            this.tier = tier;
+            this.size = size;
+        }
+
+        void access() {
+            accessCount++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isFree() {
+            return free;
+        }
+
+        @Override
+        public boolean evict() {
+            if (!free) {
+                return false;
+            }
+            evicted = true;
+            tier.remove(this);
+            return true;
+        }
+
+        @Override
+        public boolean writable() {
+            return false;
+        }
+
+        @Override
+        public long accessCount() {
+            accessCountCalls++;
+            return accessCount;
+        }
+
+        @Override
+        public long missCount() {
+            return 0L;
+        }
+
+        @Override
+        public long lastAccessTime() {
+            return 0L;
+        }
+    }
+}
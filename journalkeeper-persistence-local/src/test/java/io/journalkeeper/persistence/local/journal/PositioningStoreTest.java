@@ -29,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Properties;
@@ -95,6 +96,43 @@ public class PositioningStoreTest {
 
     }
 
+    @Test
+    public void readLengthPrefixedTest() throws IOException, InterruptedException {
+        try (JournalPersistence store = prepareStore()) {
+            long start = store.max();
+            byte[] record = lengthPrefixed(100, 100);
+            long truncatedPosition = store.append(record);
+            // 长度声明为100字节，实际只写入了50字节
+            byte[] truncated = new byte[50];
+            System.arraycopy(lengthPrefixed(100, 100), 0, truncated, 0, truncated.length);
+            long partialLengthPosition = store.append(truncated);
+            // 不足4字节，连长度都不完整
+            store.append(new byte[]{0, 0});
+
+            Assert.assertArrayEquals(record, store.readLengthPrefixed(start));
+            assertReadLengthPrefixedFails(store, truncatedPosition);
+            assertReadLengthPrefixedFails(store, partialLengthPosition);
+        }
+    }
+
+    private static byte[] lengthPrefixed(int length, int fill) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length);
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) fill);
+        }
+        return buffer.array();
+    }
+
+    private static void assertReadLengthPrefixedFails(JournalPersistence store, long position) {
+        try {
+            store.readLengthPrefixed(position);
+            Assert.fail("Expect IOException at position " + position);
+        } catch (IOException expected) {
+            logger.info("Expected exception: {}", expected.getMessage());
+        }
+    }
+
     // recover
     @Test
     public void recoverTest() throws IOException {
@@ -15,6 +15,7 @@ package io.journalkeeper.persistence;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Properties;
@@ -58,6 +59,14 @@ public interface JournalPersistence extends Closeable {
     default void flush() throws IOException {
     }
 
+    /**
+     * 将已经刷盘的数据同步到磁盘上（fdatasync），保证服务器宕机后数据不丢失。
+     * 调用前需要先执行{@link #flush()}。
+     * @throws IOException 发生IO异常时抛出
+     */
+    default void sync() throws IOException {
+    }
+
     ;
 
     /**
@@ -86,6 +95,25 @@ public interface JournalPersistence extends Closeable {
      */
     long append(byte[] entry) throws IOException;
 
+    /**
+     * 追加写入ByteBuffer中从position到limit的数据，保证原子性。
+     * 用于直接写入网络接收的堆外内存，实现应当避免将数据复制到堆内。
+     * 写入后buffer的position不变。
+     * @param entry 待写入的entry
+     * @return 写入后新的位置
+     * @throws TooManyBytesException 当写入数据超长时抛出
+     * @throws IOException 发生IO异常时抛出
+     */
+    default long append(ByteBuffer entry) throws IOException {
+        if (entry.hasArray() && entry.arrayOffset() == 0 && entry.position() == 0 &&
+                entry.remaining() == entry.array().length) {
+            return append(entry.array());
+        }
+        byte[] bytes = new byte[entry.remaining()];
+        entry.duplicate().get(bytes);
+        return append(bytes);
+    }
+
     /**
      * 追加写入，保证原子性
      * @param entries 待写入的entry列表
@@ -104,6 +132,18 @@ public interface JournalPersistence extends Closeable {
      */
     byte[] read(long position, int length) throws IOException;
 
+    /**
+     * 读取一条以4字节长度开头的记录，长度包含长度字段本身。
+     * 实现类应尽量在一次读取中完成，避免先读长度再读数据。
+     * @param position 记录起始位置
+     * @return 包含长度字段在内的完整记录
+     * @throws IOException 发生IO异常时抛出
+     */
+    default byte[] readLengthPrefixed(long position) throws IOException {
+        int length = ByteBuffer.wrap(read(position, Integer.BYTES)).getInt();
+        return read(position, length);
+    }
+
     /**
      * 读取long
      * @param position 起始位置
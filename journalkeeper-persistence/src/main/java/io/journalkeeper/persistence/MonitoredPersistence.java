@@ -27,4 +27,12 @@ public interface MonitoredPersistence {
     long getFreeSpace();
 
     long getTotalSpace();
+
+    /**
+     * 写入因等待刷盘被阻塞的累计时间
+     * @return 累计阻塞时间，单位毫秒
+     */
+    default long getWriteStallTimeMs() {
+        return 0L;
+    }
 }
@@ -17,6 +17,7 @@ import io.journalkeeper.rpc.client.ClientServerRpcAccessPoint;
 import io.journalkeeper.rpc.client.JournalKeeperClientServerRpcAccessPoint;
 import io.journalkeeper.rpc.codec.JournalKeeperCodec;
 import io.journalkeeper.rpc.handler.ServerRpcCommandHandlerRegistry;
+import io.journalkeeper.rpc.remoting.transport.TransportClient;
 import io.journalkeeper.rpc.remoting.transport.TransportClientFactory;
 import io.journalkeeper.rpc.remoting.transport.TransportServer;
 import io.journalkeeper.rpc.remoting.transport.command.support.UriRoutedCommandHandlerFactory;
@@ -24,6 +25,7 @@ import io.journalkeeper.rpc.remoting.transport.config.ClientConfig;
 import io.journalkeeper.rpc.remoting.transport.config.ServerConfig;
 import io.journalkeeper.rpc.remoting.transport.support.DefaultTransportClientFactory;
 import io.journalkeeper.rpc.remoting.transport.support.DefaultTransportServerFactory;
+import io.journalkeeper.rpc.remoting.transport.support.SharedTransportClient;
 import io.journalkeeper.rpc.server.JournalKeeperServerRpcAccessPoint;
 import io.journalkeeper.rpc.server.ServerRpc;
 import io.journalkeeper.rpc.server.ServerRpcAccessPoint;
@@ -45,12 +47,17 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 @Singleton
 public class JournalKeeperRpcAccessPointFactory implements RpcAccessPointFactory {
+    /**
+     * 为true时，同一进程中所有Server共用一个TransportClient，访问同一个远端地址时共用一个连接。
+     */
+    public final static String SHARED_TRANSPORT_KEY = "shared_transport";
     private final Logger LOG= LoggerFactory.getLogger(JournalKeeperRpcAccessPointFactory.class);
     private final TransportClientFactory transportClientFactory;
     private final Map<InetSocketAddress /* server port */, TransportServerAndReferenceCount> transportServerMap =
             new HashMap<>();
     private final DefaultTransportServerFactory defaultTransportServerFactory;
     private final UriRoutedCommandHandlerFactory handlerFactory;
+    private SharedTransportClient sharedTransportClient = null;
 
     public JournalKeeperRpcAccessPointFactory() {
         JournalKeeperCodec journalKeeperCodec = new JournalKeeperCodec();
@@ -65,7 +72,20 @@ public class JournalKeeperRpcAccessPointFactory implements RpcAccessPointFactory
     @Override
     public ServerRpcAccessPoint createServerRpcAccessPoint(Properties properties) {
         ClientConfig clientConfig = toClientConfig(properties);
-        return new JournalKeeperServerRpcAccessPoint(transportClientFactory.create(clientConfig), properties);
+        TransportClient transportClient;
+        if (Boolean.parseBoolean(properties.getProperty(SHARED_TRANSPORT_KEY, "false"))) {
+            transportClient = getSharedTransportClient(clientConfig);
+        } else {
+            transportClient = transportClientFactory.create(clientConfig);
+        }
+        return new JournalKeeperServerRpcAccessPoint(transportClient, properties);
+    }
+
+    private synchronized TransportClient getSharedTransportClient(ClientConfig clientConfig) {
+        if (null == sharedTransportClient || sharedTransportClient.isClosed()) {
+            sharedTransportClient = new SharedTransportClient(transportClientFactory.create(clientConfig));
+        }
+        return sharedTransportClient;
     }
 
     @Override
@@ -49,6 +49,7 @@ import io.journalkeeper.rpc.remoting.transport.TransportState;
 import io.journalkeeper.rpc.remoting.transport.exception.TransportException;
 import io.journalkeeper.rpc.utils.CommandSupport;
 import io.journalkeeper.utils.event.EventBus;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.threads.AsyncLoopThread;
 import io.journalkeeper.utils.threads.ThreadBuilder;
@@ -57,8 +58,11 @@ import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -73,10 +77,10 @@ public class ClientServerRpcStub implements ClientServerRpc {
     protected final InetSocketAddress inetSocketAddress;
     protected final URI uri;
     protected Transport transport;
-    protected EventBus eventBus = null;
-    protected AsyncLoopThread pullEventThread = null;
-    protected long pullWatchId = -1L;
-    protected long ackSequence = -1L;
+    /**
+     * 每种过滤条件对应服务端的一个pull监听
+     */
+    protected final Map<EventFilter, PullWatch> pullWatches = new HashMap<>();
     protected AtomicBoolean lastRequestSuccess = new AtomicBoolean(true);
     protected final int version;
 
@@ -167,8 +171,8 @@ public class ClientServerRpcStub implements ClientServerRpc {
     }
 
     @Override
-    public CompletableFuture<AddPullWatchResponse> addPullWatch() {
-        return sendRequest(null, RpcTypes.ADD_PULL_WATCH_REQUEST);
+    public CompletableFuture<AddPullWatchResponse> addPullWatch(AddPullWatchRequest request) {
+        return sendRequest(request, RpcTypes.ADD_PULL_WATCH_REQUEST);
     }
 
     @Override
@@ -218,78 +222,109 @@ public class ClientServerRpcStub implements ClientServerRpc {
 
     @Override
     public void watch(EventWatcher eventWatcher) {
-        if (null == eventBus) {
-            initPullEvent();
-        }
-        eventBus.watch(eventWatcher);
+        watch(eventWatcher, EventFilter.ALL);
     }
 
-    private void initPullEvent() {
-        try {
-            AddPullWatchResponse addPullWatchResponse = addPullWatch().get();
-            if (addPullWatchResponse.success()) {
-                eventBus = new EventBus();
-                this.pullWatchId = addPullWatchResponse.getPullWatchId();
-                this.ackSequence = -1L;
-                long pullInterval = addPullWatchResponse.getPullIntervalMs();
-                pullEventThread = buildPullEventsThread(pullInterval);
-                pullEventThread.start();
-            } else {
-                throw new RpcException(addPullWatchResponse);
-            }
-        } catch (Throwable t) {
-            throw new RpcException(t);
+    @Override
+    public synchronized void watch(EventWatcher eventWatcher, EventFilter filter) {
+        PullWatch pullWatch = pullWatches.get(filter);
+        if (null == pullWatch) {
+            pullWatch = new PullWatch(filter);
+            pullWatches.put(filter, pullWatch);
         }
-
+        pullWatch.eventBus.watch(eventWatcher);
     }
 
-    private AsyncLoopThread buildPullEventsThread(long pullInterval) {
-        return ThreadBuilder.builder()
-                .name("PullEventsThread")
-                .doWork(this::pullRemoteEvents)
-                .sleepTime(pullInterval, pullInterval)
-                .onException(e -> logger.warn("PullEventsThread Exception: ", e))
-                .daemon(true)
-                .build();
+    @Override
+    public synchronized void unWatch(EventWatcher eventWatcher) {
+        pullWatches.values().removeIf(pullWatch -> {
+            pullWatch.eventBus.unWatch(eventWatcher);
+            if (!pullWatch.eventBus.hasEventWatchers()) {
+                pullWatch.destroy();
+                return true;
+            }
+            return false;
+        });
     }
 
-    private void pullRemoteEvents() {
-        pullEvents(new PullEventsRequest(pullWatchId, ackSequence))
-                .thenAccept(response -> {
-                    if (response.success()) {
-                        if (null != response.getPullEvents()) {
-                            response.getPullEvents().forEach(pullEvent -> {
-                                eventBus.fireEvent(pullEvent);
-                                ackSequence = pullEvent.getSequence();
-                            });
-                        }
-                    } else {
-                        logger.warn("Pull event error: {}", response.getError());
-                    }
-                });
+    private synchronized void destroyPullWatches() {
+        pullWatches.values().forEach(PullWatch::destroy);
+        pullWatches.clear();
     }
 
-    @Override
-    public void unWatch(EventWatcher eventWatcher) {
-        if (null != eventBus) {
-            eventBus.unWatch(eventWatcher);
-            if (!eventBus.hasEventWatchers()) {
-                destroyPullEvent();
+    /**
+     * 服务端的一个pull监听。
+     * 使用长轮询拉取事件：没有新事件时服务端挂起请求，有新事件时立即返回，
+     * 收到响应后立即发起下一次拉取，事件延迟在毫秒级，空闲时也不会频繁请求。
+     * 协议版本不支持长轮询，或者服务端没有挂起请求时，空响应后等待一个拉取周期再拉取。
+     */
+    protected class PullWatch {
+        private final EventBus eventBus;
+        private final long pullWatchId;
+        private final long pullIntervalMs;
+        private final AsyncLoopThread pullEventThread;
+        private long ackSequence = -1L;
+
+        private PullWatch(EventFilter filter) {
+            try {
+                AddPullWatchResponse addPullWatchResponse = addPullWatch(new AddPullWatchRequest(filter)).get();
+                if (!addPullWatchResponse.success()) {
+                    throw new RpcException(addPullWatchResponse);
+                }
+                this.eventBus = new EventBus();
+                this.pullWatchId = addPullWatchResponse.getPullWatchId();
+                this.pullIntervalMs = addPullWatchResponse.getPullIntervalMs();
+                this.pullEventThread = buildPullEventsThread();
+                this.pullEventThread.start();
+            } catch (RpcException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RpcException(t);
             }
         }
 
-    }
+        private AsyncLoopThread buildPullEventsThread() {
+            return ThreadBuilder.builder()
+                    .name("PullEventsThread")
+                    .doWork(this::pullRemoteEvents)
+                    .sleepTime(0L, 0L)
+                    .onException(e -> logger.warn("PullEventsThread Exception: ", e))
+                    .daemon(true)
+                    .build();
+        }
 
-    private void destroyPullEvent() {
-        if (null != eventBus) {
-            eventBus.shutdown();
-            eventBus = null;
+        private void pullRemoteEvents() throws InterruptedException {
+            // 挂起时间要小于请求超时时间，版本2及以前的协议不支持长轮询
+            long maxWaitMs = version > 2 ? pullIntervalMs / 2 : 0L;
+            PullEventsRequest request = new PullEventsRequest(pullWatchId, ackSequence, maxWaitMs);
+            PullEventsResponse response;
+            long start = System.currentTimeMillis();
+            try {
+                response = pullEvents(request).get();
+            } catch (ExecutionException e) {
+                logger.warn("Pull event exception: {}", null == e.getCause() ? e.getMessage() : e.getCause().getMessage());
+                Thread.sleep(pullIntervalMs);
+                return;
+            }
+            if (response.success()) {
+                if (null != response.getPullEvents() && !response.getPullEvents().isEmpty()) {
+                    response.getPullEvents().forEach(pullEvent -> {
+                        eventBus.fireEvent(pullEvent);
+                        ackSequence = pullEvent.getSequence();
+                    });
+                } else if (maxWaitMs <= 0L || System.currentTimeMillis() - start < maxWaitMs / 2) {
+                    // 服务端没有挂起请求，比如旧版本的协议或者服务端，按照拉取周期轮询，避免空转
+                    Thread.sleep(pullIntervalMs);
+                }
+            } else {
+                logger.warn("Pull event error: {}", response.getError());
+                Thread.sleep(pullIntervalMs);
+            }
         }
-        if (null != pullEventThread) {
+
+        private void destroy() {
+            eventBus.shutdown();
             pullEventThread.stop();
-            eventBus = null;
-        }
-        if (pullWatchId >= 0) {
             try {
                 RemovePullWatchResponse response = removePullWatch(new RemovePullWatchRequest(pullWatchId))
                         .get();
@@ -298,11 +333,8 @@ public class ClientServerRpcStub implements ClientServerRpc {
                 }
             } catch (Throwable t) {
                 logger.warn("Remove pull watch exception: ", t);
-            } finally {
-                pullWatchId = -1L;
             }
         }
-
     }
 
     private synchronized Transport createTransport() {
@@ -322,7 +354,7 @@ public class ClientServerRpcStub implements ClientServerRpc {
 
     @Override
     public void stop() {
-        destroyPullEvent();
+        destroyPullWatches();
         closeTransport();
     }
 }
@@ -13,13 +13,44 @@
  */
 package io.journalkeeper.rpc.codec;
 
+import io.journalkeeper.rpc.client.AddPullWatchRequest;
+import io.journalkeeper.rpc.header.JournalKeeperHeader;
+import io.journalkeeper.rpc.remoting.serialize.CodecSupport;
 import io.journalkeeper.rpc.remoting.transport.command.Type;
+import io.journalkeeper.utils.event.EventFilter;
+import io.netty.buffer.ByteBuf;
+
+import java.util.HashSet;
 
 /**
  * @author LiYue
  * Date: 2019-04-22
  */
-public class AddPullWatchRequestCodec extends VoidPayloadCodec implements Type {
+public class AddPullWatchRequestCodec extends GenericPayloadCodec<AddPullWatchRequest> implements Type {
+    @Override
+    protected void encodePayload(JournalKeeperHeader header, AddPullWatchRequest request, ByteBuf buffer) throws Exception {
+        if (header.getVersion() > 2) {
+            EventFilter filter = request.getFilter();
+            CodecSupport.encodeCollection(buffer, filter.getEventTypes(),
+                    (obj, buffer1) -> CodecSupport.encodeInt(buffer1, (Integer) obj));
+            CodecSupport.encodeString(buffer, filter.getPartition());
+            CodecSupport.encodeString(buffer, filter.getKeyPrefix());
+        }
+    }
+
+    @Override
+    protected AddPullWatchRequest decodePayload(JournalKeeperHeader header, ByteBuf buffer) throws Exception {
+        if (header.getVersion() > 2) {
+            return new AddPullWatchRequest(new EventFilter(
+                    new HashSet<>(CodecSupport.<Integer>decodeCollection(buffer, CodecSupport::decodeInt)),
+                    CodecSupport.decodeString(buffer),
+                    CodecSupport.decodeString(buffer)
+            ));
+        }
+        // 旧版本的请求没有过滤条件，监听所有事件
+        return new AddPullWatchRequest();
+    }
+
     @Override
     public int type() {
         return RpcTypes.ADD_PULL_WATCH_REQUEST;
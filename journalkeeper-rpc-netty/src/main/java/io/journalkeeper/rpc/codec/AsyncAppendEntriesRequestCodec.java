@@ -19,6 +19,11 @@ import io.journalkeeper.rpc.remoting.transport.command.Type;
 import io.journalkeeper.rpc.server.AsyncAppendEntriesRequest;
 import io.netty.buffer.ByteBuf;
 
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author LiYue
  * Date: 2019-04-02
@@ -30,8 +35,12 @@ public class AsyncAppendEntriesRequestCodec extends GenericPayloadCodec<AsyncApp
         CodecSupport.encodeUri(buffer, request.getLeader());
         CodecSupport.encodeLong(buffer, request.getPrevLogIndex());
         CodecSupport.encodeInt(buffer, request.getPrevLogTerm());
-        CodecSupport.encodeList(buffer, request.getEntries(),
-                (obj, buffer1) -> CodecSupport.encodeBytes(buffer1, (byte[]) obj));
+        List<ByteBuffer> entries = request.getEntryBuffers();
+        buffer.writeInt(entries.size());
+        for (ByteBuffer entry : entries) {
+            buffer.writeInt(entry.remaining());
+            buffer.writeBytes(entry.duplicate());
+        }
         CodecSupport.encodeLong(buffer, request.getLeaderCommit());
         CodecSupport.encodeLong(buffer, request.getMaxIndex());
 
@@ -39,12 +48,32 @@ public class AsyncAppendEntriesRequestCodec extends GenericPayloadCodec<AsyncApp
 
     @Override
     protected AsyncAppendEntriesRequest decodePayload(JournalKeeperHeader header, ByteBuf buffer) throws Exception {
-        return new AsyncAppendEntriesRequest(
-                CodecSupport.decodeInt(buffer),
-                CodecSupport.decodeUri(buffer),
-                CodecSupport.decodeLong(buffer),
-                CodecSupport.decodeInt(buffer),
-                CodecSupport.decodeList(buffer, CodecSupport::decodeBytes),
+        int term = CodecSupport.decodeInt(buffer);
+        URI leader = CodecSupport.decodeUri(buffer);
+        long prevLogIndex = CodecSupport.decodeLong(buffer);
+        int prevLogTerm = CodecSupport.decodeInt(buffer);
+
+        // 日志不复制到堆内，直接引用接收缓冲区，处理完请求后释放
+        int size = buffer.readInt();
+        List<ByteBuffer> entries = new ArrayList<>(Math.max(size, 0));
+        ByteBuf entriesBuf = null;
+        if (size > 0) {
+            int start = buffer.readerIndex();
+            int[] offsets = new int[size];
+            int[] lengths = new int[size];
+            for (int i = 0; i < size; i++) {
+                lengths[i] = buffer.readInt();
+                offsets[i] = buffer.readerIndex() - start;
+                buffer.skipBytes(lengths[i]);
+            }
+            entriesBuf = buffer.retainedSlice(start, buffer.readerIndex() - start);
+            for (int i = 0; i < size; i++) {
+                entries.add(entriesBuf.nioBuffer(offsets[i], lengths[i]));
+            }
+        }
+        ByteBuf finalEntriesBuf = entriesBuf;
+        return new AsyncAppendEntriesRequest(term, leader, prevLogIndex, prevLogTerm,
+                entries, null == finalEntriesBuf ? null : finalEntriesBuf::release,
                 CodecSupport.decodeLong(buffer),
                 CodecSupport.decodeLong(buffer));
     }
@@ -31,10 +31,24 @@ public class AsyncAppendEntriesResponseCodec extends ResponseCodec<AsyncAppendEn
         CodecSupport.encodeLong(buffer, response.getJournalIndex());
         CodecSupport.encodeInt(buffer, response.getTerm());
         CodecSupport.encodeInt(buffer, response.getEntryCount());
+        if (header.getVersion() > 3) {
+            CodecSupport.encodeLong(buffer, response.getConflictIndex());
+            CodecSupport.encodeInt(buffer, response.getConflictTerm());
+        }
     }
 
     @Override
     protected AsyncAppendEntriesResponse decodeResponse(JournalKeeperHeader header, ByteBuf buffer) throws Exception {
+        if (header.getVersion() > 3) {
+            return new AsyncAppendEntriesResponse(
+                    CodecSupport.decodeBoolean(buffer),
+                    CodecSupport.decodeLong(buffer),
+                    CodecSupport.decodeInt(buffer),
+                    CodecSupport.decodeInt(buffer),
+                    CodecSupport.decodeLong(buffer),
+                    CodecSupport.decodeInt(buffer)
+            );
+        }
         return new AsyncAppendEntriesResponse(
                 CodecSupport.decodeBoolean(buffer),
                 CodecSupport.decodeLong(buffer),
@@ -28,15 +28,20 @@ public class PullEventsRequestCodec extends GenericPayloadCodec<PullEventsReques
     protected void encodePayload(JournalKeeperHeader header, PullEventsRequest request, ByteBuf buffer) throws Exception {
         CodecSupport.encodeLong(buffer, request.getPullWatchId());
         CodecSupport.encodeLong(buffer, request.getAckSequence());
-
+        if (header.getVersion() > 2) {
+            CodecSupport.encodeLong(buffer, request.getMaxWaitMs());
+        }
     }
 
     @Override
     protected PullEventsRequest decodePayload(JournalKeeperHeader header, ByteBuf buffer) throws Exception {
-        return new PullEventsRequest(
-                CodecSupport.decodeLong(buffer),
-                CodecSupport.decodeLong(buffer)
-        );
+        long pullWatchId = CodecSupport.decodeLong(buffer);
+        long ackSequence = CodecSupport.decodeLong(buffer);
+        if (header.getVersion() > 2) {
+            return new PullEventsRequest(pullWatchId, ackSequence, CodecSupport.decodeLong(buffer));
+        }
+        // 旧版本的请求不支持长轮询，立即返回
+        return new PullEventsRequest(pullWatchId, ackSequence);
     }
 
     @Override
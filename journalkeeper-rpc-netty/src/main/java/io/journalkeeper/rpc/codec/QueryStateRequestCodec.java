@@ -13,6 +13,7 @@
  */
 package io.journalkeeper.rpc.codec;
 
+import io.journalkeeper.core.api.QueryConsistency;
 import io.journalkeeper.rpc.client.QueryStateRequest;
 import io.journalkeeper.rpc.header.JournalKeeperHeader;
 import io.journalkeeper.rpc.remoting.serialize.CodecSupport;
@@ -28,12 +29,20 @@ public class QueryStateRequestCodec extends GenericPayloadCodec<QueryStateReques
     protected void encodePayload(JournalKeeperHeader header, QueryStateRequest request, ByteBuf buffer) throws Exception {
         CodecSupport.encodeLong(buffer, request.getIndex());
         CodecSupport.encodeBytes(buffer, request.getQuery());
+        if (header.getVersion() > 2) {
+            CodecSupport.encodeByte(buffer, (byte) request.getConsistency().value());
+        }
     }
 
     @Override
     protected QueryStateRequest decodePayload(JournalKeeperHeader header, ByteBuf buffer) throws Exception {
         long index = CodecSupport.decodeLong(buffer);
         byte[] query = CodecSupport.decodeBytes(buffer);
+        if (header.getVersion() > 2) {
+            QueryConsistency consistency = QueryConsistency.valueOf(CodecSupport.decodeByte(buffer));
+            return new QueryStateRequest(query, index, consistency);
+        }
+        // 旧版本的请求没有读一致性，按原来的行为处理
         return new QueryStateRequest(query, index);
     }
 
@@ -30,11 +30,21 @@ public class UpdateClusterStateResponseCodec extends LeaderResponseCodec<UpdateC
         if(header.getVersion() > 1) {
             CodecSupport.encodeLong(buffer, leaderResponse.getLastApplied());
         }
+        if(header.getVersion() > 2) {
+            CodecSupport.encodeLong(buffer, leaderResponse.getRetryAfterMs());
+        }
     }
 
     @Override
     protected UpdateClusterStateResponse decodeLeaderResponse(JournalKeeperHeader header, ByteBuf buffer) {
-        if (header.getVersion() > 1) {
+        if (header.getVersion() > 2) {
+            UpdateClusterStateResponse response = new UpdateClusterStateResponse(
+                    CodecSupport.decodeList(buffer, CodecSupport::decodeBytes),
+                    CodecSupport.decodeLong(buffer)
+            );
+            response.setRetryAfterMs(CodecSupport.decodeLong(buffer));
+            return response;
+        } else if (header.getVersion() > 1) {
             return new UpdateClusterStateResponse(
                     CodecSupport.decodeList(buffer, CodecSupport::decodeBytes),
                     CodecSupport.decodeLong(buffer)
@@ -14,6 +14,7 @@
 package io.journalkeeper.rpc.handler;
 
 import io.journalkeeper.rpc.client.AddPullWatchResponse;
+import io.journalkeeper.rpc.payload.GenericPayload;
 import io.journalkeeper.rpc.codec.RpcTypes;
 import io.journalkeeper.rpc.remoting.transport.Transport;
 import io.journalkeeper.rpc.remoting.transport.command.Command;
@@ -42,7 +43,7 @@ public class AddPullWatchHandler implements CommandHandler, Type {
     @Override
     public Command handle(Transport transport, Command command) {
         try {
-            serverRpc.addPullWatch()
+            serverRpc.addPullWatch(GenericPayload.get(command.getPayload()))
                     .exceptionally(AddPullWatchResponse::new)
                     .thenAccept(response -> CommandSupport.sendResponse(response, RpcTypes.ADD_PULL_WATCH_RESPONSE, command, transport));
         } catch (Throwable throwable) {
@@ -19,6 +19,7 @@ import io.journalkeeper.rpc.remoting.transport.Transport;
 import io.journalkeeper.rpc.remoting.transport.command.Command;
 import io.journalkeeper.rpc.remoting.transport.command.Type;
 import io.journalkeeper.rpc.remoting.transport.command.handler.CommandHandler;
+import io.journalkeeper.rpc.server.AsyncAppendEntriesRequest;
 import io.journalkeeper.rpc.server.AsyncAppendEntriesResponse;
 import io.journalkeeper.rpc.server.ServerRpc;
 import io.journalkeeper.rpc.utils.CommandSupport;
@@ -42,11 +43,15 @@ public class AsyncAppendEntriesHandler implements CommandHandler, Type {
 
     @Override
     public Command handle(Transport transport, Command command) {
+        AsyncAppendEntriesRequest request = GenericPayload.get(command.getPayload());
         try {
-            serverRpc.asyncAppendEntries(GenericPayload.get(command.getPayload()))
+            serverRpc.asyncAppendEntries(request)
+                    // 请求中的日志引用了接收缓冲区，处理完成后释放
+                    .whenComplete((response, exception) -> request.release())
                     .exceptionally(AsyncAppendEntriesResponse::new)
                     .thenAccept(response -> CommandSupport.sendResponse(response, RpcTypes.ASYNC_APPEND_ENTRIES_RESPONSE, command, transport));
         } catch (Throwable throwable) {
+            request.release();
             return CommandSupport.newResponseCommand(new AsyncAppendEntriesResponse(throwable), RpcTypes.ASYNC_APPEND_ENTRIES_RESPONSE, command);
         }
         return null;
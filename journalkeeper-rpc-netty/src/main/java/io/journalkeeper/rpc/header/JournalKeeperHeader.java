@@ -27,7 +27,7 @@ public class JournalKeeperHeader implements Header {
 
     public final static int MAGIC = 0x3f4e93d7;
     private static final AtomicInteger requestIdGenerator = new AtomicInteger(0);
-    public final static int DEFAULT_VERSION = 2;
+    public final static int DEFAULT_VERSION = 4;
     private boolean oneWay;
     private int status;
     private String error;
@@ -0,0 +1,50 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.handler;
+
+import io.journalkeeper.rpc.remoting.transport.FlushStatistic;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * 统计写出到Socket的数据包数量和flush次数，需要放在pipeline的最前面，
+ * 这样统计到的是合并之后真正写到Socket的flush。
+ * 每个连接一个实例，计数只在连接所在的事件循环线程中修改。
+ */
+public class FlushStatisticHandler extends ChannelOutboundHandlerAdapter {
+
+    private final FlushStatistic statistic;
+    // 上次flush之后写入的数据包数量
+    private int pending = 0;
+
+    public FlushStatisticHandler(FlushStatistic statistic) {
+        this.statistic = statistic;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        pending++;
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (pending > 0) {
+            statistic.mark(pending);
+            pending = 0;
+        }
+        ctx.flush();
+    }
+}
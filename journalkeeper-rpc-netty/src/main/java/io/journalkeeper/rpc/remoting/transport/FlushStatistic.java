@@ -0,0 +1,71 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 写出统计，记录写出到Socket的数据包数量和flush次数。
+ * 每次flush对应一次（聚集）写系统调用，两者的比值就是平均每次系统调用写出的数据包数量。
+ */
+public class FlushStatistic {
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    /**
+     * 记录一次flush
+     *
+     * @param frames 这次flush写出的数据包数量
+     */
+    public void mark(int frames) {
+        this.frames.add(frames);
+        this.flushes.increment();
+    }
+
+    /**
+     * @return 写出的数据包总数
+     */
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    /**
+     * @return 写出数据的flush总次数
+     */
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * @return 平均每次flush写出的数据包数量，没有flush时返回0
+     */
+    public double getFramesPerFlush() {
+        long flushes = getFlushes();
+        return flushes == 0 ? 0D : (double) getFrames() / flushes;
+    }
+
+    public void reset() {
+        frames.reset();
+        flushes.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "FlushStatistic{" +
+                "frames=" + getFrames() +
+                ", flushes=" + getFlushes() +
+                ", framesPerFlush=" + String.format("%.2f", getFramesPerFlush()) +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 在途请求数量限制，基于CAS计数器实现，不加锁。
+ * 没有余量时短暂休眠后重试，直到超时。
+ */
+public class InflightLimiter {
+    // 等待余量时最长的休眠时间
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private final int permits;
+    private final AtomicInteger inflight = new AtomicInteger(0);
+
+    /**
+     * @param permits 最大在途请求数量，小于等于0时不限制
+     */
+    public InflightLimiter(int permits) {
+        this.permits = permits;
+    }
+
+    /**
+     * 尝试获取一个许可，不等待
+     *
+     * @return 成功返回true
+     */
+    public boolean tryAcquire() {
+        if (permits <= 0) {
+            return true;
+        }
+        int current;
+        do {
+            current = inflight.get();
+            if (current >= permits) {
+                return false;
+            }
+        } while (!inflight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * 获取一个许可，没有余量时等待
+     *
+     * @param timeout 超时时间，单位毫秒
+     * @return 成功返回true，超时返回false
+     * @throws InterruptedException 等待时被打断
+     */
+    public boolean tryAcquire(long timeout) throws InterruptedException {
+        if (tryAcquire()) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        long parkNanos = MIN_PARK_NANOS;
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(this, Math.min(parkNanos, remaining));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (tryAcquire()) {
+                return true;
+            }
+            parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+        }
+    }
+
+    /**
+     * 释放一个许可
+     */
+    public void release() {
+        if (permits > 0) {
+            inflight.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return 当前在途请求数量
+     */
+    public int inflight() {
+        return inflight.get();
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+}
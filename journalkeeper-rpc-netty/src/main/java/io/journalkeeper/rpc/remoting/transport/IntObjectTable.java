@@ -0,0 +1,239 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以int为key的并发哈希表，用于按请求ID查找应答Future，避免Integer装箱。
+ * 分成多个段，每个段是一个线性探测的开放寻址表，段内加锁，不同段之间互不影响。
+ * 删除时向前移动后续元素，不留墓碑。
+ *
+ * @param <V> 值类型
+ */
+public class IntObjectTable<V> {
+    private static final int SEGMENTS = 16;
+    private static final int SEGMENT_MASK = SEGMENTS - 1;
+    private final Segment<V>[] segments;
+
+    /**
+     * @param initialCapacity 初始容量
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public IntObjectTable(int initialCapacity) {
+        segments = new Segment[SEGMENTS];
+        int segmentCapacity = Math.max(8, initialCapacity / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+    }
+
+    /**
+     * 请求ID一般是连续递增的，打散之后再分段和定位
+     */
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment<V> segment(int hash) {
+        return segments[hash & SEGMENT_MASK];
+    }
+
+    /**
+     * @param key 键
+     * @return 键对应的值，不存在时返回null
+     */
+    public V get(int key) {
+        int hash = hash(key);
+        return segment(hash).get(key, hash >>> 4);
+    }
+
+    /**
+     * @param key 键
+     * @param value 值，不能为null
+     * @return 之前的值，不存在时返回null
+     */
+    public V put(int key, V value) {
+        if (null == value) {
+            throw new IllegalArgumentException("value can not be null");
+        }
+        int hash = hash(key);
+        return segment(hash).put(key, hash >>> 4, value);
+    }
+
+    /**
+     * @param key 键
+     * @return 删除的值，不存在时返回null
+     */
+    public V remove(int key) {
+        int hash = hash(key);
+        return segment(hash).remove(key, hash >>> 4, null);
+    }
+
+    /**
+     * 只有当前的值是指定的值时才删除
+     *
+     * @param key 键
+     * @param value 期望的当前值
+     * @return 删除成功返回true
+     */
+    public boolean remove(int key, V value) {
+        int hash = hash(key);
+        return null != segment(hash).remove(key, hash >>> 4, value);
+    }
+
+    /**
+     * @return 所有段的元素个数之和
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return 所有值的快照
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>();
+        for (Segment<V> segment : segments) {
+            segment.values(values);
+        }
+        return values;
+    }
+
+    /**
+     * 清空所有段
+     */
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private static class Segment<V> {
+        private int[] keys;
+        private Object[] values;
+        private int mask;
+        private int size;
+
+        private Segment(int capacity) {
+            int length = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            keys = new int[length];
+            values = new Object[length];
+            mask = length - 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized V get(int key, int hash) {
+            for (int i = hash & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized V put(int key, int hash, V value) {
+            int i = hash & mask;
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    V previous = (V) values[i];
+                    values[i] = value;
+                    return previous;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            // 负载因子不超过1/2，保证探测链足够短
+            if (++size > (mask + 1) >> 1) {
+                resize();
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized V remove(int key, int hash, V expected) {
+            int i = hash & mask;
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    break;
+                }
+            }
+            V value = (V) values[i];
+            if (null == value || (null != expected && value != expected)) {
+                return null;
+            }
+            values[i] = null;
+            size--;
+            // 把探测链上后续的元素向前移动，填补删除的位置
+            int hole = i;
+            for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+                int home = (hash(keys[j]) >>> 4) & mask;
+                // home不在(hole, j]之间时，元素可以移动到hole
+                if (hole <= j ? (home <= hole || home > j) : (home <= hole && home > j)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    values[j] = null;
+                    hole = j;
+                }
+            }
+            return value;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            int length = oldKeys.length << 1;
+            keys = new int[length];
+            values = new Object[length];
+            mask = length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int j = (hash(oldKeys[i]) >>> 4) & mask;
+                    while (values[j] != null) {
+                        j = (j + 1) & mask;
+                    }
+                    keys[j] = oldKeys[i];
+                    values[j] = oldValues[i];
+                }
+            }
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized void values(List<V> list) {
+            for (Object value : values) {
+                if (value != null) {
+                    list.add((V) value);
+                }
+            }
+        }
+
+        private synchronized void clear() {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = null;
+            }
+            size = 0;
+        }
+    }
+}
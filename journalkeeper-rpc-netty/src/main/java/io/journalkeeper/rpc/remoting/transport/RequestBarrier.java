@@ -18,12 +18,6 @@ import io.journalkeeper.rpc.remoting.transport.exception.TransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
-
 /**
  * 请求并发控制
  * Created by hexiaofeng on 16-6-23.
@@ -31,19 +25,25 @@ import java.util.concurrent.TimeUnit;
 public class RequestBarrier {
 
     protected static Logger logger = LoggerFactory.getLogger(RequestBarrier.class);
-    // 单向信号量
-    public Semaphore onewaySemaphore;
-    // 异步信号量
-    public Semaphore asyncSemaphore;
+    // 超时时间轮每一格的时长
+    private static final long TIMEOUT_TICK_MS = 50L;
+    // 超时时间轮的格子数量
+    private static final int TIMEOUT_WHEEL_SIZE = 512;
+    // 单向请求数量限制
+    public InflightLimiter onewayLimiter;
+    // 异步请求数量限制
+    public InflightLimiter asyncLimiter;
     // 存放同步和异步命令应答
-    public Map<Integer, ResponseFuture> futures = new ConcurrentHashMap<Integer, ResponseFuture>(200);
+    public IntObjectTable<ResponseFuture> futures = new IntObjectTable<>(256);
+    // 请求的超时时间轮
+    private final TimeoutWheel timeoutWheel = new TimeoutWheel(TIMEOUT_TICK_MS, TIMEOUT_WHEEL_SIZE);
     private TransportConfig config;
 
 
     public RequestBarrier(TransportConfig config) {
         this.config = config;
-        this.onewaySemaphore = config.getMaxOneway() > 0 ? new Semaphore(config.getMaxOneway(), true) : null;
-        this.asyncSemaphore = config.getMaxAsync() > 0 ? new Semaphore(config.getMaxAsync(), true) : null;
+        this.onewayLimiter = new InflightLimiter(config.getMaxOneway());
+        this.asyncLimiter = new InflightLimiter(config.getMaxAsync());
     }
 
     /**
@@ -55,6 +55,15 @@ public class RequestBarrier {
         return config.getSendTimeout();
     }
 
+    /**
+     * 获取清理超时请求的间隔
+     *
+     * @return 清理间隔，单位毫秒
+     */
+    public long getEvictInterval() {
+        return timeoutWheel.getTickMs();
+    }
+
     /**
      * 获取异步调用
      *
@@ -73,51 +82,51 @@ public class RequestBarrier {
      */
     public void put(final int requestId, final ResponseFuture future) {
         futures.put(requestId, future);
+        timeoutWheel.add(future);
     }
 
     /**
-     * 移除异步调用
+     * 移除异步调用，同时从时间轮中摘除
      *
      * @param requestId 请求ID
      * @return 异步调用
      */
     public ResponseFuture remove(final int requestId) {
-        return futures.remove(requestId);
+        ResponseFuture future = futures.remove(requestId);
+        if (future != null) {
+            timeoutWheel.remove(future);
+        }
+        return future;
     }
 
     /**
-     * 清理所有超时的请求
+     * 清理所有超时的请求，只检查时间轮上到期的格子
      */
     public void evict() {
-        Iterator<Map.Entry<Integer, ResponseFuture>> iterator = futures.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<Integer, ResponseFuture> entry = iterator.next();
-            ResponseFuture future = entry.getValue();
-            long timeout = future.getBeginTime() + future.getTimeout();
-
-            if (timeout <= System.currentTimeMillis() && future.getResponse() == null) {
-                iterator.remove();
-                if (future.release()) {
-                    try {
-                        future.onFailed(TransportException.RequestTimeoutException
-                                .build(IpUtil.toAddress(future.getTransport().remoteAddress())));
-                    } catch (Throwable e) {
-                        logger.error("clear timeout response exception", e);
-                    }
+        long now = System.currentTimeMillis();
+        timeoutWheel.expire(now, future -> {
+            // 已经应答或者已经被删除
+            if (future.getResponse() != null || !futures.remove(future.getRequestId(), future)) {
+                return;
+            }
+            if (future.release()) {
+                try {
+                    future.onFailed(TransportException.RequestTimeoutException
+                            .build(IpUtil.toAddress(future.getTransport().remoteAddress())));
+                } catch (Throwable e) {
+                    logger.error("clear timeout response exception", e);
                 }
-                logger.info("remove timeout request id={} begin={} timeout={}", future.getRequestId(),
-                        future.getBeginTime(), timeout);
             }
-        }
+            logger.info("remove timeout request id={} begin={} timeout={}", future.getRequestId(),
+                    future.getBeginTime(), future.getBeginTime() + future.getTimeout());
+        });
     }
 
     /**
      * 释放所有的异步调用
      */
     public void clear() {
-        ResponseFuture future;
-        for (Map.Entry<Integer, ResponseFuture> entry : futures.entrySet()) {
-            future = entry.getValue();
+        for (ResponseFuture future : futures.values()) {
             if (future.release()) {
                 try {
                     future.onFailed(TransportException.RequestTimeoutException
@@ -127,6 +136,7 @@ public class RequestBarrier {
             }
         }
         futures.clear();
+        timeoutWheel.clear();
     }
 
     /**
@@ -140,10 +150,10 @@ public class RequestBarrier {
         if (type == null) {
             return;
         }
-        Semaphore semaphore = type == SemaphoreType.ASYNC ? asyncSemaphore : onewaySemaphore;
+        InflightLimiter limiter = type == SemaphoreType.ASYNC ? asyncLimiter : onewayLimiter;
         try {
             // 防止异步请求过多
-            boolean acquire = semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+            boolean acquire = limiter.tryAcquire(timeout);
             // 未获取到信号， 证明请求线程比较多
             if (!acquire) {
                 throw TransportException.RequestExcessiveException.build();
@@ -163,8 +173,8 @@ public class RequestBarrier {
         if (type == null) {
             return;
         }
-        Semaphore semaphore = type == SemaphoreType.ASYNC ? asyncSemaphore : onewaySemaphore;
-        semaphore.release();
+        InflightLimiter limiter = type == SemaphoreType.ASYNC ? asyncLimiter : onewayLimiter;
+        limiter.release();
     }
 
     public TransportConfig getConfig() {
@@ -185,4 +195,4 @@ public class RequestBarrier {
         ONEWAY
     }
 
-}
\ No newline at end of file
+}
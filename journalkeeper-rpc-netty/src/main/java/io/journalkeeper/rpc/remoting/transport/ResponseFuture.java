@@ -21,7 +21,6 @@ import org.slf4j.LoggerFactory;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -55,12 +54,16 @@ public class ResponseFuture implements Future {
     private AtomicBoolean released = new AtomicBoolean(false);
     // 门闩
     private CountDownLatch latch;
-    // 信号量
-    private Semaphore semaphore;
+    // 在途请求数量限制
+    private InflightLimiter limiter;
     // 是否完成
     private volatile boolean isDone = false;
     // 是否取消
     private volatile boolean isCancel = false;
+    // 超时时间轮中所在的格子和链表指针，由时间轮在格子的锁内维护
+    Object wheelBucket;
+    ResponseFuture wheelPrev;
+    ResponseFuture wheelNext;
 
     /**
      * 异步调用构造函数
@@ -69,11 +72,11 @@ public class ResponseFuture implements Future {
      * @param request   请求
      * @param timeout   超时
      * @param callback  异步调用回调
-     * @param semaphore 信号量
+     * @param limiter   在途请求数量限制
      * @param latch     门闩
      */
     public ResponseFuture(Transport transport, Command request, long timeout, CommandCallback callback,
-                          Semaphore semaphore, CountDownLatch latch) {
+                          InflightLimiter limiter, CountDownLatch latch) {
         if (request == null) {
             throw new IllegalArgumentException("request can not be null");
         }
@@ -84,7 +87,7 @@ public class ResponseFuture implements Future {
         }
         this.timeout = timeout;
         this.callback = callback;
-        this.semaphore = semaphore;
+        this.limiter = limiter;
         this.latch = latch;
     }
 
@@ -244,9 +247,9 @@ public class ResponseFuture implements Future {
             if (request != null) {
                 request.release();
             }
-            // 释放信号量
-            if (semaphore != null) {
-                semaphore.release();
+            // 释放在途请求数量
+            if (limiter != null) {
+                limiter.release();
             }
             // 唤醒同步等待线程
             if (latch != null) {
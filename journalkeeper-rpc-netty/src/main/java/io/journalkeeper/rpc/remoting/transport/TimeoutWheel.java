@@ -0,0 +1,182 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 请求超时的时间轮。
+ * 按照超时时间把请求放入对应的格子，清理超时请求时只需要检查从上次清理到现在经过的格子，
+ * 不需要遍历所有在途请求。超时时间超过一圈的请求在经过对应的格子时保留，直到超时。
+ * 每个格子是一个侵入式双向链表，链表指针保存在请求上，收到应答时可以在O(1)时间内把请求从格子中摘除。
+ */
+class TimeoutWheel {
+    private final long tickMs;
+    private final Bucket[] buckets;
+    private final int mask;
+    // 下一次清理开始的格子，只在expire中访问
+    private long currentTick;
+
+    /**
+     * @param tickMs    每一格的时长，单位毫秒
+     * @param wheelSize 格子的数量，会调整为2的整数次幂
+     */
+    TimeoutWheel(long tickMs, int wheelSize) {
+        this.tickMs = Math.max(1L, tickMs);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.currentTick = System.currentTimeMillis() / this.tickMs;
+    }
+
+    long getTickMs() {
+        return tickMs;
+    }
+
+    private static long deadline(ResponseFuture future) {
+        return future.getBeginTime() + future.getTimeout();
+    }
+
+    /**
+     * 请求所在的格子，只取决于超时时间
+     */
+    private Bucket bucket(ResponseFuture future) {
+        // 向上取整，保证格子被处理时请求已经超时
+        long tick = (deadline(future) + tickMs - 1) / tickMs;
+        return buckets[(int) (tick & mask)];
+    }
+
+    void add(ResponseFuture future) {
+        bucket(future).add(future);
+    }
+
+    /**
+     * 把请求从时间轮中摘除，请求不在时间轮中时什么都不做
+     *
+     * @param future 请求
+     */
+    void remove(ResponseFuture future) {
+        bucket(future).remove(future);
+    }
+
+    /**
+     * 处理从上次清理到now之间经过的格子，已经释放或者已经应答的请求直接丢弃，超时的请求交给onExpired处理
+     *
+     * @param now       当前时间
+     * @param onExpired 超时请求的处理
+     */
+    synchronized void expire(long now, Consumer<ResponseFuture> onExpired) {
+        long nowTick = now / tickMs;
+        // 落后超过一圈时，每个格子只需要处理一次
+        long from = Math.max(currentTick, nowTick - mask);
+        List<ResponseFuture> expired = new ArrayList<>();
+        for (long tick = from; tick <= nowTick; tick++) {
+            buckets[(int) (tick & mask)].expire(now, expired);
+        }
+        // 在格子的锁之外回调
+        for (ResponseFuture future : expired) {
+            onExpired.accept(future);
+        }
+        // 当前格子可能还有没到期的请求，下次从当前格子开始
+        currentTick = nowTick;
+    }
+
+    void clear() {
+        for (Bucket bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    /**
+     * 时间轮的一个格子，请求的链表指针只在持有格子的锁时访问
+     */
+    private static final class Bucket {
+        private ResponseFuture head;
+        private ResponseFuture tail;
+
+        synchronized void add(ResponseFuture future) {
+            if (future.wheelBucket != null) {
+                return;
+            }
+            future.wheelBucket = this;
+            future.wheelPrev = tail;
+            future.wheelNext = null;
+            if (tail == null) {
+                head = future;
+            } else {
+                tail.wheelNext = future;
+            }
+            tail = future;
+        }
+
+        synchronized void remove(ResponseFuture future) {
+            if (future.wheelBucket == this) {
+                unlink(future);
+            }
+        }
+
+        /**
+         * 摘除已经完成的请求，已经超时的请求摘除后放入expired，其余的请求保留
+         */
+        synchronized void expire(long now, List<ResponseFuture> expired) {
+            ResponseFuture future = head;
+            while (future != null) {
+                ResponseFuture next = future.wheelNext;
+                if (future.released() || future.getResponse() != null) {
+                    unlink(future);
+                } else if (deadline(future) <= now) {
+                    unlink(future);
+                    expired.add(future);
+                }
+                future = next;
+            }
+        }
+
+        synchronized void clear() {
+            ResponseFuture future = head;
+            while (future != null) {
+                ResponseFuture next = future.wheelNext;
+                future.wheelBucket = null;
+                future.wheelPrev = null;
+                future.wheelNext = null;
+                future = next;
+            }
+            head = null;
+            tail = null;
+        }
+
+        private void unlink(ResponseFuture future) {
+            ResponseFuture prev = future.wheelPrev;
+            ResponseFuture next = future.wheelNext;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.wheelNext = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.wheelPrev = prev;
+            }
+            future.wheelBucket = null;
+            future.wheelPrev = null;
+            future.wheelNext = null;
+        }
+    }
+}
@@ -79,4 +79,11 @@ public interface TransportClient extends LifeCycle {
      * @param listener 监听器
      */
     void removeListener(EventListener<TransportEvent> listener);
+
+    /**
+     * 获取写出统计，包括写出的数据包数量和flush次数
+     *
+     * @return 写出统计
+     */
+    FlushStatistic getFlushStatistic();
 }
\ No newline at end of file
@@ -29,4 +29,11 @@ public interface TransportServer extends LifeCycle {
     InetSocketAddress getSocketAddress();
 
     boolean isSSLServer();
+
+    /**
+     * 获取写出统计，包括写出的数据包数量和flush次数
+     *
+     * @return 写出统计
+     */
+    FlushStatistic getFlushStatistic();
 }
\ No newline at end of file
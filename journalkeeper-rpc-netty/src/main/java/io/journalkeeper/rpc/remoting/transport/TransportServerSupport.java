@@ -49,6 +49,8 @@ public abstract class TransportServerSupport extends Service implements Transpor
     private EventLoopGroup ioEventGroup;
     private ServerBootstrap serverBootstrap;
     private Channel channel;
+    // 写出统计，由子类在连接的处理器中记录，使用自定义处理器时不统计
+    protected final FlushStatistic flushStatistic = new FlushStatistic();
 
     public TransportServerSupport(ServerConfig serverConfig) {
         this.serverConfig = serverConfig;
@@ -108,6 +110,11 @@ public abstract class TransportServerSupport extends Service implements Transpor
         return false;
     }
 
+    @Override
+    public FlushStatistic getFlushStatistic() {
+        return flushStatistic;
+    }
+
     protected ServerBootstrap newBootstrap(ChannelHandler channelHandler, EventLoopGroup acceptEventGroup, EventLoopGroup ioEventGroup) throws Exception {
         ServerBootstrap serverBootstrap = new ServerBootstrap();
         serverBootstrap.channel(Epoll.isAvailable() ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
@@ -76,6 +76,8 @@ public class ServerConfig extends TransportConfig {
                 ", maxAsync=" + getMaxAsync() +
                 ", callbackThreads=" + getCallbackThreads() +
                 ", sendTimeout=" + getSendTimeout() +
+                ", flushConsolidation=" + isFlushConsolidation() +
+                ", explicitFlushAfterFlushes=" + getExplicitFlushAfterFlushes() +
                 ", maxRetrys=" + getMaxRetrys() +
                 ", maxRetryDelay=" + getMaxRetryDelay() +
                 ", retryDelay=" + getRetryDelay() +
@@ -59,6 +59,10 @@ public class TransportConfig {
     private int callbackThreads = Runtime.getRuntime().availableProcessors();
     // 默认发送数据包超时时间
     private int sendTimeout = 1000;
+    // 合并flush，同一个事件循环周期内对同一连接的多次flush合并为一次写操作
+    private boolean flushConsolidation = true;
+    // 合并flush时，累积的flush次数达到这个值后立即执行一次flush
+    private int explicitFlushAfterFlushes = 256;
 
     /*** 重试策略配置 ***/
     // 最大重试次数(无限制)
@@ -271,4 +275,20 @@ public class TransportConfig {
     public void setNonBlockOneway(boolean nonBlockOneway) {
         this.nonBlockOneway = nonBlockOneway;
     }
+
+    public boolean isFlushConsolidation() {
+        return flushConsolidation;
+    }
+
+    public void setFlushConsolidation(boolean flushConsolidation) {
+        this.flushConsolidation = flushConsolidation;
+    }
+
+    public int getExplicitFlushAfterFlushes() {
+        return explicitFlushAfterFlushes;
+    }
+
+    public void setExplicitFlushAfterFlushes(int explicitFlushAfterFlushes) {
+        this.explicitFlushAfterFlushes = explicitFlushAfterFlushes;
+    }
 }
\ No newline at end of file
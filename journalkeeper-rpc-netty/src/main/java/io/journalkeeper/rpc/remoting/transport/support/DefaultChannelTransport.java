@@ -153,7 +153,7 @@ public class DefaultChannelTransport implements ChannelTransport {
 
             // 发送请求
             ResponseFuture future =
-                    new ResponseFuture(this, command, sendTimeout, callback, barrier.asyncSemaphore, null);
+                    new ResponseFuture(this, command, sendTimeout, callback, barrier.asyncLimiter, null);
             if (barrier.get(command.getHeader().getRequestId()) != null) {
                 logger.warn("async command(type {}, request id {}) already exist",
                         command.getHeader().getType(), command.getHeader().getRequestId());
@@ -190,7 +190,7 @@ public class DefaultChannelTransport implements ChannelTransport {
 
             // 发送请求
             ResponseFuture future =
-                    new ResponseFuture(this, command, sendTimeout, null, barrier.asyncSemaphore, null);
+                    new ResponseFuture(this, command, sendTimeout, null, barrier.asyncLimiter, null);
             if (barrier.get(command.getHeader().getRequestId()) != null) {
                 logger.warn("async command(type {}, request id {}) already exist",
                         command.getHeader().getType(), command.getHeader().getRequestId());
@@ -237,7 +237,7 @@ public class DefaultChannelTransport implements ChannelTransport {
             sendTimeout = sendTimeout < 0 ? 0 : sendTimeout;
 
             // 发送请求
-            future = new ResponseFuture(this, command, sendTimeout, null, barrier.onewaySemaphore,
+            future = new ResponseFuture(this, command, sendTimeout, null, barrier.onewayLimiter,
                     new CountDownLatch(1));
             // 命令执行成功或超时则会自动释放command
             channel.writeAndFlush(command).addListener(new OnewayListener(future));
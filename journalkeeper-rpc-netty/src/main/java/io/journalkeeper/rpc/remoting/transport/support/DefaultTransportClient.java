@@ -18,6 +18,8 @@ import io.journalkeeper.rpc.remoting.concurrent.EventListener;
 import io.journalkeeper.rpc.remoting.event.TransportEvent;
 import io.journalkeeper.rpc.remoting.event.TransportEventHandler;
 import io.journalkeeper.rpc.remoting.handler.ClientConnectionHandler;
+import io.journalkeeper.rpc.remoting.handler.FlushStatisticHandler;
+import io.journalkeeper.rpc.remoting.transport.FlushStatistic;
 import io.journalkeeper.rpc.remoting.transport.RequestBarrier;
 import io.journalkeeper.rpc.remoting.transport.Transport;
 import io.journalkeeper.rpc.remoting.transport.TransportClient;
@@ -35,6 +37,7 @@ import io.journalkeeper.rpc.remoting.transport.handler.CommandInvocation;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
+import io.netty.handler.flush.FlushConsolidationHandler;
 
 import java.net.SocketAddress;
 import java.util.Timer;
@@ -54,6 +57,7 @@ public class DefaultTransportClient extends TransportClientSupport implements Tr
     private ResponseHandler responseHandler;
     private EventBus<TransportEvent> transportEventBus;
     private Timer clearTimer;
+    private final FlushStatistic flushStatistic = new FlushStatistic();
 
     public DefaultTransportClient(ClientConfig config, Codec codec, final RequestBarrier requestBarrier, RequestHandler requestHandler, ResponseHandler responseHandler, EventBus<TransportEvent> transportEventBus) {
         super(config);
@@ -73,6 +77,13 @@ public class DefaultTransportClient extends TransportClientSupport implements Tr
         return new ChannelInitializer<Channel>() {
             @Override
             protected void initChannel(Channel channel) {
+                // 统计放在合并flush的外侧，只统计真正写到Socket的flush
+                channel.pipeline().addLast(new FlushStatisticHandler(flushStatistic));
+                if (getConfig().isFlushConsolidation()) {
+                    // 同一个事件循环周期内的多次flush合并为一次
+                    channel.pipeline().addLast(
+                            new FlushConsolidationHandler(getConfig().getExplicitFlushAfterFlushes(), true));
+                }
                 channel.pipeline()
                         .addLast(new NettyDecoder(codec))
                         .addLast(new NettyEncoder(codec))
@@ -104,6 +115,11 @@ public class DefaultTransportClient extends TransportClientSupport implements Tr
         return new DefaultChannelTransport(channel, requestBarrier, address);
     }
 
+    @Override
+    public FlushStatistic getFlushStatistic() {
+        return flushStatistic;
+    }
+
     @Override
     public void addListener(EventListener<TransportEvent> listener) {
         this.transportEventBus.addListener(listener);
@@ -122,7 +138,7 @@ public class DefaultTransportClient extends TransportClientSupport implements Tr
             public void run() {
                 requestBarrier.evict();
             }
-        }, getConfig().getSendTimeout(), getConfig().getSendTimeout());
+        }, requestBarrier.getEvictInterval(), requestBarrier.getEvictInterval());
         transportEventBus.start();
     }
 
@@ -133,5 +149,6 @@ public class DefaultTransportClient extends TransportClientSupport implements Tr
         transportEventBus.stop(false);
         requestBarrier.clear();
         responseHandler.stop();
+        logger.info("Transport client stopped, {}.", flushStatistic);
     }
 }
\ No newline at end of file
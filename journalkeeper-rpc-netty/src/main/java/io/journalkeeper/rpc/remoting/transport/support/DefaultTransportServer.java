@@ -18,6 +18,7 @@ import io.journalkeeper.rpc.handler.ExceptionChannelHandler;
 import io.journalkeeper.rpc.remoting.concurrent.EventBus;
 import io.journalkeeper.rpc.remoting.event.TransportEvent;
 import io.journalkeeper.rpc.remoting.event.TransportEventHandler;
+import io.journalkeeper.rpc.remoting.handler.FlushStatisticHandler;
 import io.journalkeeper.rpc.remoting.transport.RequestBarrier;
 import io.journalkeeper.rpc.remoting.transport.TransportServerSupport;
 import io.journalkeeper.rpc.remoting.transport.codec.Codec;
@@ -33,6 +34,7 @@ import io.journalkeeper.rpc.remoting.transport.handler.CommandInvocation;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
+import io.netty.handler.flush.FlushConsolidationHandler;
 
 /**
  * 默认通信服务
@@ -67,6 +69,13 @@ public class DefaultTransportServer extends TransportServerSupport {
         return new ChannelInitializer<Channel>() {
             @Override
             protected void initChannel(Channel channel) throws Exception {
+                // 统计放在合并flush的外侧，只统计真正写到Socket的flush
+                channel.pipeline().addLast(new FlushStatisticHandler(flushStatistic));
+                if (getServerConfig().isFlushConsolidation()) {
+                    // 请求处理过程中的多次flush合并为一次，在读完成或当前事件循环周期结束时执行
+                    channel.pipeline().addLast(
+                            new FlushConsolidationHandler(getServerConfig().getExplicitFlushAfterFlushes(), true));
+                }
                 channel.pipeline()
                         .addLast(new NettyDecoder(codec))
                         .addLast(new NettyEncoder(codec))
@@ -89,5 +98,6 @@ public class DefaultTransportServer extends TransportServerSupport {
         responseHandler.stop();
         transportEventBus.stop(false);
         requestBarrier.clear();
+        logger.info("Transport server {} stopped, {}.", getSocketAddress(), flushStatistic);
     }
 }
\ No newline at end of file
@@ -0,0 +1,241 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport.support;
+
+import io.journalkeeper.rpc.remoting.concurrent.EventListener;
+import io.journalkeeper.rpc.remoting.event.TransportEvent;
+import io.journalkeeper.rpc.remoting.transport.FlushStatistic;
+import io.journalkeeper.rpc.remoting.transport.Transport;
+import io.journalkeeper.rpc.remoting.transport.TransportAttribute;
+import io.journalkeeper.rpc.remoting.transport.TransportClient;
+import io.journalkeeper.rpc.remoting.transport.TransportClientSupport;
+import io.journalkeeper.rpc.remoting.transport.TransportState;
+import io.journalkeeper.rpc.remoting.transport.command.Command;
+import io.journalkeeper.rpc.remoting.transport.command.CommandCallback;
+import io.journalkeeper.rpc.remoting.transport.exception.TransportException;
+
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 共享连接的TransportClient。
+ * 同一个进程中的多个Server访问同一个远端地址时，共用一个连接，
+ * 请求按照Header中的destination在远端分发到各自的Server。
+ * 连接和TransportClient本身都按引用计数管理，最后一个使用者释放时才真正关闭。
+ */
+public class SharedTransportClient implements TransportClient {
+
+    private final TransportClient delegate;
+    private final Map<SocketAddress, SharedEntry> transports = new HashMap<>();
+    private int referenceCount = 0;
+    private volatile boolean closed = false;
+
+    public SharedTransportClient(TransportClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Transport createTransport(String address) throws TransportException {
+        return this.createTransport(address, -1);
+    }
+
+    @Override
+    public Transport createTransport(String address, long connectionTimeout) throws TransportException {
+        return this.createTransport(TransportClientSupport.createInetSocketAddress(address), connectionTimeout);
+    }
+
+    @Override
+    public Transport createTransport(SocketAddress address) throws TransportException {
+        return this.createTransport(address, -1);
+    }
+
+    @Override
+    public synchronized Transport createTransport(SocketAddress address, long connectionTimeout) throws TransportException {
+        SharedEntry entry = transports.get(address);
+        if (null == entry || entry.transport.state() != TransportState.CONNECTED) {
+            // 已断开的连接不再分配给新的使用者，等现有使用者都释放后关闭
+            if (null != entry) {
+                transports.remove(address);
+                entry.maybeClose();
+            }
+            entry = new SharedEntry(address, delegate.createTransport(address, connectionTimeout));
+            transports.put(address, entry);
+        }
+        entry.references++;
+        return new SharedTransport(entry);
+    }
+
+    private synchronized void release(SharedEntry entry) {
+        entry.references--;
+        entry.maybeClose();
+        if (entry.references <= 0 && transports.get(entry.address) == entry) {
+            transports.remove(entry.address);
+        }
+    }
+
+    @Override
+    public void addListener(EventListener<TransportEvent> listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(EventListener<TransportEvent> listener) {
+        delegate.removeListener(listener);
+    }
+
+    @Override
+    public FlushStatistic getFlushStatistic() {
+        return delegate.getFlushStatistic();
+    }
+
+    @Override
+    public synchronized void start() throws Exception {
+        if (referenceCount++ == 0 && !delegate.isStarted()) {
+            delegate.start();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (--referenceCount <= 0) {
+            referenceCount = 0;
+            transports.values().forEach(entry -> entry.transport.stop());
+            transports.clear();
+            delegate.stop();
+            closed = true;
+        }
+    }
+
+    /**
+     * 最后一个使用者释放后，这个TransportClient不能再使用。
+     * @return 是否已经关闭
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return delegate.isStarted();
+    }
+
+    private static class SharedEntry {
+        private final SocketAddress address;
+        private final Transport transport;
+        private int references = 0;
+
+        private SharedEntry(SocketAddress address, Transport transport) {
+            this.address = address;
+            this.transport = transport;
+        }
+
+        private void maybeClose() {
+            if (references <= 0) {
+                transport.stop();
+            }
+        }
+    }
+
+    /**
+     * 共享连接的一个引用，stop时只释放引用。
+     */
+    private class SharedTransport implements Transport {
+        private final SharedEntry entry;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private SharedTransport(SharedEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Command sync(Command command) throws TransportException {
+            return entry.transport.sync(command);
+        }
+
+        @Override
+        public Command sync(Command command, long timeout) throws TransportException {
+            return entry.transport.sync(command, timeout);
+        }
+
+        @Override
+        public void async(Command command, CommandCallback callback) throws TransportException {
+            entry.transport.async(command, callback);
+        }
+
+        @Override
+        public void async(Command command, long timeout, CommandCallback callback) throws TransportException {
+            entry.transport.async(command, timeout, callback);
+        }
+
+        @Override
+        public Future<?> async(Command command) throws TransportException {
+            return entry.transport.async(command);
+        }
+
+        @Override
+        public Future<?> async(Command command, long timeout) throws TransportException {
+            return entry.transport.async(command, timeout);
+        }
+
+        @Override
+        public void oneway(Command command) throws TransportException {
+            entry.transport.oneway(command);
+        }
+
+        @Override
+        public void oneway(Command command, long timeout) throws TransportException {
+            entry.transport.oneway(command, timeout);
+        }
+
+        @Override
+        public void acknowledge(Command request, Command response) throws TransportException {
+            entry.transport.acknowledge(request, response);
+        }
+
+        @Override
+        public void acknowledge(Command request, Command response, CommandCallback callback) throws TransportException {
+            entry.transport.acknowledge(request, response, callback);
+        }
+
+        @Override
+        public SocketAddress remoteAddress() {
+            return entry.transport.remoteAddress();
+        }
+
+        @Override
+        public TransportAttribute attr() {
+            return entry.transport.attr();
+        }
+
+        @Override
+        public void attr(TransportAttribute attribute) {
+            entry.transport.attr(attribute);
+        }
+
+        @Override
+        public TransportState state() {
+            return entry.transport.state();
+        }
+
+        @Override
+        public void stop() {
+            if (released.compareAndSet(false, true)) {
+                release(entry);
+            }
+        }
+    }
+}
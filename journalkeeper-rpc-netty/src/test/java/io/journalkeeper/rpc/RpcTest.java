@@ -14,6 +14,7 @@
 package io.journalkeeper.rpc;
 
 import io.journalkeeper.core.api.ClusterConfiguration;
+import io.journalkeeper.core.api.QueryConsistency;
 import io.journalkeeper.core.api.RaftServer;
 import io.journalkeeper.core.api.ResponseConfig;
 import io.journalkeeper.core.api.ServerStatus;
@@ -26,6 +27,8 @@ import io.journalkeeper.core.api.transaction.UUIDTransactionId;
 import io.journalkeeper.exceptions.IndexOverflowException;
 import io.journalkeeper.exceptions.IndexUnderflowException;
 import io.journalkeeper.exceptions.NotLeaderException;
+import io.journalkeeper.exceptions.ServerBusyException;
+import io.journalkeeper.rpc.client.AddPullWatchRequest;
 import io.journalkeeper.rpc.client.AddPullWatchResponse;
 import io.journalkeeper.rpc.client.CheckLeadershipResponse;
 import io.journalkeeper.rpc.client.ClientServerRpc;
@@ -66,6 +69,7 @@ import io.journalkeeper.rpc.server.RequestVoteResponse;
 import io.journalkeeper.rpc.server.ServerRpc;
 import io.journalkeeper.rpc.server.ServerRpcAccessPoint;
 import io.journalkeeper.utils.event.Event;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.event.PullEvent;
 import io.journalkeeper.utils.net.NetworkingUtils;
@@ -81,6 +85,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -94,6 +99,7 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -240,6 +246,40 @@ public class RpcTest {
 
     }
 
+    @Test
+    public void testUpdateClusterStateServerBusy() throws ExecutionException, InterruptedException {
+        logger.info("Running test {}.", Thread.currentThread()
+                .getStackTrace()[1]
+                .getMethodName());
+        long retryAfterMs = 300L;
+        UpdateClusterStateRequest request = new UpdateClusterStateRequest(
+                new UpdateRequest(ByteUtils.createRandomSizeBytes(128), 0, 1));
+        when(serverRpcMock.updateClusterState(any(UpdateClusterStateRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new UpdateClusterStateResponse(new ServerBusyException("Too many pending requests.", retryAfterMs))));
+
+        // 当前版本的响应带回建议的重试等待时间
+        ClientServerRpc clientServerRpc = clientServerRpcAccessPoint.getClintServerRpc(serverRpcMock.serverUri());
+        UpdateClusterStateResponse response = clientServerRpc.updateClusterState(request).get();
+        Assert.assertFalse(response.success());
+        Assert.assertEquals(StatusCode.SERVER_BUSY, response.getStatusCode());
+        Assert.assertEquals(retryAfterMs, response.getRetryAfterMs());
+
+        // 旧版本的响应没有重试等待时间
+        Properties properties = new Properties();
+        properties.setProperty("protocol.version", "2");
+        ClientServerRpcAccessPoint oldVersionAccessPoint =
+                new JournalKeeperRpcAccessPointFactory().createClientServerRpcAccessPoint(properties);
+        try {
+            response = oldVersionAccessPoint.getClintServerRpc(serverRpcMock.serverUri()).updateClusterState(request).get();
+            Assert.assertFalse(response.success());
+            Assert.assertEquals(StatusCode.SERVER_BUSY, response.getStatusCode());
+            Assert.assertEquals(0L, response.getRetryAfterMs());
+        } finally {
+            oldVersionAccessPoint.stop();
+        }
+    }
+
     @Test
     public void testUpdateVoters() throws ExecutionException, InterruptedException {
         logger.info("Running test {}.", Thread.currentThread()
@@ -323,6 +363,55 @@ public class RpcTest {
 
     }
 
+    @Test
+    public void testQueryClusterStateReadIndex() throws ExecutionException, InterruptedException {
+        logger.info("Running test {}.", Thread.currentThread()
+                .getStackTrace()[1]
+                .getMethodName());
+        byte[] query = new byte[]{1, 2, 3};
+        byte[] result = new byte[]{4, 5, 6};
+        QueryStateRequest request = new QueryStateRequest(query, QueryConsistency.READ_INDEX);
+        ClientServerRpc clientServerRpc = clientServerRpcAccessPoint.getClintServerRpc(serverRpcMock.serverUri());
+        when(serverRpcMock.queryClusterState(any(QueryStateRequest.class)))
+                .thenReturn(CompletableFuture.supplyAsync(() -> new QueryStateResponse(result)));
+        QueryStateResponse response = clientServerRpc.queryClusterState(request).get();
+        Assert.assertTrue(response.success());
+        Assert.assertArrayEquals(result, response.getResult());
+
+        verify(serverRpcMock).queryClusterState(
+                argThat((QueryStateRequest r) -> Arrays.equals(query, r.getQuery()) &&
+                        r.getConsistency() == QueryConsistency.READ_INDEX));
+    }
+
+    @Test
+    public void testQueryStateProtocolVersion() throws ExecutionException, InterruptedException {
+        logger.info("Running test {}.", Thread.currentThread()
+                .getStackTrace()[1]
+                .getMethodName());
+        // 旧版本的请求不包含读一致性，服务端按照STRICT处理
+        Properties properties = new Properties();
+        properties.setProperty("protocol.version", "2");
+        ClientServerRpcAccessPoint oldVersionAccessPoint =
+                new JournalKeeperRpcAccessPointFactory().createClientServerRpcAccessPoint(properties);
+        try {
+            byte[] query = new byte[]{1, 2, 3};
+            byte[] result = new byte[]{4, 5, 6};
+            ClientServerRpc clientServerRpc = oldVersionAccessPoint.getClintServerRpc(serverRpcMock.serverUri());
+            when(serverRpcMock.queryClusterState(any(QueryStateRequest.class)))
+                    .thenReturn(CompletableFuture.supplyAsync(() -> new QueryStateResponse(result)));
+            QueryStateResponse response =
+                    clientServerRpc.queryClusterState(new QueryStateRequest(query, QueryConsistency.READ_INDEX)).get();
+            Assert.assertTrue(response.success());
+            Assert.assertArrayEquals(result, response.getResult());
+
+            verify(serverRpcMock).queryClusterState(
+                    argThat((QueryStateRequest r) -> Arrays.equals(query, r.getQuery()) &&
+                            r.getConsistency() == QueryConsistency.STRICT));
+        } finally {
+            oldVersionAccessPoint.stop();
+        }
+    }
+
     @Test
     public void testQueryServerState() throws ExecutionException, InterruptedException {
         logger.info("Running test {}.", Thread.currentThread()
@@ -437,7 +526,7 @@ public class RpcTest {
         ClientServerRpc clientServerRpc = clientServerRpcAccessPoint.getClintServerRpc(serverRpcMock.serverUri());
         AddPullWatchResponse response;
 
-        when(serverRpcMock.addPullWatch())
+        when(serverRpcMock.addPullWatch(any(AddPullWatchRequest.class)))
                 .thenReturn(CompletableFuture.supplyAsync(() -> new AddPullWatchResponse(pullWatchId, pullIntervalMs)));
         response = clientServerRpc.addPullWatch().get();
         Assert.assertTrue(response.success());
@@ -492,6 +581,43 @@ public class RpcTest {
                         r.getAckSequence() == ackSequence));
     }
 
+    @Test
+    public void testPullEventsProtocolVersion() throws ExecutionException, InterruptedException {
+        logger.info("Running test {}.", Thread.currentThread()
+                .getStackTrace()[1]
+                .getMethodName());
+        // 旧版本的请求不包含过滤条件和长轮询等待时间，服务端监听所有事件并且立即返回
+        Properties properties = new Properties();
+        properties.setProperty("protocol.version", "2");
+        ClientServerRpcAccessPoint oldVersionAccessPoint =
+                new JournalKeeperRpcAccessPointFactory().createClientServerRpcAccessPoint(properties);
+        try {
+            long pullWatchId = 666L;
+            long ackSequence = 888888L;
+            ClientServerRpc clientServerRpc = oldVersionAccessPoint.getClintServerRpc(serverRpcMock.serverUri());
+            when(serverRpcMock.addPullWatch(any(AddPullWatchRequest.class)))
+                    .thenReturn(CompletableFuture.supplyAsync(() -> new AddPullWatchResponse(pullWatchId, 1000L)));
+            when(serverRpcMock.pullEvents(any(PullEventsRequest.class)))
+                    .thenReturn(CompletableFuture.supplyAsync(() -> new PullEventsResponse(Collections.emptyList())));
+
+            AddPullWatchResponse addPullWatchResponse = clientServerRpc.addPullWatch(new AddPullWatchRequest(
+                    new EventFilter(Collections.singleton(23), "partition", "key"))).get();
+            Assert.assertTrue(addPullWatchResponse.success());
+            Assert.assertEquals(pullWatchId, addPullWatchResponse.getPullWatchId());
+            verify(serverRpcMock).addPullWatch(argThat((AddPullWatchRequest r) -> r.getFilter().isAll()));
+
+            PullEventsResponse pullEventsResponse =
+                    clientServerRpc.pullEvents(new PullEventsRequest(pullWatchId, ackSequence, 3000L)).get();
+            Assert.assertTrue(pullEventsResponse.success());
+            verify(serverRpcMock).pullEvents(argThat((PullEventsRequest r) ->
+                    r.getPullWatchId() == pullWatchId &&
+                            r.getAckSequence() == ackSequence &&
+                            r.getMaxWaitMs() == 0L));
+        } finally {
+            oldVersionAccessPoint.stop();
+        }
+    }
+
     @Test
     public void testWatch() throws Exception {
         logger.info("Running test {}.", Thread.currentThread()
@@ -517,7 +643,7 @@ public class RpcTest {
                         return new PullEventsResponse(Collections.emptyList());
                     }
                 }));
-        when(serverRpcMock.addPullWatch())
+        when(serverRpcMock.addPullWatch(any(AddPullWatchRequest.class)))
                 .thenReturn(CompletableFuture.supplyAsync(() -> new AddPullWatchResponse(pullWatchId, pullIntervalMs)));
         when(serverRpcMock.removePullWatch(any(RemovePullWatchRequest.class)))
                 .thenReturn(CompletableFuture.supplyAsync(RemovePullWatchResponse::new));
@@ -534,6 +660,43 @@ public class RpcTest {
         Assert.assertEquals(pullEvents.get(0).getEventData(), eventList.get(0).getEventData());
     }
 
+    @Test
+    public void testWatchWithoutLongPolling() throws Exception {
+        logger.info("Running test {}.", Thread.currentThread()
+                .getStackTrace()[1]
+                .getMethodName());
+        // 旧版本的协议不支持长轮询，服务端立即返回空响应，客户端按照拉取周期轮询
+        long pullWatchId = 666L;
+        long pullIntervalMs = 100L;
+        Properties properties = new Properties();
+        properties.setProperty("protocol.version", "2");
+        ClientServerRpcAccessPoint oldVersionAccessPoint =
+                new JournalKeeperRpcAccessPointFactory().createClientServerRpcAccessPoint(properties);
+        try {
+            ClientServerRpc clientServerRpc = oldVersionAccessPoint.getClintServerRpc(serverRpcMock.serverUri());
+            AtomicInteger pullCount = new AtomicInteger(0);
+            when(serverRpcMock.pullEvents(any(PullEventsRequest.class)))
+                    .thenAnswer(invocation -> {
+                        pullCount.incrementAndGet();
+                        return CompletableFuture.supplyAsync(() -> new PullEventsResponse(Collections.emptyList()));
+                    });
+            when(serverRpcMock.addPullWatch(any(AddPullWatchRequest.class)))
+                    .thenReturn(CompletableFuture.supplyAsync(() -> new AddPullWatchResponse(pullWatchId, pullIntervalMs)));
+            when(serverRpcMock.removePullWatch(any(RemovePullWatchRequest.class)))
+                    .thenReturn(CompletableFuture.supplyAsync(RemovePullWatchResponse::new));
+
+            EventWatcher eventWatcher = event -> {};
+            clientServerRpc.watch(eventWatcher);
+            Thread.sleep(10 * pullIntervalMs);
+            clientServerRpc.unWatch(eventWatcher);
+
+            Assert.assertTrue(pullCount.get() > 0);
+            Assert.assertTrue("Too many pulls: " + pullCount.get(), pullCount.get() <= 12);
+        } finally {
+            oldVersionAccessPoint.stop();
+        }
+    }
+
     @Test
     public void testAsyncAppendEntries() throws ExecutionException, InterruptedException {
         logger.info("Running test {}.", Thread.currentThread()
@@ -549,7 +712,7 @@ public class RpcTest {
                 6666688L);
         ServerRpc serverRpc = serverRpcAccessPoint.getServerRpcAgent(serverRpcMock.serverUri());
         AsyncAppendEntriesResponse response, serverResponse;
-        serverResponse = new AsyncAppendEntriesResponse(false, 8837222L, 74, request.getEntries().size());
+        serverResponse = new AsyncAppendEntriesResponse(false, 8837222L, 74, request.getEntries().size(), 8837000L, 73);
         // Test success response
         when(serverRpcMock.asyncAppendEntries(any(AsyncAppendEntriesRequest.class)))
                 .thenReturn(CompletableFuture.supplyAsync(() -> serverResponse));
@@ -559,6 +722,8 @@ public class RpcTest {
         Assert.assertEquals(serverResponse.isSuccess(), response.isSuccess());
         Assert.assertEquals(serverResponse.getTerm(), response.getTerm());
         Assert.assertEquals(serverResponse.getEntryCount(), response.getEntryCount());
+        Assert.assertEquals(serverResponse.getConflictIndex(), response.getConflictIndex());
+        Assert.assertEquals(serverResponse.getConflictTerm(), response.getConflictTerm());
 
         verify(serverRpcMock).asyncAppendEntries(
                 argThat((AsyncAppendEntriesRequest r) ->
@@ -573,6 +738,50 @@ public class RpcTest {
 
     }
 
+    @Test
+    public void testAsyncAppendEntriesReleased() throws ExecutionException, InterruptedException {
+        logger.info("Running test {}.", Thread.currentThread()
+                .getStackTrace()[1]
+                .getMethodName());
+        List<byte[]> entries = ByteUtils.createRandomSizeByteList(1024, 100);
+        AsyncAppendEntriesRequest request = new AsyncAppendEntriesRequest(
+                88, URI.create("jk://leader.host:8888"), 838472234228L, 87, entries, 6666666L, 6666688L);
+        ServerRpc serverRpc = serverRpcAccessPoint.getServerRpcAgent(serverRpcMock.serverUri());
+        List<AsyncAppendEntriesRequest> received = new ArrayList<>();
+        List<byte[]> readEntries = new ArrayList<>();
+        // 使用者在处理过程中直接读取接收缓冲区，处理完成后缓冲区被释放
+        when(serverRpcMock.asyncAppendEntries(any(AsyncAppendEntriesRequest.class)))
+                .thenAnswer(invocation -> {
+                    AsyncAppendEntriesRequest r = invocation.getArgument(0);
+                    received.add(r);
+                    for (ByteBuffer buffer : r.getEntryBuffers()) {
+                        byte[] bytes = new byte[buffer.remaining()];
+                        buffer.duplicate().get(bytes);
+                        readEntries.add(bytes);
+                    }
+                    return CompletableFuture.completedFuture(
+                            new AsyncAppendEntriesResponse(true, 8837222L, 88, r.getEntryCount()));
+                });
+        AsyncAppendEntriesResponse response = serverRpc.asyncAppendEntries(request).get();
+        Assert.assertTrue(response.success());
+        Assert.assertEquals(entries.size(), response.getEntryCount());
+        Assert.assertTrue(testListOfBytesEquals(entries, readEntries));
+
+        Assert.assertEquals(1, received.size());
+        AsyncAppendEntriesRequest releasedRequest = received.get(0);
+        Assert.assertEquals(entries.size(), releasedRequest.getEntryCount());
+        try {
+            releasedRequest.getEntryBuffers();
+            Assert.fail("Entry buffers should not be readable after the request is released.");
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            releasedRequest.getEntries();
+            Assert.fail("Entries should not be readable after the request is released.");
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
     @Test
     public void testRequestVote() throws ExecutionException, InterruptedException {
         logger.info("Running test {}.", Thread.currentThread()
@@ -0,0 +1,157 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在途请求数量限制测试
+ */
+public class InflightLimiterTest {
+
+    @Test
+    public void acquireReleaseTest() {
+        InflightLimiter limiter = new InflightLimiter(2);
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        Assert.assertEquals(2, limiter.inflight());
+
+        limiter.release();
+        Assert.assertEquals(1, limiter.inflight());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+    }
+
+    /**
+     * 小于等于0时不限制
+     */
+    @Test
+    public void unlimitedTest() throws Exception {
+        for (int permits : new int[]{0, -1}) {
+            InflightLimiter limiter = new InflightLimiter(permits);
+            for (int i = 0; i < 1000; i++) {
+                Assert.assertTrue(limiter.tryAcquire());
+            }
+            Assert.assertTrue(limiter.tryAcquire(0L));
+            limiter.release();
+            Assert.assertEquals(0, limiter.inflight());
+        }
+    }
+
+    /**
+     * 没有余量时等待到超时返回false
+     */
+    @Test
+    public void timeoutTest() throws Exception {
+        InflightLimiter limiter = new InflightLimiter(1);
+        Assert.assertTrue(limiter.tryAcquire(0L));
+
+        Assert.assertFalse(limiter.tryAcquire(0L));
+        long start = System.nanoTime();
+        Assert.assertFalse(limiter.tryAcquire(50L));
+        long elapsed = System.nanoTime() - start;
+        Assert.assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(50L));
+        Assert.assertTrue(elapsed < TimeUnit.SECONDS.toNanos(5L));
+        Assert.assertEquals(1, limiter.inflight());
+    }
+
+    /**
+     * 等待期间有请求释放时获取成功
+     */
+    @Test
+    public void waitForReleaseTest() throws Exception {
+        InflightLimiter limiter = new InflightLimiter(1);
+        Assert.assertTrue(limiter.tryAcquire());
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.tryAcquire(10000L);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50L);
+        Assert.assertFalse(waiter.isDone());
+
+        limiter.release();
+        Assert.assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, limiter.inflight());
+    }
+
+    @Test
+    public void interruptTest() throws Exception {
+        InflightLimiter limiter = new InflightLimiter(1);
+        Assert.assertTrue(limiter.tryAcquire());
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(limiter.tryAcquire(10000L));
+            } catch (InterruptedException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        Thread.sleep(50L);
+        thread.interrupt();
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof InterruptedException);
+        }
+        Assert.assertEquals(1, limiter.inflight());
+    }
+
+    /**
+     * 并发获取和释放时，在途请求数量不超过限制
+     */
+    @Test
+    public void concurrentTest() throws Exception {
+        int permits = 4, threads = 8, rounds = 2000;
+        InflightLimiter limiter = new InflightLimiter(permits);
+        AtomicInteger holding = new AtomicInteger(0);
+        AtomicInteger maxHolding = new AtomicInteger(0);
+        AtomicInteger failed = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    for (int round = 0; round < rounds; round++) {
+                        if (!limiter.tryAcquire(5000L)) {
+                            failed.incrementAndGet();
+                            continue;
+                        }
+                        maxHolding.accumulateAndGet(holding.incrementAndGet(), Math::max);
+                        holding.decrementAndGet();
+                        limiter.release();
+                    }
+                } catch (InterruptedException ignored) {
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(0, failed.get());
+        Assert.assertTrue(maxHolding.get() <= permits);
+        Assert.assertEquals(0, limiter.inflight());
+    }
+}
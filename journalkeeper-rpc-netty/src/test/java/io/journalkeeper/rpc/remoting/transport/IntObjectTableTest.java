@@ -0,0 +1,188 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * int为key的开放寻址哈希表测试
+ */
+public class IntObjectTableTest {
+    // 初始容量128时每个段有8个槽位
+    private static final int INITIAL_CAPACITY = 128;
+    private static final int SLOT_MASK = 7;
+
+    @Test
+    public void putGetRemoveTest() {
+        IntObjectTable<String> table = new IntObjectTable<>(INITIAL_CAPACITY);
+        Assert.assertNull(table.get(1));
+        Assert.assertNull(table.put(1, "a"));
+        Assert.assertNull(table.put(-1, "b"));
+        Assert.assertEquals("a", table.get(1));
+        Assert.assertEquals("b", table.get(-1));
+        Assert.assertEquals(2, table.size());
+
+        // 相同的key替换旧值
+        Assert.assertEquals("a", table.put(1, "c"));
+        Assert.assertEquals("c", table.get(1));
+        Assert.assertEquals(2, table.size());
+
+        Assert.assertEquals("c", table.remove(1));
+        Assert.assertNull(table.remove(1));
+        Assert.assertNull(table.get(1));
+        Assert.assertEquals(1, table.size());
+
+        try {
+            table.put(2, null);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    /**
+     * 只有当前值是指定的对象时才删除
+     */
+    @Test
+    public void removeIfSameValueTest() {
+        IntObjectTable<String> table = new IntObjectTable<>(INITIAL_CAPACITY);
+        String value = new String("a");
+        table.put(1, value);
+
+        // 相等但不是同一个对象
+        Assert.assertFalse(table.remove(1, new String("a")));
+        Assert.assertSame(value, table.get(1));
+        Assert.assertFalse(table.remove(2, value));
+
+        Assert.assertTrue(table.remove(1, value));
+        Assert.assertNull(table.get(1));
+        Assert.assertFalse(table.remove(1, value));
+        Assert.assertEquals(0, table.size());
+    }
+
+    /**
+     * 探测链跨过段的末尾回到开头时，删除后把后续的元素向前移动，移动可以跨过末尾
+     */
+    @Test
+    public void backwardShiftAcrossWraparoundTest() {
+        IntObjectTable<Integer> table = new IntObjectTable<>(INITIAL_CAPACITY);
+        // a、b、c都在最后一个槽位，依次占用7、0、1，d在槽位0，占用2
+        List<Integer> last = keys(SLOT_MASK, 3);
+        int a = last.get(0), b = last.get(1), c = last.get(2);
+        int d = keys(0, 1).get(0);
+        for (int key : new int[]{a, b, c, d}) {
+            table.put(key, key);
+        }
+
+        // 删除槽位7上的a，b跨过末尾移动到槽位7，c移动到槽位0，d移动到槽位1
+        Assert.assertEquals(Integer.valueOf(a), table.remove(a));
+        assertContains(table, b, c, d);
+        Assert.assertNull(table.get(a));
+
+        // 删除槽位7上的b，c跨过末尾移动到槽位7，d移动到槽位0
+        Assert.assertEquals(Integer.valueOf(b), table.remove(b));
+        assertContains(table, c, d);
+
+        // 删除后重新写入
+        table.put(a, a);
+        table.put(b, b);
+        assertContains(table, a, b, c, d);
+        Assert.assertEquals(4, table.size());
+    }
+
+    /**
+     * 已经在自己槽位上或者在槽位之后的元素不会被移动到槽位之前
+     */
+    @Test
+    public void backwardShiftKeepHomeTest() {
+        IntObjectTable<Integer> table = new IntObjectTable<>(INITIAL_CAPACITY);
+        // a在槽位7，e、f在槽位0，占用0、1，g在槽位1，占用2
+        int a = keys(SLOT_MASK, 1).get(0);
+        List<Integer> first = keys(0, 2);
+        int e = first.get(0), f = first.get(1);
+        int g = keys(1, 1).get(0);
+        for (int key : new int[]{a, e, f, g}) {
+            table.put(key, key);
+        }
+
+        Assert.assertEquals(Integer.valueOf(a), table.remove(a));
+        assertContains(table, e, f, g);
+
+        // 删除e之后f移动到槽位0，g移动到槽位1
+        Assert.assertEquals(Integer.valueOf(e), table.remove(e));
+        assertContains(table, f, g);
+        Assert.assertEquals(2, table.size());
+    }
+
+    /**
+     * 随机读写删除，结果和HashMap一致，包括扩容
+     */
+    @Test
+    public void randomTest() {
+        IntObjectTable<Integer> table = new IntObjectTable<>(16);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(20191018L);
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2048) - 1024;
+            int op = random.nextInt(3);
+            if (op == 0) {
+                Assert.assertEquals(expected.put(key, i), table.put(key, i));
+            } else if (op == 1) {
+                Assert.assertEquals(expected.remove(key), table.remove(key));
+            } else {
+                Assert.assertEquals(expected.get(key), table.get(key));
+            }
+        }
+        Assert.assertEquals(expected.size(), table.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+        List<Integer> values = table.values();
+        List<Integer> expectedValues = new ArrayList<>(expected.values());
+        Collections.sort(values);
+        Collections.sort(expectedValues);
+        Assert.assertEquals(expectedValues, values);
+
+        table.clear();
+        Assert.assertEquals(0, table.size());
+        Assert.assertTrue(table.values().isEmpty());
+    }
+
+    /**
+     * 查找在第0段中，初始槽位为slot的key
+     */
+    private static List<Integer> keys(int slot, int count) {
+        List<Integer> keys = new ArrayList<>(count);
+        for (int key = 0; keys.size() < count; key++) {
+            int hash = IntObjectTable.hash(key);
+            if ((hash & 15) == 0 && ((hash >>> 4) & SLOT_MASK) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static void assertContains(IntObjectTable<Integer> table, int... keys) {
+        for (int key : keys) {
+            Assert.assertEquals(Integer.valueOf(key), table.get(key));
+        }
+    }
+}
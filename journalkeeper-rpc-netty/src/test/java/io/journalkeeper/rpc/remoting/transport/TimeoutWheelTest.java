@@ -0,0 +1,183 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport;
+
+import io.journalkeeper.rpc.header.JournalKeeperHeader;
+import io.journalkeeper.rpc.remoting.transport.command.Command;
+import io.journalkeeper.rpc.remoting.transport.command.Direction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 请求超时时间轮测试，使用指定的当前时间推进时间轮
+ */
+public class TimeoutWheelTest {
+    private static final long TICK_MS = 10L;
+    // 8个格子，一圈80ms
+    private static final int WHEEL_SIZE = 8;
+    private static final long STEP_MS = 5L;
+
+    @Test
+    public void expireTest() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK_MS, WHEEL_SIZE);
+        ResponseFuture future = createFuture(1, 35L);
+        wheel.add(future);
+        assertExpiredOnce(wheel, future, 100L);
+    }
+
+    /**
+     * 超时时间超过一圈的请求，经过所在的格子时放回，直到超时
+     */
+    @Test
+    public void multipleLapsTest() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK_MS, WHEEL_SIZE);
+        ResponseFuture future = createFuture(1, 3 * TICK_MS * WHEEL_SIZE + 15L);
+        // 超时时间和上面的请求相差整数圈，一般在同一个格子，第一圈就超时
+        ResponseFuture sameBucket = createFuture(2, 15L);
+        wheel.add(future);
+        wheel.add(sameBucket);
+
+        List<ResponseFuture> expired = new ArrayList<>();
+        long begin = future.getBeginTime();
+        for (long now = begin; now <= begin + 5 * TICK_MS * WHEEL_SIZE; now += STEP_MS) {
+            int before = expired.size();
+            wheel.expire(now, expired::add);
+            for (ResponseFuture expiredFuture : expired.subList(before, expired.size())) {
+                long deadline = expiredFuture.getBeginTime() + expiredFuture.getTimeout();
+                Assert.assertTrue(now >= deadline);
+                Assert.assertTrue(now < deadline + TICK_MS + STEP_MS);
+            }
+        }
+        Assert.assertEquals(2, expired.size());
+        Assert.assertSame(sameBucket, expired.get(0));
+        Assert.assertSame(future, expired.get(1));
+    }
+
+    /**
+     * 清理落后超过一圈时，每个格子只处理一次，没有超时的请求继续保留
+     */
+    @Test
+    public void lagBehindTest() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK_MS, WHEEL_SIZE);
+        ResponseFuture shortFuture = createFuture(1, 20L);
+        ResponseFuture longFuture = createFuture(2, 20 * TICK_MS * WHEEL_SIZE);
+        wheel.add(shortFuture);
+        wheel.add(longFuture);
+
+        List<ResponseFuture> expired = new ArrayList<>();
+        long begin = shortFuture.getBeginTime();
+        wheel.expire(begin + 10 * TICK_MS * WHEEL_SIZE, expired::add);
+        Assert.assertEquals(1, expired.size());
+        Assert.assertSame(shortFuture, expired.get(0));
+
+        wheel.expire(begin + 30 * TICK_MS * WHEEL_SIZE, expired::add);
+        Assert.assertEquals(2, expired.size());
+        Assert.assertSame(longFuture, expired.get(1));
+    }
+
+    /**
+     * 已经释放和已经应答的请求不会超时
+     */
+    @Test
+    public void completedTest() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK_MS, WHEEL_SIZE);
+        ResponseFuture released = createFuture(1, 20L);
+        ResponseFuture responded = createFuture(2, 20L);
+        ResponseFuture pending = createFuture(3, 20L);
+        wheel.add(released);
+        wheel.add(responded);
+        wheel.add(pending);
+
+        released.release();
+        responded.setResponse(new Command());
+
+        List<ResponseFuture> expired = new ArrayList<>();
+        wheel.expire(pending.getBeginTime() + 100L, expired::add);
+        Assert.assertEquals(1, expired.size());
+        Assert.assertSame(pending, expired.get(0));
+
+        // 丢弃之后不会再出现
+        wheel.expire(pending.getBeginTime() + 100L + TICK_MS * WHEEL_SIZE, expired::add);
+        Assert.assertEquals(1, expired.size());
+    }
+
+    /**
+     * 从时间轮中摘除的请求不再被引用，也不会超时，摘除不影响同一个格子里的其它请求
+     */
+    @Test
+    public void removeTest() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK_MS, WHEEL_SIZE);
+        ResponseFuture first = createFuture(1, 20L);
+        ResponseFuture middle = createFuture(2, 20L);
+        ResponseFuture last = createFuture(3, 20L);
+        ResponseFuture notAdded = createFuture(4, 20L);
+        wheel.add(first);
+        wheel.add(middle);
+        wheel.add(last);
+
+        wheel.remove(middle);
+        Assert.assertNull(middle.wheelBucket);
+        Assert.assertNull(middle.wheelPrev);
+        Assert.assertNull(middle.wheelNext);
+        Assert.assertSame(last, first.wheelNext);
+        Assert.assertSame(first, last.wheelPrev);
+        // 重复摘除和摘除不在时间轮中的请求什么都不做
+        wheel.remove(middle);
+        wheel.remove(notAdded);
+
+        List<ResponseFuture> expired = new ArrayList<>();
+        wheel.expire(first.getBeginTime() + 100L, expired::add);
+        Assert.assertEquals(2, expired.size());
+        Assert.assertSame(first, expired.get(0));
+        Assert.assertSame(last, expired.get(1));
+        Assert.assertNull(first.wheelBucket);
+        Assert.assertNull(last.wheelBucket);
+    }
+
+    @Test
+    public void clearTest() {
+        TimeoutWheel wheel = new TimeoutWheel(TICK_MS, WHEEL_SIZE);
+        ResponseFuture future = createFuture(1, 20L);
+        wheel.add(future);
+        wheel.clear();
+        List<ResponseFuture> expired = new ArrayList<>();
+        wheel.expire(future.getBeginTime() + 100L, expired::add);
+        Assert.assertTrue(expired.isEmpty());
+    }
+
+    private static void assertExpiredOnce(TimeoutWheel wheel, ResponseFuture future, long duration) {
+        long deadline = future.getBeginTime() + future.getTimeout();
+        List<ResponseFuture> expired = new ArrayList<>();
+        long expiredAt = -1L;
+        for (long now = future.getBeginTime(); now <= future.getBeginTime() + duration; now += STEP_MS) {
+            wheel.expire(now, expired::add);
+            if (expiredAt < 0 && !expired.isEmpty()) {
+                expiredAt = now;
+            }
+        }
+        Assert.assertEquals(1, expired.size());
+        Assert.assertSame(future, expired.get(0));
+        Assert.assertTrue(expiredAt >= deadline);
+        Assert.assertTrue(expiredAt < deadline + TICK_MS + STEP_MS);
+    }
+
+    private static ResponseFuture createFuture(int requestId, long timeout) {
+        Command request = new Command(new JournalKeeperHeader(JournalKeeperHeader.DEFAULT_VERSION, Direction.REQUEST,
+                requestId, 0, null), null);
+        return new ResponseFuture(null, request, timeout, null, null, null);
+    }
+}
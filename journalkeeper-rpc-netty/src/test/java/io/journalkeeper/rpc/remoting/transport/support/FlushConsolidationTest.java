@@ -0,0 +1,141 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport.support;
+
+import io.journalkeeper.rpc.codec.JournalKeeperCodec;
+import io.journalkeeper.rpc.codec.RpcTypes;
+import io.journalkeeper.rpc.header.JournalKeeperHeader;
+import io.journalkeeper.rpc.payload.VoidPayload;
+import io.journalkeeper.rpc.remoting.handler.FlushStatisticHandler;
+import io.journalkeeper.rpc.remoting.transport.FlushStatistic;
+import io.journalkeeper.rpc.remoting.transport.Transport;
+import io.journalkeeper.rpc.remoting.transport.TransportClient;
+import io.journalkeeper.rpc.remoting.transport.TransportServer;
+import io.journalkeeper.rpc.remoting.transport.command.Command;
+import io.journalkeeper.rpc.remoting.transport.command.CommandCallback;
+import io.journalkeeper.rpc.remoting.transport.command.Direction;
+import io.journalkeeper.rpc.remoting.transport.config.ClientConfig;
+import io.journalkeeper.rpc.remoting.transport.config.ServerConfig;
+import io.journalkeeper.utils.net.NetworkingUtils;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 开启和关闭合并flush时，请求和应答都能正常收发，写出统计记录所有写出的数据包
+ */
+public class FlushConsolidationTest {
+    private static final int REQUESTS = 100;
+
+    @Test
+    public void flushConsolidationTest() throws Exception {
+        sendAndReceive(true);
+    }
+
+    @Test
+    public void noFlushConsolidationTest() throws Exception {
+        sendAndReceive(false);
+    }
+
+    /**
+     * 统计在合并flush的外侧，读处理过程中的多次flush只统计为一次
+     */
+    @Test
+    public void statisticOutsideConsolidationTest() {
+        FlushStatistic statistic = new FlushStatistic();
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new FlushStatisticHandler(statistic), new FlushConsolidationHandler(256, true));
+        channel.pipeline().fireChannelRead(Unpooled.EMPTY_BUFFER);
+        for (int i = 0; i < 10; i++) {
+            channel.write(Unpooled.wrappedBuffer(new byte[]{(byte) i}));
+            channel.flush();
+        }
+        Assert.assertEquals(0, statistic.getFlushes());
+        channel.pipeline().fireChannelReadComplete();
+        Assert.assertEquals(10, statistic.getFrames());
+        Assert.assertEquals(1, statistic.getFlushes());
+        channel.finishAndReleaseAll();
+    }
+
+    private void sendAndReceive(boolean flushConsolidation) throws Exception {
+        int port = NetworkingUtils.findRandomOpenPortOnAllLocalInterfaces();
+        URI uri = URI.create("jk://localhost:" + port);
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setFlushConsolidation(flushConsolidation);
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setFlushConsolidation(flushConsolidation);
+
+        TransportServer server = new DefaultTransportServerFactory(new JournalKeeperCodec(),
+                command -> (transport, request) -> new Command(new VoidPayload()))
+                .bind(serverConfig, "localhost", port);
+        TransportClient client = new DefaultTransportClientFactory(new JournalKeeperCodec()).create(clientConfig);
+        server.start();
+        try {
+            client.start();
+            Transport transport = client.createTransport(new InetSocketAddress("localhost", port));
+
+            // 同步请求每次只有一个数据包
+            for (int i = 0; i < REQUESTS; i++) {
+                Command response = transport.sync(createRequest(uri));
+                Assert.assertTrue(response.isSuccess());
+            }
+
+            // 并发的异步请求可能合并写出
+            CountDownLatch latch = new CountDownLatch(REQUESTS);
+            AtomicInteger failed = new AtomicInteger(0);
+            for (int i = 0; i < REQUESTS; i++) {
+                transport.async(createRequest(uri), new CommandCallback() {
+                    @Override
+                    public void onSuccess(Command request, Command response) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onException(Command request, Throwable cause) {
+                        failed.incrementAndGet();
+                        latch.countDown();
+                    }
+                });
+            }
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(0, failed.get());
+
+            assertStatistic(client.getFlushStatistic());
+            assertStatistic(server.getFlushStatistic());
+            transport.stop();
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    private static Command createRequest(URI uri) {
+        return new Command(new JournalKeeperHeader(JournalKeeperHeader.DEFAULT_VERSION, Direction.REQUEST,
+                RpcTypes.VOID_PAYLOAD, uri), new VoidPayload());
+    }
+
+    private static void assertStatistic(FlushStatistic statistic) {
+        Assert.assertTrue(statistic.getFrames() >= 2 * REQUESTS);
+        Assert.assertTrue(statistic.getFlushes() > 0);
+        Assert.assertTrue(statistic.getFlushes() <= statistic.getFrames());
+    }
+}
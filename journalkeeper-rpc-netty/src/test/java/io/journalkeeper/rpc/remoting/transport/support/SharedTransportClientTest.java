@@ -0,0 +1,280 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.remoting.transport.support;
+
+import io.journalkeeper.rpc.remoting.concurrent.EventListener;
+import io.journalkeeper.rpc.remoting.event.TransportEvent;
+import io.journalkeeper.rpc.remoting.transport.FlushStatistic;
+import io.journalkeeper.rpc.remoting.transport.Transport;
+import io.journalkeeper.rpc.remoting.transport.TransportAttribute;
+import io.journalkeeper.rpc.remoting.transport.TransportClient;
+import io.journalkeeper.rpc.remoting.transport.TransportState;
+import io.journalkeeper.rpc.remoting.transport.command.Command;
+import io.journalkeeper.rpc.remoting.transport.command.CommandCallback;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * 共享连接的TransportClient测试
+ */
+public class SharedTransportClientTest {
+    private final SocketAddress address1 = InetSocketAddress.createUnresolved("host1", 50088);
+    private final SocketAddress address2 = InetSocketAddress.createUnresolved("host2", 50088);
+    private FakeTransportClient delegate;
+    private SharedTransportClient client;
+
+    @Before
+    public void before() {
+        delegate = new FakeTransportClient();
+        client = new SharedTransportClient(delegate);
+    }
+
+    /**
+     * 同一个地址共用一个连接，不同地址各自建立连接
+     */
+    @Test
+    public void shareConnectionTest() throws Exception {
+        client.start();
+        Transport t1 = client.createTransport(address1);
+        Transport t2 = client.createTransport(address1);
+        Transport t3 = client.createTransport(address2);
+
+        Assert.assertEquals(2, delegate.transports.size());
+        Assert.assertNotSame(t1, t2);
+        Assert.assertEquals(address1, t1.remoteAddress());
+        Assert.assertEquals(address1, t2.remoteAddress());
+        Assert.assertEquals(address2, t3.remoteAddress());
+        client.stop();
+    }
+
+    /**
+     * 最后一个引用释放时才关闭连接，重复释放同一个引用不影响其它引用
+     */
+    @Test
+    public void releaseTest() throws Exception {
+        client.start();
+        Transport t1 = client.createTransport(address1);
+        Transport t2 = client.createTransport(address1);
+        FakeTransport connection = delegate.transports.get(0);
+
+        t1.stop();
+        t1.stop();
+        Assert.assertFalse(connection.stopped);
+        Assert.assertEquals(TransportState.CONNECTED, t2.state());
+
+        t2.stop();
+        Assert.assertTrue(connection.stopped);
+
+        // 连接关闭后再次创建，重新建立连接
+        client.createTransport(address1);
+        Assert.assertEquals(2, delegate.transports.size());
+        Assert.assertFalse(delegate.transports.get(1).stopped);
+        client.stop();
+    }
+
+    /**
+     * 已断开的连接不再分配给新的使用者，现有使用者都释放后才关闭
+     */
+    @Test
+    public void disconnectedTest() throws Exception {
+        client.start();
+        Transport t1 = client.createTransport(address1);
+        FakeTransport connection = delegate.transports.get(0);
+        connection.state = TransportState.DISCONNECTED;
+
+        Transport t2 = client.createTransport(address1);
+        Assert.assertEquals(2, delegate.transports.size());
+        Assert.assertEquals(TransportState.CONNECTED, t2.state());
+        Assert.assertFalse(connection.stopped);
+
+        t1.stop();
+        Assert.assertTrue(connection.stopped);
+        Assert.assertFalse(delegate.transports.get(1).stopped);
+        client.stop();
+    }
+
+    /**
+     * start和stop按引用计数，最后一个使用者stop时关闭所有连接和底层的TransportClient
+     */
+    @Test
+    public void lifeCycleTest() throws Exception {
+        client.start();
+        client.start();
+        Assert.assertEquals(1, delegate.startCount);
+        // 写出统计就是底层TransportClient的统计
+        Assert.assertSame(delegate.flushStatistic, client.getFlushStatistic());
+        Transport transport = client.createTransport(address1);
+
+        client.stop();
+        Assert.assertFalse(client.isClosed());
+        Assert.assertFalse(delegate.stopped);
+        Assert.assertEquals(TransportState.CONNECTED, transport.state());
+
+        client.stop();
+        Assert.assertTrue(client.isClosed());
+        Assert.assertTrue(delegate.stopped);
+        Assert.assertTrue(delegate.transports.get(0).stopped);
+    }
+
+    private static class FakeTransportClient implements TransportClient {
+        private final List<FakeTransport> transports = new ArrayList<>();
+        private final FlushStatistic flushStatistic = new FlushStatistic();
+        private int startCount = 0;
+        private boolean started = false;
+        private boolean stopped = false;
+
+        @Override
+        public Transport createTransport(String address) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Transport createTransport(String address, long connectionTimeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Transport createTransport(SocketAddress address) {
+            return createTransport(address, -1L);
+        }
+
+        @Override
+        public Transport createTransport(SocketAddress address, long connectionTimeout) {
+            FakeTransport transport = new FakeTransport(address);
+            transports.add(transport);
+            return transport;
+        }
+
+        @Override
+        public void addListener(EventListener<TransportEvent> listener) {
+        }
+
+        @Override
+        public void removeListener(EventListener<TransportEvent> listener) {
+        }
+
+        @Override
+        public FlushStatistic getFlushStatistic() {
+            return flushStatistic;
+        }
+
+        @Override
+        public void start() {
+            startCount++;
+            started = true;
+        }
+
+        @Override
+        public void stop() {
+            started = false;
+            stopped = true;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return started;
+        }
+    }
+
+    private static class FakeTransport implements Transport {
+        private final SocketAddress address;
+        private TransportState state = TransportState.CONNECTED;
+        private boolean stopped = false;
+
+        private FakeTransport(SocketAddress address) {
+            this.address = address;
+        }
+
+        @Override
+        public Command sync(Command command) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Command sync(Command command, long timeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void async(Command command, CommandCallback callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void async(Command command, long timeout, CommandCallback callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<?> async(Command command) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<?> async(Command command, long timeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void oneway(Command command) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void oneway(Command command, long timeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void acknowledge(Command request, Command response) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void acknowledge(Command request, Command response, CommandCallback callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SocketAddress remoteAddress() {
+            return address;
+        }
+
+        @Override
+        public TransportAttribute attr() {
+            return null;
+        }
+
+        @Override
+        public void attr(TransportAttribute attribute) {
+        }
+
+        @Override
+        public TransportState state() {
+            return stopped ? TransportState.DISCONNECTED : state;
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.client;
+
+import io.journalkeeper.utils.event.EventFilter;
+
+/**
+ * RPC 方法
+ * {@link ClientServerRpc#addPullWatch(AddPullWatchRequest)}
+ * 请求参数
+ */
+public class AddPullWatchRequest {
+    private final EventFilter filter;
+
+    public AddPullWatchRequest() {
+        this(EventFilter.ALL);
+    }
+
+    public AddPullWatchRequest(EventFilter filter) {
+        this.filter = null == filter ? EventFilter.ALL : filter;
+    }
+
+    /**
+     * 服务端事件过滤条件
+     * @return 事件过滤条件
+     */
+    public EventFilter getFilter() {
+        return filter;
+    }
+}
@@ -14,6 +14,7 @@
 package io.journalkeeper.rpc.client;
 
 import io.journalkeeper.utils.event.EventBus;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventWatcher;
 
 import java.net.URI;
@@ -100,7 +101,17 @@ public interface ClientServerRpc {
      * @see EventBus
      * @return See {@link AddPullWatchResponse}
      */
-    CompletableFuture<AddPullWatchResponse> addPullWatch();
+    default CompletableFuture<AddPullWatchResponse> addPullWatch() {
+        return addPullWatch(new AddPullWatchRequest());
+    }
+
+    /**
+     * 添加pull模式事件监听，服务端只返回满足过滤条件的事件。
+     * @see EventBus
+     * @param request See {@link AddPullWatchRequest}
+     * @return See {@link AddPullWatchResponse}
+     */
+    CompletableFuture<AddPullWatchResponse> addPullWatch(AddPullWatchRequest request);
 
     /**
      * 删除pull事件监听。
@@ -171,6 +182,16 @@ public interface ClientServerRpc {
      */
     void watch(EventWatcher eventWatcher);
 
+    /**
+     * 添加事件监听器，只监听满足过滤条件的事件，过滤在服务端进行
+     * @see EventBus
+     * @param eventWatcher 事件监听器
+     * @param filter 过滤条件
+     */
+    default void watch(EventWatcher eventWatcher, EventFilter filter) {
+        watch(eventWatcher);
+    }
+
     /**
      * 删除事件监听器
      * @see EventBus
@@ -23,10 +23,16 @@ package io.journalkeeper.rpc.client;
 public class PullEventsRequest {
     private final long pullWatchId;
     private final long ackSequence;
+    private final long maxWaitMs;
 
     public PullEventsRequest(long pullWatchId, long ackSequence) {
+        this(pullWatchId, ackSequence, 0L);
+    }
+
+    public PullEventsRequest(long pullWatchId, long ackSequence, long maxWaitMs) {
         this.pullWatchId = pullWatchId;
         this.ackSequence = ackSequence;
+        this.maxWaitMs = maxWaitMs;
     }
 
     /**
@@ -44,4 +50,12 @@ public class PullEventsRequest {
     public long getAckSequence() {
         return ackSequence;
     }
+
+    /**
+     * 没有新事件时，服务端挂起请求的最长时间。
+     * @return 最长等待时间，单位毫秒。小于等于0时服务端立即返回。
+     */
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
 }
@@ -13,6 +13,8 @@
  */
 package io.journalkeeper.rpc.client;
 
+import io.journalkeeper.core.api.QueryConsistency;
+
 /**
  * RPC 方法
  * {@link ClientServerRpc#queryServerState(QueryStateRequest) queryServerState}
@@ -26,10 +28,20 @@ package io.journalkeeper.rpc.client;
 public class QueryStateRequest {
     private final byte[] query;
     private final long index;
+    private final QueryConsistency consistency;
 
-    public QueryStateRequest(byte[] query, long index) {
+    public QueryStateRequest(byte[] query, long index, QueryConsistency consistency) {
         this.query = query;
         this.index = index;
+        this.consistency = consistency;
+    }
+
+    public QueryStateRequest(byte[] query, long index) {
+        this(query, index, QueryConsistency.STRICT);
+    }
+
+    public QueryStateRequest(byte[] query, QueryConsistency consistency) {
+        this(query, -1L, consistency);
     }
 
     public QueryStateRequest(byte[] query) {
@@ -51,4 +63,12 @@ public class QueryStateRequest {
     public long getIndex() {
         return index;
     }
+
+    /**
+     * 读一致性，只对queryClusterState和queryServerState有效。
+     * @return 读一致性。
+     */
+    public QueryConsistency getConsistency() {
+        return consistency;
+    }
 }
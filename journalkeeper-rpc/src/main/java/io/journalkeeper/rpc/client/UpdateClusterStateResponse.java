@@ -27,6 +27,9 @@ import java.util.List;
 public class UpdateClusterStateResponse extends LeaderResponse {
     private final List<byte[]> results;
     private final long lastApplied;
+    // 服务端繁忙时，建议客户端多久之后重试，单位毫秒。
+    // 不能有初始值，onSetException在父类的构造方法中被调用。
+    private long retryAfterMs;
     public UpdateClusterStateResponse() {
         super();
         this.results = Collections.emptyList();
@@ -60,6 +63,7 @@ public class UpdateClusterStateResponse extends LeaderResponse {
             throw throwable;
         } catch (ServerBusyException e) {
             setStatusCode(StatusCode.SERVER_BUSY);
+            this.retryAfterMs = e.getRetryAfterMs();
         } catch (Throwable t) {
             super.onSetException(throwable);
         }
@@ -68,4 +72,16 @@ public class UpdateClusterStateResponse extends LeaderResponse {
     public long getLastApplied() {
         return lastApplied;
     }
+
+    /**
+     * 服务端繁忙（{@link StatusCode#SERVER_BUSY}）时，建议客户端多久之后重试。
+     * @return 建议的重试等待时间，单位毫秒，小于等于0表示没有建议。
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    public void setRetryAfterMs(long retryAfterMs) {
+        this.retryAfterMs = retryAfterMs;
+    }
 }
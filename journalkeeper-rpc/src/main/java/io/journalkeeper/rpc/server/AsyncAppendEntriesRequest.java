@@ -14,9 +14,19 @@
 package io.journalkeeper.rpc.server;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
+ * 日志引用网络接收缓冲区的请求，处理完成后由RPC框架调用{@link #release()}释放接收缓冲区：
+ * <ul>
+ * <li>{@link #getEntryBuffers()}返回的ByteBuffer直接引用接收缓冲区，只在释放之前有效，
+ * 调用过这个方法后，释放之后再读取日志会抛出{@link IllegalStateException}；</li>
+ * <li>没有调用过{@link #getEntryBuffers()}的使用者可能在释放后继续调用{@link #getEntries()}，
+ * 释放前会把日志复制到堆内，{@link #getEntries()}返回的日志一直有效。</li>
+ * </ul>
  * @author LiYue
  * Date: 2019-03-14
  */
@@ -26,16 +36,45 @@ public class AsyncAppendEntriesRequest implements Termed {
     private final URI leader;
     private final long prevLogIndex;
     private final int prevLogTerm;
-    private final List<byte[]> entries;
+    private List<byte[]> entries;
+    /**
+     * 引用网络接收缓冲区的日志，没有复制到堆内，使用完后需要调用{@link #release()}释放。
+     */
+    private final List<ByteBuffer> entryBuffers;
+    private final Runnable releaser;
+    private boolean released = false;
+    // 是否通过getEntryBuffers()直接读取过接收缓冲区
+    private boolean buffersAccessed = false;
     private final long leaderCommit;
     private final long maxIndex;
 
     public AsyncAppendEntriesRequest(int term, URI leader, long prevLogIndex, int prevLogTerm, List<byte[]> entries, long leaderCommit, long maxIndex) {
+        this(term, leader, prevLogIndex, prevLogTerm, entries, null, null, leaderCommit, maxIndex);
+    }
+
+    /**
+     * 日志引用网络接收缓冲区的请求
+     * @param term 领导人的任期号
+     * @param leader 领导人的地址
+     * @param prevLogIndex 新的日志条目紧随之前的索引值
+     * @param prevLogTerm prevLogIndex 条目的任期号
+     * @param entryBuffers 每条日志对应的ByteBuffer，只在{@link #release()}之前有效
+     * @param releaser 释放接收缓冲区
+     * @param leaderCommit 领导人已经提交的日志的索引值
+     * @param maxIndex 领导人日志的最大索引序号
+     */
+    public AsyncAppendEntriesRequest(int term, URI leader, long prevLogIndex, int prevLogTerm, List<ByteBuffer> entryBuffers, Runnable releaser, long leaderCommit, long maxIndex) {
+        this(term, leader, prevLogIndex, prevLogTerm, null, entryBuffers, releaser, leaderCommit, maxIndex);
+    }
+
+    private AsyncAppendEntriesRequest(int term, URI leader, long prevLogIndex, int prevLogTerm, List<byte[]> entries, List<ByteBuffer> entryBuffers, Runnable releaser, long leaderCommit, long maxIndex) {
         this.term = term;
         this.leader = leader;
         this.prevLogIndex = prevLogIndex;
         this.prevLogTerm = prevLogTerm;
         this.entries = entries;
+        this.entryBuffers = entryBuffers;
+        this.releaser = releaser;
         this.leaderCommit = leaderCommit;
         this.maxIndex = maxIndex;
     }
@@ -56,10 +95,69 @@ public class AsyncAppendEntriesRequest implements Termed {
         return prevLogTerm;
     }
 
-    public List<byte[]> getEntries() {
+    /**
+     * 如果日志引用的是网络接收缓冲区，第一次调用时复制到堆内。
+     * @return 日志列表
+     * @throws IllegalStateException 接收缓冲区已经释放，并且日志没有复制到堆内
+     */
+    public synchronized List<byte[]> getEntries() {
+        if (null == entries && null != entryBuffers) {
+            checkNotReleased();
+            List<byte[]> copied = new ArrayList<>(entryBuffers.size());
+            for (ByteBuffer entryBuffer : entryBuffers) {
+                byte[] bytes = new byte[entryBuffer.remaining()];
+                entryBuffer.duplicate().get(bytes);
+                copied.add(bytes);
+            }
+            entries = copied;
+        }
         return entries;
     }
 
+    /**
+     * 不复制数据，返回每条日志对应的ByteBuffer，ByteBuffer只在{@link #release()}之前有效。
+     * @return 日志列表
+     * @throws IllegalStateException 接收缓冲区已经释放
+     */
+    public synchronized List<ByteBuffer> getEntryBuffers() {
+        if (null != entryBuffers && null == entries) {
+            checkNotReleased();
+            buffersAccessed = true;
+            return entryBuffers;
+        }
+        return null == entries ? new ArrayList<>() : entries.stream().map(ByteBuffer::wrap).collect(Collectors.toList());
+    }
+
+    public int getEntryCount() {
+        if (null != entryBuffers) {
+            return entryBuffers.size();
+        }
+        return null == entries ? 0 : entries.size();
+    }
+
+    /**
+     * 释放引用的网络接收缓冲区，可以重复调用。
+     * 没有通过{@link #getEntryBuffers()}读取过日志时，释放前把日志复制到堆内。
+     */
+    public void release() {
+        synchronized (this) {
+            if (null == releaser || released) {
+                return;
+            }
+            if (!buffersAccessed) {
+                getEntries();
+            }
+            released = true;
+        }
+        releaser.run();
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("Entries of the request are released!");
+        }
+    }
+
     public long getLeaderCommit() {
         return leaderCommit;
     }
@@ -75,7 +173,7 @@ public class AsyncAppendEntriesRequest implements Termed {
                 ", leader=" + leader +
                 ", prevLogIndex=" + prevLogIndex +
                 ", prevLogTerm=" + prevLogTerm +
-                ", entries=" + entries.size() +
+                ", entries=" + getEntryCount() +
                 ", leaderCommit=" + leaderCommit +
                 ", maxIndex=" + maxIndex +
                 '}';
@@ -24,21 +24,38 @@ public class AsyncAppendEntriesResponse extends BaseResponse implements Termed {
     private final long journalIndex;
     private final int term;
     private final int entryCount;
+    /**
+     * 日志不匹配时，FOLLOWER提示LEADER下次复制的位置：
+     * FOLLOWER日志比prevLogIndex短时为FOLLOWER的最大索引序号，
+     * 任期不匹配时为FOLLOWER日志中冲突任期的第一条日志的索引序号。
+     * -1表示没有提示。
+     */
+    private final long conflictIndex;
+    /**
+     * 日志不匹配时FOLLOWER在prevLogIndex位置上日志的任期，-1表示FOLLOWER没有这条日志。
+     */
+    private final int conflictTerm;
 
-    private AsyncAppendEntriesResponse(Throwable exception, boolean success, long journalIndex, int term, int entryCount) {
+    private AsyncAppendEntriesResponse(Throwable exception, boolean success, long journalIndex, int term, int entryCount, long conflictIndex, int conflictTerm) {
         super(exception);
         this.success = success;
         this.journalIndex = journalIndex;
         this.term = term;
         this.entryCount = entryCount;
+        this.conflictIndex = conflictIndex;
+        this.conflictTerm = conflictTerm;
     }
 
     public AsyncAppendEntriesResponse(boolean success, long journalIndex, int term, int entryCount) {
-        this(null, success, journalIndex, term, entryCount);
+        this(success, journalIndex, term, entryCount, -1L, -1);
+    }
+
+    public AsyncAppendEntriesResponse(boolean success, long journalIndex, int term, int entryCount, long conflictIndex, int conflictTerm) {
+        this(null, success, journalIndex, term, entryCount, conflictIndex, conflictTerm);
     }
 
     public AsyncAppendEntriesResponse(Throwable exception) {
-        this(exception, false, -1L, -1, -1);
+        this(exception, false, -1L, -1, -1, -1L, -1);
     }
 
     public long getJournalIndex() {
@@ -57,6 +74,14 @@ public class AsyncAppendEntriesResponse extends BaseResponse implements Termed {
         return success;
     }
 
+    public long getConflictIndex() {
+        return conflictIndex;
+    }
+
+    public int getConflictTerm() {
+        return conflictTerm;
+    }
+
     @Override
     public String toString() {
         return "AsyncAppendEntriesResponse{" +
@@ -64,6 +89,8 @@ public class AsyncAppendEntriesResponse extends BaseResponse implements Termed {
                 ", journalIndex=" + journalIndex +
                 ", term=" + term +
                 ", entryCount=" + entryCount +
+                ", conflictIndex=" + conflictIndex +
+                ", conflictTerm=" + conflictTerm +
                 '}';
     }
 }
@@ -23,6 +23,7 @@ import io.journalkeeper.core.entry.DefaultJournalEntryParser;
 import io.journalkeeper.core.entry.JournalEntryParseSupport;
 import io.journalkeeper.exceptions.ServerBusyException;
 import io.journalkeeper.rpc.client.UpdateClusterStateRequest;
+import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.format.Format;
 import io.journalkeeper.utils.net.NetworkingUtils;
 import io.journalkeeper.utils.test.ByteUtils;
@@ -60,6 +61,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -127,6 +129,61 @@ public class JournalStoreTest {
 
     }
 
+    /**
+     * 开启同步刷盘后，PERSISTENCE和ALL级别的写入都能正常返回
+     */
+    @Test
+    public void syncJournalTest() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("sync_journal", "true");
+        properties.setProperty("sync_interval_ms", "5");
+        properties.setProperty("sync_bytes", String.valueOf(256 * 1024));
+        for (ResponseConfig responseConfig : Arrays.asList(ResponseConfig.PERSISTENCE, ResponseConfig.ALL)) {
+            writeReadTest(3, Sets.newSet(0, 1, 2, 3, 4), 1024, 10, 2L * 1024 * 1024, true, responseConfig, true, properties);
+            after();
+            before();
+        }
+    }
+
+    /**
+     * Leader合并写入的一批请求中，回调数量超过回调队列容量（cache_requests）时，所有写入都能成功返回
+     */
+    @Test
+    public void coalesceMoreCallbacksThanCacheRequestsTest() throws Exception {
+        int cacheRequests = 16;
+        int batchSize = 10;
+        int requests = 2000;
+        Properties properties = new Properties();
+        properties.setProperty("cache_requests", String.valueOf(cacheRequests));
+        Set<Integer> partitions = Sets.newSet(0, 1, 2, 3, 4);
+        List<Integer> partitionList = new ArrayList<>(partitions);
+        JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+        byte[] rawEntryBytes = ByteUtils.createFixedSizeBytes(1024);
+        List<UpdateRequest> entries = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            byte [] entry = journalEntryParser.createJournalEntry(rawEntryBytes).getSerializedBytes();
+            entries.add(new UpdateRequest(entry, partitionList.get(i % partitionList.size()), 1));
+        }
+
+        for (ResponseConfig responseConfig : Arrays.asList(ResponseConfig.PERSISTENCE, ResponseConfig.REPLICATION, ResponseConfig.ALL)) {
+            List<JournalStoreServer> servers = createServers(1, base, partitions, properties);
+            try {
+                JournalStoreClient client = servers.get(0).createLocalClient();
+                client.waitForClusterReady();
+                List<CompletableFuture<List<Long>>> futures = new ArrayList<>(requests);
+                for (int i = 0; i < requests; i++) {
+                    futures.add(client.append(entries, true, responseConfig));
+                }
+                // 等待回调超时的写入会以TimeoutException失败
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+            } finally {
+                stopServers(servers);
+            }
+            after();
+            before();
+        }
+    }
+
     @Test
     public void maxPositionTest() throws IOException, ExecutionException, InterruptedException {
         List<JournalStoreServer> servers = createServers(1, base);
@@ -230,6 +287,176 @@ public class JournalStoreTest {
 
 
     }
+
+    /**
+     * 长轮询读取：没有新日志时等待，写入后立即返回，按字节数限制返回的日志。
+     */
+    @Test
+    public void fetchTest() throws Exception {
+        JournalStoreServer server = createServers(1, base).get(0);
+        try {
+            JournalStoreClient client = server.createLocalClient();
+            client.waitForClusterReady();
+
+            // 没有日志时等待超时，返回空列表
+            long start = System.currentTimeMillis();
+            Assert.assertTrue(client.fetch(0, 0L, 1024 * 1024, 200L).get().isEmpty());
+            Assert.assertTrue(System.currentTimeMillis() - start >= 200L);
+
+            // 写入后唤醒等待中的请求
+            CompletableFuture<List<JournalEntry>> future = client.fetch(0, 0L, 1024 * 1024, 10000L);
+            Thread.sleep(100L);
+            Assert.assertFalse(future.isDone());
+            byte[] payload = ByteUtils.createFixedSizeBytes(128);
+            client.append(0, 1, payload, ResponseConfig.REPLICATION).get();
+            List<JournalEntry> entries = future.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(1, entries.size());
+            Assert.assertArrayEquals(payload, entries.get(0).getPayload().getBytes());
+
+            for (int i = 0; i < 9; i++) {
+                client.append(0, 1, payload, ResponseConfig.REPLICATION).get();
+            }
+            // 至少返回一条日志
+            Assert.assertEquals(1, client.fetch(0, 0L, 1, 0L).get().size());
+            Assert.assertEquals(10, client.fetch(0, 0L, 1024 * 1024, 0L).get().size());
+            Assert.assertEquals(5, client.fetch(0, 5L, 1024 * 1024, 0L).get().size());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * 取消监听后不再收到事件
+     */
+    @Test
+    public void unWatchTest() throws Exception {
+        JournalStoreServer server = createServers(1, base).get(0);
+        try {
+            JournalStoreClient client = server.createLocalClient();
+            client.waitForClusterReady();
+            AtomicInteger events = new AtomicInteger(0);
+            EventWatcher eventWatcher = event -> events.incrementAndGet();
+            byte[] payload = ByteUtils.createFixedSizeBytes(128);
+
+            client.watch(eventWatcher);
+            client.append(0, 1, payload, ResponseConfig.REPLICATION).get();
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (events.get() == 0) {
+                Assert.assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10L);
+            }
+
+            client.unWatch(eventWatcher);
+            events.set(0);
+            client.append(0, 1, payload, ResponseConfig.REPLICATION).get();
+            Thread.sleep(500L);
+            Assert.assertEquals(0, events.get());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * 从批量日志中间开始读取，返回整条批量日志，第一条日志的偏移量为读取位置在批量日志中的位置。
+     */
+    @Test
+    public void fetchBatchTest() throws Exception {
+        JournalStoreServer server = createServers(1, base).get(0);
+        try {
+            JournalStoreClient client = server.createLocalClient();
+            client.waitForClusterReady();
+
+            // 索引0、1为单条日志，2~4为一条批量日志，5为单条日志
+            byte[] payload = ByteUtils.createFixedSizeBytes(128);
+            byte[] batchPayload = ByteUtils.createFixedSizeBytes(256);
+            int batchSize = 3;
+            client.append(0, 1, payload, ResponseConfig.REPLICATION).get();
+            client.append(0, 1, payload, ResponseConfig.REPLICATION).get();
+            client.append(0, batchSize, batchPayload, ResponseConfig.REPLICATION).get();
+            client.append(0, 1, payload, ResponseConfig.REPLICATION).get();
+
+            for (int offset = 0; offset < batchSize; offset++) {
+                List<JournalEntry> entries = client.fetch(0, 2L + offset, 1024 * 1024, 0L).get();
+                Assert.assertEquals(2, entries.size());
+                JournalEntry batchEntry = entries.get(0);
+                Assert.assertEquals(batchSize, batchEntry.getBatchSize());
+                Assert.assertEquals(offset, batchEntry.getOffset());
+                Assert.assertArrayEquals(batchPayload, batchEntry.getPayload().getBytes());
+                // 和按照索引读取的结果一致
+                Assert.assertEquals(client.get(0, 2L + offset, 1).get().get(0).getOffset(), batchEntry.getOffset());
+
+                JournalEntry nextEntry = entries.get(1);
+                Assert.assertEquals(1, nextEntry.getBatchSize());
+                Assert.assertEquals(0, nextEntry.getOffset());
+                Assert.assertArrayEquals(payload, nextEntry.getPayload().getBytes());
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * 所有Server共享后台线程（shared_threads）和TransportClient（shared_transport）时，
+     * 集群可以正常读写；停止一个节点不会关闭其它节点还在使用的TransportClient，重启后这个节点可以追上LEADER。
+     */
+    @Test
+    public void sharedThreadsAndTransportTest() throws Exception {
+        final int nodes = 3;
+        final int entrySize = 1024;
+        final int entryCount = 10;
+        Properties props = new Properties();
+        props.setProperty("shared_threads", "true");
+        props.setProperty("shared_transport", "true");
+        Set<Integer> partitions = Collections.singleton(0);
+        List<JournalStoreServer> servers = createServers(nodes, base, partitions, props);
+        List<URI> serverURIs = servers.stream().map(JournalStoreServer::serverUri).collect(Collectors.toList());
+        try {
+            JournalStoreClient client = new JournalStoreClient(serverURIs, new Properties());
+            client.waitForClusterReady();
+            List<byte[]> rawEntries = ByteUtils.createFixedSizeByteList(entrySize, entryCount * 3);
+            appendAndVerify(client, rawEntries, 0, entryCount);
+
+            // 停止一个FOLLOWER，其它节点共用的TransportClient不能被关闭
+            AdminClient adminClient = servers.get(0).getAdminClient();
+            URI leaderUri = adminClient.getClusterConfiguration().get().getLeader();
+            int stopped = 0;
+            while (serverURIs.get(stopped).equals(leaderUri)) {
+                stopped++;
+            }
+            servers.get(stopped).stop();
+            appendAndVerify(client, rawEntries, entryCount, entryCount * 2);
+
+            // 重启这个节点，等待它追上LEADER
+            JournalStoreServer restarted = new JournalStoreServer(
+                    serverProperties(base.resolve("server" + stopped), props));
+            servers.set(stopped, restarted);
+            restarted.init(serverURIs.get(stopped), serverURIs, partitions);
+            restarted.recover();
+            restarted.start();
+            appendAndVerify(client, rawEntries, entryCount * 2, entryCount * 3);
+
+            long commitIndex = adminClient.getServerStatus(leaderUri).get().getCommitIndex();
+            long deadline = System.currentTimeMillis() + 30000L;
+            while (adminClient.getServerStatus(serverURIs.get(stopped)).get().getLastApplied() < commitIndex) {
+                Assert.assertTrue("Restarted server does not catch up with the leader.",
+                        System.currentTimeMillis() < deadline);
+                Thread.sleep(50L);
+            }
+        } finally {
+            stopServers(servers);
+        }
+    }
+
+    private void appendAndVerify(JournalStoreClient client, List<byte[]> rawEntries, int from, int to) throws Exception {
+        for (int i = from; i < to; i++) {
+            client.append(0, 1, rawEntries.get(i), ResponseConfig.REPLICATION).get();
+        }
+        List<JournalEntry> journalEntries = client.get(0, from, to - from).get();
+        Assert.assertEquals(to - from, journalEntries.size());
+        for (int i = from; i < to; i++) {
+            Assert.assertArrayEquals(rawEntries.get(i), journalEntries.get(i - from).getPayload().getBytes());
+        }
+    }
     @Ignore
     @Test
     public void writePerformanceTest() throws Exception {
@@ -770,25 +997,28 @@ public class JournalStoreTest {
         for (int i = 0; i < nodes; i++) {
             URI uri = URI.create("jk://localhost:" + NetworkingUtils.findRandomOpenPortOnAllLocalInterfaces());
             serverURIs.add(uri);
-            Path workingDir = path.resolve("server" + i);
-            Properties properties = new Properties();
-            properties.setProperty("working_dir", workingDir.toString());
-            properties.setProperty("snapshot_step", "0");
-            properties.setProperty("disable_logo", "true");
+            propertiesList.add(serverProperties(path.resolve("server" + i), props));
+        }
+        return createServers(serverURIs, propertiesList, partitions);
+    }
 
+    private Properties serverProperties(Path workingDir, Properties props) {
+        Properties properties = new Properties();
+        properties.setProperty("working_dir", workingDir.toString());
+        properties.setProperty("snapshot_step", "0");
+        properties.setProperty("disable_logo", "true");
 
 
-            if (null != props) {
-                properties.putAll(props);
-            }
-//            properties.setProperty("print_metric_interval_sec", String.valueOf(5));
-//            properties.setProperty("enable_metric", String.valueOf(true));
-            properties.setProperty("print_state_interval_sec", String.valueOf(5));
-//            properties.setProperty("persistence.journal.file_data_size", String.valueOf(128 * 1024));
-//            properties.setProperty("persistence.index.file_data_size", String.valueOf(16 * 1024));
-            propertiesList.add(properties);
+
+        if (null != props) {
+            properties.putAll(props);
         }
-        return createServers(serverURIs, propertiesList, partitions);
+//        properties.setProperty("print_metric_interval_sec", String.valueOf(5));
+//        properties.setProperty("enable_metric", String.valueOf(true));
+        properties.setProperty("print_state_interval_sec", String.valueOf(5));
+//        properties.setProperty("persistence.journal.file_data_size", String.valueOf(128 * 1024));
+//        properties.setProperty("persistence.index.file_data_size", String.valueOf(16 * 1024));
+        return properties;
     }
 
     private List<JournalStoreServer> createServers(List<URI> serverURIs, List<Properties> propertiesList, Set<Integer> partitions) throws IOException {
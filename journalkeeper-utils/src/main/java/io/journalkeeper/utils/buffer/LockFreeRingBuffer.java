@@ -87,7 +87,7 @@ public class LockFreeRingBuffer<T> {
 
     public int size() {
         int copyTail = tail;
-        return head < copyTail ? copyTail - head : bufferSize - head + copyTail;
+        return head <= copyTail ? copyTail - head : bufferSize - head + copyTail;
     }
 
     public T[] removeAll() {
@@ -22,12 +22,11 @@ import org.slf4j.LoggerFactory;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 /**
  * 事件总线，缓存事件，支持推拉2种模型：push和pull。
@@ -44,6 +43,13 @@ import java.util.stream.Collectors;
  * 4. 客户端收到事件后，调用 {@link #ackPullEvents(long, long)}  确认。
  * 5. 重复步骤4，直到调用 {@link #removePullWatch(long)} 取消订阅。
  *
+ * pull模式也支持长轮询：调用 {@link #pullEvents(long, long, ScheduledExecutorService)}，
+ * 没有新事件时请求挂起，直到有新事件或者等待超时后再返回，客户端收到响应后立即发起下一次拉取。
+ * 创建监听时可以指定 {@link EventFilter}，只有满足条件的事件才会返回给这个监听。
+ *
+ * pull模式的事件缓存在一个固定容量的环形缓冲区中，所有监听都确认过的事件会被删除，
+ * 如果客户端长时间不确认导致缓冲区写满，最旧的事件将被覆盖，这个客户端会丢失这部分事件。
+ *
  * 注意：客户端需要按照服务端给出的时间间隔拉取事件，如果客户端长时间不来拉取事件，服务端将认为客户端已经宕机，自动取消订阅。
  *
  * @author LiYue
@@ -51,24 +57,33 @@ import java.util.stream.Collectors;
  */
 public class EventBus implements Watchable {
     private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
-    private final NavigableMap<Long, Event> cachedEvents = new ConcurrentSkipListMap<>();
+    public static final int DEFAULT_PULL_EVENT_CAPACITY = 8192;
+    private final PullEventRing cachedEvents;
     private final AtomicLong watchIdGenerator = new AtomicLong(0L);
-    private final AtomicLong nextSequence = new AtomicLong(0L);
-    private final Set<EventWatcher> eventWatchers = ConcurrentHashMap.newKeySet();
+    private final Map<EventWatcher, EventFilter> eventWatchers = new ConcurrentHashMap<>();
     private final Map<Long, PullEventWatcher> pullEventWatchers = new ConcurrentHashMap<>();
     private final long pullEventIntervalMs;
     private final long pullEventWatcherTimeout;
     private final AsyncLoopThread removeTimeoutPullWatchersThread;
     private final Collection<EventInterceptor> interceptors;
 
-    public EventBus(long pullEventIntervalMs) {
+    /**
+     * @param pullEventIntervalMs pull模式的拉取时间间隔
+     * @param pullEventCapacity pull模式最多缓存的事件数量
+     */
+    public EventBus(long pullEventIntervalMs, int pullEventCapacity) {
         this.pullEventIntervalMs = pullEventIntervalMs;
+        this.cachedEvents = new PullEventRing(pullEventCapacity);
         this.pullEventWatcherTimeout = 5 * pullEventIntervalMs;
         interceptors = ServiceSupport.loadAll(EventInterceptor.class);
         this.removeTimeoutPullWatchersThread = buildRemoveTimeoutPullWatchersThread();
         this.removeTimeoutPullWatchersThread.start();
     }
 
+    public EventBus(long pullEventIntervalMs) {
+        this(pullEventIntervalMs, DEFAULT_PULL_EVENT_CAPACITY);
+    }
+
     public EventBus() {
         this(1000L);
     }
@@ -84,14 +99,16 @@ public class EventBus implements Watchable {
     }
 
     private void removeTimeoutPullWatchers() {
-        pullEventWatchers.entrySet().removeIf(entry -> entry.getValue().lastPullTimestamp + pullEventWatcherTimeout < System.currentTimeMillis());
+        if (pullEventWatchers.entrySet().removeIf(entry -> entry.getValue().lastPullTimestamp + pullEventWatcherTimeout < System.currentTimeMillis())) {
+            truncateCachedEvents();
+        }
     }
 
     /**
      * 触发一个事件
      * @param event 事件
      */
-    public synchronized void fireEvent(Event event) {
+    public void fireEvent(Event event) {
         for (EventInterceptor interceptor : interceptors) {
             if (!interceptor.onEvent(event, this)) {
                 logger.info("Event canceled by an interceptor, type: {}, data: {}"
@@ -100,10 +117,21 @@ public class EventBus implements Watchable {
             }
         }
         // 回调Push eventWatchers
-        eventWatchers.forEach(eventWatcher -> eventWatcher.onEvent(event));
+        eventWatchers.forEach((eventWatcher, filter) -> {
+            if (filter.accept(event)) {
+                eventWatcher.onEvent(event);
+            }
+        });
 
         if (!pullEventWatchers.isEmpty()) {
-            cachedEvents.put(nextSequence.getAndIncrement(), event);
+            PullEvent pullEvent = cachedEvents.append(event);
+            // 唤醒挂起的长轮询请求
+            for (PullEventWatcher pullEventWatcher : pullEventWatchers.values()) {
+                CompletableFuture<Void> waiter = pullEventWatcher.waiter;
+                if (null != waiter && pullEventWatcher.filter.accept(pullEvent)) {
+                    waiter.complete(null);
+                }
+            }
         }
     }
 
@@ -113,8 +141,18 @@ public class EventBus implements Watchable {
      */
     @Override
     public void watch(EventWatcher eventWatcher) {
+        watch(eventWatcher, EventFilter.ALL);
+    }
+
+    /**
+     * 添加事件监听器，只有满足过滤条件的事件才会调用监听器
+     * @param eventWatcher 事件监听器
+     * @param filter 过滤条件
+     */
+    @Override
+    public void watch(EventWatcher eventWatcher, EventFilter filter) {
         if (eventWatcher != null) {
-            eventWatchers.add(eventWatcher);
+            eventWatchers.put(eventWatcher, null == filter ? EventFilter.ALL : filter);
         }
     }
 
@@ -134,8 +172,17 @@ public class EventBus implements Watchable {
      * @return 监听ID
      */
     public long addPullWatch() {
+        return addPullWatch(EventFilter.ALL);
+    }
+
+    /**
+     * 添加pull模式事件监听，只监听满足过滤条件的事件。
+     * @param filter 事件过滤条件
+     * @return 监听ID
+     */
+    public long addPullWatch(EventFilter filter) {
         long pullWatchId = watchIdGenerator.getAndIncrement();
-        pullEventWatchers.put(pullWatchId, new PullEventWatcher(nextSequence.get()));
+        pullEventWatchers.put(pullWatchId, new PullEventWatcher(cachedEvents.nextSequence(), null == filter ? EventFilter.ALL : filter));
         return pullWatchId;
     }
 
@@ -144,7 +191,9 @@ public class EventBus implements Watchable {
      * @param pullWatchId 监听ID
      */
     public void removePullWatch(long pullWatchId) {
-        pullEventWatchers.remove(pullWatchId);
+        if (null != pullEventWatchers.remove(pullWatchId)) {
+            truncateCachedEvents();
+        }
     }
 
     /**
@@ -165,20 +214,74 @@ public class EventBus implements Watchable {
     public List<PullEvent> pullEvents(long pullWatchId) {
         PullEventWatcher pullEventWatcher = pullEventWatchers.get(pullWatchId);
         if (null != pullEventWatcher) {
-            List<PullEvent> pullEvents = cachedEvents.tailMap(pullEventWatcher.sequence.get())
-                    .entrySet().stream()
-                    .map(entry ->
-                            new PullEvent(entry.getValue().getEventType(),
-                                    entry.getKey(),
-                                    entry.getValue().getEventData()
-                            ))
-                    .collect(Collectors.toList());
             pullEventWatcher.touch();
-            return pullEvents;
+            return pendingEvents(pullEventWatcher);
         }
         return null;
     }
 
+    /**
+     * 长轮询拉取事件。有未确认的事件时立即返回，
+     * 否则挂起请求，直到有满足过滤条件的新事件或者等待超过maxWaitMs后返回。
+     * @param pullWatchId 监听ID
+     * @param maxWaitMs 最长等待时间，不超过 {@link #pullIntervalMs()}，小于等于0时立即返回
+     * @param scheduler 用于超时和返回响应的线程池
+     * @return 同 {@link #pullEvents(long)}
+     */
+    public CompletableFuture<List<PullEvent>> pullEvents(long pullWatchId, long maxWaitMs, ScheduledExecutorService scheduler) {
+        PullEventWatcher pullEventWatcher = pullEventWatchers.get(pullWatchId);
+        if (null == pullEventWatcher) {
+            return CompletableFuture.completedFuture(null);
+        }
+        pullEventWatcher.touch();
+        List<PullEvent> pullEvents = pendingEvents(pullEventWatcher);
+        if (!pullEvents.isEmpty() || maxWaitMs <= 0) {
+            return CompletableFuture.completedFuture(pullEvents);
+        }
+
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        pullEventWatcher.waiter = waiter;
+        // 挂起前再检查一次，避免错过挂起过程中产生的事件
+        if (!pendingEvents(pullEventWatcher).isEmpty()) {
+            waiter.complete(null);
+        } else {
+            scheduler.schedule(() -> waiter.complete(null), Math.min(maxWaitMs, pullEventIntervalMs), TimeUnit.MILLISECONDS);
+        }
+        return waiter.thenApplyAsync(ignored -> {
+            if (pullEventWatcher.waiter == waiter) {
+                pullEventWatcher.waiter = null;
+            }
+            return pullEvents(pullWatchId);
+        }, scheduler);
+    }
+
+    private List<PullEvent> pendingEvents(PullEventWatcher pullEventWatcher) {
+        long sequence = pullEventWatcher.sequence.get();
+        if (sequence < cachedEvents.head()) {
+            logger.warn("Pull events overwritten before acknowledged, sequence: [{}, {}).",
+                    sequence, cachedEvents.head());
+            pullEventWatcher.sequence.accumulateAndGet(cachedEvents.head(), Math::max);
+        }
+        PullEventRing.ReadResult result = cachedEvents.read(pullEventWatcher.sequence.get(), pullEventWatcher.filter);
+        // 不满足过滤条件的事件不会返回给这个监听，也就不会被确认，否则这些事件一直无法删除。
+        // 位置推进到第一个返回的事件，没有返回事件时推进到扫描结束的位置。
+        List<PullEvent> pullEvents = result.getEvents();
+        long skipTo = pullEvents.isEmpty() ? result.getEndSequence() : pullEvents.get(0).getSequence();
+        if (pullEventWatcher.sequence.getAndAccumulate(skipTo, Math::max) < skipTo) {
+            truncateCachedEvents();
+        }
+        return pullEvents;
+    }
+
+    // 删除所有监听都已经确认过的事件
+    private void truncateCachedEvents() {
+        long minSequence = cachedEvents.nextSequence();
+        for (PullEventWatcher pullEventWatcher : pullEventWatchers.values()) {
+            minSequence = Math.min(minSequence, pullEventWatcher.sequence.get());
+        }
+        cachedEvents.truncate(minSequence);
+    }
+
     /**
      * 确认事件。拉取成功后，调用此方法确认。
      * @param pullWatchId 监听ID
@@ -186,8 +289,10 @@ public class EventBus implements Watchable {
      */
     public void ackPullEvents(long pullWatchId, long sequence) {
         PullEventWatcher pullEventWatcher = pullEventWatchers.get(pullWatchId);
-        if (null != pullEventWatcher && pullEventWatcher.sequence.get() > sequence) {
-            pullEventWatcher.sequence.set(sequence);
+        if (null != pullEventWatcher) {
+            // 确认之后只返回sequence之后的事件
+            pullEventWatcher.sequence.accumulateAndGet(sequence + 1, Math::max);
+            truncateCachedEvents();
         }
     }
 
@@ -199,11 +304,22 @@ public class EventBus implements Watchable {
         return !eventWatchers.isEmpty();
     }
 
+    /**
+     * @return 缓存中最小的事件序号，小于这个序号的事件已经删除
+     */
+    long cachedEventsHead() {
+        return cachedEvents.head();
+    }
+
     private static class PullEventWatcher {
         private final AtomicLong sequence = new AtomicLong(0L);
+        private final EventFilter filter;
         private long lastPullTimestamp = System.currentTimeMillis();
-        PullEventWatcher(long sequence) {
+        // 挂起的长轮询请求
+        private volatile CompletableFuture<Void> waiter = null;
+        PullEventWatcher(long sequence, EventFilter filter) {
             this.sequence.set(sequence);
+            this.filter = filter;
         }
 
         void touch() {
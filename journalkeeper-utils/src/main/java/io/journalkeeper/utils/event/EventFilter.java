@@ -0,0 +1,106 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.event;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 服务端事件过滤条件，只有满足所有条件的事件才会发送给监听者。
+ * 未设置的条件不参与过滤。
+ */
+public class EventFilter {
+    /**
+     * 事件数据中分区的Key
+     */
+    public static final String PARTITION_KEY = "partition";
+    /**
+     * 事件数据中状态Key的Key
+     */
+    public static final String KEY_KEY = "key";
+    /**
+     * 不过滤任何事件
+     */
+    public static final EventFilter ALL = new EventFilter(null, null, null);
+
+    private final Set<Integer> eventTypes;
+    private final String partition;
+    private final String keyPrefix;
+
+    /**
+     * @param eventTypes 事件类型，为null或者为空时不过滤
+     * @param partition 分区，为null或者为空时不过滤
+     * @param keyPrefix key前缀，为null或者为空时不过滤
+     */
+    public EventFilter(Set<Integer> eventTypes, String partition, String keyPrefix) {
+        this.eventTypes = null == eventTypes ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(eventTypes));
+        this.partition = null == partition ? "" : partition;
+        this.keyPrefix = null == keyPrefix ? "" : keyPrefix;
+    }
+
+    public boolean accept(Event event) {
+        if (!eventTypes.isEmpty() && !eventTypes.contains(event.getEventType())) {
+            return false;
+        }
+        if (partition.isEmpty() && keyPrefix.isEmpty()) {
+            return true;
+        }
+        Map<String, String> eventData = event.getEventData();
+        if (null == eventData) {
+            return false;
+        }
+        if (!partition.isEmpty() && !partition.equals(eventData.get(PARTITION_KEY))) {
+            return false;
+        }
+        if (!keyPrefix.isEmpty()) {
+            String key = eventData.get(KEY_KEY);
+            return null != key && key.startsWith(keyPrefix);
+        }
+        return true;
+    }
+
+    public boolean isAll() {
+        return eventTypes.isEmpty() && partition.isEmpty() && keyPrefix.isEmpty();
+    }
+
+    public Set<Integer> getEventTypes() {
+        return eventTypes;
+    }
+
+    public String getPartition() {
+        return partition;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EventFilter that = (EventFilter) o;
+        return eventTypes.equals(that.eventTypes) &&
+                partition.equals(that.partition) &&
+                keyPrefix.equals(that.keyPrefix);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventTypes, partition, keyPrefix);
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 缓存pull事件的环形缓冲区。
+ * 写入无锁：先通过CAS申请序号，再写入序号对应的槽位，读取时遇到还未写入的槽位即停止。
+ * 缓存的事件数量不超过容量，超出时覆盖最旧的事件，
+ * 所有监听都确认过的事件通过 {@link #truncate(long)} 删除。
+ */
+class PullEventRing {
+    private final AtomicReferenceArray<PullEvent> slots;
+    private final int capacity;
+    private final int mask;
+    // 下一个事件的序号
+    private final AtomicLong nextSequence = new AtomicLong(0L);
+    // 缓存中最小的事件序号，小于这个序号的事件已经删除
+    private final AtomicLong head = new AtomicLong(0L);
+
+    PullEventRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * 写入一个事件
+     * @param event 事件
+     * @return 写入的事件
+     */
+    PullEvent append(Event event) {
+        long sequence = nextSequence.getAndIncrement();
+        if (sequence - head.get() >= capacity) {
+            // 缓冲区满了，丢弃最旧的事件
+            head.accumulateAndGet(sequence - capacity + 1, Math::max);
+        }
+        PullEvent pullEvent = new PullEvent(event.getEventType(), sequence, event.getEventData());
+        slots.set(index(sequence), pullEvent);
+        return pullEvent;
+    }
+
+    /**
+     * 读取从序号 {@code fromSequence} 开始所有满足过滤条件的事件，保证事件有序。
+     * @param fromSequence 开始序号，包含
+     * @param filter 过滤条件
+     * @return 读取结果，包括满足过滤条件的事件和扫描结束的位置
+     */
+    ReadResult read(long fromSequence, EventFilter filter) {
+        long end = nextSequence.get();
+        List<PullEvent> pullEvents = null;
+        long sequence = Math.max(fromSequence, head.get());
+        for (; sequence < end; sequence++) {
+            PullEvent pullEvent = slots.get(index(sequence));
+            if (null == pullEvent || pullEvent.getSequence() < sequence) {
+                // 还未写入，后面的事件下次再读
+                break;
+            }
+            if (pullEvent.getSequence() > sequence) {
+                // 已被覆盖
+                continue;
+            }
+            if (filter.accept(pullEvent)) {
+                if (null == pullEvents) {
+                    pullEvents = new ArrayList<>();
+                }
+                pullEvents.add(pullEvent);
+            }
+        }
+        return new ReadResult(null == pullEvents ? Collections.emptyList() : pullEvents, sequence);
+    }
+
+    /**
+     * 删除序号小于 {@code sequence} 的事件
+     * @param sequence 序号，不包含
+     */
+    void truncate(long sequence) {
+        long newHead = Math.min(sequence, nextSequence.get());
+        long oldHead;
+        do {
+            oldHead = head.get();
+            if (newHead <= oldHead) {
+                return;
+            }
+        } while (!head.compareAndSet(oldHead, newHead));
+
+        for (long i = Math.max(oldHead, newHead - capacity); i < newHead; i++) {
+            int index = index(i);
+            PullEvent pullEvent = slots.get(index);
+            if (null != pullEvent && pullEvent.getSequence() < newHead) {
+                slots.compareAndSet(index, pullEvent, null);
+            }
+        }
+    }
+
+    long nextSequence() {
+        return nextSequence.get();
+    }
+
+    long head() {
+        return head.get();
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+
+    static class ReadResult {
+        private final List<PullEvent> events;
+        private final long endSequence;
+
+        ReadResult(List<PullEvent> events, long endSequence) {
+            this.events = events;
+            this.endSequence = endSequence;
+        }
+
+        /**
+         * @return 满足过滤条件的事件，没有事件返回长度为0的List
+         */
+        List<PullEvent> getEvents() {
+            return events;
+        }
+
+        /**
+         * @return 扫描结束的位置，这个位置之前不满足过滤条件的事件都已经扫描过
+         */
+        long getEndSequence() {
+            return endSequence;
+        }
+    }
+}
@@ -21,5 +21,14 @@ package io.journalkeeper.utils.event;
 public interface Watchable {
     void watch(EventWatcher eventWatcher);
 
+    /**
+     * 添加事件监听器，只监听满足过滤条件的事件
+     * @param eventWatcher 事件监听器
+     * @param filter 过滤条件
+     */
+    default void watch(EventWatcher eventWatcher, EventFilter filter) {
+        watch(eventWatcher);
+    }
+
     void unWatch(EventWatcher eventWatcher);
 }
@@ -45,7 +45,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -112,6 +114,80 @@ public class FileUtils {
         }
     }
 
+    /**
+     * 增量复制目录：基准目录中相同相对路径的文件与源文件的大小和修改时间都相同时，认为文件没有变化，
+     * 创建指向基准文件的硬链接，否则复制源文件并保留修改时间。不支持硬链接时退化为复制。
+     * 硬链接的文件被多个目录共享，修改之前需要调用{@link #copyOnWrite(Path)}。
+     *
+     * @param srcPath 源目录
+     * @param destPath 目标目录
+     * @param basePath 基准目录，为null时全部复制
+     * @param filter 只复制filter返回true的文件和目录
+     * @throws IOException 发生IO异常时抛出
+     */
+    public static void dump(Path srcPath, Path destPath, Path basePath, Predicate<Path> filter) throws IOException {
+        List<Path> srcFiles = listAllFiles(srcPath);
+        Files.createDirectories(destPath);
+        for (Path srcFile : srcFiles) {
+            if (!filter.test(srcFile)) {
+                continue;
+            }
+            Path relativePath = srcPath.relativize(srcFile);
+            Path destFile = destPath.resolve(relativePath);
+            if (srcFile.toFile().isDirectory()) {
+                Files.createDirectories(destFile);
+                continue;
+            }
+            Files.createDirectories(destFile.getParent());
+            Path baseFile = null == basePath ? null : basePath.resolve(relativePath);
+            if (null == baseFile || !isUnchanged(srcFile, baseFile) || !tryCreateLink(destFile, baseFile)) {
+                Files.copy(srcFile, destFile, StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+    }
+
+    /**
+     * 写时复制：把目录中与其它目录共享（硬链接数大于1）的文件替换为独立的副本，之后可以安全的修改这些文件。
+     * 无法获取硬链接数时，替换所有文件。
+     *
+     * @param path 目录
+     * @throws IOException 发生IO异常时抛出
+     */
+    public static void copyOnWrite(Path path) throws IOException {
+        for (Path file : listAllFiles(path)) {
+            if (file.toFile().isFile() && isShared(file)) {
+                Path tempFile = file.resolveSibling(file.getFileName() + ".cow");
+                Files.copy(file, tempFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+    }
+
+    private static boolean isUnchanged(Path srcFile, Path baseFile) throws IOException {
+        return baseFile.toFile().isFile() &&
+                Files.size(srcFile) == Files.size(baseFile) &&
+                Files.getLastModifiedTime(srcFile).equals(Files.getLastModifiedTime(baseFile));
+    }
+
+    private static boolean tryCreateLink(Path link, Path existing) {
+        try {
+            Files.createLink(link, existing);
+            return true;
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.debug("Create link {} -> {} failed, copy instead, cause: {}.", link, existing, e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean isShared(Path file) {
+        try {
+            Object linkCount = Files.getAttribute(file, "unix:nlink");
+            return !(linkCount instanceof Integer) || (Integer) linkCount > 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return true;
+        }
+    }
+
     public static void createIfNotExists(Path path) throws IOException{
         if (!Files.exists(path) &&!path.toFile().createNewFile()) {
             throw new IOException(
@@ -0,0 +1,120 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.locks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 流控等待条件，用于替代自旋等待。
+ * 生产者在资源不足（比如缓冲区满、脏数据太多）时调用 {@link #await(BooleanSupplier)} 挂起，
+ * 消费者每次取得进展（比如刷盘、回调）后调用 {@link #signalAll()} 唤醒等待的生产者。
+ * 没有等待者时 {@link #signalAll()} 不加锁。
+ *
+ * 同时统计等待的线程数和累计等待时间，用于监控。
+ */
+public class ProgressCondition {
+    // 挂起的最长时间，防止消费者漏掉唤醒时生产者一直挂起
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    private final AtomicInteger waiting = new AtomicInteger(0);
+    private final LongAdder stallNanos = new LongAdder();
+    private final LongAdder stallCount = new LongAdder();
+
+    /**
+     * 等待直到条件满足
+     * @param ready 条件
+     * @throws InterruptedException 等待时被中断
+     */
+    public void await(BooleanSupplier ready) throws InterruptedException {
+        await(ready, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 等待直到条件满足或者超时
+     * @param ready 条件
+     * @param timeout 超时时间
+     * @param unit 超时时间单位
+     * @return 条件满足返回true，超时返回false
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean await(BooleanSupplier ready, long timeout, TimeUnit unit) throws InterruptedException {
+        if (ready.getAsBoolean()) {
+            return true;
+        }
+        long start = System.nanoTime();
+        long timeoutNanos = unit.toNanos(timeout);
+        // 先登记再检查条件，保证不会漏掉唤醒
+        waiting.incrementAndGet();
+        stallCount.increment();
+        try {
+            lock.lockInterruptibly();
+            try {
+                while (!ready.getAsBoolean()) {
+                    long remaining = timeoutNanos - (System.nanoTime() - start);
+                    if (remaining <= 0L) {
+                        return false;
+                    }
+                    progress.awaitNanos(Math.min(remaining, MAX_PARK_NANOS));
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            waiting.decrementAndGet();
+            stallNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 唤醒所有等待者重新检查条件
+     */
+    public void signalAll() {
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return 当前等待的线程数
+     */
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    /**
+     * @return 累计等待次数
+     */
+    public long getStallCount() {
+        return stallCount.sum();
+    }
+
+    /**
+     * @return 累计等待时间，单位毫秒
+     */
+    public long getStallTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(stallNanos.sum());
+    }
+}
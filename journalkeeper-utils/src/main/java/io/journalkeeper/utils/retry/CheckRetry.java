@@ -21,4 +21,13 @@ public interface CheckRetry<R> {
     boolean checkException(Throwable exception);
 
     boolean checkResult(R result);
+
+    /**
+     * 服务端建议的重试等待时间
+     * @param result 需要重试的结果
+     * @return 等待时间，单位毫秒，小于等于0表示没有建议
+     */
+    default long retryAfterMs(R result) {
+        return 0L;
+    }
 }
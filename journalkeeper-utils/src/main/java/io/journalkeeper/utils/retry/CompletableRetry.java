@@ -78,6 +78,9 @@ public class CompletableRetry<D/* 对端地址类型 */> {
                     }
                     if (retry) {
                         long delay = retryPolicy.getRetryDelayMs(retryInvoke.getInvokeTimes());
+                        if (delay >= 0 && null != r.getResult()) {
+                            delay = Math.max(delay, checkRetry.retryAfterMs(r.getResult()));
+                        }
                         logger.debug("Retry, invokes times: {}, " +
                                         "last result: {}, " +
                                         "last destination: {}, " +
@@ -36,6 +36,7 @@ abstract class LoopThread implements AsyncLoopThread {
     private boolean daemon;
     private volatile ServerState serverState = ServerState.STOPPED;
     private AtomicBoolean needToWakeUp = new AtomicBoolean(false);
+    private final AtomicBoolean wakeupRequested = new AtomicBoolean(false);
 
     /**
      * 每次循环需要执行的代码。
@@ -113,17 +114,8 @@ abstract class LoopThread implements AsyncLoopThread {
         while (serverState == ServerState.RUNNING) {
 
             long t0 = System.nanoTime();
-            try {
-                if (condition()) {
-                    doWork();
-                }
-
-            } catch (InterruptedException i) {
-                Thread.currentThread().interrupt();
-            } catch (Throwable t) {
-                if (!handleException(t)) {
-                    break;
-                }
+            if (!runOnce()) {
+                break;
             }
             try {
                 long t1 = System.nanoTime();
@@ -134,8 +126,12 @@ abstract class LoopThread implements AsyncLoopThread {
                     wakeupLock.lock();
                     try {
                         needToWakeUp.set(true);
-                        wakeupCondition.await(minSleep < maxSleep ? ThreadLocalRandom.current().nextLong(minSleep, maxSleep) : minSleep, TimeUnit.MILLISECONDS);
-
+                        // doWork期间有唤醒请求，不再等待
+                        if (wakeupRequested.compareAndSet(true, false)) {
+                            needToWakeUp.set(false);
+                        } else {
+                            wakeupCondition.await(nextSleepMs(), TimeUnit.MILLISECONDS);
+                        }
                     } finally {
                         wakeupLock.unlock();
                     }
@@ -148,12 +144,35 @@ abstract class LoopThread implements AsyncLoopThread {
         serverState = ServerState.STOPPED;
     }
 
+    /**
+     * 执行一次循环体。
+     * @return false：结束循环
+     */
+    boolean runOnce() {
+        wakeupRequested.set(false);
+        try {
+            if (condition()) {
+                doWork();
+            }
+
+        } catch (InterruptedException i) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            return handleException(t);
+        }
+        return true;
+    }
+
+    long nextSleepMs() {
+        return minSleep < maxSleep ? ThreadLocalRandom.current().nextLong(minSleep, maxSleep) : minSleep;
+    }
+
     /**
      * 唤醒任务如果任务在Sleep
      */
     @Override
     public void wakeup() {
-
+        wakeupRequested.set(true);
         if (needToWakeUp.compareAndSet(true, false)) {
             wakeupLock.lock();
             try {
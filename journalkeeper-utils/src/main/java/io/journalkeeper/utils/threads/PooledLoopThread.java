@@ -0,0 +1,130 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.threads;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 在共享线程池中执行的LoopThread。
+ * 每次循环执行完成后，将下一次循环重新提交到线程池中，循环之间的休眠用定时任务代替，
+ * 休眠期间不占用任何线程。
+ * 循环体中不能有长时间阻塞的操作，否则会占用共享线程池中的线程。
+ */
+class PooledLoopThread implements AsyncLoopThread {
+    private final LoopThread loopThread;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean wakeupRequested = new AtomicBoolean(false);
+    private volatile ServerState serverState = ServerState.STOPPED;
+    private ScheduledFuture<?> next = null;
+
+    PooledLoopThread(LoopThread loopThread, ScheduledExecutorService executor) {
+        this.loopThread = loopThread;
+        this.executor = executor;
+    }
+
+    @Override
+    public String getName() {
+        return loopThread.getName();
+    }
+
+    @Override
+    public boolean isDaemon() {
+        return loopThread.isDaemon();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (serverState == ServerState.STOPPED) {
+            serverState = ServerState.RUNNING;
+            next = executor.schedule(this, 0L, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (this) {
+            if (serverState == ServerState.STOPPED) {
+                return;
+            }
+            serverState = ServerState.STOPPING;
+            // 下一次循环还没开始执行，直接取消
+            if (null == next || next.cancel(false)) {
+                next = null;
+                serverState = ServerState.STOPPED;
+                return;
+            }
+        }
+        // 等待正在执行的循环结束
+        while (serverState != ServerState.STOPPED) {
+            try {
+                Thread.sleep(10L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    @Override
+    public ServerState serverState() {
+        return serverState;
+    }
+
+    @Override
+    public void run() {
+        if (serverState != ServerState.RUNNING) {
+            onStopped();
+            return;
+        }
+        wakeupRequested.set(false);
+        long t0 = System.nanoTime();
+        boolean goOn = loopThread.runOnce();
+        long t1 = System.nanoTime();
+
+        // 和LoopThread一样，执行时间过短并且没有唤醒请求时，等一会儿再进行下一次循环
+        long delayMs = 0L;
+        if (t1 - t0 < TimeUnit.MILLISECONDS.toNanos(loopThread.minSleep) && !wakeupRequested.get()) {
+            delayMs = loopThread.nextSleepMs();
+        }
+
+        synchronized (this) {
+            if (goOn && serverState == ServerState.RUNNING) {
+                next = executor.schedule(this, delayMs, TimeUnit.MILLISECONDS);
+            } else {
+                next = null;
+                serverState = ServerState.STOPPED;
+            }
+        }
+    }
+
+    private synchronized void onStopped() {
+        next = null;
+        serverState = ServerState.STOPPED;
+    }
+
+    @Override
+    public void wakeup() {
+        wakeupRequested.set(true);
+        synchronized (this) {
+            // 正在休眠的循环提前执行，正在执行的循环通过wakeupRequested跳过下次休眠
+            if (serverState == ServerState.RUNNING && null != next &&
+                    next.getDelay(TimeUnit.MILLISECONDS) > 0 && next.cancel(false)) {
+                next = executor.schedule(this, 0L, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
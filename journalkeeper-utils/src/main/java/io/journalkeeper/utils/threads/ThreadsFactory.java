@@ -13,6 +13,8 @@
  */
 package io.journalkeeper.utils.threads;
 
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
  * @author LiYue
  * Date: 2019-06-21
@@ -21,4 +23,14 @@ public class ThreadsFactory {
     public static Threads create() {
         return new ThreadsManager();
     }
+
+    /**
+     * 创建一组共享线程池的线程，所有线程的循环体都在executor中执行，不再占用独立的线程。
+     * 适用于同一个进程中运行大量Server实例的场景。
+     * @param executor 共享的线程池
+     * @return Threads实例
+     */
+    public static Threads create(ScheduledExecutorService executor) {
+        return new ThreadsManager(executor);
+    }
 }
@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * @author LiYue
@@ -27,15 +28,27 @@ import java.util.concurrent.CompletableFuture;
 public class ThreadsManager implements Threads {
 
     private final Map<String, AsyncLoopThread> threadMap;
+    private final ScheduledExecutorService sharedExecutor;
     private ServerState serverState = ServerState.STOPPED;
 
     public ThreadsManager() {
+        this(null);
+    }
+
+    /**
+     * @param sharedExecutor 不为null时，所有线程的循环体都在这个线程池中执行
+     */
+    public ThreadsManager(ScheduledExecutorService sharedExecutor) {
         this.threadMap = new HashMap<>();
+        this.sharedExecutor = sharedExecutor;
     }
 
 
     @Override
     public void createThread(AsyncLoopThread asyncThread) {
+        if (null != sharedExecutor && asyncThread instanceof LoopThread) {
+            asyncThread = new PooledLoopThread((LoopThread) asyncThread, sharedExecutor);
+        }
         if (null != threadMap.putIfAbsent(asyncThread.getName(), asyncThread)) {
             throw new IllegalStateException(String.format("Thread name \"%s\" already exists.", asyncThread.getName()));
         }
@@ -0,0 +1,183 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.event;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件总线pull模式测试
+ */
+public class EventBusTest {
+    private static final int TYPE_A = 1;
+    private static final int TYPE_B = 2;
+    private EventBus eventBus;
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void before() {
+        eventBus = new EventBus(1000L, 16);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void after() {
+        eventBus.shutdown();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void pullAndAckTest() {
+        long watchId = eventBus.addPullWatch();
+        fire(TYPE_A, TYPE_A, TYPE_A);
+
+        List<PullEvent> pullEvents = eventBus.pullEvents(watchId);
+        Assert.assertEquals(3, pullEvents.size());
+        for (int i = 0; i < pullEvents.size(); i++) {
+            Assert.assertEquals(i, pullEvents.get(i).getSequence());
+        }
+        // 确认之前重复拉取返回相同的事件
+        Assert.assertEquals(3, eventBus.pullEvents(watchId).size());
+
+        eventBus.ackPullEvents(watchId, 1L);
+        pullEvents = eventBus.pullEvents(watchId);
+        Assert.assertEquals(1, pullEvents.size());
+        Assert.assertEquals(2L, pullEvents.get(0).getSequence());
+        Assert.assertEquals(2L, eventBus.cachedEventsHead());
+
+        eventBus.ackPullEvents(watchId, 2L);
+        Assert.assertTrue(eventBus.pullEvents(watchId).isEmpty());
+        Assert.assertEquals(3L, eventBus.cachedEventsHead());
+
+        eventBus.removePullWatch(watchId);
+        Assert.assertNull(eventBus.pullEvents(watchId));
+    }
+
+    /**
+     * 没有事件时长轮询请求挂起，有新事件时立即返回
+     */
+    @Test
+    public void longPollWakeupTest() throws Exception {
+        long watchId = eventBus.addPullWatch();
+        CompletableFuture<List<PullEvent>> future = eventBus.pullEvents(watchId, 10000L, scheduler);
+        Thread.sleep(50L);
+        Assert.assertFalse(future.isDone());
+
+        long start = System.currentTimeMillis();
+        fire(TYPE_A);
+        List<PullEvent> pullEvents = future.get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000L);
+        Assert.assertEquals(1, pullEvents.size());
+        Assert.assertEquals(TYPE_A, pullEvents.get(0).getEventType());
+    }
+
+    /**
+     * 有未确认的事件时长轮询请求立即返回
+     */
+    @Test
+    public void longPollPendingEventsTest() throws Exception {
+        long watchId = eventBus.addPullWatch();
+        fire(TYPE_A);
+        CompletableFuture<List<PullEvent>> future = eventBus.pullEvents(watchId, 10000L, scheduler);
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals(1, future.get().size());
+    }
+
+    /**
+     * 没有新事件时等待超时后返回空列表
+     */
+    @Test
+    public void longPollTimeoutTest() throws Exception {
+        long watchId = eventBus.addPullWatch();
+        long start = System.currentTimeMillis();
+        List<PullEvent> pullEvents = eventBus.pullEvents(watchId, 100L, scheduler).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(System.currentTimeMillis() - start >= 100L);
+        Assert.assertTrue(pullEvents.isEmpty());
+
+        // 等待时间不超过pull间隔
+        start = System.currentTimeMillis();
+        pullEvents = eventBus.pullEvents(watchId, 60000L, scheduler).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000L);
+        Assert.assertTrue(pullEvents.isEmpty());
+
+        // 监听不存在时返回null
+        Assert.assertNull(eventBus.pullEvents(watchId + 1, 100L, scheduler).get());
+    }
+
+    /**
+     * 不满足过滤条件的事件不唤醒挂起的长轮询请求
+     */
+    @Test
+    public void longPollFilterTest() throws Exception {
+        long watchId = eventBus.addPullWatch(new EventFilter(Collections.singleton(TYPE_B), null, null));
+        CompletableFuture<List<PullEvent>> future = eventBus.pullEvents(watchId, 10000L, scheduler);
+        fire(TYPE_A);
+        Thread.sleep(100L);
+        Assert.assertFalse(future.isDone());
+
+        fire(TYPE_B);
+        List<PullEvent> pullEvents = future.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, pullEvents.size());
+        Assert.assertEquals(TYPE_B, pullEvents.get(0).getEventType());
+        Assert.assertEquals(1L, pullEvents.get(0).getSequence());
+    }
+
+    /**
+     * 带过滤条件的监听跳过不满足条件的事件，不阻止其它监听确认过的事件被删除
+     */
+    @Test
+    public void filteredAckTest() {
+        long allWatchId = eventBus.addPullWatch();
+        long filteredWatchId = eventBus.addPullWatch(new EventFilter(Collections.singleton(TYPE_B), null, null));
+
+        fire(TYPE_A, TYPE_A, TYPE_A, TYPE_A, TYPE_A);
+        Assert.assertEquals(5, eventBus.pullEvents(allWatchId).size());
+        eventBus.ackPullEvents(allWatchId, 4L);
+        Assert.assertEquals(0L, eventBus.cachedEventsHead());
+
+        // 拉取时跳过不满足过滤条件的事件
+        Assert.assertTrue(eventBus.pullEvents(filteredWatchId).isEmpty());
+        Assert.assertEquals(5L, eventBus.cachedEventsHead());
+
+        fire(TYPE_A, TYPE_B, TYPE_A);
+        Assert.assertEquals(3, eventBus.pullEvents(allWatchId).size());
+        eventBus.ackPullEvents(allWatchId, 7L);
+
+        // 只跳过第一个返回的事件之前的事件，返回的事件确认之前不能删除
+        List<PullEvent> pullEvents = eventBus.pullEvents(filteredWatchId);
+        Assert.assertEquals(1, pullEvents.size());
+        Assert.assertEquals(6L, pullEvents.get(0).getSequence());
+        Assert.assertEquals(6L, eventBus.cachedEventsHead());
+
+        eventBus.ackPullEvents(filteredWatchId, 6L);
+        Assert.assertEquals(7L, eventBus.cachedEventsHead());
+        Assert.assertTrue(eventBus.pullEvents(filteredWatchId).isEmpty());
+        Assert.assertEquals(8L, eventBus.cachedEventsHead());
+    }
+
+    private void fire(int... eventTypes) {
+        for (int eventType : eventTypes) {
+            eventBus.fireEvent(new Event(eventType, Collections.emptyMap()));
+        }
+    }
+}
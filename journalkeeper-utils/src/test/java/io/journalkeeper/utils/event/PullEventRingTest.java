@@ -0,0 +1,183 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * pull事件环形缓冲区测试
+ */
+public class PullEventRingTest {
+
+    /**
+     * 容量向上取整到2的幂
+     */
+    @Test
+    public void sizeTest() {
+        assertCapacity(1, 1);
+        assertCapacity(4, 3);
+        assertCapacity(8, 8);
+        assertCapacity(16, 9);
+        try {
+            new PullEventRing(0);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void appendAndReadTest() {
+        PullEventRing ring = new PullEventRing(8);
+        Assert.assertTrue(ring.read(0L, EventFilter.ALL).getEvents().isEmpty());
+        Assert.assertEquals(0L, ring.read(0L, EventFilter.ALL).getEndSequence());
+
+        append(ring, 5);
+        PullEventRing.ReadResult result = ring.read(0L, EventFilter.ALL);
+        assertSequences(result.getEvents(), 0L, 5L);
+        Assert.assertEquals(5L, result.getEndSequence());
+        assertSequences(ring.read(3L, EventFilter.ALL).getEvents(), 3L, 5L);
+        Assert.assertEquals(5L, ring.nextSequence());
+        Assert.assertEquals(0L, ring.head());
+    }
+
+    /**
+     * 序号超过容量后循环使用槽位
+     */
+    @Test
+    public void wraparoundTest() {
+        PullEventRing ring = new PullEventRing(4);
+        for (int round = 0; round < 10; round++) {
+            append(ring, 3);
+            long next = ring.nextSequence();
+            assertSequences(ring.read(next - 3, EventFilter.ALL).getEvents(), next - 3, next);
+            ring.truncate(next);
+            Assert.assertEquals(next, ring.head());
+            Assert.assertTrue(ring.read(next, EventFilter.ALL).getEvents().isEmpty());
+        }
+        Assert.assertEquals(30L, ring.nextSequence());
+    }
+
+    @Test
+    public void truncateTest() {
+        PullEventRing ring = new PullEventRing(8);
+        append(ring, 6);
+
+        ring.truncate(4L);
+        Assert.assertEquals(4L, ring.head());
+        // 已删除的事件不再返回
+        assertSequences(ring.read(0L, EventFilter.ALL).getEvents(), 4L, 6L);
+
+        // 不能后退
+        ring.truncate(2L);
+        Assert.assertEquals(4L, ring.head());
+
+        // 不超过下一个事件的序号
+        ring.truncate(100L);
+        Assert.assertEquals(6L, ring.head());
+        Assert.assertTrue(ring.read(0L, EventFilter.ALL).getEvents().isEmpty());
+
+        append(ring, 1);
+        assertSequences(ring.read(0L, EventFilter.ALL).getEvents(), 6L, 7L);
+    }
+
+    /**
+     * 缓冲区写满时覆盖最旧的事件，读取时跳过被覆盖的事件
+     */
+    @Test
+    public void overwriteTest() {
+        PullEventRing ring = new PullEventRing(4);
+        append(ring, 6);
+        Assert.assertEquals(2L, ring.head());
+        // 从已被覆盖的位置开始读取时，从缓存中最小的事件开始返回
+        PullEventRing.ReadResult result = ring.read(0L, EventFilter.ALL);
+        assertSequences(result.getEvents(), 2L, 6L);
+        Assert.assertEquals(6L, result.getEndSequence());
+
+        append(ring, 4);
+        Assert.assertEquals(6L, ring.head());
+        assertSequences(ring.read(3L, EventFilter.ALL).getEvents(), 6L, 10L);
+    }
+
+    /**
+     * 过滤掉的事件不返回，但是扫描结束的位置包含这些事件
+     */
+    @Test
+    public void filterTest() {
+        PullEventRing ring = new PullEventRing(8);
+        EventFilter filter = new EventFilter(Collections.singleton(2), null, null);
+        ring.append(new Event(1, Collections.emptyMap()));
+        ring.append(new Event(2, Collections.emptyMap()));
+        ring.append(new Event(1, Collections.emptyMap()));
+
+        PullEventRing.ReadResult result = ring.read(0L, filter);
+        Assert.assertEquals(1, result.getEvents().size());
+        Assert.assertEquals(1L, result.getEvents().get(0).getSequence());
+        Assert.assertEquals(3L, result.getEndSequence());
+
+        result = ring.read(2L, filter);
+        Assert.assertTrue(result.getEvents().isEmpty());
+        Assert.assertEquals(3L, result.getEndSequence());
+    }
+
+    /**
+     * 并发写入时每个事件的序号唯一并且连续
+     */
+    @Test
+    public void concurrentAppendTest() throws Exception {
+        int threads = 4, eventsPerThread = 1000;
+        PullEventRing ring = new PullEventRing(threads * eventsPerThread);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                append(ring, eventsPerThread);
+                latch.countDown();
+            }).start();
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertSequences(ring.read(0L, EventFilter.ALL).getEvents(), 0L, threads * eventsPerThread);
+    }
+
+    private static void assertCapacity(int expected, int capacity) {
+        PullEventRing ring = new PullEventRing(capacity);
+        append(ring, expected + 1);
+        // 超过容量一个事件，最旧的事件被覆盖
+        Assert.assertEquals(1L, ring.head());
+        Assert.assertEquals(expected, ring.read(0L, EventFilter.ALL).getEvents().size());
+    }
+
+    private static void append(PullEventRing ring, int count) {
+        for (int i = 0; i < count; i++) {
+            ring.append(new Event(1, Collections.emptyMap()));
+        }
+    }
+
+    private static void assertSequences(List<PullEvent> pullEvents, long from, long to) {
+        List<Long> expected = new ArrayList<>();
+        for (long sequence = from; sequence < to; sequence++) {
+            expected.add(sequence);
+        }
+        List<Long> actual = new ArrayList<>();
+        for (PullEvent pullEvent : pullEvents) {
+            actual.add(pullEvent.getSequence());
+        }
+        Assert.assertEquals(expected, actual);
+    }
+}
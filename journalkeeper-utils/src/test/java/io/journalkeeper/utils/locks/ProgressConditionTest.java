@@ -0,0 +1,134 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.locks;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 流控等待条件测试
+ */
+public class ProgressConditionTest {
+
+    /**
+     * 条件已经满足时不等待
+     */
+    @Test
+    public void readyTest() throws Exception {
+        ProgressCondition condition = new ProgressCondition();
+        condition.await(() -> true);
+        Assert.assertTrue(condition.await(() -> true, 0L, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0L, condition.getStallCount());
+        Assert.assertEquals(0, condition.getWaitingCount());
+    }
+
+    /**
+     * 取得进展后唤醒等待者
+     */
+    @Test
+    public void wakeupTest() throws Exception {
+        ProgressCondition condition = new ProgressCondition();
+        AtomicBoolean ready = new AtomicBoolean(false);
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return condition.await(ready::get, 10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waitForWaiters(condition, 1);
+        // 没有进展时一直等待
+        Thread.sleep(50L);
+        Assert.assertFalse(waiter.isDone());
+
+        ready.set(true);
+        condition.signalAll();
+        Assert.assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, condition.getWaitingCount());
+        Assert.assertEquals(1L, condition.getStallCount());
+        Assert.assertTrue(condition.getStallTimeMs() >= 50L);
+    }
+
+    /**
+     * 漏掉唤醒时，等待者也会定期重新检查条件
+     */
+    @Test
+    public void missedSignalTest() throws Exception {
+        ProgressCondition condition = new ProgressCondition();
+        AtomicBoolean ready = new AtomicBoolean(false);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try {
+                condition.await(ready::get);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waitForWaiters(condition, 1);
+        ready.set(true);
+        waiter.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(0, condition.getWaitingCount());
+    }
+
+    @Test
+    public void timeoutTest() throws Exception {
+        ProgressCondition condition = new ProgressCondition();
+        long start = System.nanoTime();
+        Assert.assertFalse(condition.await(() -> false, 50L, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50L));
+        Assert.assertEquals(0, condition.getWaitingCount());
+        Assert.assertEquals(1L, condition.getStallCount());
+
+        // 超时前条件满足返回true
+        long deadline = System.currentTimeMillis() + 30L;
+        Assert.assertTrue(condition.await(() -> System.currentTimeMillis() >= deadline, 5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void interruptTest() throws Exception {
+        ProgressCondition condition = new ProgressCondition();
+        CompletableFuture<Void> interrupted = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                condition.await(() -> false);
+                interrupted.complete(null);
+            } catch (InterruptedException e) {
+                interrupted.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        waitForWaiters(condition, 1);
+        thread.interrupt();
+        try {
+            interrupted.get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof InterruptedException);
+        }
+        thread.join(5000L);
+        Assert.assertEquals(0, condition.getWaitingCount());
+    }
+
+    private static void waitForWaiters(ProgressCondition condition, int waiters) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (condition.getWaitingCount() < waiters) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5L);
+        }
+    }
+}
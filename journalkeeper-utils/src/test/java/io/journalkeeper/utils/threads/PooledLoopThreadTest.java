@@ -0,0 +1,234 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.threads;
+
+import io.journalkeeper.utils.state.StateServer.ServerState;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 共享线程池中的LoopThread测试
+ */
+public class PooledLoopThreadTest {
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void before() {
+        executor = Executors.newScheduledThreadPool(2);
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 线程数远多于线程池的线程数时，所有线程的循环体都能执行
+     */
+    @Test
+    public void manyLoopsInSmallPoolTest() throws Exception {
+        int loops = 50;
+        Threads threads = ThreadsFactory.create(executor);
+        CountDownLatch latch = new CountDownLatch(loops * 3);
+        AtomicInteger[] counters = new AtomicInteger[loops];
+        for (int i = 0; i < loops; i++) {
+            AtomicInteger counter = counters[i] = new AtomicInteger(0);
+            threads.createThread(ThreadBuilder.builder()
+                    .name("loop-" + i)
+                    .doWork(() -> {
+                        if (counter.incrementAndGet() <= 3) {
+                            latch.countDown();
+                        }
+                    })
+                    .sleepTime(1L, 1L)
+                    .build());
+        }
+        threads.start();
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        threads.stop();
+        for (int i = 0; i < loops; i++) {
+            Assert.assertEquals(ServerState.STOPPED, threads.getTreadState("loop-" + i));
+            Assert.assertTrue(counters[i].get() >= 3);
+        }
+    }
+
+    /**
+     * 休眠期间唤醒，立即执行下一次循环
+     */
+    @Test
+    public void wakeupTest() throws Exception {
+        AtomicInteger counter = new AtomicInteger(0);
+        PooledLoopThread thread = createThread("wakeup", counter::incrementAndGet, 60000L);
+        thread.start();
+        waitFor(() -> counter.get() == 1);
+        // 第一次循环之后进入很长的休眠
+        Thread.sleep(50L);
+        Assert.assertEquals(1, counter.get());
+
+        thread.wakeup();
+        waitFor(() -> counter.get() == 2);
+        thread.wakeup();
+        waitFor(() -> counter.get() == 3);
+        thread.stop();
+        Assert.assertEquals(ServerState.STOPPED, thread.serverState());
+    }
+
+    /**
+     * 循环体执行期间的唤醒请求，跳过下一次休眠
+     */
+    @Test
+    public void wakeupWhileRunningTest() throws Exception {
+        AtomicInteger counter = new AtomicInteger(0);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        PooledLoopThread thread = createThread("wakeup-running", () -> {
+            if (counter.incrementAndGet() == 1) {
+                running.countDown();
+                proceed.await();
+            }
+        }, 60000L);
+        thread.start();
+        Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+        thread.wakeup();
+        proceed.countDown();
+        waitFor(() -> counter.get() == 2);
+        thread.stop();
+    }
+
+    /**
+     * 休眠的线程不占用线程池中的线程
+     */
+    @Test
+    public void sleepingLoopReleasesThreadTest() throws Exception {
+        ScheduledExecutorService singleThreadExecutor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            AtomicInteger sleeping = new AtomicInteger(0);
+            AtomicInteger busy = new AtomicInteger(0);
+            PooledLoopThread sleepingThread = new PooledLoopThread(
+                    (LoopThread) ThreadBuilder.builder().name("sleeping").doWork(sleeping::incrementAndGet)
+                            .sleepTime(60000L, 60000L).build(), singleThreadExecutor);
+            PooledLoopThread busyThread = new PooledLoopThread(
+                    (LoopThread) ThreadBuilder.builder().name("busy").doWork(busy::incrementAndGet)
+                            .sleepTime(1L, 1L).build(), singleThreadExecutor);
+            sleepingThread.start();
+            waitFor(() -> sleeping.get() == 1);
+            busyThread.start();
+            waitFor(() -> busy.get() >= 10);
+            Assert.assertEquals(1, sleeping.get());
+            sleepingThread.stop();
+            busyThread.stop();
+        } finally {
+            singleThreadExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 停止时等待正在执行的循环结束，停止后不再执行
+     */
+    @Test
+    public void stopTest() throws Exception {
+        AtomicInteger counter = new AtomicInteger(0);
+        CountDownLatch running = new CountDownLatch(1);
+        PooledLoopThread thread = createThread("stop", () -> {
+            counter.incrementAndGet();
+            running.countDown();
+            Thread.sleep(100L);
+        }, 1L);
+        thread.start();
+        Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+        thread.stop();
+        Assert.assertEquals(ServerState.STOPPED, thread.serverState());
+        int count = counter.get();
+        Thread.sleep(200L);
+        Assert.assertEquals(count, counter.get());
+
+        // 停止后可以重新启动
+        thread.start();
+        waitFor(() -> counter.get() > count);
+        thread.stop();
+    }
+
+    /**
+     * 异常处理返回false时结束循环
+     */
+    @Test
+    public void exceptionTest() throws Exception {
+        AtomicInteger counter = new AtomicInteger(0);
+        AtomicInteger exceptions = new AtomicInteger(0);
+        PooledLoopThread thread = new PooledLoopThread((LoopThread) ThreadBuilder.builder()
+                .name("exception")
+                .doWork(() -> {
+                    if (counter.incrementAndGet() == 3) {
+                        throw new IllegalStateException();
+                    }
+                })
+                .sleepTime(1L, 1L)
+                .onException(e -> exceptions.incrementAndGet())
+                .handleException(e -> false)
+                .build(), executor);
+        thread.start();
+        waitFor(() -> thread.serverState() == ServerState.STOPPED);
+        Assert.assertEquals(3, counter.get());
+        Assert.assertEquals(1, exceptions.get());
+    }
+
+    /**
+     * ThreadsFactory.create(executor)创建的线程在共享线程池中执行
+     */
+    @Test
+    public void threadsFactoryTest() {
+        Threads threads = ThreadsFactory.create(executor);
+        threads.createThread(ThreadBuilder.builder().name("pooled").doWork(() -> {}).build());
+        threads.start();
+        Assert.assertEquals(ServerState.RUNNING, threads.getTreadState("pooled"));
+        threads.wakeupThread("pooled");
+        Assert.assertTrue(threads.exists("pooled"));
+        try {
+            threads.createThread(ThreadBuilder.builder().name("pooled").doWork(() -> {}).build());
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+        threads.stopThread("pooled");
+        Assert.assertEquals(ServerState.STOPPED, threads.getTreadState("pooled"));
+        threads.removeThread("pooled");
+        Assert.assertFalse(threads.exists("pooled"));
+        threads.stop();
+        Assert.assertEquals(ServerState.STOPPED, threads.serverState());
+    }
+
+    private PooledLoopThread createThread(String name, Worker worker, long sleepMs) {
+        return new PooledLoopThread((LoopThread) ThreadBuilder.builder()
+                .name(name)
+                .doWork(worker)
+                .sleepTime(sleepMs, sleepMs)
+                .build(), executor);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5L);
+        }
+    }
+}